@@ -1,5 +1,7 @@
 package com.shamkhi.deligo.application.controller;
 
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeResponse;
+import com.shamkhi.deligo.domain.livraison.service.ZoneChargeService;
 import com.shamkhi.deligo.domain.security.dto.PermissionDTO;
 import com.shamkhi.deligo.domain.security.dto.RegisterRequest;
 import com.shamkhi.deligo.domain.security.dto.RoleDTO;
@@ -24,11 +26,12 @@ import java.util.Set;
 @RequiredArgsConstructor
 @Tag(name = "Administration", description = "Endpoints d'administration (GESTIONNAIRE uniquement)")
 @SecurityRequirement(name = "Bearer Authentication")
-@PreAuthorize("hasRole('MANAGER')")
+@PreAuthorize("hasPermission(null, 'ROLE_MANAGER')")
 public class AdminController {
 
     private final UserService userService;
     private final PermissionService permissionService;
+    private final ZoneChargeService zoneChargeService;
 
     // ========== User Management ==========
 
@@ -184,4 +187,13 @@ public class AdminController {
     public ResponseEntity<Set<PermissionDTO>> getPermissionsForRole(@PathVariable String roleId) {
         return ResponseEntity.ok(permissionService.getPermissionsForRole(roleId));
     }
-}
\ No newline at end of file
+
+    // ========== Vues matérialisées ==========
+
+    @PostMapping("/zones/charge/rafraichir")
+    @Operation(summary = "Rafraîchit immédiatement la charge des zones")
+    public ResponseEntity<ZoneChargeResponse> rafraichirChargeZones() {
+        zoneChargeService.rafraichir();
+        return ResponseEntity.ok(zoneChargeService.getCharge(null));
+    }
+}
@@ -2,7 +2,12 @@ package com.shamkhi.deligo.application.controller;
 
 import com.shamkhi.deligo.domain.colis.dto.*;
 import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
 import com.shamkhi.deligo.domain.colis.service.ColisService;
+import com.shamkhi.deligo.domain.colis.service.DureeStatutService;
+import com.shamkhi.deligo.domain.colis.service.FluxColisService;
+import com.shamkhi.deligo.domain.livraison.dto.PolygoneRequest;
+import com.shamkhi.deligo.domain.livraison.service.IndexSpatialService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,9 +17,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -25,6 +33,9 @@ import java.util.List;
 public class ColisController {
 
     private final ColisService service;
+    private final DureeStatutService dureeStatutService;
+    private final IndexSpatialService indexSpatialService;
+    private final FluxColisService fluxColisService;
 
     @GetMapping
     @Operation(summary = "Liste tous les colis")
@@ -44,6 +55,24 @@ public class ColisController {
         return ResponseEntity.ok(service.getColisByIdForUser(id, auth));
     }
 
+    @GetMapping(value = "/{id}/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flux SSE des changements d'un colis")
+    public SseEmitter suivreColis(@PathVariable String id, Authentication auth) {
+        return fluxColisService.abonnerColis(id, auth);
+    }
+
+    @GetMapping(value = "/flux/client/{clientId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flux SSE des changements des colis d'un client")
+    public SseEmitter suivreClient(@PathVariable String clientId, Authentication auth) {
+        return fluxColisService.abonnerClient(clientId, auth);
+    }
+
+    @GetMapping(value = "/flux/livreur/{livreurId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flux SSE des changements des colis d'un livreur")
+    public SseEmitter suivreLivreur(@PathVariable String livreurId, Authentication auth) {
+        return fluxColisService.abonnerLivreur(livreurId, auth);
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Recherche de colis")
     public ResponseEntity<Page<ColisDTO>> search(
@@ -104,6 +133,22 @@ public class ColisController {
         return ResponseEntity.ok(service.getStatisticsByLivreurId(livreurId));
     }
 
+    @GetMapping("/statistiques/durees-statut")
+    @PreAuthorize("hasPermission(null, 'ROLE_MANAGER')")
+    @Operation(summary = "Durées de séjour des colis par statut et par zone")
+    public ResponseEntity<List<DureeStatutDTO>> getDureesStatut(
+            @RequestParam(required = false) StatutColis statut,
+            @RequestParam(required = false) String zoneId) {
+        return ResponseEntity.ok(dureeStatutService.getDurees(statut, zoneId));
+    }
+
+    @PostMapping("/recherche/polygone")
+    @PreAuthorize("hasPermission(null, 'ROLE_MANAGER')")
+    @Operation(summary = "Colis ouverts dont le destinataire se trouve dans le polygone")
+    public ResponseEntity<List<ColisPositionDTO>> getColisDansPolygone(@Valid @RequestBody PolygoneRequest request) {
+        return ResponseEntity.ok(indexSpatialService.getColisDansPolygone(request));
+    }
+
     @GetMapping("/en-retard")
     @Operation(summary = "Liste des colis en retard")
     public ResponseEntity<List<ColisDTO>> getOverdueColis(Authentication auth) {
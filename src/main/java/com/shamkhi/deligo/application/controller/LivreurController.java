@@ -1,19 +1,54 @@
 package com.shamkhi.deligo.application.controller;
 
+import com.shamkhi.deligo.domain.livraison.dto.AffectationResultDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ChargeLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ClassementLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.GenerationManifestesDTO;
+import com.shamkhi.deligo.domain.livraison.dto.IngestionPositionsDTO;
 import com.shamkhi.deligo.domain.livraison.dto.LivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.LivreurProximiteDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionsRequest;
+import com.shamkhi.deligo.domain.livraison.dto.ProchainColisDTO;
+import com.shamkhi.deligo.domain.livraison.dto.TourneeDTO;
+import com.shamkhi.deligo.domain.livraison.model.CritereClassement;
+import com.shamkhi.deligo.domain.livraison.service.AffectationService;
+import com.shamkhi.deligo.domain.livraison.service.ChargeLivreurService;
+import com.shamkhi.deligo.domain.livraison.service.ClassementLivreurService;
+import com.shamkhi.deligo.domain.livraison.service.FichierManifeste;
+import com.shamkhi.deligo.domain.livraison.service.FileEcheanceService;
+import com.shamkhi.deligo.domain.livraison.service.IndexSpatialService;
 import com.shamkhi.deligo.domain.livraison.service.LivreurService;
+import com.shamkhi.deligo.domain.livraison.service.ManifesteService;
+import com.shamkhi.deligo.domain.livraison.service.SuiviPositionService;
+import com.shamkhi.deligo.domain.livraison.service.TourneeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/livreurs")
@@ -21,7 +56,21 @@ import java.util.List;
 @Tag(name = "Livreurs", description = "Gestion des livreurs")
 public class LivreurController {
 
+    // Attributs de requête de Tomcat pour l'envoi par sendfile une fois le servlet terminé
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FICHIER = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_DEBUT = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
     private final LivreurService service;
+    private final ClassementLivreurService classementService;
+    private final AffectationService affectationService;
+    private final TourneeService tourneeService;
+    private final IndexSpatialService indexSpatialService;
+    private final ChargeLivreurService chargeLivreurService;
+    private final SuiviPositionService suiviPositionService;
+    private final FileEcheanceService fileEcheanceService;
+    private final ManifesteService manifesteService;
 
     @GetMapping
     @Operation(summary = "Liste tous les livreurs")
@@ -36,12 +85,83 @@ public class LivreurController {
         return ResponseEntity.ok(service.getActiveLivreurs());
     }
 
+    @GetMapping("/classement")
+    @Operation(summary = "Classement des meilleurs livreurs sur la fenêtre glissante")
+    public ResponseEntity<List<ClassementLivreurDTO>> getClassement(
+            @RequestParam(defaultValue = "LIVRAISONS") CritereClassement critere,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(classementService.getClassement(critere, limite));
+    }
+
+    @GetMapping("/charges")
+    @Operation(summary = "Charge courante des livreurs ayant des colis ouverts, du plus chargé au moins chargé")
+    public ResponseEntity<List<ChargeLivreurDTO>> getCharges() {
+        return ResponseEntity.ok(chargeLivreurService.getCharges());
+    }
+
+    @GetMapping("/positions")
+    @Operation(summary = "Dernière position GPS connue des livreurs actifs suivis")
+    public ResponseEntity<List<PositionLivreurDTO>> getPositions() {
+        return ResponseEntity.ok(suiviPositionService.getPositionsCourantes());
+    }
+
+    @GetMapping("/proximite")
+    @Operation(summary = "Livreurs actifs dans un rayon autour d'un point, du plus proche au plus éloigné")
+    public ResponseEntity<List<LivreurProximiteDTO>> getProches(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "3") double rayonKm) {
+        return ResponseEntity.ok(indexSpatialService.getLivreursProches(latitude, longitude, rayonKm));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un livreur par ID")
     public ResponseEntity<LivreurDTO> getById(@PathVariable String id) {
         return ResponseEntity.ok(service.getLivreurById(id));
     }
 
+    @GetMapping("/{id}/charge")
+    @Operation(summary = "Charge courante d'un livreur : colis ouverts, poids et colis urgents")
+    public ResponseEntity<ChargeLivreurDTO> getCharge(@PathVariable String id) {
+        service.getLivreurById(id);
+        return ResponseEntity.ok(chargeLivreurService.getCharge(id));
+    }
+
+    @GetMapping("/{id}/trace")
+    @Operation(summary = "Trace GPS récente d'un livreur, du point le plus ancien au plus récent")
+    public ResponseEntity<List<PositionLivreurDTO>> getTrace(@PathVariable String id) {
+        return ResponseEntity.ok(suiviPositionService.getTrace(id));
+    }
+
+    @PostMapping("/{id}/positions")
+    @Operation(summary = "Envoie un lot de positions GPS du livreur")
+    public ResponseEntity<IngestionPositionsDTO> envoyerPositions(
+            @PathVariable String id,
+            @Valid @RequestBody PositionsRequest request,
+            Authentication auth) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(suiviPositionService.ingerer(id, request.getPositions(), auth));
+    }
+
+    @GetMapping("/{id}/tournee")
+    @Operation(summary = "Tournée optimisée des colis ouverts d'un livreur")
+    public ResponseEntity<TourneeDTO> getTournee(
+            @PathVariable String id,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            Authentication auth) {
+        return ResponseEntity.ok(tourneeService.getTourneeForUser(id, latitude, longitude, auth));
+    }
+
+    @GetMapping("/{id}/prochains")
+    @Operation(summary = "Prochains colis du livreur, échéance la plus proche d'abord (pondérée par la priorité)")
+    public ResponseEntity<List<ProchainColisDTO>> getProchains(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int limite,
+            Authentication auth) {
+        return ResponseEntity.ok(fileEcheanceService.getProchainsForUser(id, limite, auth));
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Recherche de livreurs")
     public ResponseEntity<Page<LivreurDTO>> search(
@@ -56,6 +176,47 @@ public class LivreurController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.createLivreur(dto));
     }
 
+    @PostMapping("/manifestes")
+    @Operation(summary = "Génère les manifestes du jour de tous les livreurs actifs")
+    public ResponseEntity<GenerationManifestesDTO> genererManifestes() {
+        return ResponseEntity.ok(manifesteService.genererTous());
+    }
+
+    @GetMapping("/{id}/manifeste")
+    @Operation(summary = "Manifeste du jour du livreur : colis ordonnés, adresses et produits (JSON gzip, ETag)")
+    public void getManifeste(@PathVariable String id, Authentication auth,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FichierManifeste manifeste = manifesteService.getManifesteForUser(id, auth);
+        boolean gzip = accepteGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Corps décompressé : autre représentation, donc autre ETag fort
+        String etag = gzip ? manifeste.getEtag() : suffixer(manifeste.getEtag(), "-identity");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (correspond(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (!gzip) {
+            // Client sans gzip : décompression à la volée
+            try (InputStream entree = new GZIPInputStream(Files.newInputStream(manifeste.getFichier()))) {
+                entree.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLengthLong(manifeste.getTaille());
+        envoyer(manifeste, request, response);
+    }
+
+    @PostMapping("/affectations")
+    @Operation(summary = "Affecte automatiquement les colis ouverts sans livreur")
+    public ResponseEntity<AffectationResultDTO> affecterAutomatiquement() {
+        return ResponseEntity.ok(affectationService.affecter());
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Met à jour un livreur")
     public ResponseEntity<LivreurDTO> update(
@@ -70,4 +231,63 @@ public class LivreurController {
         service.deleteLivreur(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private static boolean correspond(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && (ifNoneMatch.trim().equals("*")
+                || Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+                        .anyMatch(valeur -> valeur.equals(etag) || valeur.equals("W/" + etag)));
+    }
+
+    // Accept-Encoding avec ses q-values : gzip;q=0 (ou *;q=0 sans gzip listé) refuse gzip
+    private static boolean accepteGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double joker = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parties = element.split(";");
+            String codage = parties[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parties.length; i++) {
+                String parametre = parties[i].trim().toLowerCase(Locale.ROOT);
+                if (parametre.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametre.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (codage.equals("gzip") || codage.equals("x-gzip")) {
+                gzip = q;
+            } else if (codage.equals("*")) {
+                joker = q;
+            }
+        }
+        double retenu = gzip != null ? gzip : joker != null ? joker : 0;
+        return retenu > 0;
+    }
+
+    private static String suffixer(String etag, String suffixe) {
+        return etag.substring(0, etag.length() - 1) + suffixe + "\"";
+    }
+
+    // Envoi sans copie en espace utilisateur : sendfile de Tomcat, sinon transfert depuis le canal du fichier
+    private static void envoyer(FichierManifeste manifeste, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FICHIER, manifeste.getFichier().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_DEBUT, 0L);
+            request.setAttribute(SENDFILE_FIN, manifeste.getTaille());
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(manifeste.getFichier(), StandardOpenOption.READ)) {
+            WritableByteChannel sortie = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < manifeste.getTaille()) {
+                position += canal.transferTo(position, manifeste.getTaille() - position, sortie);
+            }
+        }
+    }
+}
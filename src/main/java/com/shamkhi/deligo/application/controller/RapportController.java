@@ -0,0 +1,58 @@
+package com.shamkhi.deligo.application.controller;
+
+import com.shamkhi.deligo.domain.rapport.dto.RapportJobDTO;
+import com.shamkhi.deligo.domain.rapport.dto.RapportRequest;
+import com.shamkhi.deligo.domain.rapport.service.RapportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/rapports")
+@RequiredArgsConstructor
+@Tag(name = "Rapports", description = "Génération asynchrone des rapports")
+public class RapportController {
+
+    private final RapportJobService service;
+
+    @PostMapping
+    @Operation(summary = "Soumet une demande de rapport")
+    public ResponseEntity<RapportJobDTO> soumettre(@Valid @RequestBody RapportRequest request) {
+        RapportJobDTO job = service.soumettre(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Récupère l'état d'un rapport")
+    public ResponseEntity<RapportJobDTO> getById(@PathVariable String id) {
+        return ResponseEntity.ok(service.getJob(id));
+    }
+
+    @GetMapping("/{id}/resultat")
+    @Operation(summary = "Télécharge le résultat d'un rapport (CSV compressé)")
+    public ResponseEntity<Resource> telecharger(@PathVariable String id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rapport-" + id + ".csv.gz\"")
+                .body(service.getResultat(id));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Annule un rapport en attente ou en cours")
+    public ResponseEntity<RapportJobDTO> annuler(@PathVariable String id) {
+        return ResponseEntity.ok(service.annuler(id));
+    }
+}
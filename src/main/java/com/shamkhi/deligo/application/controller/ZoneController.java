@@ -1,6 +1,12 @@
 package com.shamkhi.deligo.application.controller;
 
+import com.shamkhi.deligo.domain.livraison.dto.CompletionZonesDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ProchainColisDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeResponse;
 import com.shamkhi.deligo.domain.livraison.dto.ZoneDTO;
+import com.shamkhi.deligo.domain.livraison.service.FileEcheanceService;
+import com.shamkhi.deligo.domain.livraison.service.ResolutionZoneService;
+import com.shamkhi.deligo.domain.livraison.service.ZoneChargeService;
 import com.shamkhi.deligo.domain.livraison.service.ZoneService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,6 +19,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/zones")
 @RequiredArgsConstructor
@@ -20,6 +28,9 @@ import org.springframework.web.bind.annotation.*;
 public class ZoneController {
 
     private final ZoneService service;
+    private final ZoneChargeService chargeService;
+    private final ResolutionZoneService resolutionService;
+    private final FileEcheanceService fileEcheanceService;
 
     @GetMapping
     @Operation(summary = "Liste toutes les zones")
@@ -28,12 +39,26 @@ public class ZoneController {
         return ResponseEntity.ok(service.getAllZones(pageable));
     }
 
+    @GetMapping("/charge")
+    @Operation(summary = "Colis ouverts par zone, priorité et statut")
+    public ResponseEntity<ZoneChargeResponse> getCharge(@RequestParam(required = false) String zoneId) {
+        return ResponseEntity.ok(chargeService.getCharge(zoneId));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Récupère une zone par ID")
     public ResponseEntity<ZoneDTO> getById(@PathVariable String id) {
         return ResponseEntity.ok(service.getZoneById(id));
     }
 
+    @GetMapping("/{id}/prochains")
+    @Operation(summary = "Prochains colis à affecter de la zone, échéance la plus proche d'abord")
+    public ResponseEntity<List<ProchainColisDTO>> getProchains(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(fileEcheanceService.getProchainsZone(id, limite));
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Recherche de zones")
     public ResponseEntity<Page<ZoneDTO>> search(
@@ -48,6 +73,12 @@ public class ZoneController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.createZone(dto));
     }
 
+    @PostMapping("/completion")
+    @Operation(summary = "Affecte une zone aux colis qui n'en ont pas, d'après leur adresse ou leur ville")
+    public ResponseEntity<CompletionZonesDTO> completer() {
+        return ResponseEntity.ok(resolutionService.completerZones());
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Met à jour une zone")
     public ResponseEntity<ZoneDTO> update(
@@ -2,6 +2,7 @@ package com.shamkhi.deligo.application.mapper;
 
 import com.shamkhi.deligo.domain.livraison.dto.LivreurDTO;
 import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurVue;
 import org.mapstruct.*;
 
 import java.util.List;
@@ -15,10 +16,15 @@ public interface LivreurMapper {
 
     List<LivreurDTO> toDTOList(List<Livreur> livreurs);
 
+    LivreurDTO vueToDTO(LivreurVue vue);
+
+    List<LivreurDTO> vuesToDTOList(List<LivreurVue> vues);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dateCreation", ignore = true)
     @Mapping(target = "dateModification", ignore = true)
     @Mapping(target = "zoneAssignee", ignore = true)
+    @Mapping(target = "datePosition", ignore = true)
     Livreur toEntity(LivreurDTO dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -26,5 +32,6 @@ public interface LivreurMapper {
     @Mapping(target = "dateCreation", ignore = true)
     @Mapping(target = "dateModification", ignore = true)
     @Mapping(target = "zoneAssignee", ignore = true)
+    @Mapping(target = "datePosition", ignore = true)
     void updateEntity(LivreurDTO dto, @MappingTarget Livreur livreur);
 }
\ No newline at end of file
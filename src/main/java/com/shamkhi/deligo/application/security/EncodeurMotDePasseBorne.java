@@ -0,0 +1,122 @@
+package com.shamkhi.deligo.application.security;
+
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder qui exécute les hachages (BCrypt) sur un pool dédié borné plutôt que sur les threads
+ * Tomcat : lors d'une rafale de connexions, le coût CPU est plafonné à {@code threads} cœurs et le reste
+ * de l'API garde ses threads. Les demandes attendent dans une file bornée ; file pleine ou attente
+ * supérieure à {@code attenteMaxMs}, la demande est rejetée immédiatement (ServiceUnavailableException, 503).
+ */
+@Slf4j
+public class EncodeurMotDePasseBorne implements PasswordEncoder {
+
+    private final PasswordEncoder delegue;
+    private final ThreadPoolExecutor executor;
+    private final long attenteMaxMs;
+    private final Timer timerHachage;
+    private final Counter compteurRejets;
+
+    public EncodeurMotDePasseBorne(PasswordEncoder delegue, int threads, int capaciteFile, long attenteMaxMs,
+                                   MeterRegistry meterRegistry) {
+        this.delegue = delegue;
+        this.attenteMaxMs = attenteMaxMs;
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), runnable -> {
+            Thread thread = new Thread(runnable, "bcrypt-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.timerHachage = Timer.builder("deligo.bcrypt.duree")
+                .description("Durée d'un hachage ou d'une vérification de mot de passe")
+                .register(meterRegistry);
+        this.compteurRejets = Counter.builder("deligo.bcrypt.rejets")
+                .description("Vérifications de mot de passe rejetées (file pleine ou attente trop longue)")
+                .register(meterRegistry);
+        Gauge.builder("deligo.bcrypt.file", executor, e -> e.getQueue().size())
+                .description("Hachages en attente d'un thread")
+                .register(meterRegistry);
+        Gauge.builder("deligo.bcrypt.actifs", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hachages en cours")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executer(() -> delegue.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executer(() -> delegue.matches(rawPassword, encodedPassword));
+    }
+
+    // Simple lecture du coût inscrit dans le haché : exécuté sur le thread appelant
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegue.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T executer(Callable<T> hachage) {
+        long soumission = System.nanoTime();
+        Future<T> resultat;
+        try {
+            resultat = executor.submit(() -> {
+                // Une demande restée trop longtemps en file n'est plus attendue par l'appelant
+                if (System.nanoTime() - soumission > TimeUnit.MILLISECONDS.toNanos(attenteMaxMs)) {
+                    throw new CancellationException();
+                }
+                return timerHachage.recordCallable(hachage);
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Vérification de mot de passe rejetée: {} demandes en attente", executor.getQueue().size());
+            throw rejet();
+        }
+
+        try {
+            return resultat.get(attenteMaxMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            abandonner(resultat);
+            throw rejet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandonner(resultat);
+            throw new ServiceUnavailableException("Vérification du mot de passe interrompue");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw rejet();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Échec du hachage du mot de passe", e.getCause());
+        }
+    }
+
+    // Libère la place en file d'une demande que l'appelant n'attend plus
+    private void abandonner(Future<?> resultat) {
+        resultat.cancel(false);
+        if (resultat instanceof Runnable) {
+            executor.remove((Runnable) resultat);
+        }
+    }
+
+    private ServiceUnavailableException rejet() {
+        compteurRejets.increment();
+        return new ServiceUnavailableException("Trop de connexions simultanées, veuillez réessayer");
+    }
+}
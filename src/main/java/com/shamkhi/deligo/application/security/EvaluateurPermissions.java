@@ -0,0 +1,32 @@
+package com.shamkhi.deligo.application.security;
+
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * Évalue {@code hasPermission(...)} dans les expressions @PreAuthorize par un test de bit sur le principal
+ * compilé (IndexAutorisations). La permission est le nom complet d'un rôle ou d'une permission, par exemple
+ * {@code hasPermission(null, 'ROLE_MANAGER')} ; les autorisations ne dépendent pas de l'objet ciblé.
+ */
+@Component
+@RequiredArgsConstructor
+public class EvaluateurPermissions implements PermissionEvaluator {
+
+    private final IndexAutorisations indexAutorisations;
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return permission instanceof String && indexAutorisations.possede(authentication, (String) permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return hasPermission(authentication, null, permission);
+    }
+}
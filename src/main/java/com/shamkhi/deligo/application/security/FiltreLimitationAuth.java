@@ -0,0 +1,296 @@
+package com.shamkhi.deligo.application.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.shamkhi.deligo.infrastructure.exception.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitation de débit des endpoints publics d'authentification, placée avant JwtAuthenticationFilter :
+ * chaque login coûte un hachage BCrypt, un client seul ne doit pas pouvoir occuper tout le pool.
+ * <p>
+ * {@code /auth/login} est limité par adresse IP et par nom d'utilisateur (lu dans le corps, rejoué ensuite
+ * pour le contrôleur), {@code /auth/refresh} par adresse IP. Le corps du login est lu en entier : au-delà de
+ * {@value #TAILLE_MAX_CORPS} octets il est rejeté en 413, sans quoi un corps rembourré d'espaces échapperait à
+ * la limite par utilisateur. Chaque clé a son {@link SeauJetons} ; les seaux
+ * sont gardés dans un cache borné dont les entrées expirent après une période sans demande (un seau inactif
+ * depuis une période est plein : l'oublier ne change rien). Au-delà de la limite : 429 avec Retry-After.
+ */
+@Component
+@Slf4j
+public class FiltreLimitationAuth extends OncePerRequestFilter {
+
+    private static final int TAILLE_MAX_CORPS = 4096;
+
+    private final ObjectMapper objectMapper;
+    private final Ticker horloge;
+    private final Cache<String, SeauJetons> seaux;
+    private final Limite loginParIp;
+    private final Limite loginParUtilisateur;
+    private final Limite refreshParIp;
+
+    @Autowired
+    public FiltreLimitationAuth(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${limitation-auth.login.par-ip:20}") int loginParIp,
+                                @Value("${limitation-auth.login.par-utilisateur:5}") int loginParUtilisateur,
+                                @Value("${limitation-auth.login.periode-s:60}") long periodeLoginSecondes,
+                                @Value("${limitation-auth.refresh.par-ip:30}") int refreshParIp,
+                                @Value("${limitation-auth.refresh.periode-s:60}") long periodeRefreshSecondes,
+                                @Value("${limitation-auth.max-seaux:100000}") long maxSeaux) {
+        this(objectMapper, meterRegistry, Ticker.systemTicker(),
+                new Limite("login-ip", loginParIp, periodeLoginSecondes, meterRegistry),
+                new Limite("login-utilisateur", loginParUtilisateur, periodeLoginSecondes, meterRegistry),
+                new Limite("refresh-ip", refreshParIp, periodeRefreshSecondes, meterRegistry),
+                maxSeaux);
+    }
+
+    FiltreLimitationAuth(ObjectMapper objectMapper, MeterRegistry meterRegistry, Ticker horloge,
+                         Limite loginParIp, Limite loginParUtilisateur, Limite refreshParIp, long maxSeaux) {
+        this.objectMapper = objectMapper;
+        this.horloge = horloge;
+        this.loginParIp = loginParIp;
+        this.loginParUtilisateur = loginParUtilisateur;
+        this.refreshParIp = refreshParIp;
+        long periodeMax = Math.max(loginParIp.periode, Math.max(loginParUtilisateur.periode, refreshParIp.periode));
+        this.seaux = Caffeine.newBuilder()
+                .maximumSize(maxSeaux)
+                .expireAfterAccess(periodeMax, TimeUnit.NANOSECONDS)
+                .ticker(horloge)
+                .build();
+        Gauge.builder("deligo.limitation.seaux", seaux, Cache::estimatedSize)
+                .description("Seaux de limitation de débit en mémoire (clés IP et utilisateur)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || (!estLogin(request) && !estRefresh(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String ip = request.getRemoteAddr();
+        if (estRefresh(request)) {
+            if (!consommer(refreshParIp, ip, request, response)) {
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // IP d'abord : une rafale est rejetée sans lire le corps
+        if (!consommer(loginParIp, ip, request, response)) {
+            return;
+        }
+        if (request.getContentLengthLong() > TAILLE_MAX_CORPS) {
+            rejeterCorpsTropGros(request, response);
+            return;
+        }
+        RequeteRelue relue = new RequeteRelue(request);
+        if (relue.corps.length > TAILLE_MAX_CORPS) {
+            rejeterCorpsTropGros(request, response);
+            return;
+        }
+        String username = relue.username(objectMapper);
+        if (username != null && !consommer(loginParUtilisateur, username, request, response)) {
+            return;
+        }
+        filterChain.doFilter(relue, response);
+    }
+
+    long nombreSeaux() {
+        seaux.cleanUp();
+        return seaux.estimatedSize();
+    }
+
+    private boolean consommer(Limite limite, String valeur, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        long maintenant = horloge.read();
+        SeauJetons seau = seaux.get(limite.nom + ':' + valeur, cle -> new SeauJetons(maintenant));
+        long attente = seau.consommer(maintenant, limite.intervalle, limite.tolerance);
+        if (attente == 0) {
+            return true;
+        }
+        limite.rejets.increment();
+        log.debug("Limite {} atteinte pour {}", limite.nom, valeur);
+        rejeter(request, response, attente);
+        return false;
+    }
+
+    private void rejeter(HttpServletRequest request, HttpServletResponse response, long attente) throws IOException {
+        long secondes = Math.max(1, (attente + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(secondes));
+        repondre(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Trop de tentatives, veuillez réessayer dans " + secondes + " s");
+    }
+
+    private void rejeterCorpsTropGros(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Corps de login de plus de {} octets rejeté depuis {}", TAILLE_MAX_CORPS, request.getRemoteAddr());
+        repondre(request, response, HttpStatus.PAYLOAD_TOO_LARGE,
+                "Corps de la requête trop volumineux (" + TAILLE_MAX_CORPS + " octets maximum)");
+    }
+
+    private void repondre(HttpServletRequest request, HttpServletResponse response, HttpStatus statut,
+                          String message) throws IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(statut.value())
+                .error(statut.getReasonPhrase())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(statut.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static boolean estLogin(HttpServletRequest request) {
+        return "/auth/login".equals(request.getServletPath());
+    }
+
+    private static boolean estRefresh(HttpServletRequest request) {
+        return "/auth/refresh".equals(request.getServletPath());
+    }
+
+    /**
+     * Limite de {@code capacite} demandes par {@code periodeSecondes}, rechargée en continu.
+     */
+    static final class Limite {
+        private final String nom;
+        private final long periode;
+        private final long intervalle;
+        private final long tolerance;
+        private final Counter rejets;
+
+        Limite(String nom, int capacite, long periodeSecondes, MeterRegistry meterRegistry) {
+            if (capacite <= 0 || periodeSecondes <= 0) {
+                throw new IllegalArgumentException("Limite " + nom + " invalide: " + capacite + " / " + periodeSecondes + " s");
+            }
+            this.nom = nom;
+            this.periode = TimeUnit.SECONDS.toNanos(periodeSecondes);
+            this.intervalle = periode / capacite;
+            this.tolerance = intervalle * capacite;
+            this.rejets = Counter.builder("deligo.limitation.rejets")
+                    .tag("limite", nom)
+                    .description("Demandes d'authentification rejetées par la limitation de débit (429)")
+                    .register(meterRegistry);
+        }
+    }
+
+    // Corps du login lu une fois (un octet au-delà de la borne suffit à le refuser), puis rejoué tel quel
+    private static final class RequeteRelue extends HttpServletRequestWrapper {
+        private final byte[] corps;
+        private final ServletInputStream flux;
+
+        private RequeteRelue(HttpServletRequest request) throws IOException {
+            super(request);
+            ServletInputStream original = request.getInputStream();
+            this.corps = original.readNBytes(TAILLE_MAX_CORPS + 1);
+            this.flux = new FluxRejoue(new ByteArrayInputStream(corps), original);
+        }
+
+        private String username(ObjectMapper objectMapper) {
+            if (corps.length == 0) {
+                return null;
+            }
+            try {
+                JsonNode username = objectMapper.readTree(corps).get("username");
+                if (username == null || !username.isTextual() || username.asText().isBlank()) {
+                    return null;
+                }
+                // Le login accepte aussi l'email : même seau quelle que soit la casse
+                return username.asText().trim().toLowerCase(Locale.ROOT);
+            } catch (IOException e) {
+                // Corps invalide : la validation du contrôleur répondra 400
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return flux;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encodage = getCharacterEncoding();
+            Charset charset = encodage != null ? Charset.forName(encodage) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(flux, charset));
+        }
+    }
+
+    private static final class FluxRejoue extends ServletInputStream {
+        private final InputStream flux;
+        private final ServletInputStream original;
+        private boolean fini;
+
+        private FluxRejoue(InputStream flux, ServletInputStream original) {
+            this.flux = flux;
+            this.original = original;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int octet = flux.read();
+            fini = octet < 0;
+            return octet;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lus = flux.read(b, off, len);
+            fini = lus < 0;
+            return lus;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return fini;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            original.setReadListener(readListener);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.shamkhi.deligo.application.security;
 
-import com.shamkhi.deligo.domain.security.service.JwtService;
+import com.shamkhi.deligo.domain.security.service.CacheJetonService;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.JetonVerifie;
+import com.shamkhi.deligo.domain.security.service.UtilisateurAutorise;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,13 +22,24 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authentifie les requêtes portant un JWT d'accès. En mode sans état ({@code jwt.authentification-sans-etat},
+ * par défaut), l'Authentication est construite à partir des claims vérifiées (rôles, permissions, identité
+ * du compte) et la révocation est contrôlée en mémoire : aucune requête en base. Sinon l'utilisateur est rechargé par
+ * le UserDetailsService à chaque requête. Dans les deux modes, un jeton déjà vérifié est servi par
+ * CacheJetonService sans nouvelle vérification de signature.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
+    private final CacheJetonService cacheJetonService;
     private final UserDetailsService userDetailsService;
+    private final IndexAutorisations indexAutorisations;
+
+    @Value("${jwt.authentification-sans-etat:true}")
+    private boolean authentificationSansEtat;
 
     @Override
     protected void doFilterInternal(
@@ -35,7 +50,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         // Vérifier si le header Authorization existe et commence par "Bearer "
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -47,27 +61,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            // Extraire le username du token
-            username = jwtService.extractUsername(jwt);
-
-            // Si le username existe et qu'aucune authentification n'est déjà présente
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-                // Valider le token
-                if (jwtService.validateToken(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // Mettre à jour le contexte de sécurité
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    log.debug("User '{}' authenticated successfully", username);
-                }
+            if (authentificationSansEtat) {
+                authentifierParClaims(jwt, request);
+            } else {
+                authentifierParUtilisateur(jwt, request);
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -75,4 +72,51 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private void authentifierParUtilisateur(String jwt, HttpServletRequest request) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+        // Jeton parsé et vérifié une seule fois
+        JetonVerifie jeton = cacheJetonService.verifierAcces(jwt);
+        if (jeton.getUsername() == null) {
+            return;
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(jeton.getUsername());
+        authentifier(userDetails, jeton, request);
+        log.debug("User '{}' authenticated successfully", jeton.getUsername());
+    }
+
+    private void authentifierParClaims(String jwt, HttpServletRequest request) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+        // Signature (ou cache) puis révocation : un jeton révoqué lève une JwtException
+        JetonVerifie jeton = cacheJetonService.verifierAcces(jwt);
+        String username = jeton.getUsername();
+        if (username == null) {
+            return;
+        }
+
+        // Principal compilé : ses rôles et permissions se contrôlent par test de bit
+        UtilisateurAutorise utilisateur = indexAutorisations.compiler(username, jeton.getAuthorities());
+        if (jeton.getUserId() != null) {
+            utilisateur = utilisateur.avecIdentite(jeton.getUserId(), jeton.getLivreurId(), jeton.getClientId());
+        }
+        authentifier(utilisateur, jeton, request);
+        log.debug("User '{}' authenticated from token claims", username);
+    }
+
+    private static void authentifier(UserDetails userDetails, JetonVerifie jeton, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        // Mettre à jour le contexte de sécurité ; les claims restent disponibles pour la suite de la requête
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        request.setAttribute(JetonVerifie.ATTRIBUT_REQUETE, jeton);
+    }
+}
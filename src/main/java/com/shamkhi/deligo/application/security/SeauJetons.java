@@ -0,0 +1,37 @@
+package com.shamkhi.deligo.application.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seau à jetons sans verrou, réduit à un seul instant : celui où le seau aurait de nouveau un jeton après
+ * la dernière demande acceptée (algorithme GCRA, équivalent à un seau de {@code tolerance / intervalle}
+ * jetons rechargé d'un jeton par {@code intervalle}). Une demande est un seul compareAndSet.
+ */
+final class SeauJetons {
+
+    private final AtomicLong prochain;
+
+    SeauJetons(long maintenant) {
+        this.prochain = new AtomicLong(maintenant);
+    }
+
+    /**
+     * Consomme un jeton et renvoie 0, ou, si le seau est vide, renvoie l'attente (en nanosecondes)
+     * avant le prochain jeton sans rien consommer.
+     */
+    long consommer(long maintenant, long intervalle, long tolerance) {
+        while (true) {
+            long courant = prochain.get();
+            // Différence plutôt que Math.max : System.nanoTime() peut être négatif
+            long depart = courant - maintenant > 0 ? courant : maintenant;
+            long suivant = depart + intervalle;
+            long attente = suivant - maintenant - tolerance;
+            if (attente > 0) {
+                return attente;
+            }
+            if (prochain.compareAndSet(courant, suivant)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -3,10 +3,17 @@ package com.shamkhi.deligo.application.security;
 import com.shamkhi.deligo.domain.security.oauth2.CustomOAuth2UserService;
 import com.shamkhi.deligo.domain.security.oauth2.OAuth2AuthenticationFailureHandler;
 import com.shamkhi.deligo.domain.security.oauth2.OAuth2AuthenticationSuccessHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -16,6 +23,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -34,17 +42,34 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final FiltreLimitationAuth filtreLimitationAuth;
     private final UserDetailsService userDetailsService;
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
 
+    @Value("${bcrypt.force:10}")
+    private int forceBCrypt;
+
+    @Value("${bcrypt.threads:2}")
+    private int threadsBCrypt;
+
+    @Value("${bcrypt.file-capacite:200}")
+    private int capaciteFileBCrypt;
+
+    @Value("${bcrypt.attente-max-ms:3000}")
+    private long attenteMaxBCryptMs;
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AuthenticationProvider authenticationProvider) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // Redistribution asynchrone (flux SSE) : la requête initiale a déjà été autorisée
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ========== PUBLIC ENDPOINTS ==========
                         .requestMatchers(
                                 "/auth/**",
@@ -56,6 +81,7 @@ public class SecurityConfig {
 
                         // ========== ADMIN ENDPOINTS ==========
                         .requestMatchers("/admin/**").hasRole("MANAGER")
+                        .requestMatchers("/actuator/**").hasRole("MANAGER")
 
                         // ========== CLIENTS ENDPOINTS ==========
                         .requestMatchers(HttpMethod.GET, "/clients/**")
@@ -99,6 +125,18 @@ public class SecurityConfig {
                         .hasRole("MANAGER")
 
                         // ========== LIVREURS ENDPOINTS ==========
+                        // Tournée : le livreur consulte la sienne (contrôle dans TourneeService)
+                        .requestMatchers(HttpMethod.GET, "/livreurs/*/tournee")
+                        .hasAnyRole("MANAGER", "LIVREUR")
+                        // Prochains colis : le livreur consulte les siens (contrôle dans FileEcheanceService)
+                        .requestMatchers(HttpMethod.GET, "/livreurs/*/prochains")
+                        .hasAnyRole("MANAGER", "LIVREUR")
+                        // Manifeste du jour : le livreur télécharge le sien (contrôle dans ManifesteService)
+                        .requestMatchers(HttpMethod.GET, "/livreurs/*/manifeste")
+                        .hasAnyRole("MANAGER", "LIVREUR")
+                        // Positions GPS : le livreur envoie les siennes (contrôle dans SuiviPositionService)
+                        .requestMatchers(HttpMethod.POST, "/livreurs/*/positions")
+                        .hasAnyRole("MANAGER", "LIVREUR")
                         .requestMatchers("/livreurs/**")
                         .hasRole("MANAGER")
 
@@ -106,6 +144,10 @@ public class SecurityConfig {
                         .requestMatchers("/zones/**")
                         .hasRole("MANAGER")
 
+                        // ========== RAPPORTS ENDPOINTS ==========
+                        .requestMatchers("/rapports/**")
+                        .hasRole("MANAGER")
+
                         // ========== PRODUITS ENDPOINTS ==========
                         .requestMatchers(HttpMethod.GET, "/produits/**")
                         .hasAnyRole("MANAGER", "CLIENT")
@@ -135,12 +177,22 @@ public class SecurityConfig {
                         .successHandler(oAuth2AuthenticationSuccessHandler)
                         .failureHandler(oAuth2AuthenticationFailureHandler)
                 )
-                .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .authenticationProvider(authenticationProvider)
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Limitation de débit de /auth/login et /auth/refresh, avant toute vérification de jeton
+                .addFilterBefore(filtreLimitationAuth, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // Exécuté uniquement dans la chaîne de sécurité (après CORS), pas une seconde fois comme filtre servlet
+    @Bean
+    public FilterRegistrationBean<FiltreLimitationAuth> enregistrementFiltreLimitationAuth() {
+        FilterRegistrationBean<FiltreLimitationAuth> enregistrement = new FilterRegistrationBean<>(filtreLimitationAuth);
+        enregistrement.setEnabled(false);
+        return enregistrement;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -166,11 +218,23 @@ public class SecurityConfig {
         return source;
     }
 
+    // hasPermission(...) des @PreAuthorize évalué par test de bit (voir EvaluateurPermissions)
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(PermissionEvaluator permissionEvaluator) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
+    }
+
+    @Bean
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hachage transparent au login quand bcrypt.force a été augmentée
+        if (userDetailsService instanceof UserDetailsPasswordService) {
+            authProvider.setUserDetailsPasswordService((UserDetailsPasswordService) userDetailsService);
+        }
         return authProvider;
     }
 
@@ -179,8 +243,10 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // Hachages sur un pool dédié borné, hors des threads Tomcat (voir EncodeurMotDePasseBorne)
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new EncodeurMotDePasseBorne(new BCryptPasswordEncoder(forceBCrypt), threadsBCrypt,
+                capaciteFileBCrypt, attenteMaxBCryptMs, meterRegistry);
     }
 }
\ No newline at end of file
@@ -1,63 +1,178 @@
 package com.shamkhi.deligo.application.security;
 
-import com.shamkhi.deligo.domain.security.model.Permission;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
 import com.shamkhi.deligo.domain.security.model.Role;
 import com.shamkhi.deligo.domain.security.model.User;
 import com.shamkhi.deligo.domain.security.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.shamkhi.deligo.domain.security.service.GrapheAutorisations;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.PermissionService;
+import com.shamkhi.deligo.domain.security.service.UtilisateurAutorise;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Chargement des utilisateurs pour l'authentification (login, refresh, filtre JWT en mode avec état),
+ * derrière un cache Caffeine borné en taille et en durée. Le cache est indexé par l'identifiant saisi
+ * (nom d'utilisateur ou email) et invalidé après chaque UtilisateurChangeEvent validé : seules les entrées
+ * du compte concerné, ou toutes si les rôles et permissions ont changé. Chaque entrée porte la génération
+ * lue avant son chargement ; une entrée chargée avant la dernière invalidation de son compte, ou compilée
+ * avec un instantané du graphe des autorisations remplacé depuis, est rechargée. Comme UserDetailsPasswordService,
+ * enregistre le nouveau haché d'un mot de passe re-haché au login (force BCrypt augmentée).
+ */
 @Service
-@RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final IndexAutorisations indexAutorisations;
+    private final PermissionService permissionService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transactionEcriture;
+    private final Cache<String, Entree> cache;
+    // Génération de la dernière invalidation de chaque compte, conservée le temps de vie d'une entrée
+    private final Cache<String, Long> invalidations;
+    private final AtomicLong generations = new AtomicLong();
+    private volatile long invalidationGlobale;
+
+    public UserDetailsServiceImpl(UserRepository userRepository, IndexAutorisations indexAutorisations,
+                                  PermissionService permissionService,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${cache-utilisateurs.taille-max:10000}") long tailleMax,
+                                  @Value("${cache-utilisateurs.ttl-s:300}") long ttlSecondes) {
+        this.userRepository = userRepository;
+        this.indexAutorisations = indexAutorisations;
+        this.permissionService = permissionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionEcriture = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(Duration.ofSeconds(ttlSecondes))
+                .recordStats()
+                .build();
+        this.invalidations = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSecondes))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "deligo.utilisateurs");
+        Gauge.builder("deligo.utilisateurs.cache.taux-succes", cache, c -> c.stats().hitRate())
+                .description("Part des chargements d'utilisateurs servis par le cache")
+                .register(meterRegistry);
+    }
 
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + username));
-
-        if (!user.getActif()) {
-            throw new UsernameNotFoundException("Compte désactivé: " + username);
+        // Copie : ProviderManager efface le mot de passe du principal après une authentification réussie
+        GrapheAutorisations graphe = permissionService.getGraphe();
+        long generation = generations.get();
+        Entree entree = cache.get(username, cle -> charger(cle, graphe, generation));
+        if (!valide(entree, graphe)) {
+            // Compilé avec un instantané des autorisations remplacé depuis, ou lu avant une invalidation
+            entree = charger(username, graphe, generations.get());
+            cache.put(username, entree);
         }
+        return entree.utilisateur.copie();
+    }
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword() != null ? user.getPassword() : "")
-                .authorities(getAuthorities(user))
-                .accountExpired(false)
-                .accountLocked(!user.getActif())
-                .credentialsExpired(false)
-                .disabled(!user.getActif())
+    /**
+     * Appelé par DaoAuthenticationProvider après un login réussi dont le haché utilise une force BCrypt
+     * inférieure à {@code bcrypt.force}. Ce n'est pas un changement de mot de passe : les jetons restent valides.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        transactionEcriture.executeWithoutResult(status ->
+                userRepository.updatePassword(user.getUsername(), newPassword));
+        invalider(user.getUsername());
+        log.info("Mot de passe re-haché avec la force BCrypt courante pour l'utilisateur: {}", user.getUsername());
+        if (user instanceof UtilisateurAutorise) {
+            return ((UtilisateurAutorise) user).avecMotDePasse(newPassword);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
                 .build();
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        Set<GrantedAuthority> authorities = new HashSet<>();
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUtilisateurChange(UtilisateurChangeEvent event) {
+        if (event.concerneTous()) {
+            invalidationGlobale = generations.incrementAndGet();
+            cache.invalidateAll();
+            return;
+        }
+        invalider(event.getUsername());
+    }
 
-        // Ajouter les rôles
-        for (Role role : user.getRoles()) {
-            authorities.add(new SimpleGrantedAuthority(role.getName()));
+    // L'entrée sous l'email, et celle d'un chargement encore en cours, sont écartées à la lecture par la génération
+    private void invalider(String username) {
+        invalidations.put(username, generations.incrementAndGet());
+        cache.invalidate(username);
+    }
+
+    private boolean valide(Entree entree, GrapheAutorisations graphe) {
+        Long invalidation = invalidations.getIfPresent(entree.utilisateur.getUsername());
+        return entree.versionGraphe == graphe.getVersion()
+                && entree.generation >= invalidationGlobale
+                && (invalidation == null || entree.generation >= invalidation);
+    }
 
-            // Ajouter les permissions de chaque rôle
-            for (Permission permission : role.getPermissions()) {
-                authorities.add(new SimpleGrantedAuthority(permission.getName()));
+    private Entree charger(String username, GrapheAutorisations graphe, long generation) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findByUsername(username)
+                    .or(() -> userRepository.findByEmail(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé: " + username));
+
+            if (!user.getActif()) {
+                throw new UsernameNotFoundException("Compte désactivé: " + username);
             }
+
+            // getId() d'un proxy Hibernate ne charge pas le livreur ni le client
+            UtilisateurAutorise utilisateur = indexAutorisations.compiler(user.getUsername(),
+                    user.getPassword() != null ? user.getPassword() : "",
+                    user.getActif(),
+                    getAutorisations(user, graphe))
+                    .avecIdentite(user.getId(),
+                            user.getLivreur() != null ? user.getLivreur().getId() : null,
+                            user.getClientExpediteur() != null ? user.getClientExpediteur().getId() : null);
+            return new Entree(utilisateur, graphe.getVersion(), generation);
+        });
+    }
+
+    // Rôles du compte puis leurs permissions, lues dans l'instantané du graphe des autorisations
+    private static List<String> getAutorisations(User user, GrapheAutorisations graphe) {
+        List<String> roles = new ArrayList<>(user.getRoles().size());
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
         }
+        return graphe.autorisations(roles);
+    }
 
-        return authorities;
+    private static final class Entree {
+        private final UtilisateurAutorise utilisateur;
+        private final long versionGraphe;
+        private final long generation;
+
+        private Entree(UtilisateurAutorise utilisateur, long versionGraphe, long generation) {
+            this.utilisateur = utilisateur;
+            this.versionGraphe = versionGraphe;
+            this.generation = generation;
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,10 +4,13 @@ import com.shamkhi.deligo.application.mapper.ClientExpediteurMapper;
 import com.shamkhi.deligo.domain.client.dto.ClientExpediteurDTO;
 import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
 import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,6 +24,8 @@ public class ClientExpediteurService {
 
     private final ClientExpediteurRepository repository;
     private final ClientExpediteurMapper mapper;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<ClientExpediteurDTO> getAllClients(Pageable pageable) {
         log.info("Récupération de tous les clients expéditeurs");
@@ -63,6 +68,7 @@ public class ClientExpediteurService {
 
         mapper.updateEntity(dto, client);
         client = repository.save(client);
+        notifierCompteAssocie(id);
         log.info("Client mis à jour");
         return mapper.toDTO(client);
     }
@@ -71,9 +77,16 @@ public class ClientExpediteurService {
     public void deleteClient(String id) {
         log.info("Suppression du client: {}", id);
         ClientExpediteur client = findClientById(id);
+        notifierCompteAssocie(id);
         repository.delete(client);
     }
 
+    // Le compte utilisateur lié au client est rechargé (cache d'authentification, révocation des jetons)
+    private void notifierCompteAssocie(String clientId) {
+        userRepository.findByClientExpediteurId(clientId).ifPresent(user -> eventPublisher.publishEvent(
+                UtilisateurChangeEvent.modification(user.getId(), user.getUsername())));
+    }
+
     private ClientExpediteur findClientById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec id: " + id));
@@ -16,6 +16,7 @@ public class ColisDTO {
     private String id;
     private String description;
     private BigDecimal poids;
+    private BigDecimal volume;
     private StatutColis statut;
     private PrioriteColis priorite;
     private String villeDestination;
@@ -0,0 +1,24 @@
+package com.shamkhi.deligo.domain.colis.dto;
+
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisNotificationDTO {
+    private long sequence;
+    // CREATION, MODIFICATION ou SUPPRESSION
+    private String type;
+    private String colisId;
+    private StatutColis ancienStatut;
+    private StatutColis nouveauStatut;
+    private String livreurId;
+    private LocalDateTime dateChangement;
+}
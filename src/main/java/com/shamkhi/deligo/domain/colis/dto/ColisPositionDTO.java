@@ -0,0 +1,14 @@
+package com.shamkhi.deligo.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisPositionDTO {
+    private String colisId;
+    private double latitude;
+    private double longitude;
+}
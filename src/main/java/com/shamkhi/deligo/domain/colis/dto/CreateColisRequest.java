@@ -25,6 +25,10 @@ public class CreateColisRequest {
     @DecimalMin(value = "0.0", inclusive = false)
     private BigDecimal poids;
 
+    // Volume en litres, facultatif
+    @DecimalMin(value = "0.0", inclusive = false)
+    private BigDecimal volume;
+
     @NotNull(message = "La priorité est obligatoire")
     private PrioriteColis priorite;
 
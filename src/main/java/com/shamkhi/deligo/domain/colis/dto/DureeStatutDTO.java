@@ -0,0 +1,23 @@
+package com.shamkhi.deligo.domain.colis.dto;
+
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DureeStatutDTO {
+    private StatutColis statut;
+    private String zoneId;
+    private String zoneNom;
+    private long nombrePassages;
+    private BigDecimal dureeMoyenneMinutes;
+    private BigDecimal dureeMaxMinutes;
+    private long enCours;
+}
@@ -22,6 +22,9 @@ public class UpdateColisRequest {
     @DecimalMin(value = "0.0", inclusive = false)
     private BigDecimal poids;
 
+    @DecimalMin(value = "0.0", inclusive = false)
+    private BigDecimal volume;
+
     private StatutColis statut;
 
     private PrioriteColis priorite;
@@ -0,0 +1,58 @@
+package com.shamkhi.deligo.domain.colis.event;
+
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Publié par ColisService à chaque création, modification ou suppression d'un colis.
+ * {@code avant} est null à la création, {@code apres} est null à la suppression.
+ */
+@Value
+public class ColisChangeEvent {
+    String colisId;
+    ColisEtat avant;
+    ColisEtat apres;
+    LocalDateTime dateChangement;
+
+    public static ColisChangeEvent creation(String colisId, ColisEtat apres) {
+        return new ColisChangeEvent(colisId, null, apres, LocalDateTime.now());
+    }
+
+    public static ColisChangeEvent modification(String colisId, ColisEtat avant, ColisEtat apres) {
+        return new ColisChangeEvent(colisId, avant, apres, LocalDateTime.now());
+    }
+
+    public static ColisChangeEvent suppression(String colisId, ColisEtat avant) {
+        return new ColisChangeEvent(colisId, avant, null, LocalDateTime.now());
+    }
+
+    public StatutColis getAncienStatut() {
+        return avant != null ? avant.getStatut() : null;
+    }
+
+    public StatutColis getNouveauStatut() {
+        return apres != null ? apres.getStatut() : null;
+    }
+
+    public boolean isStatutChange() {
+        return getAncienStatut() != getNouveauStatut();
+    }
+
+    public boolean isLivreurChange() {
+        return !Objects.equals(avant != null ? avant.getLivreurId() : null,
+                apres != null ? apres.getLivreurId() : null);
+    }
+
+    // Vrai si le colis entre dans le statut donné avec ce changement
+    public boolean entreDans(StatutColis statut) {
+        return getNouveauStatut() == statut && getAncienStatut() != statut;
+    }
+
+    // Vrai si le colis quitte le statut donné avec ce changement
+    public boolean sortDe(StatutColis statut) {
+        return getAncienStatut() == statut && getNouveauStatut() != statut;
+    }
+}
@@ -0,0 +1,46 @@
+package com.shamkhi.deligo.domain.colis.event;
+
+import com.shamkhi.deligo.domain.colis.model.Colis;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Photographie immuable des champs d'un colis utiles aux index en mémoire.
+ */
+@Value
+@Builder
+public class ColisEtat {
+    StatutColis statut;
+    PrioriteColis priorite;
+    BigDecimal poids;
+    BigDecimal volume;
+    String livreurId;
+    String clientId;
+    String zoneId;
+    LocalDateTime dateLimiteLivraison;
+    LocalDateTime dateLivraison;
+    // Position du destinataire
+    Double latitude;
+    Double longitude;
+
+    public static ColisEtat of(Colis colis) {
+        return ColisEtat.builder()
+                .statut(colis.getStatut())
+                .priorite(colis.getPriorite())
+                .poids(colis.getPoids())
+                .volume(colis.getVolume())
+                .livreurId(colis.getLivreur() != null ? colis.getLivreur().getId() : null)
+                .clientId(colis.getClientExpediteur() != null ? colis.getClientExpediteur().getId() : null)
+                .zoneId(colis.getZone() != null ? colis.getZone().getId() : null)
+                .dateLimiteLivraison(colis.getDateLimiteLivraison())
+                .dateLivraison(colis.getDateLivraison())
+                .latitude(colis.getDestinataire() != null ? colis.getDestinataire().getLatitude() : null)
+                .longitude(colis.getDestinataire() != null ? colis.getDestinataire().getLongitude() : null)
+                .build();
+    }
+}
@@ -40,6 +40,11 @@ public class Colis {
     @Column(name = "poids", nullable = false, precision = 10, scale = 2)
     private BigDecimal poids;
 
+    // Volume en litres, facultatif
+    @DecimalMin(value = "0.0", inclusive = false, message = "Le volume doit être supérieur à 0")
+    @Column(name = "volume", precision = 10, scale = 2)
+    private BigDecimal volume;
+
     @NotNull(message = "Le statut est obligatoire")
     @Enumerated(EnumType.STRING)
     @Column(name = "statut", nullable = false, length = 20)
@@ -1,5 +1,8 @@
 package com.shamkhi.deligo.domain.colis.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum PrioriteColis {
     NORMALE("Normale"),
     URGENT("Urgent"),
@@ -14,4 +17,12 @@ public enum PrioriteColis {
     public String getLibelle() {
         return libelle;
     }
+
+    public boolean isUrgente() {
+        return this == URGENT || this == TRES_URGENT;
+    }
+
+    public static Set<PrioriteColis> urgentes() {
+        return EnumSet.of(URGENT, TRES_URGENT);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.shamkhi.deligo.domain.colis.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum StatutColis {
     CREE("Créé"),
     COLLECTE("Collecté"),
@@ -18,4 +21,12 @@ public enum StatutColis {
     public String getLibelle() {
         return libelle;
     }
-}
\ No newline at end of file
+
+    public boolean isTerminal() {
+        return this == LIVRE || this == RETOURNE || this == ANNULE;
+    }
+
+    public static Set<StatutColis> terminaux() {
+        return EnumSet.of(LIVRE, RETOURNE, ANNULE);
+    }
+}
@@ -2,8 +2,11 @@ package com.shamkhi.deligo.domain.colis.repository;
 
 import com.shamkhi.deligo.domain.colis.model.ColisProduit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +14,10 @@ public interface ColisProduitRepository extends JpaRepository<ColisProduit, Stri
 
     List<ColisProduit> findByColisId(String colisId);
 
+    // Lignes produits de plusieurs colis en une requête
+    @Query("SELECT cp.colis.id, p.id, p.nom, cp.quantite, cp.prix FROM ColisProduit cp JOIN cp.produit p " +
+            "WHERE cp.colis.id IN :colisIds")
+    List<Object[]> findLignesByColisIds(@Param("colisIds") Collection<String> colisIds);
+
     void deleteByColisId(String colisId);
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -98,4 +99,107 @@ public interface ColisRepository extends JpaRepository<Colis, String> {
             "FROM Colis c WHERE c.zone IS NOT NULL " +
             "GROUP BY c.zone.id, c.zone.nom")
     List<Object[]> countAndSumWeightByZone();
-}
\ No newline at end of file
+
+    // Rapports : volume par client sur une période
+    @Query("SELECT c.clientExpediteur.id, c.clientExpediteur.nom, c.clientExpediteur.prenom, COUNT(c), SUM(c.poids), " +
+            "SUM(CASE WHEN c.statut = :livre THEN 1 ELSE 0 END) " +
+            "FROM Colis c WHERE c.dateCreation >= :debut AND c.dateCreation < :fin " +
+            "AND (:clientId IS NULL OR c.clientExpediteur.id = :clientId) " +
+            "GROUP BY c.clientExpediteur.id, c.clientExpediteur.nom, c.clientExpediteur.prenom")
+    List<Object[]> countAndSumWeightByClientBetween(
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            @Param("clientId") String clientId,
+            @Param("livre") StatutColis livre
+    );
+
+    // Rapports : livraisons effectuées par livreur sur une période
+    @Query("SELECT c.livreur.id, c.livreur.nom, c.livreur.prenom, COUNT(c), " +
+            "SUM(CASE WHEN c.dateLimiteLivraison IS NULL OR c.dateLivraison <= c.dateLimiteLivraison THEN 1 ELSE 0 END), " +
+            "SUM(c.poids) " +
+            "FROM Colis c WHERE c.livreur IS NOT NULL AND c.statut = :livre " +
+            "AND c.dateLivraison >= :debut AND c.dateLivraison < :fin " +
+            "AND (:livreurId IS NULL OR c.livreur.id = :livreurId) " +
+            "GROUP BY c.livreur.id, c.livreur.nom, c.livreur.prenom")
+    List<Object[]> deliveryPerformanceByLivreurBetween(
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            @Param("livreurId") String livreurId,
+            @Param("livre") StatutColis livre
+    );
+
+    // Livraisons effectuées depuis une date (reconstruction des compteurs en mémoire)
+    @Query("SELECT c.livreur.id, c.dateLivraison, c.dateLimiteLivraison, c.poids FROM Colis c " +
+            "WHERE c.livreur IS NOT NULL AND c.statut = :livre AND c.dateLivraison >= :depuis")
+    List<Object[]> findDeliveriesSince(
+            @Param("depuis") LocalDateTime depuis,
+            @Param("livre") StatutColis livre
+    );
+
+    // Affectation automatique : colis ouverts sans livreur
+    @Query("SELECT c.id, z.id, c.priorite, c.statut, c.dateLimiteLivraison, c.poids, d.latitude, d.longitude, " +
+            "c.clientExpediteur.id, c.volume " +
+            "FROM Colis c LEFT JOIN c.zone z JOIN c.destinataire d " +
+            "WHERE c.livreur IS NULL AND c.statut NOT IN :terminaux")
+    List<Object[]> findUnassignedOpen(@Param("terminaux") Collection<StatutColis> terminaux);
+
+    // Complétion des zones : colis sans zone, par pages de clés croissantes
+    @Query("SELECT c.id, c.villeDestination, d.adresse, c.statut, c.priorite, c.poids, c.volume, l.id, " +
+            "c.clientExpediteur.id, c.dateLimiteLivraison, c.dateLivraison, d.latitude, d.longitude " +
+            "FROM Colis c JOIN c.destinataire d LEFT JOIN c.livreur l " +
+            "WHERE c.zone IS NULL AND c.id > :apres ORDER BY c.id")
+    List<Object[]> findWithoutZoneAfter(@Param("apres") String apres, Pageable pageable);
+
+    // Charge des livreurs : colis ouverts, poids, colis urgents et volume par livreur
+    @Query("SELECT c.livreur.id, COUNT(c), SUM(c.poids), " +
+            "SUM(CASE WHEN c.priorite IN :urgentes THEN 1 ELSE 0 END), SUM(c.volume) FROM Colis c " +
+            "WHERE c.livreur IS NOT NULL AND c.statut NOT IN :terminaux GROUP BY c.livreur.id")
+    List<Object[]> sumOpenWorkloadByLivreur(
+            @Param("terminaux") Collection<StatutColis> terminaux,
+            @Param("urgentes") Collection<PrioriteColis> urgentes
+    );
+
+    // Manifeste : colis ouverts d'un livreur avec destinataire et expéditeur
+    @Query("SELECT c.id, c.description, c.poids, c.statut, c.priorite, c.dateLimiteLivraison, " +
+            "d.nom, d.prenom, d.telephone, d.adresse, d.latitude, d.longitude, " +
+            "e.nom, e.prenom, e.telephone, e.adresse, e.latitude, e.longitude " +
+            "FROM Colis c JOIN c.destinataire d JOIN c.clientExpediteur e " +
+            "WHERE c.livreur.id = :livreurId AND c.statut NOT IN :terminaux")
+    List<Object[]> findManifestByLivreur(
+            @Param("livreurId") String livreurId,
+            @Param("terminaux") Collection<StatutColis> terminaux
+    );
+
+    // Tournée : colis ouverts d'un livreur avec les adresses de collecte et de livraison
+    @Query("SELECT c.id, c.statut, c.priorite, c.dateLimiteLivraison, c.dateCreation, " +
+            "d.nom, d.prenom, d.adresse, e.adresse, e.latitude, e.longitude, d.latitude, d.longitude " +
+            "FROM Colis c JOIN c.destinataire d JOIN c.clientExpediteur e " +
+            "WHERE c.livreur.id = :livreurId AND c.statut NOT IN :terminaux")
+    List<Object[]> findOpenStopsByLivreur(
+            @Param("livreurId") String livreurId,
+            @Param("terminaux") Collection<StatutColis> terminaux
+    );
+
+    // Files d'échéances : colis ouverts rattachés à un livreur ou à une zone
+    @Query("SELECT c.id, l.id, z.id, c.priorite, c.dateLimiteLivraison FROM Colis c " +
+            "LEFT JOIN c.livreur l LEFT JOIN c.zone z " +
+            "WHERE c.statut NOT IN :terminaux AND (l.id IS NOT NULL OR z.id IS NOT NULL)")
+    List<Object[]> findOpenDeadlines(@Param("terminaux") Collection<StatutColis> terminaux);
+
+    // Index spatial : position des destinataires des colis ouverts
+    @Query("SELECT c.id, d.latitude, d.longitude FROM Colis c JOIN c.destinataire d " +
+            "WHERE c.statut NOT IN :terminaux AND d.latitude IS NOT NULL AND d.longitude IS NOT NULL")
+    List<Object[]> findOpenPositions(@Param("terminaux") Collection<StatutColis> terminaux);
+
+    // Index spatial : repli SQL par rectangle englobant (sans PostGIS)
+    @Query("SELECT c.id, d.latitude, d.longitude FROM Colis c JOIN c.destinataire d " +
+            "WHERE c.statut NOT IN :terminaux " +
+            "AND d.latitude BETWEEN :latMin AND :latMax AND d.longitude BETWEEN :lonMin AND :lonMax")
+    List<Object[]> findOpenPositionsInBox(
+            @Param("latMin") double latMin,
+            @Param("latMax") double latMax,
+            @Param("lonMin") double lonMin,
+            @Param("lonMax") double lonMax,
+            @Param("terminaux") Collection<StatutColis> terminaux
+    );
+}
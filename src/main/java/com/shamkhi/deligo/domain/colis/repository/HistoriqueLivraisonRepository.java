@@ -1,13 +1,24 @@
 package com.shamkhi.deligo.domain.colis.repository;
 
 import com.shamkhi.deligo.domain.colis.model.HistoriqueLivraison;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface HistoriqueLivraisonRepository extends JpaRepository<HistoriqueLivraison, String> {
 
     List<HistoriqueLivraison> findByColisIdOrderByDateChangementDesc(String colisId);
+
+    // Historique complet en flux, trié par colis puis par date (calcul des durées de séjour)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id, z.id, h.statut, h.dateChangement FROM HistoriqueLivraison h " +
+            "JOIN h.colis c LEFT JOIN c.zone z ORDER BY c.id, h.dateChangement")
+    Stream<Object[]> streamAllOrderByColis();
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.shamkhi.deligo.application.mapper.ColisMapper;
 import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
 import com.shamkhi.deligo.domain.client.model.Destinataire;
 import com.shamkhi.deligo.domain.colis.dto.*;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
 import com.shamkhi.deligo.domain.colis.model.*;
 import com.shamkhi.deligo.domain.livraison.model.Zone;
 import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
@@ -13,17 +15,19 @@ import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
 import com.shamkhi.deligo.domain.client.repository.DestinataireRepository;
 import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
 import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import com.shamkhi.deligo.domain.livraison.service.ResolutionZoneService;
 import com.shamkhi.deligo.domain.produit.repository.ProduitRepository;
-import com.shamkhi.deligo.domain.security.model.User;
-import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.domain.security.service.UtilisateurAutorise;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,14 +48,18 @@ public class ColisService {
     private final HistoriqueLivraisonRepository historiqueRepository;
     private final ColisProduitRepository colisProduitRepository;
     private final ClientExpediteurRepository clientRepository;
-    private final UserRepository userRepository;
     private final DestinataireRepository destinataireRepository;
     private final LivreurRepository livreurRepository;
     private final ZoneRepository zoneRepository;
     private final ProduitRepository produitRepository;
     private final ColisMapper colisMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ResolutionZoneService resolutionZoneService;
+    private final IndexAutorisations indexAutorisations;
+    private final ResolveurUtilisateur resolveurUtilisateur;
 
     // ============ USER-AWARE METHODS ============
+    // Le périmètre (livreur, client) est lu sur le principal de la requête, sans requête en base
 
     public Page<ColisDTO> getAllColisForUser(Authentication auth, Pageable pageable) {
         log.info("Récupération des colis pour l'utilisateur: {}", auth.getName());
@@ -59,14 +67,14 @@ public class ColisService {
         if (hasRole(auth, "ROLE_MANAGER")) {
             return getAllColis(pageable);
         } else if (hasRole(auth, "ROLE_LIVREUR")) {
-            User user = getUserByAuth(auth);
-            if (user.getLivreur() != null) {
-                return getColisByLivreur(user.getLivreur().getId(), pageable);
+            String livreurId = getUtilisateur(auth).getLivreurId();
+            if (livreurId != null) {
+                return getColisByLivreur(livreurId, pageable);
             }
         } else if (hasRole(auth, "ROLE_CLIENT")) {
-            User user = getUserByAuth(auth);
-            if (user.getClientExpediteur() != null) {
-                return getColisByClient(user.getClientExpediteur().getId(), pageable);
+            String clientId = getUtilisateur(auth).getClientId();
+            if (clientId != null) {
+                return getColisByClient(clientId, pageable);
             }
         }
 
@@ -83,11 +91,11 @@ public class ColisService {
             return colis;
         }
 
-        User user = getUserByAuth(auth);
+        UtilisateurAutorise utilisateur = getUtilisateur(auth);
 
         // LIVREUR can only see assigned colis
         if (hasRole(auth, "ROLE_LIVREUR")) {
-            String userLivreurId = user.getLivreur() != null ? user.getLivreur().getId() : null;
+            String userLivreurId = utilisateur.getLivreurId();
             if (userLivreurId == null || !userLivreurId.equals(colis.getLivreurId())) {
                 throw new AccessDeniedException("Vous n'avez pas accès à ce colis");
             }
@@ -96,7 +104,7 @@ public class ColisService {
 
         // CLIENT can only see their colis
         if (hasRole(auth, "ROLE_CLIENT")) {
-            String userClientId = user.getClientExpediteur() != null ? user.getClientExpediteur().getId() : null;
+            String userClientId = utilisateur.getClientId();
             if (userClientId == null || !userClientId.equals(colis.getClientExpediteurId())) {
                 throw new AccessDeniedException("Vous n'avez pas accès à ce colis");
             }
@@ -122,8 +130,7 @@ public class ColisService {
 
         // If CLIENT, ensure they're creating for themselves
         if (hasRole(auth, "ROLE_CLIENT") && !hasRole(auth, "ROLE_MANAGER")) {
-            User user = getUserByAuth(auth);
-            String userClientId = user.getClientExpediteur() != null ? user.getClientExpediteur().getId() : null;
+            String userClientId = getUtilisateur(auth).getClientId();
             if (userClientId == null || !request.getClientExpediteurId().equals(userClientId)) {
                 throw new AccessDeniedException("Vous ne pouvez créer des colis que pour vous-même");
             }
@@ -138,17 +145,17 @@ public class ColisService {
 
         // LIVREUR can only update their assigned colis
         if (hasRole(auth, "ROLE_LIVREUR") && !hasRole(auth, "ROLE_MANAGER")) {
-            User user = getUserByAuth(auth);
+            UtilisateurAutorise utilisateur = getUtilisateur(auth);
             ColisDTO colis = getColisById(id);
 
-            String userLivreurId = user.getLivreur() != null ? user.getLivreur().getId() : null;
+            String userLivreurId = utilisateur.getLivreurId();
             if (userLivreurId == null || !userLivreurId.equals(colis.getLivreurId())) {
                 throw new AccessDeniedException("Vous ne pouvez modifier que vos colis assignés");
             }
 
             // Set modifiePar if not provided
             if (request.getModifiePar() == null || request.getModifiePar().isEmpty()) {
-                request.setModifiePar(user.getUsername());
+                request.setModifiePar(utilisateur.getUsername());
             }
         }
 
@@ -165,11 +172,22 @@ public class ColisService {
     public ColisStatisticsResponse getStatisticsForUser(Authentication auth) {
         log.info("Récupération des statistiques pour l'utilisateur: {}", auth.getName());
 
-        List<String> roles = auth.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.toList());
+        if (hasRole(auth, "ROLE_MANAGER")) {
+            return getDetailedStatistics();
+        }
+
+        UtilisateurAutorise utilisateur = getUtilisateur(auth);
+        if (hasRole(auth, "ROLE_LIVREUR") && utilisateur.getLivreurId() != null) {
+            return getStatisticsByLivreurId(utilisateur.getLivreurId());
+        }
+        if (hasRole(auth, "ROLE_CLIENT") && utilisateur.getClientId() != null) {
+            return getStatisticsByClientId(utilisateur.getClientId());
+        }
 
-        return getStatisticsByUser(auth.getName(), roles);
+        return ColisStatisticsResponse.builder()
+                .total(0).cree(0).collecte(0).enStock(0)
+                .enTransit(0).livre(0).annule(0).retourne(0)
+                .build();
     }
 
     public List<ColisDTO> getOverdueColisForUser(Authentication auth) {
@@ -180,9 +198,8 @@ public class ColisService {
         }
 
         if (hasRole(auth, "ROLE_LIVREUR")) {
-            User user = getUserByAuth(auth);
-            if (user.getLivreur() != null) {
-                String userLivreurId = user.getLivreur().getId();
+            String userLivreurId = getUtilisateur(auth).getLivreurId();
+            if (userLivreurId != null) {
                 return getOverdueColis().stream()
                         .filter(c -> userLivreurId.equals(c.getLivreurId()))
                         .collect(Collectors.toList());
@@ -200,9 +217,9 @@ public class ColisService {
         }
 
         if (hasRole(auth, "ROLE_LIVREUR")) {
-            User user = getUserByAuth(auth);
-            if (user.getLivreur() != null) {
-                return getColisByMultipleCriteria(null, priorite, null, null, user.getLivreur().getId(), pageable);
+            String userLivreurId = getUtilisateur(auth).getLivreurId();
+            if (userLivreurId != null) {
+                return getColisByMultipleCriteria(null, priorite, null, null, userLivreurId, pageable);
             }
         }
 
@@ -272,6 +289,11 @@ public class ColisService {
         if (request.getZoneId() != null) {
             zone = zoneRepository.findById(request.getZoneId())
                     .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée"));
+        } else {
+            // Zone déduite de l'adresse du destinataire ou de la ville de destination
+            zone = resolutionZoneService.resoudre(destinataire.getAdresse(), request.getVilleDestination())
+                    .map(zoneRepository::getReferenceById)
+                    .orElse(null);
         }
 
         Colis colis = colisMapper.toEntity(request);
@@ -285,6 +307,7 @@ public class ColisService {
         colis = colisRepository.save(colis);
 
         createHistorique(colis, StatutColis.CREE, "Colis créé", null);
+        eventPublisher.publishEvent(ColisChangeEvent.creation(colis.getId(), ColisEtat.of(colis)));
 
         log.info("Colis créé avec succès, id: {}", colis.getId());
         return colisMapper.toDTO(colis);
@@ -296,6 +319,7 @@ public class ColisService {
 
         Colis colis = findColisById(id);
         StatutColis oldStatut = colis.getStatut();
+        ColisEtat avant = ColisEtat.of(colis);
 
         colisMapper.updateEntity(request, colis);
 
@@ -315,7 +339,10 @@ public class ColisService {
             updateDatesByStatut(colis, request.getStatut());
         }
 
+        ColisEtat apres = ColisEtat.of(colis);
+
         colis = colisRepository.save(colis);
+        eventPublisher.publishEvent(ColisChangeEvent.modification(id, avant, apres));
         log.info("Colis mis à jour avec succès");
         return colisMapper.toDTO(colis);
     }
@@ -332,11 +359,15 @@ public class ColisService {
             return colisMapper.toDTO(colis);
         }
 
+        ColisEtat avant = ColisEtat.of(colis);
         colis.setStatut(request.getStatut());
         updateDatesByStatut(colis, request.getStatut());
 
+        ColisEtat apres = ColisEtat.of(colis);
+
         colis = colisRepository.save(colis);
         createHistorique(colis, request.getStatut(), request.getCommentaire(), request.getModifiePar());
+        eventPublisher.publishEvent(ColisChangeEvent.modification(id, avant, apres));
 
         log.info("Statut mis à jour avec succès");
         return colisMapper.toDTO(colis);
@@ -346,7 +377,9 @@ public class ColisService {
     public void deleteColis(String id) {
         log.info("Suppression du colis: {}", id);
         Colis colis = findColisById(id);
+        ColisEtat avant = ColisEtat.of(colis);
         colisRepository.delete(colis);
+        eventPublisher.publishEvent(ColisChangeEvent.suppression(id, avant));
         log.info("Colis supprimé avec succès");
     }
 
@@ -424,41 +457,6 @@ public class ColisService {
                 .build();
     }
 
-    public ColisStatisticsResponse getStatisticsByUser(String username, List<String> roles) {
-        log.info("Calcul des statistiques pour l'utilisateur: {}", username);
-
-        // Si MANAGER, retourner toutes les stats
-        if (roles.contains("ROLE_MANAGER")) {
-            return getDetailedStatistics();
-        }
-
-        // Si LIVREUR, filtrer par livreur
-        if (roles.contains("ROLE_LIVREUR")) {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
-
-            if (user.getLivreur() != null) {
-                return getStatisticsByLivreurId(user.getLivreur().getId());
-            }
-        }
-
-        // Si CLIENT, filtrer par client
-        if (roles.contains("ROLE_CLIENT")) {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
-
-            if (user.getClientExpediteur() != null) {
-                return getStatisticsByClientId(user.getClientExpediteur().getId());
-            }
-        }
-
-        // Par défaut, retourner des stats vides
-        return ColisStatisticsResponse.builder()
-                .total(0).cree(0).collecte(0).enStock(0)
-                .enTransit(0).livre(0).annule(0).retourne(0)
-                .build();
-    }
-
     public ColisStatisticsResponse getStatisticsByLivreurId(String livreurId) {
         return ColisStatisticsResponse.builder()
                 .total(colisRepository.countByLivreurId(livreurId))
@@ -494,14 +492,13 @@ public class ColisService {
 
     // ============ HELPER METHODS ============
 
+    // Test de bit sur le principal compilé (IndexAutorisations)
     private boolean hasRole(Authentication auth, String role) {
-        return auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals(role));
+        return indexAutorisations.possede(auth, role);
     }
 
-    private User getUserByAuth(Authentication auth) {
-        return userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+    private UtilisateurAutorise getUtilisateur(Authentication auth) {
+        return resolveurUtilisateur.resoudre(auth);
     }
 
     private Colis findColisById(String id) {
@@ -0,0 +1,210 @@
+package com.shamkhi.deligo.domain.colis.service;
+
+import com.shamkhi.deligo.domain.colis.dto.DureeStatutDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.HistoriqueLivraisonRepository;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durées de séjour des colis dans chaque statut, agrégées par statut et par zone.
+ * Une passe initiale parcourt l'historique en flux (trié par colis) et calcule l'écart entre
+ * deux changements consécutifs ; ensuite chaque changement de statut met à jour les agrégats.
+ * Les changements reçus pendant la passe initiale sont rejoués sur le nouvel état avant le remplacement.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DureeStatutService {
+
+    private final HistoriqueLivraisonRepository historiqueRepository;
+    private final ZoneRepository zoneRepository;
+
+    private final Object verrou = new Object();
+
+    private volatile Etat etat = new Etat();
+    // Changements reçus pendant une reconstruction (null sinon), sous verrou
+    private List<Consumer<Etat>> rejeu;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void reconstruire() {
+        Etat nouveau = new Etat();
+        long lignes = 0;
+
+        synchronized (verrou) {
+            rejeu = new ArrayList<>();
+        }
+        try (Stream<Object[]> historique = historiqueRepository.streamAllOrderByColis()) {
+            String colisCourant = null;
+            Position precedente = null;
+
+            for (Iterator<Object[]> it = historique.iterator(); it.hasNext(); lignes++) {
+                Object[] ligne = it.next();
+                String colisId = (String) ligne[0];
+                Position position = new Position((StatutColis) ligne[2], (String) ligne[1], (LocalDateTime) ligne[3]);
+
+                if (!colisId.equals(colisCourant)) {
+                    nouveau.suivre(colisCourant, precedente);
+                    colisCourant = colisId;
+                    precedente = position;
+                } else if (position.getStatut() != precedente.getStatut()) {
+                    nouveau.enregistrer(precedente, position.getDepuis());
+                    precedente = position;
+                }
+            }
+            nouveau.suivre(colisCourant, precedente);
+
+            // Un changement déjà présent dans l'historique lu retrouve son nouveau statut : le rejeu ne compte rien deux fois
+            synchronized (verrou) {
+                rejeu.forEach(changement -> changement.accept(nouveau));
+                etat = nouveau;
+            }
+        } finally {
+            synchronized (verrou) {
+                rejeu = null;
+            }
+        }
+
+        log.info("Durées de séjour recalculées: {} lignes d'historique, {} colis en cours", lignes, nouveau.positions.size());
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        if (!event.isStatutChange()) {
+            return;
+        }
+        synchronized (verrou) {
+            Consumer<Etat> changement = cible -> appliquer(cible, event);
+            changement.accept(etat);
+            if (rejeu != null) {
+                rejeu.add(changement);
+            }
+        }
+    }
+
+    private static void appliquer(Etat cible, ColisChangeEvent event) {
+        Position precedente = cible.positions.remove(event.getColisId());
+        if (precedente != null && precedente.getStatut() == event.getAncienStatut()) {
+            cible.enregistrer(precedente.dansZone(event.getAvant().getZoneId()), event.getDateChangement());
+        }
+
+        ColisEtat apres = event.getApres();
+        if (apres != null) {
+            cible.suivre(event.getColisId(),
+                    new Position(apres.getStatut(), apres.getZoneId(), event.getDateChangement()));
+        }
+    }
+
+    public List<DureeStatutDTO> getDurees(StatutColis statut, String zoneId) {
+        log.info("Récupération des durées de séjour (statut: {}, zone: {})", statut, zoneId);
+        Etat courant = etat;
+
+        Map<Cle, Long> enCours = courant.positions.values().stream()
+                .collect(Collectors.groupingBy(p -> new Cle(p.getStatut(), p.getZoneId()), Collectors.counting()));
+
+        Set<Cle> cles = new HashSet<>(courant.agregats.keySet());
+        cles.addAll(enCours.keySet());
+        cles.removeIf(cle -> (statut != null && cle.getStatut() != statut)
+                || (zoneId != null && !zoneId.equals(cle.getZoneId())));
+
+        Map<String, String> nomsZones = zoneRepository.findAllById(cles.stream()
+                        .map(Cle::getZoneId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Zone::getId, Zone::getNom));
+
+        return cles.stream()
+                .map(cle -> {
+                    Accumulateur acc = courant.agregats.get(cle);
+                    long nombre = acc != null ? acc.nombre.sum() : 0;
+                    return DureeStatutDTO.builder()
+                            .statut(cle.getStatut())
+                            .zoneId(cle.getZoneId())
+                            .zoneNom(nomsZones.get(cle.getZoneId()))
+                            .nombrePassages(nombre)
+                            .dureeMoyenneMinutes(minutes(nombre == 0 ? 0 : (double) acc.totalSecondes.sum() / nombre))
+                            .dureeMaxMinutes(minutes(acc != null ? acc.maxSecondes.get() : 0))
+                            .enCours(enCours.getOrDefault(cle, 0L))
+                            .build();
+                })
+                .sorted(Comparator.comparing(DureeStatutDTO::getDureeMoyenneMinutes).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static BigDecimal minutes(double secondes) {
+        return BigDecimal.valueOf(secondes / 60).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Agrégats et dernière position connue de chaque colis non finalisé.
+     * Remplacé d'un bloc à chaque reconstruction.
+     */
+    private static final class Etat {
+        private final Map<Cle, Accumulateur> agregats = new ConcurrentHashMap<>();
+        private final Map<String, Position> positions = new ConcurrentHashMap<>();
+
+        void enregistrer(Position position, LocalDateTime fin) {
+            long secondes = Math.max(0, Duration.between(position.getDepuis(), fin).getSeconds());
+            agregats.computeIfAbsent(new Cle(position.getStatut(), position.getZoneId()), cle -> new Accumulateur())
+                    .ajouter(secondes);
+        }
+
+        void suivre(String colisId, Position position) {
+            // Statuts terminaux : le temps passé dedans n'est pas une attente
+            if (colisId != null && position != null && !position.getStatut().isTerminal()) {
+                positions.put(colisId, position);
+            }
+        }
+    }
+
+    private static final class Accumulateur {
+        private final LongAdder nombre = new LongAdder();
+        private final LongAdder totalSecondes = new LongAdder();
+        private final LongAccumulator maxSecondes = new LongAccumulator(Math::max, 0);
+
+        void ajouter(long secondes) {
+            nombre.increment();
+            totalSecondes.add(secondes);
+            maxSecondes.accumulate(secondes);
+        }
+    }
+
+    @Value
+    private static class Cle {
+        StatutColis statut;
+        String zoneId;
+    }
+
+    @Value
+    private static class Position {
+        StatutColis statut;
+        String zoneId;
+        LocalDateTime depuis;
+
+        Position dansZone(String zone) {
+            return new Position(statut, zone, depuis);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.shamkhi.deligo.domain.colis.service;
+
+import com.shamkhi.deligo.domain.colis.dto.ColisNotificationDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.domain.security.service.UtilisateurAutorise;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diffusion en temps réel (Server-Sent Events) des changements de colis, par colis, client ou livreur.
+ * Un abonnement inactif ne coûte qu'un SseEmitter et une petite file : aucun thread n'est bloqué.
+ * Les changements sont déposés dans la file bornée de chaque abonné ; un pool réduit les écrit sur
+ * le réseau. Un abonné dont la file déborde est déconnecté et devra se réabonner.
+ */
+@Service
+@Slf4j
+public class FluxColisService {
+
+    private static final Object BATTEMENT = new Object();
+
+    private final ColisService colisService;
+    private final ResolveurUtilisateur resolveurUtilisateur;
+    private final IndexAutorisations indexAutorisations;
+    private final Map<String, Set<Abonne>> abonnements = new ConcurrentHashMap<>();
+    private final AtomicInteger nombreAbonnes = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService envoi;
+    private final Counter compteurEnvoyes;
+    private final Counter compteurDeconnectes;
+
+    @Value("${flux-colis.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${flux-colis.tampon:32}")
+    private int tailleTampon;
+
+    @Value("${flux-colis.max-abonnements:20000}")
+    private int maxAbonnements;
+
+    public FluxColisService(ColisService colisService, ResolveurUtilisateur resolveurUtilisateur,
+                            IndexAutorisations indexAutorisations, MeterRegistry meterRegistry,
+                            @Value("${flux-colis.threads:4}") int threads) {
+        this.colisService = colisService;
+        this.resolveurUtilisateur = resolveurUtilisateur;
+        this.indexAutorisations = indexAutorisations;
+        AtomicInteger compteur = new AtomicInteger();
+        this.envoi = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "flux-colis-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compteurEnvoyes = Counter.builder("deligo.flux.colis.envoyes")
+                .description("Notifications de colis envoyées aux abonnés")
+                .register(meterRegistry);
+        this.compteurDeconnectes = Counter.builder("deligo.flux.colis.lents")
+                .description("Abonnés déconnectés car leur file a débordé")
+                .register(meterRegistry);
+        Gauge.builder("deligo.flux.colis.abonnes", nombreAbonnes, AtomicInteger::get)
+                .description("Abonnements SSE ouverts")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        envoi.shutdownNow();
+    }
+
+    /**
+     * Abonnement aux changements d'un colis, avec les mêmes règles d'accès que sa consultation.
+     */
+    public SseEmitter abonnerColis(String colisId, Authentication auth) {
+        colisService.getColisByIdForUser(colisId, auth);
+        return abonner("colis:" + colisId, auth, profil(auth));
+    }
+
+    public SseEmitter abonnerClient(String clientId, Authentication auth) {
+        Profil profil = profil(auth);
+        if (!profil.manager && !clientId.equals(profil.clientId)) {
+            throw new AccessDeniedException("Vous ne pouvez suivre que vos propres colis");
+        }
+        return abonner("client:" + clientId, auth, profil);
+    }
+
+    public SseEmitter abonnerLivreur(String livreurId, Authentication auth) {
+        Profil profil = profil(auth);
+        if (!profil.manager && !livreurId.equals(profil.livreurId)) {
+            throw new AccessDeniedException("Vous ne pouvez suivre que vos colis assignés");
+        }
+        return abonner("livreur:" + livreurId, auth, profil);
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        ColisEtat avant = event.getAvant();
+        ColisEtat apres = event.getApres();
+
+        Set<String> cles = new LinkedHashSet<>();
+        cles.add("colis:" + event.getColisId());
+        for (ColisEtat etat : new ColisEtat[]{avant, apres}) {
+            if (etat != null && etat.getClientId() != null) {
+                cles.add("client:" + etat.getClientId());
+            }
+            if (etat != null && etat.getLivreurId() != null) {
+                cles.add("livreur:" + etat.getLivreurId());
+            }
+        }
+
+        ColisNotificationDTO notification = null;
+        for (String cle : cles) {
+            Set<Abonne> abonnes = abonnements.get(cle);
+            if (abonnes == null) {
+                continue;
+            }
+            for (Abonne abonne : abonnes) {
+                if (!abonne.autorise(avant) && !abonne.autorise(apres)) {
+                    continue;
+                }
+                if (notification == null) {
+                    notification = notification(event);
+                }
+                publier(abonne, notification);
+            }
+        }
+    }
+
+    /**
+     * Commentaire SSE périodique : garde les connexions ouvertes à travers les proxys et détecte
+     * les clients partis.
+     */
+    @Scheduled(fixedDelayString = "${flux-colis.battement-ms:30000}")
+    public void battement() {
+        abonnements.values().forEach(abonnes -> abonnes.forEach(abonne -> publier(abonne, BATTEMENT)));
+    }
+
+    public int getNombreAbonnes() {
+        return nombreAbonnes.get();
+    }
+
+    private SseEmitter abonner(String cle, Authentication auth, Profil profil) {
+        if (nombreAbonnes.incrementAndGet() > maxAbonnements) {
+            nombreAbonnes.decrementAndGet();
+            throw new ServiceUnavailableException("Trop d'abonnements en cours, réessayez plus tard");
+        }
+        SseEmitter emitter = creerEmitter(timeoutMs);
+        Abonne abonne = new Abonne(cle, emitter, tailleTampon, profil);
+        // Ajout dans compute : retirer() ne peut pas supprimer l'ensemble entre sa lecture et l'ajout
+        abonnements.compute(cle, (c, abonnes) -> {
+            Set<Abonne> cibles = abonnes != null ? abonnes : ConcurrentHashMap.newKeySet();
+            cibles.add(abonne);
+            return cibles;
+        });
+
+        emitter.onCompletion(() -> retirer(abonne));
+        emitter.onTimeout(() -> retirer(abonne));
+        emitter.onError(e -> retirer(abonne));
+        log.debug("Abonnement SSE {} ouvert pour {}", cle, auth.getName());
+        return emitter;
+    }
+
+    SseEmitter creerEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    private void publier(Abonne abonne, Object message) {
+        if (abonne.ferme.get()) {
+            return;
+        }
+        if (!abonne.file.offer(message)) {
+            if (message != BATTEMENT) {
+                compteurDeconnectes.increment();
+                log.debug("Abonné SSE {} trop lent, déconnecté", abonne.cle);
+                fermer(abonne);
+            }
+            return;
+        }
+        planifier(abonne);
+    }
+
+    // Un seul envoi en cours par abonné : les messages restent ordonnés sans verrou
+    private void planifier(Abonne abonne) {
+        if (abonne.envoiPlanifie.compareAndSet(false, true)) {
+            try {
+                envoi.execute(() -> vider(abonne));
+            } catch (RejectedExecutionException e) {
+                abonne.envoiPlanifie.set(false);
+            }
+        }
+    }
+
+    private void vider(Abonne abonne) {
+        try {
+            Object message;
+            while ((message = abonne.file.poll()) != null) {
+                if (message == BATTEMENT) {
+                    abonne.emitter.send(SseEmitter.event().comment("battement"));
+                } else {
+                    ColisNotificationDTO notification = (ColisNotificationDTO) message;
+                    abonne.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(notification.getSequence()))
+                            .name("colis")
+                            .data(notification, MediaType.APPLICATION_JSON));
+                    compteurEnvoyes.increment();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté ou émetteur déjà terminé
+            retirer(abonne);
+        } finally {
+            abonne.envoiPlanifie.set(false);
+        }
+        if (!abonne.file.isEmpty() && !abonne.ferme.get()) {
+            planifier(abonne);
+        }
+    }
+
+    private void fermer(Abonne abonne) {
+        retirer(abonne);
+        try {
+            abonne.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Déjà terminé
+        }
+    }
+
+    private void retirer(Abonne abonne) {
+        if (!abonne.ferme.compareAndSet(false, true)) {
+            return;
+        }
+        nombreAbonnes.decrementAndGet();
+        abonne.file.clear();
+        abonnements.computeIfPresent(abonne.cle, (cle, abonnes) -> {
+            abonnes.remove(abonne);
+            return abonnes.isEmpty() ? null : abonnes;
+        });
+    }
+
+    private ColisNotificationDTO notification(ColisChangeEvent event) {
+        String type = event.getAvant() == null ? "CREATION" : event.getApres() == null ? "SUPPRESSION" : "MODIFICATION";
+        ColisEtat courant = event.getApres() != null ? event.getApres() : event.getAvant();
+        return ColisNotificationDTO.builder()
+                .sequence(sequence.incrementAndGet())
+                .type(type)
+                .colisId(event.getColisId())
+                .ancienStatut(event.getAncienStatut())
+                .nouveauStatut(event.getNouveauStatut())
+                .livreurId(courant.getLivreurId())
+                .dateChangement(event.getDateChangement())
+                .build();
+    }
+
+    private Profil profil(Authentication auth) {
+        boolean manager = indexAutorisations.possede(auth, "ROLE_MANAGER");
+        if (manager) {
+            return new Profil(true, null, null);
+        }
+        // Même priorité des rôles que getColisByIdForUser : livreur, puis client
+        UtilisateurAutorise utilisateur = resolveurUtilisateur.resoudre(auth);
+        if (indexAutorisations.possede(auth, "ROLE_LIVREUR")) {
+            return new Profil(false, utilisateur.getLivreurId(), null);
+        }
+        if (indexAutorisations.possede(auth, "ROLE_CLIENT")) {
+            return new Profil(false, null, utilisateur.getClientId());
+        }
+        return new Profil(false, null, null);
+    }
+
+    private static final class Profil {
+        private final boolean manager;
+        private final String livreurId;
+        private final String clientId;
+
+        Profil(boolean manager, String livreurId, String clientId) {
+            this.manager = manager;
+            this.livreurId = livreurId;
+            this.clientId = clientId;
+        }
+    }
+
+    private static final class Abonne {
+        private final String cle;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> file;
+        private final Profil profil;
+        private final AtomicBoolean envoiPlanifie = new AtomicBoolean();
+        private final AtomicBoolean ferme = new AtomicBoolean();
+
+        Abonne(String cle, SseEmitter emitter, int tailleTampon, Profil profil) {
+            this.cle = cle;
+            this.emitter = emitter;
+            this.file = new ArrayBlockingQueue<>(tailleTampon);
+            this.profil = profil;
+        }
+
+        // Mêmes règles que la consultation : le colis doit être (ou avoir été) le sien, selon le rôle du profil
+        boolean autorise(ColisEtat etat) {
+            if (profil.manager) {
+                return true;
+            }
+            return etat != null
+                    && (profil.livreurId != null && profil.livreurId.equals(etat.getLivreurId())
+                    || profil.clientId != null && profil.clientId.equals(etat.getClientId()));
+        }
+    }
+}
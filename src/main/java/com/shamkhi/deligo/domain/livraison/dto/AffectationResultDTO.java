@@ -0,0 +1,20 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AffectationResultDTO {
+    private int nombreCandidats;
+    private int nombreAffectes;
+    private int nombreNonAffectes;
+    private long dureeMs;
+    private Map<String, Integer> repartition;
+}
@@ -0,0 +1,30 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArretTourneeDTO {
+    private int ordre;
+    private String colisId;
+    private TypeArret type;
+    private StatutColis statut;
+    private PrioriteColis priorite;
+    private LocalDateTime dateLimiteLivraison;
+    private String nom;
+    private String adresse;
+    private Double latitude;
+    private Double longitude;
+    private BigDecimal distanceDepuisPrecedentKm;
+}
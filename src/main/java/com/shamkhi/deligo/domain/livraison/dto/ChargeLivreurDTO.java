@@ -0,0 +1,21 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeLivreurDTO {
+    private String livreurId;
+    private long nombreColisOuverts;
+    private BigDecimal poidsTotal;
+    private long nombreUrgents;
+    // Volume en litres des colis dont le volume est renseigné
+    private BigDecimal volumeTotal;
+}
@@ -0,0 +1,23 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassementLivreurDTO {
+    private int rang;
+    private String livreurId;
+    private String nom;
+    private String prenom;
+    private long nombreLivraisons;
+    private long nombreATemps;
+    private BigDecimal tauxPonctualite;
+    private BigDecimal poidsLivre;
+}
@@ -0,0 +1,16 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionZonesDTO {
+    private int nombreTraites;
+    private int nombreResolus;
+    private long dureeMs;
+}
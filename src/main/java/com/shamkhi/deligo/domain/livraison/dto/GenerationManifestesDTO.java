@@ -0,0 +1,17 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationManifestesDTO {
+    private int nombreLivreurs;
+    private int nombreGeneres;
+    private int nombreEchecs;
+    private long dureeMs;
+}
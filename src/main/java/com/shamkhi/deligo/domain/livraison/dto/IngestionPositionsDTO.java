@@ -0,0 +1,17 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionPositionsDTO {
+    private int recues;
+    private int acceptees;
+    // Positions plus anciennes que la dernière connue, ignorées
+    private int ignorees;
+}
@@ -0,0 +1,19 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LigneProduitDTO {
+    private String produitId;
+    private String nom;
+    private Integer quantite;
+    private BigDecimal prix;
+}
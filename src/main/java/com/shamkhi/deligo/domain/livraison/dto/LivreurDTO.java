@@ -1,5 +1,8 @@
 package com.shamkhi.deligo.domain.livraison.dto;
 
+import com.shamkhi.deligo.domain.livraison.model.TypeVehicule;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -34,11 +37,23 @@ public class LivreurDTO {
     @Size(max = 100)
     private String vehicule;
 
+    private TypeVehicule typeVehicule;
+
     private String zoneAssigneeId;
     private String zoneAssigneeNom;
 
     private Boolean actif;
 
+    @DecimalMin(value = "-90.0", message = "La latitude doit être comprise entre -90 et 90")
+    @DecimalMax(value = "90.0", message = "La latitude doit être comprise entre -90 et 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "La longitude doit être comprise entre -180 et 180")
+    @DecimalMax(value = "180.0", message = "La longitude doit être comprise entre -180 et 180")
+    private Double longitude;
+
+    private LocalDateTime datePosition;
+
     private LocalDateTime dateCreation;
     private LocalDateTime dateModification;
 
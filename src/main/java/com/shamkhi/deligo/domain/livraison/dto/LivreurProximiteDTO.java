@@ -0,0 +1,19 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivreurProximiteDTO {
+    private String livreurId;
+    private String nom;
+    private String prenom;
+    private double latitude;
+    private double longitude;
+    private double distanceKm;
+}
@@ -0,0 +1,35 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManifesteColisDTO {
+    private int ordre;
+    private String colisId;
+    private TypeArret type;
+    private StatutColis statut;
+    private PrioriteColis priorite;
+    private String description;
+    private BigDecimal poids;
+    private LocalDateTime dateLimiteLivraison;
+    // Contact et adresse de l'arrêt : expéditeur pour une collecte, destinataire pour une livraison
+    private String nom;
+    private String telephone;
+    private String adresse;
+    private Double latitude;
+    private Double longitude;
+    private List<LigneProduitDTO> produits;
+}
@@ -0,0 +1,29 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Manifeste de la journée d'un livreur : ses colis ouverts dans l'ordre de la tournée,
+ * avec adresses et lignes produits, téléchargé en une fois par l'application livreur.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManifesteDTO {
+    private String livreurId;
+    private String nom;
+    private String prenom;
+    private LocalDate date;
+    private int nombreColis;
+    private BigDecimal poidsTotal;
+    private BigDecimal distanceTotaleKm;
+    private List<ManifesteColisDTO> colis;
+}
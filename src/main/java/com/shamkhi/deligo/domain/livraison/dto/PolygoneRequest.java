@@ -0,0 +1,20 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolygoneRequest {
+
+    @NotNull(message = "Les sommets du polygone sont obligatoires")
+    @Size(min = 3, max = 500, message = "Le polygone doit avoir entre 3 et 500 sommets")
+    private List<@Valid CoordonneesDTO> points;
+}
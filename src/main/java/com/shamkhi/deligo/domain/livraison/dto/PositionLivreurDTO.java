@@ -0,0 +1,19 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionLivreurDTO {
+    private String livreurId;
+    private double latitude;
+    private double longitude;
+    private LocalDateTime horodatage;
+}
@@ -0,0 +1,20 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionsRequest {
+
+    @NotEmpty(message = "Au moins une position est requise")
+    @Size(max = 200, message = "Un lot contient au plus 200 positions")
+    private List<@Valid PositionPingDTO> positions;
+}
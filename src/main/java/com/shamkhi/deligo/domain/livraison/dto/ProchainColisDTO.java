@@ -0,0 +1,22 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProchainColisDTO {
+    private String colisId;
+    private PrioriteColis priorite;
+    private LocalDateTime dateLimiteLivraison;
+    // Échéance avancée selon la priorité, clé de tri de la file
+    private LocalDateTime echeanceEffective;
+    private boolean enRetard;
+}
@@ -0,0 +1,24 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourneeDTO {
+    private String livreurId;
+    private LocalDateTime dateCalcul;
+    private BigDecimal distanceTotaleKm;
+    private BigDecimal distanceInitialeKm;
+    private long dureeCalculMs;
+    private List<ArretTourneeDTO> arrets;
+    private List<String> colisSansCoordonnees;
+}
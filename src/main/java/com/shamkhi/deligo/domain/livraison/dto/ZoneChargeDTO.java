@@ -0,0 +1,26 @@
+package com.shamkhi.deligo.domain.livraison.dto;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZoneChargeDTO {
+    private String zoneId;
+    private String zoneNom;
+    private PrioriteColis priorite;
+    private StatutColis statut;
+    private long nombreColis;
+    private BigDecimal poidsTotal;
+    private long nombreEnRetard;
+    private LocalDateTime dateLimiteProche;
+}
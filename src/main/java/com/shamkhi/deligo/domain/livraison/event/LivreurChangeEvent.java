@@ -0,0 +1,31 @@
+package com.shamkhi.deligo.domain.livraison.event;
+
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import lombok.Value;
+
+/**
+ * Publié par LivreurService à chaque création, modification, (dés)activation ou suppression d'un livreur.
+ */
+@Value
+public class LivreurChangeEvent {
+    String livreurId;
+    String nom;
+    String prenom;
+    boolean actif;
+    Double latitude;
+    Double longitude;
+    boolean supprime;
+
+    public static LivreurChangeEvent of(Livreur livreur) {
+        return new LivreurChangeEvent(livreur.getId(), livreur.getNom(), livreur.getPrenom(),
+                !Boolean.FALSE.equals(livreur.getActif()), livreur.getLatitude(), livreur.getLongitude(), false);
+    }
+
+    public static LivreurChangeEvent suppression(String livreurId) {
+        return new LivreurChangeEvent(livreurId, null, null, false, null, null, true);
+    }
+
+    public boolean hasPosition() {
+        return latitude != null && longitude != null;
+    }
+}
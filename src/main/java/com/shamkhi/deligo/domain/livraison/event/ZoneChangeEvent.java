@@ -0,0 +1,12 @@
+package com.shamkhi.deligo.domain.livraison.event;
+
+import lombok.Value;
+
+/**
+ * Publié par ZoneService à chaque création, modification ou suppression d'une zone.
+ */
+@Value
+public class ZoneChangeEvent {
+    String zoneId;
+    boolean supprime;
+}
@@ -0,0 +1,174 @@
+package com.shamkhi.deligo.domain.livraison.geo;
+
+import lombok.Value;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index spatial en mémoire : grille régulière en degrés, chaque cellule contient les identifiants
+ * des points qui s'y trouvent. Une recherche ne parcourt que les cellules recouvrant le rectangle
+ * englobant de la requête, puis filtre exactement (haversine ou point dans polygone).
+ * Sûr en concurrence : les mises à jour d'un même point sont sérialisées par la map des points.
+ */
+public class GrilleSpatiale {
+
+    private static final double KM_PAR_DEGRE = Math.PI * Haversine.RAYON_TERRE_KM / 180;
+
+    private final double tailleCellule;
+    private final Map<Long, Set<String>> cellules = new ConcurrentHashMap<>();
+    private final Map<String, Point> points = new ConcurrentHashMap<>();
+
+    public GrilleSpatiale(double tailleCellule) {
+        if (tailleCellule <= 0) {
+            throw new IllegalArgumentException("La taille de cellule doit être positive");
+        }
+        this.tailleCellule = tailleCellule;
+    }
+
+    public void placer(String id, double latitude, double longitude) {
+        long cle = cle(latitude, longitude);
+        points.compute(id, (k, ancien) -> {
+            if (ancien != null && ancien.cellule != cle) {
+                retirerDeCellule(ancien.cellule, id);
+            }
+            if (ancien == null || ancien.cellule != cle) {
+                cellules.compute(cle, (c, ids) -> {
+                    Set<String> contenu = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    contenu.add(id);
+                    return contenu;
+                });
+            }
+            return new Point(latitude, longitude, cle);
+        });
+    }
+
+    public void retirer(String id) {
+        points.computeIfPresent(id, (k, ancien) -> {
+            retirerDeCellule(ancien.cellule, id);
+            return null;
+        });
+    }
+
+    public int taille() {
+        return points.size();
+    }
+
+    public List<Resultat> dansRayon(double latitude, double longitude, double rayonKm) {
+        double dLat = rayonKm / KM_PAR_DEGRE;
+        double dLon = rayonKm / (KM_PAR_DEGRE * Math.max(Math.cos(Math.toRadians(latitude)), 1e-6));
+
+        List<Resultat> resultats = new ArrayList<>();
+        parcourir(latitude - dLat, latitude + dLat, longitude - dLon, longitude + dLon, (id, point) -> {
+            double distance = Haversine.distanceKm(latitude, longitude, point.latitude, point.longitude);
+            if (distance <= rayonKm) {
+                resultats.add(new Resultat(id, point.latitude, point.longitude, distance));
+            }
+        });
+        resultats.sort(Comparator.comparingDouble(Resultat::getDistanceKm));
+        return resultats;
+    }
+
+    public List<Resultat> dansPolygone(double[] latitudes, double[] longitudes) {
+        double latMin = Arrays.stream(latitudes).min().orElse(0);
+        double latMax = Arrays.stream(latitudes).max().orElse(0);
+        double lonMin = Arrays.stream(longitudes).min().orElse(0);
+        double lonMax = Arrays.stream(longitudes).max().orElse(0);
+
+        List<Resultat> resultats = new ArrayList<>();
+        parcourir(latMin, latMax, lonMin, lonMax, (id, point) -> {
+            if (contient(latitudes, longitudes, point.latitude, point.longitude)) {
+                resultats.add(new Resultat(id, point.latitude, point.longitude, 0));
+            }
+        });
+        return resultats;
+    }
+
+    /**
+     * Test du point dans le polygone par lancer de rayon (règle pair-impair).
+     */
+    public static boolean contient(double[] latitudes, double[] longitudes, double latitude, double longitude) {
+        boolean dedans = false;
+        for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+            if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+                    && longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i])
+                    / (latitudes[j] - latitudes[i]) + longitudes[i]) {
+                dedans = !dedans;
+            }
+        }
+        return dedans;
+    }
+
+    private void parcourir(double latMin, double latMax, double lonMin, double lonMax, Visiteur visiteur) {
+        long ligneMin = (long) Math.floor(latMin / tailleCellule);
+        long ligneMax = (long) Math.floor(latMax / tailleCellule);
+        long colonneMin = (long) Math.floor(lonMin / tailleCellule);
+        long colonneMax = (long) Math.floor(lonMax / tailleCellule);
+
+        // Rectangle plus grand que l'index : un parcours direct des points est moins coûteux
+        if ((ligneMax - ligneMin + 1) * (colonneMax - colonneMin + 1) > points.size()) {
+            points.forEach((id, point) -> {
+                if (point.latitude >= latMin && point.latitude <= latMax
+                        && point.longitude >= lonMin && point.longitude <= lonMax) {
+                    visiteur.visiter(id, point);
+                }
+            });
+            return;
+        }
+
+        for (long ligne = ligneMin; ligne <= ligneMax; ligne++) {
+            for (long colonne = colonneMin; colonne <= colonneMax; colonne++) {
+                Set<String> ids = cellules.get(cle(ligne, colonne));
+                if (ids == null) {
+                    continue;
+                }
+                for (String id : ids) {
+                    Point point = points.get(id);
+                    if (point != null) {
+                        visiteur.visiter(id, point);
+                    }
+                }
+            }
+        }
+    }
+
+    private void retirerDeCellule(long cle, String id) {
+        cellules.computeIfPresent(cle, (c, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private long cle(double latitude, double longitude) {
+        return cle((long) Math.floor(latitude / tailleCellule), (long) Math.floor(longitude / tailleCellule));
+    }
+
+    private static long cle(long ligne, long colonne) {
+        return (ligne << 32) ^ (colonne & 0xffffffffL);
+    }
+
+    @FunctionalInterface
+    private interface Visiteur {
+        void visiter(String id, Point point);
+    }
+
+    private static final class Point {
+        private final double latitude;
+        private final double longitude;
+        private final long cellule;
+
+        Point(double latitude, double longitude, long cellule) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cellule = cellule;
+        }
+    }
+
+    @Value
+    public static class Resultat {
+        String id;
+        double latitude;
+        double longitude;
+        double distanceKm;
+    }
+}
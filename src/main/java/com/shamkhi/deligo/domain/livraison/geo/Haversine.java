@@ -0,0 +1,37 @@
+package com.shamkhi.deligo.domain.livraison.geo;
+
+/**
+ * Distance orthodromique entre deux points GPS (formule de haversine).
+ */
+public final class Haversine {
+
+    public static final double RAYON_TERRE_KM = 6371.0088;
+
+    private Haversine() {
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RAYON_TERRE_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Matrice symétrique des distances entre tous les points, en kilomètres.
+     */
+    public static double[][] matrice(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = distanceKm(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+                distances[i][j] = d;
+                distances[j][i] = d;
+            }
+        }
+        return distances;
+    }
+}
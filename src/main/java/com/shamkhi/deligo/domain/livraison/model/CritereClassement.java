@@ -0,0 +1,17 @@
+package com.shamkhi.deligo.domain.livraison.model;
+
+public enum CritereClassement {
+    LIVRAISONS("Nombre de colis livrés"),
+    PONCTUALITE("Taux de livraison dans les délais"),
+    POIDS("Kilogrammes livrés");
+
+    private final String libelle;
+
+    CritereClassement(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+}
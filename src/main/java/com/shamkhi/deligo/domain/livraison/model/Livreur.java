@@ -1,6 +1,8 @@
 package com.shamkhi.deligo.domain.livraison.model;
 
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
@@ -44,6 +46,10 @@ public class Livreur {
     @Column(name = "vehicule", length = 100)
     private String vehicule;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type_vehicule", length = 20)
+    private TypeVehicule typeVehicule;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "zone_assignee_id")
     private Zone zoneAssignee;
@@ -51,6 +57,20 @@ public class Livreur {
     @Column(name = "actif")
     private Boolean actif = true;
 
+    // Dernière position connue
+    @DecimalMin(value = "-90.0", message = "La latitude doit être comprise entre -90 et 90")
+    @DecimalMax(value = "90.0", message = "La latitude doit être comprise entre -90 et 90")
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "La longitude doit être comprise entre -180 et 180")
+    @DecimalMax(value = "180.0", message = "La longitude doit être comprise entre -180 et 180")
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "date_position")
+    private LocalDateTime datePosition;
+
     @Column(name = "date_creation", nullable = false, updatable = false)
     private LocalDateTime dateCreation;
 
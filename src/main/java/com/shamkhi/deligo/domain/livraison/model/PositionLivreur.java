@@ -0,0 +1,37 @@
+package com.shamkhi.deligo.domain.livraison.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point GPS historisé d'un livreur. Les lignes sont insérées en lots JDBC par SuiviPositionService
+ * (un point par intervalle ou sur déplacement significatif), jamais modifiées.
+ */
+@Entity
+@Immutable
+@Table(name = "position_livreur")
+@Getter
+@NoArgsConstructor
+public class PositionLivreur {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "livreur_id", nullable = false, length = 36)
+    private String livreurId;
+
+    @Column(name = "latitude", nullable = false)
+    private Double latitude;
+
+    @Column(name = "longitude", nullable = false)
+    private Double longitude;
+
+    @Column(name = "horodatage", nullable = false)
+    private LocalDateTime horodatage;
+}
@@ -0,0 +1,16 @@
+package com.shamkhi.deligo.domain.livraison.model;
+
+public enum TypeArret {
+    COLLECTE("Collecte chez l'expéditeur"),
+    LIVRAISON("Livraison au destinataire");
+
+    private final String libelle;
+
+    TypeArret(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+}
@@ -0,0 +1,41 @@
+package com.shamkhi.deligo.domain.livraison.model;
+
+/**
+ * Catégorie de véhicule d'un livreur avec sa capacité de chargement (poids en kg, volume en litres).
+ */
+public enum TypeVehicule {
+    VELO("Vélo cargo", 25, 60),
+    MOTO("Scooter / moto", 30, 90),
+    VOITURE("Voiture", 250, 500),
+    UTILITAIRE("Utilitaire", 900, 4000);
+
+    private final String libelle;
+    private final int poidsMaxKg;
+    private final int volumeMaxLitres;
+
+    TypeVehicule(String libelle, int poidsMaxKg, int volumeMaxLitres) {
+        this.libelle = libelle;
+        this.poidsMaxKg = poidsMaxKg;
+        this.volumeMaxLitres = volumeMaxLitres;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public int getPoidsMaxKg() {
+        return poidsMaxKg;
+    }
+
+    public int getVolumeMaxLitres() {
+        return volumeMaxLitres;
+    }
+
+    public long getPoidsMaxGrammes() {
+        return poidsMaxKg * 1000L;
+    }
+
+    public long getVolumeMaxMillilitres() {
+        return volumeMaxLitres * 1000L;
+    }
+}
@@ -0,0 +1,53 @@
+package com.shamkhi.deligo.domain.livraison.model;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de la vue matérialisée zone_charge_mv : colis ouverts d'une zone pour un couple
+ * (priorité, statut). Lecture seule, alimentée par ZoneChargeService.
+ */
+@Entity
+@Immutable
+@Table(name = "zone_charge_mv")
+@Getter
+@NoArgsConstructor
+public class ZoneCharge {
+
+    @Id
+    @Column(name = "id", length = 100)
+    private String id;
+
+    @Column(name = "zone_id", nullable = false, length = 36)
+    private String zoneId;
+
+    @Column(name = "zone_nom", length = 100)
+    private String zoneNom;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priorite", length = 20)
+    private PrioriteColis priorite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", length = 20)
+    private StatutColis statut;
+
+    @Column(name = "nombre_colis")
+    private Long nombreColis;
+
+    @Column(name = "poids_total", precision = 12, scale = 2)
+    private BigDecimal poidsTotal;
+
+    @Column(name = "nombre_en_retard")
+    private Long nombreEnRetard;
+
+    @Column(name = "date_limite_proche")
+    private LocalDateTime dateLimiteProche;
+}
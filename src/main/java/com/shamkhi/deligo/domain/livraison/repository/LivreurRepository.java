@@ -9,19 +9,57 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LivreurRepository extends JpaRepository<Livreur, String> {
 
+    // Lecture : livreur, nom de zone et compte utilisateur en une seule requête
+    String SELECT_VUE = "SELECT l.id AS id, l.nom AS nom, l.prenom AS prenom, l.telephone AS telephone, " +
+            "l.vehicule AS vehicule, l.typeVehicule AS typeVehicule, z.id AS zoneAssigneeId, z.nom AS zoneAssigneeNom, l.actif AS actif, " +
+            "l.latitude AS latitude, l.longitude AS longitude, l.datePosition AS datePosition, " +
+            "l.dateCreation AS dateCreation, l.dateModification AS dateModification, " +
+            "u.id AS userId, u.username AS username, u.email AS email " +
+            "FROM Livreur l LEFT JOIN l.zoneAssignee z LEFT JOIN User u ON u.livreur = l ";
+
+    String FILTRE_MOT_CLE = "WHERE LOWER(l.nom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(l.prenom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(l.telephone) LIKE LOWER(CONCAT('%', :keyword, '%'))";
+
     List<Livreur> findByActif(Boolean actif);
 
     boolean existsByTelephone(String telephone);
 
-    @Query("SELECT l FROM Livreur l WHERE " +
-            "LOWER(l.nom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(l.prenom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(l.telephone) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    @Query("SELECT l FROM Livreur l " + FILTRE_MOT_CLE)
     Page<Livreur> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
+    @Query(value = SELECT_VUE, countQuery = "SELECT COUNT(l) FROM Livreur l")
+    Page<LivreurVue> findAllVues(Pageable pageable);
+
+    @Query(SELECT_VUE + "WHERE l.actif = :actif")
+    List<LivreurVue> findVuesByActif(@Param("actif") Boolean actif);
+
+    @Query(SELECT_VUE + "WHERE l.id = :id")
+    Optional<LivreurVue> findVueById(@Param("id") String id);
+
+    @Query(value = SELECT_VUE + FILTRE_MOT_CLE, countQuery = "SELECT COUNT(l) FROM Livreur l " + FILTRE_MOT_CLE)
+    Page<LivreurVue> searchVuesByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
     List<Livreur> findByZoneAssigneeId(String id);
-}
\ No newline at end of file
+
+    // Index spatial : dernière position des livreurs actifs
+    @Query("SELECT l.id, l.nom, l.prenom, l.latitude, l.longitude FROM Livreur l " +
+            "WHERE l.actif = true AND l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
+    List<Object[]> findActivePositions();
+
+    // Index spatial : repli SQL par rectangle englobant (sans PostGIS)
+    @Query("SELECT l.id, l.nom, l.prenom, l.latitude, l.longitude FROM Livreur l " +
+            "WHERE l.actif = true " +
+            "AND l.latitude BETWEEN :latMin AND :latMax AND l.longitude BETWEEN :lonMin AND :lonMax")
+    List<Object[]> findActivePositionsInBox(
+            @Param("latMin") double latMin,
+            @Param("latMax") double latMax,
+            @Param("lonMin") double lonMin,
+            @Param("lonMax") double lonMax
+    );
+}
@@ -0,0 +1,46 @@
+package com.shamkhi.deligo.domain.livraison.repository;
+
+import com.shamkhi.deligo.domain.livraison.model.TypeVehicule;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection de lecture d'un livreur avec le nom de sa zone et son compte utilisateur,
+ * chargée en une seule requête (voir {@link LivreurRepository#SELECT_VUE}).
+ */
+public interface LivreurVue {
+
+    String getId();
+
+    String getNom();
+
+    String getPrenom();
+
+    String getTelephone();
+
+    String getVehicule();
+
+    TypeVehicule getTypeVehicule();
+
+    String getZoneAssigneeId();
+
+    String getZoneAssigneeNom();
+
+    Boolean getActif();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    LocalDateTime getDatePosition();
+
+    LocalDateTime getDateCreation();
+
+    LocalDateTime getDateModification();
+
+    String getUserId();
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -0,0 +1,15 @@
+package com.shamkhi.deligo.domain.livraison.repository;
+
+import com.shamkhi.deligo.domain.livraison.model.ZoneCharge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ZoneChargeRepository extends JpaRepository<ZoneCharge, String> {
+
+    List<ZoneCharge> findAllByOrderByZoneNomAscPrioriteAscStatutAsc();
+
+    List<ZoneCharge> findByZoneIdOrderByPrioriteAscStatutAsc(String zoneId);
+}
@@ -0,0 +1,311 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.AffectationResultDTO;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeVehicule;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Affectation automatique des colis ouverts sans livreur.
+ * Les colis de chaque zone sont répartis entre les véhicules de ses livreurs actifs sans dépasser
+ * leur capacité en poids et en volume (selon {@link TypeVehicule}) ni {@code affectation.capacite-max}
+ * colis ouverts, en servant d'abord les plus prioritaires ; le reste va aux livreurs sans zone.
+ * Les charges déjà transportées sont lues dans {@link ChargeLivreurService}.
+ * Le plan est appliqué en lots JDBC avec l'historique correspondant, dans une seule transaction.
+ */
+@Service
+@Slf4j
+public class AffectationService {
+
+    private static final int TAILLE_LOT = 500;
+    private static final String MODIFIE_PAR = "affectation-automatique";
+
+    private static final String SQL_AFFECTATION =
+            "UPDATE colis SET livreur_id = ?, date_modification = ? WHERE id = ? AND livreur_id IS NULL";
+    private static final String SQL_HISTORIQUE =
+            "INSERT INTO historique_livraison (id, colis_id, statut, date_changement, commentaire, modifie_par) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final ColisRepository colisRepository;
+    private final LivreurRepository livreurRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChargeLivreurService chargeLivreurService;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    @Value("${affectation.capacite-max:25}")
+    private int capaciteMax;
+
+    // Véhicule supposé pour les livreurs dont le type n'est pas renseigné
+    @Value("${affectation.type-vehicule-defaut:MOTO}")
+    private TypeVehicule typeVehiculeDefaut;
+
+    @Value("${affectation.budget-ms:500}")
+    private long budgetMs;
+
+    public AffectationService(ColisRepository colisRepository, LivreurRepository livreurRepository,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, ChargeLivreurService chargeLivreurService) {
+        this.colisRepository = colisRepository;
+        this.livreurRepository = livreurRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chargeLivreurService = chargeLivreurService;
+    }
+
+    @Scheduled(cron = "${affectation.cron:-}")
+    public void affecterPlanifie() {
+        try {
+            affecter();
+        } catch (ServiceUnavailableException e) {
+            log.debug("Affectation planifiée ignorée: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Échec de l'affectation automatique planifiée", e);
+        }
+    }
+
+    public AffectationResultDTO affecter() {
+        if (!enCours.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Une affectation automatique est déjà en cours");
+        }
+        try {
+            long debut = System.currentTimeMillis();
+            AffectationResultDTO resultat = transactionTemplate.execute(status -> executer());
+            resultat.setDureeMs(System.currentTimeMillis() - debut);
+            log.info("Affectation automatique: {} colis affectés sur {} candidats en {} ms",
+                    resultat.getNombreAffectes(), resultat.getNombreCandidats(), resultat.getDureeMs());
+            return resultat;
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    private AffectationResultDTO executer() {
+        Set<StatutColis> terminaux = StatutColis.terminaux();
+
+        List<Candidat> candidats = new ArrayList<>();
+        for (Object[] ligne : colisRepository.findUnassignedOpen(terminaux)) {
+            candidats.add(new Candidat((String) ligne[0], (String) ligne[1], (PrioriteColis) ligne[2],
+                    (StatutColis) ligne[3], (LocalDateTime) ligne[4], (BigDecimal) ligne[5],
+                    (Double) ligne[6], (Double) ligne[7], (String) ligne[8], (BigDecimal) ligne[9]));
+        }
+
+        Map<Candidat, String> plan = planifier(candidats, livreurRepository.findByActif(true));
+        List<Candidat> affectes = appliquer(plan);
+
+        Map<String, Integer> repartition = new TreeMap<>();
+        for (Candidat candidat : affectes) {
+            repartition.merge(plan.get(candidat), 1, Integer::sum);
+        }
+
+        return AffectationResultDTO.builder()
+                .nombreCandidats(candidats.size())
+                .nombreAffectes(affectes.size())
+                .nombreNonAffectes(candidats.size() - affectes.size())
+                .repartition(repartition)
+                .build();
+    }
+
+    /**
+     * Calcule le plan d'affectation : les colis de chaque zone sont répartis entre les véhicules de ses
+     * livreurs par {@link PlanificateurChargement}, dans la limite de leur poids, de leur volume et de
+     * {@code affectation.capacite-max} colis ; le reliquat va aux livreurs sans zone.
+     */
+    Map<Candidat, String> planifier(List<Candidat> candidats, List<Livreur> livreurs) {
+        Map<String, List<Livreur>> parZone = new HashMap<>();
+        List<Livreur> sansZone = new ArrayList<>();
+        for (Livreur livreur : livreurs) {
+            if (livreur.getZoneAssignee() != null) {
+                parZone.computeIfAbsent(livreur.getZoneAssignee().getId(), z -> new ArrayList<>()).add(livreur);
+            } else {
+                sansZone.add(livreur);
+            }
+        }
+
+        List<Candidat> ordonnes = new ArrayList<>(candidats);
+        ordonnes.sort(Comparator.comparingInt((Candidat c) -> -rang(c.priorite))
+                .thenComparing(c -> c.dateLimite, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<String, List<Candidat>> candidatsParZone = new LinkedHashMap<>();
+        List<Candidat> reliquat = new ArrayList<>();
+        for (Candidat candidat : ordonnes) {
+            if (candidat.zoneId != null && parZone.containsKey(candidat.zoneId)) {
+                candidatsParZone.computeIfAbsent(candidat.zoneId, z -> new ArrayList<>()).add(candidat);
+            } else {
+                reliquat.add(candidat);
+            }
+        }
+
+        Map<Candidat, String> plan = new LinkedHashMap<>();
+        candidatsParZone.forEach((zoneId, colis) -> reliquat.addAll(charger(colis, parZone.get(zoneId), plan)));
+        // Le reliquat des zones rejoint les colis sans zone, dans l'ordre de priorité
+        reliquat.sort(Comparator.comparingInt((Candidat c) -> -rang(c.priorite))
+                .thenComparing(c -> c.dateLimite, Comparator.nullsLast(Comparator.naturalOrder())));
+        charger(reliquat, sansZone, plan);
+        return plan;
+    }
+
+    // Répartit les colis entre les livreurs donnés et retourne ceux qui n'ont trouvé aucun véhicule
+    private List<Candidat> charger(List<Candidat> colis, List<Livreur> livreurs, Map<Candidat, String> plan) {
+        if (colis.isEmpty()) {
+            return colis;
+        }
+        long[] poids = new long[colis.size()];
+        long[] volumes = new long[colis.size()];
+        int[] rangs = new int[colis.size()];
+        for (int i = 0; i < colis.size(); i++) {
+            Candidat candidat = colis.get(i);
+            poids[i] = unitesMilli(candidat.poids);
+            volumes[i] = unitesMilli(candidat.volume);
+            rangs[i] = rang(candidat.priorite);
+        }
+
+        PlanificateurChargement.Vehicule[] vehicules = new PlanificateurChargement.Vehicule[livreurs.size()];
+        for (int k = 0; k < livreurs.size(); k++) {
+            String livreurId = livreurs.get(k).getId();
+            TypeVehicule type = livreurs.get(k).getTypeVehicule() != null
+                    ? livreurs.get(k).getTypeVehicule()
+                    : typeVehiculeDefaut;
+            vehicules[k] = new PlanificateurChargement.Vehicule(type.getPoidsMaxGrammes(), type.getVolumeMaxMillilitres(),
+                    capaciteMax, chargeLivreurService.poidsTransporteGrammes(livreurId),
+                    chargeLivreurService.volumeTransporteMillilitres(livreurId),
+                    chargeLivreurService.nombreColisOuverts(livreurId));
+        }
+
+        int[] affectation = PlanificateurChargement.planifier(poids, volumes, rangs, vehicules,
+                TimeUnit.MILLISECONDS.toNanos(budgetMs));
+        List<Candidat> restants = new ArrayList<>();
+        for (int i = 0; i < colis.size(); i++) {
+            if (affectation[i] >= 0) {
+                plan.put(colis.get(i), livreurs.get(affectation[i]).getId());
+            } else {
+                restants.add(colis.get(i));
+            }
+        }
+        return restants;
+    }
+
+    private List<Candidat> appliquer(Map<Candidat, String> plan) {
+        List<Candidat> affectes = new ArrayList<>(plan.size());
+        List<Candidat> lot = new ArrayList<>(TAILLE_LOT);
+        for (Candidat candidat : plan.keySet()) {
+            lot.add(candidat);
+            if (lot.size() == TAILLE_LOT) {
+                appliquerLot(lot, plan, affectes);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            appliquerLot(lot, plan, affectes);
+        }
+        return affectes;
+    }
+
+    private void appliquerLot(List<Candidat> lot, Map<Candidat, String> plan, List<Candidat> affectes) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Timestamp horodatage = Timestamp.valueOf(maintenant);
+
+        List<Object[]> mises = new ArrayList<>(lot.size());
+        for (Candidat candidat : lot) {
+            mises.add(new Object[]{plan.get(candidat), horodatage, candidat.colisId});
+        }
+        int[] resultats = jdbcTemplate.batchUpdate(SQL_AFFECTATION, mises);
+
+        // Un colis affecté manuellement entre-temps n'est pas écrasé (livreur_id IS NULL)
+        List<Object[]> historiques = new ArrayList<>(lot.size());
+        for (int i = 0; i < lot.size(); i++) {
+            if (resultats[i] == 0) {
+                continue;
+            }
+            Candidat candidat = lot.get(i);
+            String livreurId = plan.get(candidat);
+            affectes.add(candidat);
+            historiques.add(new Object[]{UUID.randomUUID().toString(), candidat.colisId, candidat.statut.name(),
+                    horodatage, "Affecté automatiquement au livreur " + livreurId, MODIFIE_PAR});
+
+            ColisEtat avant = candidat.etat(null);
+            eventPublisher.publishEvent(ColisChangeEvent.modification(candidat.colisId, avant, candidat.etat(livreurId)));
+        }
+        if (!historiques.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_HISTORIQUE, historiques);
+        }
+    }
+
+    private static int rang(PrioriteColis priorite) {
+        return priorite != null ? priorite.ordinal() : 0;
+    }
+
+    // Kilogrammes en grammes, litres en millilitres ; une valeur inconnue compte pour 0
+    private static long unitesMilli(BigDecimal valeur) {
+        return valeur == null ? 0 : valeur.movePointRight(3).longValue();
+    }
+
+    static final class Candidat {
+        private final String colisId;
+        private final String zoneId;
+        private final PrioriteColis priorite;
+        private final StatutColis statut;
+        private final LocalDateTime dateLimite;
+        private final BigDecimal poids;
+        private final Double latitude;
+        private final Double longitude;
+        private final String clientId;
+        private final BigDecimal volume;
+
+        Candidat(String colisId, String zoneId, PrioriteColis priorite, StatutColis statut, LocalDateTime dateLimite,
+                 BigDecimal poids, Double latitude, Double longitude, String clientId, BigDecimal volume) {
+            this.colisId = colisId;
+            this.zoneId = zoneId;
+            this.priorite = priorite;
+            this.statut = statut;
+            this.dateLimite = dateLimite;
+            this.poids = poids;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.clientId = clientId;
+            this.volume = volume;
+        }
+
+        String getColisId() {
+            return colisId;
+        }
+
+        ColisEtat etat(String livreurId) {
+            return ColisEtat.builder()
+                    .statut(statut)
+                    .priorite(priorite)
+                    .poids(poids)
+                    .volume(volume)
+                    .livreurId(livreurId)
+                    .clientId(clientId)
+                    .zoneId(zoneId)
+                    .dateLimiteLivraison(dateLimite)
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Charge courante d'un livreur : colis ouverts, poids transporté (en grammes), colis urgents
+ * et volume transporté (en millilitres).
+ * Compteurs LongAdder sans verrou : les écritures concurrentes ne se disputent pas une même
+ * variable, la lecture additionne les cellules. Une lecture pendant une mise à jour peut
+ * combiner des compteurs de deux instants voisins, ce qui suffit pour un indicateur de charge.
+ */
+class ChargeLivreur {
+
+    private final LongAdder ouverts = new LongAdder();
+    private final LongAdder grammes = new LongAdder();
+    private final LongAdder urgents = new LongAdder();
+    private final LongAdder millilitres = new LongAdder();
+
+    void ajouter(long nombre, long poidsGrammes, long nombreUrgents, long volumeMillilitres) {
+        ouverts.add(nombre);
+        grammes.add(poidsGrammes);
+        urgents.add(nombreUrgents);
+        millilitres.add(volumeMillilitres);
+    }
+
+    long ouverts() {
+        return ouverts.sum();
+    }
+
+    long grammes() {
+        return grammes.sum();
+    }
+
+    long urgents() {
+        return urgents.sum();
+    }
+
+    long millilitres() {
+        return millilitres.sum();
+    }
+}
@@ -0,0 +1,159 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ChargeLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Charge de travail courante des livreurs (colis ouverts, poids, colis urgents, volume), tenue en mémoire.
+ * Reconstruite au démarrage par une seule agrégation, puis mise à jour par les événements de colis :
+ * l'état avant est retiré de son livreur, l'état après est ajouté au sien.
+ * <p>
+ * Les changements reçus pendant l'agrégation sont gardés et rejoués sur les nouvelles charges avant le
+ * remplacement : ils ne sont pas perdus. L'agrégation ne tient aucun verrou pendant la requête.
+ */
+@Service
+@Slf4j
+public class ChargeLivreurService {
+
+    private final ColisRepository colisRepository;
+
+    private final Object verrou = new Object();
+
+    private volatile Map<String, ChargeLivreur> charges = new ConcurrentHashMap<>();
+    // Changements reçus pendant une reconstruction (null sinon), sous verrou
+    private List<Consumer<Map<String, ChargeLivreur>>> rejeu;
+
+    public ChargeLivreurService(ColisRepository colisRepository) {
+        this.colisRepository = colisRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruire() {
+        Map<String, ChargeLivreur> nouvelles = new ConcurrentHashMap<>();
+        synchronized (verrou) {
+            rejeu = new ArrayList<>();
+        }
+        try {
+            for (Object[] ligne : colisRepository.sumOpenWorkloadByLivreur(StatutColis.terminaux(), PrioriteColis.urgentes())) {
+                nouvelles.computeIfAbsent((String) ligne[0], id -> new ChargeLivreur())
+                        .ajouter((Long) ligne[1], grammes((BigDecimal) ligne[2]), ((Number) ligne[3]).longValue(),
+                                millilitres((BigDecimal) ligne[4]));
+            }
+            synchronized (verrou) {
+                rejeu.forEach(changement -> changement.accept(nouvelles));
+                charges = nouvelles;
+            }
+        } finally {
+            synchronized (verrou) {
+                rejeu = null;
+            }
+        }
+        log.info("Charge des livreurs reconstruite: {} livreurs avec des colis ouverts", nouvelles.size());
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        appliquer(cibles -> {
+            appliquer(cibles, event.getAvant(), -1);
+            appliquer(cibles, event.getApres(), 1);
+        });
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        if (event.isSupprime()) {
+            appliquer(cibles -> cibles.remove(event.getLivreurId()));
+        }
+    }
+
+    public ChargeLivreurDTO getCharge(String livreurId) {
+        ChargeLivreur charge = charges.get(livreurId);
+        return charge != null ? toDTO(livreurId, charge) : new ChargeLivreurDTO(livreurId, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO);
+    }
+
+    public List<ChargeLivreurDTO> getCharges() {
+        List<ChargeLivreurDTO> resultat = new ArrayList<>(charges.size());
+        charges.forEach((livreurId, charge) -> {
+            if (charge.ouverts() > 0) {
+                resultat.add(toDTO(livreurId, charge));
+            }
+        });
+        resultat.sort(Comparator.comparingLong(ChargeLivreurDTO::getNombreColisOuverts).reversed()
+                .thenComparing(ChargeLivreurDTO::getLivreurId));
+        return resultat;
+    }
+
+    /**
+     * Nombre de colis ouverts du livreur, en O(1), pour la logique d'affectation.
+     */
+    public long nombreColisOuverts(String livreurId) {
+        ChargeLivreur charge = charges.get(livreurId);
+        return charge != null ? charge.ouverts() : 0;
+    }
+
+    /**
+     * Poids (en grammes) et volume (en millilitres) transportés par le livreur, pour la planification du chargement.
+     */
+    public long poidsTransporteGrammes(String livreurId) {
+        ChargeLivreur charge = charges.get(livreurId);
+        return charge != null ? charge.grammes() : 0;
+    }
+
+    public long volumeTransporteMillilitres(String livreurId) {
+        ChargeLivreur charge = charges.get(livreurId);
+        return charge != null ? charge.millilitres() : 0;
+    }
+
+    // Le verrou ne couvre que la mise à jour en mémoire, jamais la requête de reconstruction
+    private void appliquer(Consumer<Map<String, ChargeLivreur>> changement) {
+        synchronized (verrou) {
+            changement.accept(charges);
+            if (rejeu != null) {
+                rejeu.add(changement);
+            }
+        }
+    }
+
+    private static void appliquer(Map<String, ChargeLivreur> cibles, ColisEtat etat, int sens) {
+        if (etat == null || etat.getLivreurId() == null || etat.getStatut() == null || etat.getStatut().isTerminal()) {
+            return;
+        }
+        long urgent = etat.getPriorite() != null && etat.getPriorite().isUrgente() ? 1 : 0;
+        cibles.computeIfAbsent(etat.getLivreurId(), id -> new ChargeLivreur())
+                .ajouter(sens, sens * grammes(etat.getPoids()), sens * urgent, sens * millilitres(etat.getVolume()));
+    }
+
+    private static ChargeLivreurDTO toDTO(String livreurId, ChargeLivreur charge) {
+        return ChargeLivreurDTO.builder()
+                .livreurId(livreurId)
+                .nombreColisOuverts(charge.ouverts())
+                .poidsTotal(BigDecimal.valueOf(charge.grammes(), 3).setScale(2, RoundingMode.HALF_UP))
+                .nombreUrgents(charge.urgents())
+                .volumeTotal(BigDecimal.valueOf(charge.millilitres(), 3).setScale(2, RoundingMode.HALF_UP))
+                .build();
+    }
+
+    private static long grammes(BigDecimal poids) {
+        return poids == null ? 0 : poids.movePointRight(3).longValue();
+    }
+
+    private static long millilitres(BigDecimal volume) {
+        return volume == null ? 0 : volume.movePointRight(3).longValue();
+    }
+}
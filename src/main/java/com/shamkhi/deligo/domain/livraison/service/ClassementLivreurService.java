@@ -0,0 +1,220 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ClassementLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.model.CritereClassement;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Classement des livreurs sur une fenêtre glissante, maintenu en mémoire.
+ * Les compteurs sont alimentés par les passages au statut LIVRE ; le top-N est obtenu
+ * avec un tas borné à N éléments, soit O(L log N) pour L livreurs, sans requête d'agrégation.
+ * Les changements reçus pendant une reconstruction sont rejoués sur les nouveaux compteurs avant le remplacement.
+ */
+@Service
+@Slf4j
+public class ClassementLivreurService {
+
+    private final ColisRepository colisRepository;
+    private final LivreurRepository livreurRepository;
+
+    @Value("${classement.fenetre-jours:30}")
+    private int fenetreJours;
+
+    private final Object verrou = new Object();
+
+    private volatile Map<String, CompteursLivreur> compteurs = new ConcurrentHashMap<>();
+    // Changements reçus pendant une reconstruction (null sinon), sous verrou
+    private List<Consumer<Map<String, CompteursLivreur>>> rejeu;
+
+    public ClassementLivreurService(ColisRepository colisRepository, LivreurRepository livreurRepository) {
+        this.colisRepository = colisRepository;
+        this.livreurRepository = livreurRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruire() {
+        long aujourdhui = LocalDate.now().toEpochDay();
+        LocalDateTime depuis = LocalDate.now().minusDays(fenetreJours - 1L).atStartOfDay();
+        Map<String, CompteursLivreur> nouveaux = new ConcurrentHashMap<>();
+
+        List<Object[]> livraisons;
+        synchronized (verrou) {
+            rejeu = new ArrayList<>();
+        }
+        try {
+            livraisons = colisRepository.findDeliveriesSince(depuis, StatutColis.LIVRE);
+            for (Object[] ligne : livraisons) {
+                LocalDateTime dateLivraison = (LocalDateTime) ligne[1];
+                LocalDateTime dateLimite = (LocalDateTime) ligne[2];
+                nouveaux.computeIfAbsent((String) ligne[0], id -> new CompteursLivreur(fenetreJours))
+                        .ajouter(dateLivraison.toLocalDate().toEpochDay(), aujourdhui,
+                                dansLesDelais(dateLivraison, dateLimite), grammes((BigDecimal) ligne[3]), 1);
+            }
+            synchronized (verrou) {
+                rejeu.forEach(changement -> changement.accept(nouveaux));
+                compteurs = nouveaux;
+            }
+        } finally {
+            synchronized (verrou) {
+                rejeu = null;
+            }
+        }
+        log.info("Classement reconstruit: {} livraisons sur {} jours, {} livreurs",
+                livraisons.size(), fenetreJours, nouveaux.size());
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        boolean etaitLivre = event.getAncienStatut() == StatutColis.LIVRE;
+        boolean estLivre = event.getNouveauStatut() == StatutColis.LIVRE;
+        if (etaitLivre && estLivre && memeLivraison(event.getAvant(), event.getApres())) {
+            return;
+        }
+        // Un colis déjà livré réaffecté, repesé ou corrigé : l'ancienne livraison est décomptée
+        synchronized (verrou) {
+            Consumer<Map<String, CompteursLivreur>> changement = cibles -> {
+                if (etaitLivre) {
+                    enregistrer(cibles, event.getAvant(), -1);
+                }
+                if (estLivre) {
+                    enregistrer(cibles, event.getApres(), 1);
+                }
+            };
+            changement.accept(compteurs);
+            if (rejeu != null) {
+                rejeu.add(changement);
+            }
+        }
+    }
+
+    public List<ClassementLivreurDTO> getClassement(CritereClassement critere, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("La limite doit être positive");
+        }
+        long aujourdhui = LocalDate.now().toEpochDay();
+        Comparator<Entree> ordre = comparateur(critere);
+
+        // Tas min borné : la racine est le moins bon des N meilleurs
+        PriorityQueue<Entree> tas = new PriorityQueue<>(limite + 1, ordre);
+        compteurs.forEach((livreurId, c) -> {
+            CompteursLivreur.Totaux totaux = c.totaux(aujourdhui);
+            if (totaux.getLivres() <= 0) {
+                return;
+            }
+            Entree entree = new Entree(livreurId, totaux);
+            if (tas.size() < limite) {
+                tas.offer(entree);
+            } else if (ordre.compare(entree, tas.peek()) > 0) {
+                tas.poll();
+                tas.offer(entree);
+            }
+        });
+
+        List<Entree> meilleurs = new ArrayList<>(tas);
+        meilleurs.sort(ordre.reversed());
+
+        Map<String, Livreur> livreurs = livreurRepository.findAllById(
+                        meilleurs.stream().map(Entree::livreurId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Livreur::getId, Function.identity()));
+
+        List<ClassementLivreurDTO> classement = new ArrayList<>(meilleurs.size());
+        for (int i = 0; i < meilleurs.size(); i++) {
+            Entree entree = meilleurs.get(i);
+            Livreur livreur = livreurs.get(entree.livreurId());
+            classement.add(ClassementLivreurDTO.builder()
+                    .rang(i + 1)
+                    .livreurId(entree.livreurId())
+                    .nom(livreur != null ? livreur.getNom() : null)
+                    .prenom(livreur != null ? livreur.getPrenom() : null)
+                    .nombreLivraisons(entree.totaux().getLivres())
+                    .nombreATemps(entree.totaux().getATemps())
+                    .tauxPonctualite(BigDecimal.valueOf(entree.taux() * 100).setScale(2, RoundingMode.HALF_UP))
+                    .poidsLivre(BigDecimal.valueOf(entree.totaux().getGrammes(), 3).setScale(2, RoundingMode.HALF_UP))
+                    .build());
+        }
+        return classement;
+    }
+
+    private void enregistrer(Map<String, CompteursLivreur> cibles, ColisEtat etat, int sens) {
+        if (etat == null || etat.getLivreurId() == null) {
+            return;
+        }
+        LocalDateTime dateLivraison = etat.getDateLivraison() != null ? etat.getDateLivraison() : LocalDateTime.now();
+        cibles.computeIfAbsent(etat.getLivreurId(), id -> new CompteursLivreur(fenetreJours))
+                .ajouter(dateLivraison.toLocalDate().toEpochDay(), LocalDate.now().toEpochDay(),
+                        dansLesDelais(dateLivraison, etat.getDateLimiteLivraison()), grammes(etat.getPoids()), sens);
+    }
+
+    // Mêmes livreur, poids et dates : le changement ne touche pas les compteurs
+    private boolean memeLivraison(ColisEtat avant, ColisEtat apres) {
+        return Objects.equals(avant.getLivreurId(), apres.getLivreurId())
+                && grammes(avant.getPoids()) == grammes(apres.getPoids())
+                && Objects.equals(avant.getDateLivraison(), apres.getDateLivraison())
+                && Objects.equals(avant.getDateLimiteLivraison(), apres.getDateLimiteLivraison());
+    }
+
+    private Comparator<Entree> comparateur(CritereClassement critere) {
+        Comparator<Entree> parLivraisons = Comparator.comparingLong(e -> e.totaux().getLivres());
+        switch (critere) {
+            case PONCTUALITE:
+                return Comparator.comparingDouble(Entree::taux).thenComparing(parLivraisons);
+            case POIDS:
+                return Comparator.<Entree>comparingLong(e -> e.totaux().getGrammes()).thenComparing(parLivraisons);
+            case LIVRAISONS:
+            default:
+                return parLivraisons.thenComparingLong(e -> e.totaux().getATemps());
+        }
+    }
+
+    private boolean dansLesDelais(LocalDateTime dateLivraison, LocalDateTime dateLimite) {
+        return dateLimite == null || !dateLivraison.isAfter(dateLimite);
+    }
+
+    private long grammes(BigDecimal poids) {
+        return poids == null ? 0 : poids.movePointRight(3).longValue();
+    }
+
+    private static final class Entree {
+        private final String livreurId;
+        private final CompteursLivreur.Totaux totaux;
+
+        Entree(String livreurId, CompteursLivreur.Totaux totaux) {
+            this.livreurId = livreurId;
+            this.totaux = totaux;
+        }
+
+        String livreurId() {
+            return livreurId;
+        }
+
+        CompteursLivreur.Totaux totaux() {
+            return totaux;
+        }
+
+        double taux() {
+            return totaux.getLivres() == 0 ? 0 : (double) totaux.getATemps() / totaux.getLivres();
+        }
+    }
+}
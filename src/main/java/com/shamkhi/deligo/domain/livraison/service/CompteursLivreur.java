@@ -0,0 +1,93 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * Compteurs de livraison d'un livreur sur une fenêtre glissante de N jours.
+ * Tampon circulaire de seaux journaliers : chaque seau est indexé par jour % N et porte
+ * le jour qu'il représente, un seau périmé est remis à zéro quand il est réutilisé.
+ * Les totaux de la fenêtre sont maintenus à jour pour une lecture en O(1).
+ */
+class CompteursLivreur {
+
+    private final int fenetre;
+    private final long[] jours;
+    private final long[] livres;
+    private final long[] aTemps;
+    private final long[] grammes;
+
+    private long dernierJour = Long.MIN_VALUE;
+    private long totalLivres;
+    private long totalATemps;
+    private long totalGrammes;
+
+    CompteursLivreur(int fenetre) {
+        this.fenetre = fenetre;
+        this.jours = new long[fenetre];
+        this.livres = new long[fenetre];
+        this.aTemps = new long[fenetre];
+        this.grammes = new long[fenetre];
+        Arrays.fill(jours, Long.MIN_VALUE);
+    }
+
+    synchronized void ajouter(long jour, long aujourdhui, boolean dansLesDelais, long poidsGrammes, int sens) {
+        avancer(aujourdhui);
+        if (jour <= aujourdhui - fenetre || jour > aujourdhui) {
+            return;
+        }
+        int i = index(jour);
+        if (jours[i] != jour) {
+            vider(i);
+            jours[i] = jour;
+        }
+        livres[i] += sens;
+        totalLivres += sens;
+        if (dansLesDelais) {
+            aTemps[i] += sens;
+            totalATemps += sens;
+        }
+        grammes[i] += sens * poidsGrammes;
+        totalGrammes += sens * poidsGrammes;
+    }
+
+    synchronized Totaux totaux(long aujourdhui) {
+        avancer(aujourdhui);
+        return new Totaux(totalLivres, totalATemps, totalGrammes);
+    }
+
+    // Évince les seaux sortis de la fenêtre depuis le dernier passage
+    private void avancer(long aujourdhui) {
+        if (aujourdhui <= dernierJour) {
+            return;
+        }
+        for (int i = 0; i < fenetre; i++) {
+            if (jours[i] != Long.MIN_VALUE && jours[i] <= aujourdhui - fenetre) {
+                vider(i);
+            }
+        }
+        dernierJour = aujourdhui;
+    }
+
+    private void vider(int i) {
+        totalLivres -= livres[i];
+        totalATemps -= aTemps[i];
+        totalGrammes -= grammes[i];
+        livres[i] = 0;
+        aTemps[i] = 0;
+        grammes[i] = 0;
+        jours[i] = Long.MIN_VALUE;
+    }
+
+    private int index(long jour) {
+        return (int) Math.floorMod(jour, (long) fenetre);
+    }
+
+    @Value
+    static class Totaux {
+        long livres;
+        long aTemps;
+        long grammes;
+    }
+}
@@ -0,0 +1,19 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Manifeste compressé (JSON gzip) écrit sur disque, avec son ETag (empreinte SHA-256 du fichier).
+ */
+@Value
+public class FichierManifeste {
+    String livreurId;
+    Path fichier;
+    String etag;
+    long taille;
+    int nombreColis;
+    LocalDateTime dateGeneration;
+}
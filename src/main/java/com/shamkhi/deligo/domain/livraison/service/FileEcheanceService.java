@@ -0,0 +1,254 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ProchainColisDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Files de priorité « échéance la plus proche d'abord » (EDF) des colis ouverts, par livreur et par zone.
+ * La clé de tri est la date limite avancée selon la priorité ({@code file-echeance.avance-urgent-h} et
+ * {@code file-echeance.avance-tres-urgent-h}) ; les colis sans date limite passent après les autres.
+ * La file d'une zone ne contient que ses colis sans livreur, à répartir.
+ * Les files sont des ensembles triés tenus à jour par les événements de colis (O(log n) par changement) :
+ * une lecture parcourt seulement la tête de la file, sans trier le stock.
+ * Les changements reçus pendant une reconstruction sont rejoués après le chargement des colis ouverts.
+ */
+@Service
+@Slf4j
+public class FileEcheanceService {
+
+    private static final int LIMITE_MAX = 100;
+    // Clé des colis sans date limite : après toute échéance réelle
+    private static final long SANS_ECHEANCE = LocalDateTime.of(9999, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private final ColisRepository colisRepository;
+    private final ResolveurUtilisateur resolveurUtilisateur;
+    private final IndexAutorisations indexAutorisations;
+
+    @Value("${file-echeance.avance-urgent-h:4}")
+    private long avanceUrgentH;
+
+    @Value("${file-echeance.avance-tres-urgent-h:12}")
+    private long avanceTresUrgentH;
+
+    private final Object verrou = new Object();
+
+    private volatile Files files = new Files();
+    // Changements reçus pendant une reconstruction (null sinon), sous verrou
+    private List<Consumer<Files>> rejeu;
+
+    public FileEcheanceService(ColisRepository colisRepository, ResolveurUtilisateur resolveurUtilisateur,
+                               IndexAutorisations indexAutorisations) {
+        this.colisRepository = colisRepository;
+        this.resolveurUtilisateur = resolveurUtilisateur;
+        this.indexAutorisations = indexAutorisations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruire() {
+        Files nouvelles = new Files();
+        synchronized (verrou) {
+            rejeu = new ArrayList<>();
+        }
+        try {
+            for (Object[] ligne : colisRepository.findOpenDeadlines(StatutColis.terminaux())) {
+                nouvelles.placer(entree((String) ligne[0], (String) ligne[1], (String) ligne[2],
+                        (PrioriteColis) ligne[3], (LocalDateTime) ligne[4]));
+            }
+            // Rejoués après les lignes lues : l'événement, plus récent, l'emporte
+            synchronized (verrou) {
+                rejeu.forEach(changement -> changement.accept(nouvelles));
+                files = nouvelles;
+            }
+        } finally {
+            synchronized (verrou) {
+                rejeu = null;
+            }
+        }
+        log.info("Files d'échéances reconstruites: {} colis", nouvelles.parColis.size());
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        ColisEtat apres = event.getApres();
+        boolean ouvert = apres != null && apres.getStatut() != null && !apres.getStatut().isTerminal()
+                && (apres.getLivreurId() != null || apres.getZoneId() != null);
+        if (ouvert) {
+            Entree entree = entree(event.getColisId(), apres.getLivreurId(), apres.getZoneId(),
+                    apres.getPriorite(), apres.getDateLimiteLivraison());
+            appliquer(cible -> cible.placer(entree));
+        } else {
+            appliquer(cible -> cible.retirer(event.getColisId()));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        if (event.isSupprime()) {
+            // Les colis du livreur supprimé reviennent dans la file de leur zone
+            appliquer(cible -> cible.liberer(event.getLivreurId()));
+        }
+    }
+
+    public List<ProchainColisDTO> getProchainsForUser(String livreurId, int limite, Authentication auth) {
+        boolean manager = indexAutorisations.possede(auth, "ROLE_MANAGER");
+        if (!manager) {
+            if (!livreurId.equals(resolveurUtilisateur.resoudre(auth).getLivreurId())) {
+                throw new AccessDeniedException("Vous ne pouvez consulter que vos propres colis");
+            }
+        }
+        return getProchainsLivreur(livreurId, limite);
+    }
+
+    /**
+     * Prochains colis ouverts du livreur, par échéance effective croissante.
+     */
+    public List<ProchainColisDTO> getProchainsLivreur(String livreurId, int limite) {
+        return tete(files.parLivreur.get(livreurId), limite);
+    }
+
+    /**
+     * Prochains colis de la zone à affecter, par échéance effective croissante.
+     */
+    public List<ProchainColisDTO> getProchainsZone(String zoneId, int limite) {
+        return tete(files.parZone.get(zoneId), limite);
+    }
+
+    private List<ProchainColisDTO> tete(NavigableSet<Entree> file, int limite) {
+        if (file == null) {
+            return List.of();
+        }
+        int max = Math.max(1, Math.min(limite, LIMITE_MAX));
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<ProchainColisDTO> resultat = new ArrayList<>(Math.min(max, 16));
+        Iterator<Entree> it = file.iterator();
+        while (it.hasNext() && resultat.size() < max) {
+            Entree entree = it.next();
+            resultat.add(ProchainColisDTO.builder()
+                    .colisId(entree.colisId)
+                    .priorite(entree.priorite)
+                    .dateLimiteLivraison(entree.dateLimite)
+                    .echeanceEffective(entree.dateLimite != null
+                            ? LocalDateTime.ofEpochSecond(entree.cle, 0, ZoneOffset.UTC)
+                            : null)
+                    .enRetard(entree.dateLimite != null && entree.dateLimite.isBefore(maintenant))
+                    .build());
+        }
+        return resultat;
+    }
+
+    private Entree entree(String colisId, String livreurId, String zoneId, PrioriteColis priorite,
+                          LocalDateTime dateLimite) {
+        long echeance = dateLimite != null ? dateLimite.toEpochSecond(ZoneOffset.UTC) : SANS_ECHEANCE;
+        return new Entree(colisId, livreurId, zoneId, priorite, dateLimite, echeance - avanceSecondes(priorite));
+    }
+
+    private long avanceSecondes(PrioriteColis priorite) {
+        if (priorite == PrioriteColis.TRES_URGENT) {
+            return avanceTresUrgentH * 3600;
+        }
+        return priorite == PrioriteColis.URGENT ? avanceUrgentH * 3600 : 0;
+    }
+
+    private void appliquer(Consumer<Files> changement) {
+        synchronized (verrou) {
+            changement.accept(files);
+            if (rejeu != null) {
+                rejeu.add(changement);
+            }
+        }
+    }
+
+    private static final class Files {
+        private static final Comparator<Entree> ORDRE = Comparator.<Entree>comparingLong(e -> e.cle)
+                .thenComparing(e -> e.colisId);
+
+        private final Map<String, Entree> parColis = new ConcurrentHashMap<>();
+        private final Map<String, NavigableSet<Entree>> parLivreur = new ConcurrentHashMap<>();
+        private final Map<String, NavigableSet<Entree>> parZone = new ConcurrentHashMap<>();
+
+        // Écritures sérialisées ; les lectures parcourent les ensembles concurrents sans verrou
+        synchronized void placer(Entree entree) {
+            Entree ancienne = parColis.put(entree.colisId, entree);
+            if (ancienne != null) {
+                enlever(ancienne);
+            }
+            if (entree.livreurId != null) {
+                parLivreur.computeIfAbsent(entree.livreurId, id -> new ConcurrentSkipListSet<>(ORDRE)).add(entree);
+            } else if (entree.zoneId != null) {
+                parZone.computeIfAbsent(entree.zoneId, id -> new ConcurrentSkipListSet<>(ORDRE)).add(entree);
+            }
+        }
+
+        synchronized void retirer(String colisId) {
+            Entree ancienne = parColis.remove(colisId);
+            if (ancienne != null) {
+                enlever(ancienne);
+            }
+        }
+
+        synchronized void liberer(String livreurId) {
+            NavigableSet<Entree> file = parLivreur.remove(livreurId);
+            if (file != null) {
+                for (Entree entree : file) {
+                    placer(new Entree(entree.colisId, null, entree.zoneId, entree.priorite, entree.dateLimite, entree.cle));
+                }
+            }
+        }
+
+        private void enlever(Entree entree) {
+            Map<String, NavigableSet<Entree>> index = entree.livreurId != null ? parLivreur : parZone;
+            String cle = entree.livreurId != null ? entree.livreurId : entree.zoneId;
+            if (cle == null) {
+                return;
+            }
+            NavigableSet<Entree> file = index.get(cle);
+            if (file != null) {
+                file.remove(entree);
+                if (file.isEmpty()) {
+                    index.remove(cle);
+                }
+            }
+        }
+    }
+
+    private static final class Entree {
+        private final String colisId;
+        private final String livreurId;
+        private final String zoneId;
+        private final PrioriteColis priorite;
+        private final LocalDateTime dateLimite;
+        private final long cle;
+
+        Entree(String colisId, String livreurId, String zoneId, PrioriteColis priorite,
+               LocalDateTime dateLimite, long cle) {
+            this.colisId = colisId;
+            this.livreurId = livreurId;
+            this.zoneId = zoneId;
+            this.priorite = priorite;
+            this.dateLimite = dateLimite;
+            this.cle = cle;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.dto.ColisPositionDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.CoordonneesDTO;
+import com.shamkhi.deligo.domain.livraison.dto.LivreurProximiteDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PolygoneRequest;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.geo.GrilleSpatiale;
+import com.shamkhi.deligo.domain.livraison.geo.Haversine;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Index spatial des destinataires des colis ouverts et de la dernière position des livreurs actifs.
+ * Tenu à jour par les événements de ColisService et LivreurService et par le suivi GPS, reconstruit au démarrage puis
+ * périodiquement. Tant que la première construction n'est pas terminée, les recherches passent par
+ * une requête SQL sur le rectangle englobant. Les mises à jour reçues pendant une reconstruction sont rejouées
+ * après le chargement des lignes en base : la plus récente l'emporte.
+ */
+@Service
+@Slf4j
+public class IndexSpatialService {
+
+    private static final double KM_PAR_DEGRE = Math.PI * Haversine.RAYON_TERRE_KM / 180;
+
+    private final ColisRepository colisRepository;
+    private final LivreurRepository livreurRepository;
+
+    @Value("${index-spatial.taille-cellule-deg:0.01}")
+    private double tailleCellule;
+
+    @Value("${index-spatial.rayon-max-km:50}")
+    private double rayonMaxKm;
+
+    private final Object verrou = new Object();
+
+    private volatile Index index;
+    // Mises à jour reçues pendant une reconstruction (null sinon), sous verrou
+    private List<Consumer<Index>> rejeu;
+
+    public IndexSpatialService(ColisRepository colisRepository, LivreurRepository livreurRepository) {
+        this.colisRepository = colisRepository;
+        this.livreurRepository = livreurRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${index-spatial.reconstruction-ms:900000}",
+            initialDelayString = "${index-spatial.reconstruction-ms:900000}")
+    public synchronized void reconstruire() {
+        long debut = System.currentTimeMillis();
+        Index nouveau = new Index(tailleCellule);
+        synchronized (verrou) {
+            rejeu = new ArrayList<>();
+        }
+        try {
+            for (Object[] ligne : colisRepository.findOpenPositions(StatutColis.terminaux())) {
+                nouveau.colis.placer((String) ligne[0], (Double) ligne[1], (Double) ligne[2]);
+            }
+            for (Object[] ligne : livreurRepository.findActivePositions()) {
+                String livreurId = (String) ligne[0];
+                nouveau.livreurs.placer(livreurId, (Double) ligne[3], (Double) ligne[4]);
+                nouveau.noms.put(livreurId, new String[]{(String) ligne[1], (String) ligne[2]});
+            }
+            synchronized (verrou) {
+                rejeu.forEach(miseAJour -> miseAJour.accept(nouveau));
+                index = nouveau;
+            }
+        } finally {
+            synchronized (verrou) {
+                rejeu = null;
+            }
+        }
+        log.info("Index spatial reconstruit: {} colis, {} livreurs en {} ms",
+                nouveau.colis.taille(), nouveau.livreurs.taille(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        ColisEtat apres = event.getApres();
+        boolean indexable = apres != null && !apres.getStatut().isTerminal()
+                && apres.getLatitude() != null && apres.getLongitude() != null;
+        appliquer(cible -> {
+            if (indexable) {
+                cible.colis.placer(event.getColisId(), apres.getLatitude(), apres.getLongitude());
+            } else {
+                cible.colis.retirer(event.getColisId());
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        boolean indexable = !event.isSupprime() && event.isActif() && event.hasPosition();
+        appliquer(cible -> {
+            if (indexable) {
+                cible.noms.put(event.getLivreurId(), new String[]{event.getNom(), event.getPrenom()});
+                cible.livreurs.placer(event.getLivreurId(), event.getLatitude(), event.getLongitude());
+            } else {
+                cible.livreurs.retirer(event.getLivreurId());
+                cible.noms.remove(event.getLivreurId());
+            }
+        });
+    }
+
+    /**
+     * Position reçue du suivi GPS : déplace le livreur sans attendre l'écriture en base.
+     */
+    public void placerLivreur(String livreurId, String nom, String prenom, double latitude, double longitude) {
+        appliquer(cible -> {
+            cible.noms.put(livreurId, new String[]{nom, prenom});
+            cible.livreurs.placer(livreurId, latitude, longitude);
+        });
+    }
+
+    public List<LivreurProximiteDTO> getLivreursProches(double latitude, double longitude, double rayonKm) {
+        if (rayonKm <= 0 || rayonKm > rayonMaxKm) {
+            throw new IllegalArgumentException("Le rayon doit être compris entre 0 et " + rayonMaxKm + " km");
+        }
+        Index courant = index;
+        if (courant != null) {
+            return courant.livreurs.dansRayon(latitude, longitude, rayonKm).stream()
+                    .map(r -> {
+                        String[] nom = courant.noms.getOrDefault(r.getId(), new String[2]);
+                        return livreurProche(r.getId(), nom[0], nom[1], r.getLatitude(), r.getLongitude(), r.getDistanceKm());
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        log.debug("Index spatial non prêt, recherche des livreurs par SQL");
+        double dLat = rayonKm / KM_PAR_DEGRE;
+        double dLon = rayonKm / (KM_PAR_DEGRE * Math.max(Math.cos(Math.toRadians(latitude)), 1e-6));
+        return livreurRepository.findActivePositionsInBox(latitude - dLat, latitude + dLat, longitude - dLon, longitude + dLon)
+                .stream()
+                .map(l -> livreurProche((String) l[0], (String) l[1], (String) l[2], (Double) l[3], (Double) l[4],
+                        Haversine.distanceKm(latitude, longitude, (Double) l[3], (Double) l[4])))
+                .filter(l -> l.getDistanceKm() <= rayonKm)
+                .sorted(Comparator.comparingDouble(LivreurProximiteDTO::getDistanceKm))
+                .collect(Collectors.toList());
+    }
+
+    public List<ColisPositionDTO> getColisDansPolygone(PolygoneRequest request) {
+        List<CoordonneesDTO> sommets = request.getPoints();
+        double[] latitudes = sommets.stream().mapToDouble(CoordonneesDTO::getLatitude).toArray();
+        double[] longitudes = sommets.stream().mapToDouble(CoordonneesDTO::getLongitude).toArray();
+
+        Index courant = index;
+        if (courant != null) {
+            return courant.colis.dansPolygone(latitudes, longitudes).stream()
+                    .map(r -> new ColisPositionDTO(r.getId(), r.getLatitude(), r.getLongitude()))
+                    .collect(Collectors.toList());
+        }
+
+        log.debug("Index spatial non prêt, recherche des colis par SQL");
+        return colisRepository.findOpenPositionsInBox(
+                        Arrays.stream(latitudes).min().orElse(0), Arrays.stream(latitudes).max().orElse(0),
+                        Arrays.stream(longitudes).min().orElse(0), Arrays.stream(longitudes).max().orElse(0),
+                        StatutColis.terminaux())
+                .stream()
+                .filter(c -> GrilleSpatiale.contient(latitudes, longitudes, (Double) c[1], (Double) c[2]))
+                .map(c -> new ColisPositionDTO((String) c[0], (Double) c[1], (Double) c[2]))
+                .collect(Collectors.toList());
+    }
+
+    private void appliquer(Consumer<Index> miseAJour) {
+        synchronized (verrou) {
+            if (index != null) {
+                miseAJour.accept(index);
+            }
+            if (rejeu != null) {
+                rejeu.add(miseAJour);
+            }
+        }
+    }
+
+    private static LivreurProximiteDTO livreurProche(String id, String nom, String prenom,
+                                                      double latitude, double longitude, double distanceKm) {
+        return LivreurProximiteDTO.builder()
+                .livreurId(id)
+                .nom(nom)
+                .prenom(prenom)
+                .latitude(latitude)
+                .longitude(longitude)
+                .distanceKm(Math.round(distanceKm * 1000) / 1000.0)
+                .build();
+    }
+
+    private static final class Index {
+        private final GrilleSpatiale colis;
+        private final GrilleSpatiale livreurs;
+        private final Map<String, String[]> noms = new ConcurrentHashMap<>();
+
+        Index(double tailleCellule) {
+            this.colis = new GrilleSpatiale(tailleCellule);
+            this.livreurs = new GrilleSpatiale(tailleCellule);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.shamkhi.deligo.domain.livraison.service;
 
 import com.shamkhi.deligo.application.mapper.LivreurMapper;
 import com.shamkhi.deligo.domain.livraison.dto.LivreurDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
 import com.shamkhi.deligo.domain.livraison.model.Livreur;
 import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
 import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
 import com.shamkhi.deligo.domain.security.model.Role;
 import com.shamkhi.deligo.domain.security.model.User;
 import com.shamkhi.deligo.domain.security.repository.RoleRepository;
@@ -13,14 +15,18 @@ import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -34,43 +40,30 @@ public class LivreurService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final LivreurMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Les lectures passent par la projection LivreurVue : livreur, zone et compte utilisateur en une requête
 
     public Page<LivreurDTO> getAllLivreurs(Pageable pageable) {
         log.info("Récupération de tous les livreurs");
-        return repository.findAll(pageable).map(mapper::toDTO);
+        return repository.findAllVues(pageable).map(mapper::vueToDTO);
     }
 
     public List<LivreurDTO> getActiveLivreurs() {
         log.info("Récupération des livreurs actifs");
-        return mapper.toDTOList(repository.findByActif(true));
+        return mapper.vuesToDTOList(repository.findVuesByActif(true));
     }
 
     public LivreurDTO getLivreurById(String id) {
         log.info("Récupération du livreur: {}", id);
-        Livreur livreur = findLivreurById(id);
-        LivreurDTO dto = mapper.toDTO(livreur);
-
-        // Ajouter les informations du user associé
-        userRepository.findByLivreurId(id).ifPresent(user -> {
-            dto.setUserId(user.getId());
-            dto.setUsername(user.getUsername());
-            dto.setEmail(user.getEmail());
-        });
-
-        return dto;
+        return repository.findVueById(id)
+                .map(mapper::vueToDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Livreur non trouvé avec id: " + id));
     }
 
     public Page<LivreurDTO> searchLivreurs(String keyword, Pageable pageable) {
         log.info("Recherche de livreurs avec: {}", keyword);
-        return repository.searchByKeyword(keyword, pageable).map(livreur -> {
-            LivreurDTO dto = mapper.toDTO(livreur);
-            userRepository.findByLivreurId(livreur.getId()).ifPresent(user -> {
-                dto.setUserId(user.getId());
-                dto.setUsername(user.getUsername());
-                dto.setEmail(user.getEmail());
-            });
-            return dto;
-        });
+        return repository.searchVuesByKeyword(keyword, pageable).map(mapper::vueToDTO);
     }
 
     @Transactional
@@ -88,6 +81,10 @@ public class LivreurService {
                     .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée")));
         }
 
+        if (livreur.getLatitude() != null && livreur.getLongitude() != null) {
+            livreur.setDatePosition(LocalDateTime.now());
+        }
+
         livreur = repository.save(livreur);
         log.info("Livreur créé avec id: {}", livreur.getId());
 
@@ -95,6 +92,8 @@ public class LivreurService {
         User user = createUserForLivreur(livreur, dto);
         user = userRepository.save(user);
         log.info("Compte utilisateur créé avec id: {} pour le livreur: {}", user.getId(), livreur.getId());
+        eventPublisher.publishEvent(LivreurChangeEvent.of(livreur));
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
 
         // 3. Mettre à jour le DTO avec l'ID du user
         LivreurDTO result = mapper.toDTO(livreur);
@@ -117,8 +116,15 @@ public class LivreurService {
             throw new DuplicateResourceException("Un livreur avec ce téléphone existe déjà");
         }
 
+        Double ancienneLatitude = livreur.getLatitude();
+        Double ancienneLongitude = livreur.getLongitude();
         mapper.updateEntity(dto, livreur);
 
+        if (!Objects.equals(ancienneLatitude, livreur.getLatitude())
+                || !Objects.equals(ancienneLongitude, livreur.getLongitude())) {
+            livreur.setDatePosition(LocalDateTime.now());
+        }
+
         if (dto.getZoneAssigneeId() != null) {
             livreur.setZoneAssignee(zoneRepository.findById(dto.getZoneAssigneeId())
                     .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée")));
@@ -129,13 +135,14 @@ public class LivreurService {
         livreur = repository.save(livreur);
 
         // Mettre à jour aussi le User associé si nécessaire
-        updateAssociatedUser(livreur, dto);
+        Optional<User> user = updateAssociatedUser(livreur, dto);
+        eventPublisher.publishEvent(LivreurChangeEvent.of(livreur));
 
         LivreurDTO result = mapper.toDTO(livreur);
-        userRepository.findByLivreurId(id).ifPresent(user -> {
-            result.setUserId(user.getId());
-            result.setUsername(user.getUsername());
-            result.setEmail(user.getEmail());
+        user.ifPresent(u -> {
+            result.setUserId(u.getId());
+            result.setUsername(u.getUsername());
+            result.setEmail(u.getEmail());
         });
 
         return result;
@@ -150,9 +157,11 @@ public class LivreurService {
         userRepository.findByLivreurId(id).ifPresent(user -> {
             log.info("Suppression du compte utilisateur associé: {}", user.getId());
             userRepository.delete(user);
+            eventPublisher.publishEvent(UtilisateurChangeEvent.suppression(user.getId(), user.getUsername()));
         });
 
         repository.delete(livreur);
+        eventPublisher.publishEvent(LivreurChangeEvent.suppression(id));
         log.info("Livreur et compte utilisateur supprimés avec succès");
     }
 
@@ -162,11 +171,13 @@ public class LivreurService {
         Livreur livreur = findLivreurById(id);
         livreur.setActif(true);
         repository.save(livreur);
+        eventPublisher.publishEvent(LivreurChangeEvent.of(livreur));
 
         // Activer aussi le compte utilisateur
         userRepository.findByLivreurId(id).ifPresent(user -> {
             user.setActif(true);
             userRepository.save(user);
+            eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
             log.info("Compte utilisateur activé: {}", user.getId());
         });
     }
@@ -177,11 +188,14 @@ public class LivreurService {
         Livreur livreur = findLivreurById(id);
         livreur.setActif(false);
         repository.save(livreur);
+        eventPublisher.publishEvent(LivreurChangeEvent.of(livreur));
 
         // Désactiver aussi le compte utilisateur
         userRepository.findByLivreurId(id).ifPresent(user -> {
             user.setActif(false);
+            user.revoquerJetons();
             userRepository.save(user);
+            eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
             log.info("Compte utilisateur désactivé: {}", user.getId());
         });
     }
@@ -223,9 +237,11 @@ public class LivreurService {
         return user;
     }
 
-    private void updateAssociatedUser(Livreur livreur, LivreurDTO dto) {
-        userRepository.findByLivreurId(livreur.getId()).ifPresent(user -> {
+    private Optional<User> updateAssociatedUser(Livreur livreur, LivreurDTO dto) {
+        Optional<User> associe = userRepository.findByLivreurId(livreur.getId());
+        associe.ifPresent(user -> {
             log.info("Mise à jour du compte utilisateur associé: {}", user.getId());
+            String ancienUsername = user.getUsername();
 
             // Mettre à jour les informations du user
             user.setNom(livreur.getNom());
@@ -251,10 +267,13 @@ public class LivreurService {
             // Mettre à jour le mot de passe si fourni
             if (dto.getPassword() != null && !dto.getPassword().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(dto.getPassword()));
+                user.revoquerJetons();
             }
 
             userRepository.save(user);
+            eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), ancienUsername));
         });
+        return associe;
     }
 
     private Livreur findLivreurById(String id) {
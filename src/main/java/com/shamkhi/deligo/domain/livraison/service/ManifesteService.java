@@ -0,0 +1,356 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisProduitRepository;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.*;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manifestes quotidiens des livreurs : colis ouverts dans l'ordre de la tournée, adresses et lignes produits,
+ * en un seul fichier JSON gzip par livreur, servi tel quel avec un ETag.
+ * Tous les manifestes des livreurs actifs sont générés en parallèle chaque matin ({@code manifeste.cron})
+ * ou à la demande. Dans la journée, un changement de colis marque seulement les manifestes des livreurs
+ * concernés, régénérés par la tâche de rafraîchissement ou à la lecture suivante.
+ * Le nom du fichier contient l'ETag ; le fichier précédent est gardé jusqu'à la génération suivante
+ * pour ne pas couper un téléchargement en cours.
+ */
+@Service
+@Slf4j
+public class ManifesteService {
+
+    private static final String EXTENSION = ".json.gz";
+
+    private final ColisRepository colisRepository;
+    private final ColisProduitRepository colisProduitRepository;
+    private final LivreurRepository livreurRepository;
+    private final ResolveurUtilisateur resolveurUtilisateur;
+    private final IndexAutorisations indexAutorisations;
+    private final TourneeService tourneeService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, FichierManifeste> manifestes = new ConcurrentHashMap<>();
+    private final Map<String, Path> precedents = new ConcurrentHashMap<>();
+    private final Map<String, Object> verrous = new ConcurrentHashMap<>();
+    private final Set<String> aRegenerer = ConcurrentHashMap.newKeySet();
+
+    @Value("${manifeste.repertoire:${java.io.tmpdir}/deligo-manifestes}")
+    private String repertoire;
+
+    @Value("${manifeste.parallelisme:4}")
+    private int parallelisme;
+
+    private ExecutorService executor;
+    private Path dossier;
+
+    public ManifesteService(ColisRepository colisRepository, ColisProduitRepository colisProduitRepository,
+                            LivreurRepository livreurRepository, ResolveurUtilisateur resolveurUtilisateur,
+                            IndexAutorisations indexAutorisations, TourneeService tourneeService,
+                            ObjectMapper objectMapper) {
+        this.colisRepository = colisRepository;
+        this.colisProduitRepository = colisProduitRepository;
+        this.livreurRepository = livreurRepository;
+        this.resolveurUtilisateur = resolveurUtilisateur;
+        this.indexAutorisations = indexAutorisations;
+        this.tourneeService = tourneeService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        dossier = Files.createDirectories(Paths.get(repertoire));
+        // Les manifestes d'une exécution précédente ne sont plus référencés
+        try (DirectoryStream<Path> anciens = Files.newDirectoryStream(dossier, "*" + EXTENSION + "*")) {
+            for (Path ancien : anciens) {
+                supprimer(ancien);
+            }
+        }
+        AtomicInteger compteur = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelisme, runnable -> {
+            Thread thread = new Thread(runnable, "manifeste-worker-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public FichierManifeste getManifesteForUser(String livreurId, Authentication auth) {
+        boolean manager = indexAutorisations.possede(auth, "ROLE_MANAGER");
+        if (!manager) {
+            if (!livreurId.equals(resolveurUtilisateur.resoudre(auth).getLivreurId())) {
+                throw new AccessDeniedException("Vous ne pouvez consulter que votre propre manifeste");
+            }
+        }
+        return getManifeste(livreurId);
+    }
+
+    /**
+     * Manifeste courant du livreur, généré d'abord s'il n'existe pas ou si ses colis ont changé.
+     */
+    public FichierManifeste getManifeste(String livreurId) {
+        FichierManifeste manifeste = manifestes.get(livreurId);
+        if (manifeste == null || aRegenerer.contains(livreurId) || !Files.exists(manifeste.getFichier())) {
+            manifeste = generer(livreurId);
+        }
+        return manifeste;
+    }
+
+    @Scheduled(cron = "${manifeste.cron:0 15 6 * * *}")
+    public void genererPlanifie() {
+        genererTous();
+    }
+
+    public GenerationManifestesDTO genererTous() {
+        long debut = System.currentTimeMillis();
+        List<Livreur> livreurs = livreurRepository.findByActif(true);
+        AtomicInteger echecs = new AtomicInteger();
+
+        List<CompletableFuture<Void>> taches = livreurs.stream()
+                .map(livreur -> CompletableFuture.runAsync(() -> generer(livreur.getId()), executor)
+                        .exceptionally(e -> {
+                            echecs.incrementAndGet();
+                            log.error("Échec de la génération du manifeste du livreur {}", livreur.getId(), e);
+                            return null;
+                        }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(taches.toArray(new CompletableFuture[0])).join();
+
+        // Les livreurs désactivés n'ont plus de manifeste
+        Set<String> actifs = livreurs.stream().map(Livreur::getId).collect(Collectors.toSet());
+        new ArrayList<>(manifestes.keySet()).stream().filter(id -> !actifs.contains(id)).forEach(this::oublier);
+
+        GenerationManifestesDTO resultat = GenerationManifestesDTO.builder()
+                .nombreLivreurs(livreurs.size())
+                .nombreGeneres(livreurs.size() - echecs.get())
+                .nombreEchecs(echecs.get())
+                .dureeMs(System.currentTimeMillis() - debut)
+                .build();
+        log.info("Manifestes de {} livreurs générés en {} ms ({} échecs)",
+                resultat.getNombreGeneres(), resultat.getDureeMs(), resultat.getNombreEchecs());
+        return resultat;
+    }
+
+    @Scheduled(fixedDelayString = "${manifeste.rafraichissement-ms:30000}",
+            initialDelayString = "${manifeste.rafraichissement-ms:30000}")
+    public void regenererModifies() {
+        for (String livreurId : new ArrayList<>(aRegenerer)) {
+            executor.execute(() -> {
+                try {
+                    generer(livreurId);
+                } catch (RuntimeException e) {
+                    log.warn("Échec du rafraîchissement du manifeste du livreur {}: {}", livreurId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener
+    public void onColisChange(ColisChangeEvent event) {
+        marquer(event.getAvant());
+        marquer(event.getApres());
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        if (event.isSupprime() || !event.isActif()) {
+            oublier(event.getLivreurId());
+        }
+    }
+
+    FichierManifeste generer(String livreurId) {
+        synchronized (verrous.computeIfAbsent(livreurId, id -> new Object())) {
+            // Retiré avant la lecture : un changement pendant la génération marque à nouveau le livreur
+            aRegenerer.remove(livreurId);
+            Livreur livreur = livreurRepository.findById(livreurId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Livreur non trouvé avec l'id: " + livreurId));
+            // Désactivé depuis la demande : oublier() a pu passer avant ce verrou
+            if (!Boolean.TRUE.equals(livreur.getActif())) {
+                oublier(livreurId);
+                throw new IllegalStateException("Le livreur n'est pas actif: " + livreurId);
+            }
+            ManifesteDTO contenu = construire(livreur);
+            FichierManifeste manifeste = ecrire(contenu);
+            FichierManifeste ancien = manifestes.put(livreurId, manifeste);
+            if (ancien != null && !ancien.getFichier().equals(manifeste.getFichier())) {
+                Path perime = precedents.put(livreurId, ancien.getFichier());
+                if (perime != null && !perime.equals(manifeste.getFichier())) {
+                    supprimer(perime);
+                }
+            }
+            log.debug("Manifeste du livreur {} généré: {} colis, {} octets",
+                    livreurId, manifeste.getNombreColis(), manifeste.getTaille());
+            return manifeste;
+        }
+    }
+
+    private ManifesteDTO construire(Livreur livreur) {
+        String livreurId = livreur.getId();
+        TourneeDTO tournee = tourneeService.getTournee(livreurId, null, null);
+
+        Map<String, Integer> ordres = new HashMap<>();
+        for (ArretTourneeDTO arret : tournee.getArrets()) {
+            ordres.put(arret.getColisId(), arret.getOrdre());
+        }
+
+        List<Object[]> lignes = colisRepository.findManifestByLivreur(livreurId, StatutColis.terminaux());
+        Map<String, List<LigneProduitDTO>> produits = new HashMap<>();
+        if (!lignes.isEmpty()) {
+            List<String> ids = lignes.stream().map(ligne -> (String) ligne[0]).collect(Collectors.toList());
+            for (Object[] produit : colisProduitRepository.findLignesByColisIds(ids)) {
+                produits.computeIfAbsent((String) produit[0], id -> new ArrayList<>()).add(LigneProduitDTO.builder()
+                        .produitId((String) produit[1])
+                        .nom((String) produit[2])
+                        .quantite((Integer) produit[3])
+                        .prix((BigDecimal) produit[4])
+                        .build());
+            }
+        }
+
+        List<ManifesteColisDTO> colis = new ArrayList<>(lignes.size());
+        BigDecimal poidsTotal = BigDecimal.ZERO;
+        for (Object[] ligne : lignes) {
+            ManifesteColisDTO dto = colis(ligne, produits.getOrDefault((String) ligne[0], List.of()));
+            colis.add(dto);
+            if (dto.getPoids() != null) {
+                poidsTotal = poidsTotal.add(dto.getPoids());
+            }
+        }
+        // Ordre de la tournée, puis les colis hors tournée (sans coordonnées ou arrivés depuis) par échéance
+        colis.sort(Comparator.comparing((ManifesteColisDTO c) -> ordres.getOrDefault(c.getColisId(), Integer.MAX_VALUE))
+                .thenComparing(ManifesteColisDTO::getDateLimiteLivraison, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ManifesteColisDTO::getColisId));
+        for (int i = 0; i < colis.size(); i++) {
+            colis.get(i).setOrdre(i + 1);
+        }
+
+        return ManifesteDTO.builder()
+                .livreurId(livreurId)
+                .nom(livreur.getNom())
+                .prenom(livreur.getPrenom())
+                .date(LocalDate.now())
+                .nombreColis(colis.size())
+                .poidsTotal(poidsTotal)
+                .distanceTotaleKm(tournee.getDistanceTotaleKm())
+                .colis(colis)
+                .build();
+    }
+
+    private static ManifesteColisDTO colis(Object[] ligne, List<LigneProduitDTO> produits) {
+        StatutColis statut = (StatutColis) ligne[3];
+        boolean collecte = statut == StatutColis.CREE;
+        int contact = collecte ? 12 : 6;
+        return ManifesteColisDTO.builder()
+                .colisId((String) ligne[0])
+                .description((String) ligne[1])
+                .poids((BigDecimal) ligne[2])
+                .statut(statut)
+                .priorite((PrioriteColis) ligne[4])
+                .dateLimiteLivraison((LocalDateTime) ligne[5])
+                .type(collecte ? TypeArret.COLLECTE : TypeArret.LIVRAISON)
+                .nom(nomComplet(ligne[contact], ligne[contact + 1]))
+                .telephone((String) ligne[contact + 2])
+                .adresse((String) ligne[contact + 3])
+                .latitude((Double) ligne[contact + 4])
+                .longitude((Double) ligne[contact + 5])
+                .produits(produits)
+                .build();
+    }
+
+    private static String nomComplet(Object nom, Object prenom) {
+        if (nom == null || prenom == null) {
+            return nom != null ? nom.toString() : prenom != null ? prenom.toString() : null;
+        }
+        return nom + " " + prenom;
+    }
+
+    private FichierManifeste ecrire(ManifesteDTO contenu) {
+        Path temporaire = dossier.resolve(contenu.getLivreurId() + "." + UUID.randomUUID() + EXTENSION + ".part");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream sortie = new GZIPOutputStream(
+                    new DigestOutputStream(Files.newOutputStream(temporaire), digest), 8192)) {
+                objectMapper.writeValue(sortie, contenu);
+            }
+            String etag = HexFormat.of().formatHex(digest.digest(), 0, 16);
+            Path fichier = dossier.resolve(contenu.getLivreurId() + "-" + etag + EXTENSION);
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new FichierManifeste(contenu.getLivreurId(), fichier, "\"" + etag + "\"", Files.size(fichier),
+                    contenu.getNombreColis(), LocalDateTime.now());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du manifeste impossible: " + contenu.getLivreurId(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            supprimer(temporaire);
+        }
+    }
+
+    // Seuls les manifestes déjà générés sont à rafraîchir ; les autres le seront à la première lecture
+    private void marquer(ColisEtat etat) {
+        if (etat != null && etat.getLivreurId() != null && manifestes.containsKey(etat.getLivreurId())) {
+            aRegenerer.add(etat.getLivreurId());
+        }
+    }
+
+    // Même verrou que generer() : une génération en cours ne republie pas le manifeste après coup
+    private void oublier(String livreurId) {
+        synchronized (verrous.computeIfAbsent(livreurId, id -> new Object())) {
+            aRegenerer.remove(livreurId);
+            FichierManifeste manifeste = manifestes.remove(livreurId);
+            if (manifeste != null) {
+                supprimer(manifeste.getFichier());
+            }
+            Path precedent = precedents.remove(livreurId);
+            if (precedent != null) {
+                supprimer(precedent);
+            }
+        }
+    }
+
+    private static void supprimer(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer {}: {}", fichier, e.getMessage());
+        }
+    }
+}
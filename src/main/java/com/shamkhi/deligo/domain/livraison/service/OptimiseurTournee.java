@@ -0,0 +1,155 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+/**
+ * Ordonnancement d'un chemin ouvert partant du nœud 0 : plus proche voisin, puis amélioration
+ * locale par 2-opt et Or-opt (déplacement de segments de 1 à 3 arrêts) jusqu'à ce qu'aucun
+ * mouvement n'améliore le chemin ou que le budget de temps soit épuisé.
+ */
+final class OptimiseurTournee {
+
+    private static final double EPSILON = 1e-9;
+    private static final int SEGMENT_MAX = 3;
+
+    private final double[][] d;
+    private final int n;
+    private final long echeance;
+    private int[] ordre;
+
+    private OptimiseurTournee(double[][] distances, long budgetNanos) {
+        this.d = distances;
+        this.n = distances.length;
+        this.echeance = System.nanoTime() + budgetNanos;
+    }
+
+    static int[] optimiser(double[][] distances, long budgetNanos) {
+        OptimiseurTournee optimiseur = new OptimiseurTournee(distances, budgetNanos);
+        optimiseur.plusProcheVoisin();
+        boolean ameliore = true;
+        while (ameliore && !optimiseur.horsBudget()) {
+            ameliore = optimiseur.deuxOpt() | optimiseur.orOpt();
+        }
+        return optimiseur.ordre;
+    }
+
+    static double longueur(double[][] distances, int[] ordre) {
+        double total = 0;
+        for (int k = 0; k + 1 < ordre.length; k++) {
+            total += distances[ordre[k]][ordre[k + 1]];
+        }
+        return total;
+    }
+
+    private void plusProcheVoisin() {
+        ordre = new int[n];
+        boolean[] visite = new boolean[n];
+        if (n == 0) {
+            return;
+        }
+        visite[0] = true;
+        for (int k = 1; k < n; k++) {
+            int courant = ordre[k - 1];
+            int meilleur = -1;
+            for (int j = 1; j < n; j++) {
+                if (!visite[j] && (meilleur < 0 || d[courant][j] < d[courant][meilleur])) {
+                    meilleur = j;
+                }
+            }
+            ordre[k] = meilleur;
+            visite[meilleur] = true;
+        }
+    }
+
+    // Inverse ordre[i..j] quand cela raccourcit le chemin (le dernier arrêt n'a pas de successeur)
+    private boolean deuxOpt() {
+        boolean ameliore = false;
+        for (int i = 1; i < n - 1 && !horsBudget(); i++) {
+            for (int j = i + 1; j < n; j++) {
+                int a = ordre[i - 1];
+                int b = ordre[i];
+                int c = ordre[j];
+                double delta = d[a][c] - d[a][b];
+                if (j + 1 < n) {
+                    int e = ordre[j + 1];
+                    delta += d[b][e] - d[c][e];
+                }
+                if (delta < -EPSILON) {
+                    inverser(i, j);
+                    ameliore = true;
+                }
+            }
+        }
+        return ameliore;
+    }
+
+    // Déplace un segment de 1 à 3 arrêts entre deux autres arrêts, éventuellement inversé
+    private boolean orOpt() {
+        boolean ameliore = false;
+        for (int longueur = 1; longueur <= SEGMENT_MAX; longueur++) {
+            for (int i = 1; i + longueur <= n && !horsBudget(); i++) {
+                int fin = i + longueur - 1;
+                int debutSeg = ordre[i];
+                int finSeg = ordre[fin];
+                int precedent = ordre[i - 1];
+                int suivant = fin + 1 < n ? ordre[fin + 1] : -1;
+
+                double gain = d[precedent][debutSeg];
+                if (suivant >= 0) {
+                    gain += d[finSeg][suivant] - d[precedent][suivant];
+                }
+
+                for (int k = 0; k < n; k++) {
+                    if (k >= i - 1 && k <= fin) {
+                        continue;
+                    }
+                    int u = ordre[k];
+                    int v = k + 1 < n ? ordre[k + 1] : -1;
+                    double base = v >= 0 ? -d[u][v] : 0;
+                    double direct = d[u][debutSeg] + base + (v >= 0 ? d[finSeg][v] : 0);
+                    double inverse = d[u][finSeg] + base + (v >= 0 ? d[debutSeg][v] : 0);
+
+                    if (direct - gain < -EPSILON || inverse - gain < -EPSILON) {
+                        deplacer(i, fin, k, inverse < direct);
+                        ameliore = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return ameliore;
+    }
+
+    private void inverser(int i, int j) {
+        while (i < j) {
+            int tmp = ordre[i];
+            ordre[i++] = ordre[j];
+            ordre[j--] = tmp;
+        }
+    }
+
+    // Retire ordre[i..fin] et le réinsère après la position k (indice dans l'ordre courant)
+    private void deplacer(int i, int fin, int k, boolean inverse) {
+        int longueur = fin - i + 1;
+        int[] segment = new int[longueur];
+        for (int s = 0; s < longueur; s++) {
+            segment[s] = ordre[inverse ? fin - s : i + s];
+        }
+        int[] nouvel = new int[n];
+        int p = 0;
+        for (int q = 0; q < n; q++) {
+            if (q >= i && q <= fin) {
+                continue;
+            }
+            nouvel[p++] = ordre[q];
+            if (q == k) {
+                for (int s : segment) {
+                    nouvel[p++] = s;
+                }
+            }
+        }
+        ordre = nouvel;
+    }
+
+    private boolean horsBudget() {
+        return System.nanoTime() >= echeance;
+    }
+}
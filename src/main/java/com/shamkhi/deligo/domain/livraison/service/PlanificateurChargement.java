@@ -0,0 +1,249 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Répartition de colis entre véhicules bornés en poids, en volume et en nombre de colis.
+ * Les colis sont pris par priorité décroissante puis par taille décroissante ; chacun va au premier
+ * véhicule, par charge croissante, qui peut encore le prendre (first-fit décroissant, O(C·V)).
+ * Une recherche locale équilibre ensuite les véhicules en déplaçant ou en échangeant des colis
+ * entre le plus chargé et le moins chargé, puis les colis restés sans véhicule sont retentés.
+ * La charge d'un véhicule est le plus élevé de ses trois taux de remplissage.
+ */
+final class PlanificateurChargement {
+
+    private static final double EPSILON = 1e-9;
+
+    private final long[] poids;
+    private final long[] volumes;
+    private final long[] capaciteGrammes;
+    private final long[] capaciteMillilitres;
+    private final long[] capaciteColis;
+    private final long[] grammes;
+    private final long[] millilitres;
+    private final long[] colis;
+    private final List<List<Integer>> contenus;
+    private final int[] affectation;
+    private final long echeance;
+
+    private PlanificateurChargement(long[] poids, long[] volumes, Vehicule[] vehicules, long budgetNanos) {
+        this.poids = poids;
+        this.volumes = volumes;
+        int v = vehicules.length;
+        this.capaciteGrammes = new long[v];
+        this.capaciteMillilitres = new long[v];
+        this.capaciteColis = new long[v];
+        this.grammes = new long[v];
+        this.millilitres = new long[v];
+        this.colis = new long[v];
+        this.contenus = new ArrayList<>(v);
+        for (int k = 0; k < v; k++) {
+            Vehicule vehicule = vehicules[k];
+            capaciteGrammes[k] = vehicule.capaciteGrammes;
+            capaciteMillilitres[k] = vehicule.capaciteMillilitres;
+            capaciteColis[k] = vehicule.capaciteColis;
+            grammes[k] = vehicule.grammes;
+            millilitres[k] = vehicule.millilitres;
+            colis[k] = vehicule.colis;
+            contenus.add(new ArrayList<>());
+        }
+        this.affectation = new int[poids.length];
+        Arrays.fill(affectation, -1);
+        this.echeance = System.nanoTime() + budgetNanos;
+    }
+
+    /**
+     * @param poids   poids des colis en grammes
+     * @param volumes volumes des colis en millilitres (0 si inconnu)
+     * @param rangs   rang de priorité des colis, le plus élevé d'abord ; à rang égal l'ordre reçu départage
+     *                les colis de même taille
+     * @return pour chaque colis l'indice de son véhicule, ou -1 s'il ne tient dans aucun
+     */
+    static int[] planifier(long[] poids, long[] volumes, int[] rangs, Vehicule[] vehicules, long budgetNanos) {
+        PlanificateurChargement planificateur = new PlanificateurChargement(poids, volumes, vehicules, budgetNanos);
+        if (vehicules.length == 0) {
+            return planificateur.affectation;
+        }
+        Integer[] ordre = planificateur.ordre(rangs);
+        for (int i : ordre) {
+            planificateur.placer(i);
+        }
+        planificateur.equilibrer();
+        for (int i : ordre) {
+            if (planificateur.affectation[i] < 0) {
+                planificateur.placer(i);
+            }
+        }
+        return planificateur.affectation;
+    }
+
+    private Integer[] ordre(int[] rangs) {
+        long maxGrammes = Arrays.stream(capaciteGrammes).max().orElse(1);
+        long maxMillilitres = Arrays.stream(capaciteMillilitres).max().orElse(1);
+        double[] taille = new double[poids.length];
+        Integer[] ordre = new Integer[poids.length];
+        for (int i = 0; i < poids.length; i++) {
+            taille[i] = Math.max((double) poids[i] / maxGrammes, (double) volumes[i] / maxMillilitres);
+            ordre[i] = i;
+        }
+        // Tri stable : à rang et taille égaux, l'ordre d'arrivée (date limite) est conservé
+        Arrays.sort(ordre, (a, b) -> rangs[a] != rangs[b]
+                ? Integer.compare(rangs[b], rangs[a])
+                : Double.compare(taille[b], taille[a]));
+        return ordre;
+    }
+
+    private void placer(int i) {
+        int meilleur = -1;
+        double chargeMeilleur = Double.MAX_VALUE;
+        for (int k = 0; k < capaciteGrammes.length; k++) {
+            if (tient(k, poids[i], volumes[i], 1)) {
+                double c = charge(k);
+                if (c < chargeMeilleur - EPSILON) {
+                    meilleur = k;
+                    chargeMeilleur = c;
+                }
+            }
+        }
+        if (meilleur >= 0) {
+            ajouter(meilleur, i);
+        }
+    }
+
+    private void equilibrer() {
+        boolean ameliore = true;
+        while (ameliore && !horsBudget()) {
+            int plein = -1;
+            int vide = -1;
+            for (int k = 0; k < capaciteGrammes.length; k++) {
+                if (!contenus.get(k).isEmpty() && (plein < 0 || charge(k) > charge(plein))) {
+                    plein = k;
+                }
+                if (vide < 0 || charge(k) < charge(vide)) {
+                    vide = k;
+                }
+            }
+            ameliore = plein >= 0 && plein != vide && (deplacer(plein, vide) || echanger(plein, vide));
+        }
+    }
+
+    // Déplace vers b le colis de a qui abaisse le plus la charge maximale des deux véhicules
+    private boolean deplacer(int a, int b) {
+        double avant = Math.max(charge(a), charge(b));
+        int meilleur = -1;
+        double meilleureCharge = avant - EPSILON;
+        for (int i : contenus.get(a)) {
+            if (!tient(b, poids[i], volumes[i], 1)) {
+                continue;
+            }
+            double apres = Math.max(
+                    charge(a, -poids[i], -volumes[i], -1),
+                    charge(b, poids[i], volumes[i], 1));
+            if (apres < meilleureCharge) {
+                meilleur = i;
+                meilleureCharge = apres;
+            }
+        }
+        if (meilleur < 0) {
+            return false;
+        }
+        retirer(a, meilleur);
+        ajouter(b, meilleur);
+        return true;
+    }
+
+    // Échange un colis de a contre un colis plus petit de b, si cela abaisse la charge maximale des deux
+    private boolean echanger(int a, int b) {
+        double avant = Math.max(charge(a), charge(b));
+        int meilleurA = -1;
+        int meilleurB = -1;
+        double meilleureCharge = avant - EPSILON;
+        for (int i : contenus.get(a)) {
+            for (int j : contenus.get(b)) {
+                long dg = poids[i] - poids[j];
+                long dv = volumes[i] - volumes[j];
+                if (!tient(b, dg, dv, 0) || !tient(a, -dg, -dv, 0)) {
+                    continue;
+                }
+                double apres = Math.max(charge(a, -dg, -dv, 0), charge(b, dg, dv, 0));
+                if (apres < meilleureCharge) {
+                    meilleurA = i;
+                    meilleurB = j;
+                    meilleureCharge = apres;
+                }
+            }
+            if (horsBudget()) {
+                break;
+            }
+        }
+        if (meilleurA < 0) {
+            return false;
+        }
+        retirer(a, meilleurA);
+        retirer(b, meilleurB);
+        ajouter(b, meilleurA);
+        ajouter(a, meilleurB);
+        return true;
+    }
+
+    private boolean tient(int k, long dg, long dv, long dn) {
+        return grammes[k] + dg <= capaciteGrammes[k]
+                && millilitres[k] + dv <= capaciteMillilitres[k]
+                && colis[k] + dn <= capaciteColis[k];
+    }
+
+    private double charge(int k) {
+        return charge(k, 0, 0, 0);
+    }
+
+    private double charge(int k, long dg, long dv, long dn) {
+        return Math.max(Math.max(
+                        (double) (grammes[k] + dg) / capaciteGrammes[k],
+                        (double) (millilitres[k] + dv) / capaciteMillilitres[k]),
+                (double) (colis[k] + dn) / Math.max(1, capaciteColis[k]));
+    }
+
+    private void ajouter(int k, int i) {
+        grammes[k] += poids[i];
+        millilitres[k] += volumes[i];
+        colis[k]++;
+        contenus.get(k).add(i);
+        affectation[i] = k;
+    }
+
+    private void retirer(int k, int i) {
+        grammes[k] -= poids[i];
+        millilitres[k] -= volumes[i];
+        colis[k]--;
+        contenus.get(k).remove(Integer.valueOf(i));
+        affectation[i] = -1;
+    }
+
+    private boolean horsBudget() {
+        return System.nanoTime() > echeance;
+    }
+
+    /**
+     * Véhicule d'un livreur : capacités et charge déjà transportée (colis ouverts affectés auparavant).
+     */
+    static final class Vehicule {
+        private final long capaciteGrammes;
+        private final long capaciteMillilitres;
+        private final long capaciteColis;
+        private final long grammes;
+        private final long millilitres;
+        private final long colis;
+
+        Vehicule(long capaciteGrammes, long capaciteMillilitres, long capaciteColis,
+                 long grammes, long millilitres, long colis) {
+            this.capaciteGrammes = capaciteGrammes;
+            this.capaciteMillilitres = capaciteMillilitres;
+            this.capaciteColis = capaciteColis;
+            this.grammes = grammes;
+            this.millilitres = millilitres;
+            this.colis = colis;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.CompletionZonesDTO;
+import com.shamkhi.deligo.domain.livraison.event.ZoneChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Résolution de la zone d'un colis à partir de l'adresse du destinataire ou de la ville de destination.
+ * Index en mémoire construit depuis la table zone : table de hachage par code postal et table des villes
+ * normalisées (sans accents ni ponctuation). Un code postal trouvé dans l'adresse l'emporte ; une ville
+ * n'est retenue que si elle ne correspond qu'à une seule zone. L'index est reconstruit à chaque écriture
+ * de ZoneService.
+ */
+@Service
+@Slf4j
+public class ResolutionZoneService {
+
+    private static final Pattern CODE_POSTAL = Pattern.compile("(?<![0-9])[0-9]{4,6}(?![0-9])");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+
+    private static final String SQL_ZONE =
+            "UPDATE colis SET zone_id = ?, date_modification = ? WHERE id = ? AND zone_id IS NULL";
+
+    private final ZoneRepository zoneRepository;
+    private final ColisRepository colisRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean completionEnCours = new AtomicBoolean();
+
+    @Value("${zone-resolution.taille-lot:1000}")
+    private int tailleLot;
+
+    private volatile Index index;
+
+    public ResolutionZoneService(ZoneRepository zoneRepository, ColisRepository colisRepository,
+                                 JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.zoneRepository = zoneRepository;
+        this.colisRepository = colisRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruire() {
+        Index nouveau = new Index();
+        Map<String, Set<String>> zonesParVille = new HashMap<>();
+        List<Zone> zones = new ArrayList<>(zoneRepository.findAll());
+        zones.sort(Comparator.comparing(Zone::getId));
+        for (Zone zone : zones) {
+            if (zone.getCodePostal() != null) {
+                nouveau.parCodePostal.putIfAbsent(zone.getCodePostal().replaceAll("\\s+", ""), zone.getId());
+            }
+            String ville = normaliser(zone.getVille());
+            if (!ville.isEmpty()) {
+                zonesParVille.computeIfAbsent(ville, v -> new HashSet<>()).add(zone.getId());
+            }
+        }
+        zonesParVille.forEach((ville, ids) -> {
+            if (ids.size() == 1) {
+                nouveau.parVille.put(ville, ids.iterator().next());
+            }
+        });
+        index = nouveau;
+        log.info("Index de résolution des zones reconstruit: {} codes postaux, {} villes non ambiguës",
+                nouveau.parCodePostal.size(), nouveau.parVille.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onZoneChange(ZoneChangeEvent event) {
+        reconstruire();
+    }
+
+    /**
+     * Zone correspondant à l'adresse du destinataire ou, à défaut, à la ville de destination.
+     */
+    public Optional<String> resoudre(String adresse, String villeDestination) {
+        Index courant = index();
+        String zoneId = parCodePostal(courant, adresse);
+        if (zoneId == null) {
+            zoneId = parCodePostal(courant, villeDestination);
+        }
+        if (zoneId == null && villeDestination != null) {
+            zoneId = courant.parVille.get(normaliser(villeDestination));
+        }
+        return Optional.ofNullable(zoneId);
+    }
+
+    @Scheduled(cron = "${zone-resolution.completion-cron:-}")
+    public void completerPlanifie() {
+        try {
+            completerZones();
+        } catch (ServiceUnavailableException e) {
+            log.debug("Complétion planifiée des zones ignorée: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Échec de la complétion planifiée des zones", e);
+        }
+    }
+
+    /**
+     * Affecte une zone aux colis qui n'en ont pas, par lots de {@code zone-resolution.taille-lot}
+     * parcourus par clé croissante ; chaque lot est écrit dans sa propre transaction.
+     */
+    public CompletionZonesDTO completerZones() {
+        if (!completionEnCours.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Une complétion des zones est déjà en cours");
+        }
+        try {
+            long debut = System.currentTimeMillis();
+            int traites = 0;
+            int resolus = 0;
+            String apres = "";
+            while (true) {
+                List<Object[]> lignes = colisRepository.findWithoutZoneAfter(apres, PageRequest.of(0, tailleLot));
+                if (lignes.isEmpty()) {
+                    break;
+                }
+                resolus += transactionTemplate.execute(status -> completerLot(lignes));
+                traites += lignes.size();
+                apres = (String) lignes.get(lignes.size() - 1)[0];
+            }
+            long dureeMs = System.currentTimeMillis() - debut;
+            log.info("Complétion des zones: {} colis résolus sur {} sans zone en {} ms", resolus, traites, dureeMs);
+            return CompletionZonesDTO.builder()
+                    .nombreTraites(traites)
+                    .nombreResolus(resolus)
+                    .dureeMs(dureeMs)
+                    .build();
+        } finally {
+            completionEnCours.set(false);
+        }
+    }
+
+    private int completerLot(List<Object[]> lignes) {
+        Timestamp horodatage = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> resolues = new ArrayList<>();
+        List<String> zones = new ArrayList<>();
+        List<Object[]> mises = new ArrayList<>();
+        for (Object[] ligne : lignes) {
+            resoudre((String) ligne[2], (String) ligne[1]).ifPresent(zoneId -> {
+                resolues.add(ligne);
+                zones.add(zoneId);
+                mises.add(new Object[]{zoneId, horodatage, ligne[0]});
+            });
+        }
+        if (mises.isEmpty()) {
+            return 0;
+        }
+
+        // Un colis dont la zone a été renseignée entre-temps n'est pas écrasé (zone_id IS NULL)
+        int[] resultats = jdbcTemplate.batchUpdate(SQL_ZONE, mises);
+        int resolus = 0;
+        for (int i = 0; i < resultats.length; i++) {
+            if (resultats[i] == 0) {
+                continue;
+            }
+            resolus++;
+            Object[] ligne = resolues.get(i);
+            eventPublisher.publishEvent(ColisChangeEvent.modification((String) ligne[0],
+                    etat(ligne, null), etat(ligne, zones.get(i))));
+        }
+        return resolus;
+    }
+
+    private static ColisEtat etat(Object[] ligne, String zoneId) {
+        return ColisEtat.builder()
+                .statut((StatutColis) ligne[3])
+                .priorite((PrioriteColis) ligne[4])
+                .poids((BigDecimal) ligne[5])
+                .volume((BigDecimal) ligne[6])
+                .livreurId((String) ligne[7])
+                .clientId((String) ligne[8])
+                .zoneId(zoneId)
+                .dateLimiteLivraison((LocalDateTime) ligne[9])
+                .dateLivraison((LocalDateTime) ligne[10])
+                .latitude((Double) ligne[11])
+                .longitude((Double) ligne[12])
+                .build();
+    }
+
+    // Construit l'index à la première utilisation si le démarrage n'est pas encore terminé
+    private Index index() {
+        Index courant = index;
+        if (courant == null) {
+            reconstruire();
+            courant = index;
+        }
+        return courant;
+    }
+
+    private static String parCodePostal(Index courant, String texte) {
+        if (texte == null) {
+            return null;
+        }
+        Matcher matcher = CODE_POSTAL.matcher(texte);
+        while (matcher.find()) {
+            String zoneId = courant.parCodePostal.get(matcher.group());
+            if (zoneId != null) {
+                return zoneId;
+            }
+        }
+        return null;
+    }
+
+    static String normaliser(String ville) {
+        if (ville == null) {
+            return "";
+        }
+        String sansAccents = ACCENTS.matcher(Normalizer.normalize(ville, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static final class Index {
+        private final Map<String, String> parCodePostal = new HashMap<>();
+        private final Map<String, String> parVille = new HashMap<>();
+    }
+}
@@ -0,0 +1,275 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.livraison.dto.IngestionPositionsDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionPingDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Ingestion des positions GPS envoyées par les applications livreurs.
+ * Chaque position met à jour la trace en mémoire du livreur et l'index spatial ; seuls les points
+ * sous-échantillonnés (un par intervalle ou sur déplacement significatif) sont placés dans une file
+ * bornée, vidée périodiquement en lots JDBC dans position_livreur. La position du livreur en base
+ * suit ces mêmes points.
+ */
+@Service
+@Slf4j
+public class SuiviPositionService {
+
+    private static final int TAILLE_LOT = 1000;
+    private static final long AVANCE_MAX_MS = 60_000;
+
+    private static final String SQL_POSITION =
+            "INSERT INTO position_livreur (livreur_id, latitude, longitude, horodatage) VALUES (?, ?, ?, ?)";
+    private static final String SQL_LIVREUR =
+            "UPDATE livreur SET latitude = ?, longitude = ?, date_position = ? " +
+            "WHERE id = ? AND (date_position IS NULL OR date_position < ?)";
+
+    private final LivreurRepository livreurRepository;
+    private final ResolveurUtilisateur resolveurUtilisateur;
+    private final IndexAutorisations indexAutorisations;
+    private final JdbcTemplate jdbcTemplate;
+    private final IndexSpatialService indexSpatialService;
+    private final BlockingQueue<PointPersiste> file;
+    private final Counter compteurAcceptees;
+    private final Counter compteurIgnorees;
+    private final Counter compteurPersistes;
+    private final Counter compteurPerdus;
+
+    private final Map<String, TraceLivreur> traces = new ConcurrentHashMap<>();
+
+    @Value("${suivi.taille-trace:720}")
+    private int tailleTrace;
+
+    @Value("${suivi.intervalle-persistance-ms:60000}")
+    private long intervallePersistanceMs;
+
+    @Value("${suivi.distance-significative-m:150}")
+    private double distanceSignificativeM;
+
+    public SuiviPositionService(LivreurRepository livreurRepository, ResolveurUtilisateur resolveurUtilisateur,
+                                IndexAutorisations indexAutorisations, JdbcTemplate jdbcTemplate,
+                                IndexSpatialService indexSpatialService, MeterRegistry meterRegistry,
+                                @Value("${suivi.file-capacite:100000}") int capaciteFile) {
+        this.livreurRepository = livreurRepository;
+        this.resolveurUtilisateur = resolveurUtilisateur;
+        this.indexAutorisations = indexAutorisations;
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexSpatialService = indexSpatialService;
+        this.file = new ArrayBlockingQueue<>(capaciteFile);
+        this.compteurAcceptees = Counter.builder("deligo.suivi.positions")
+                .description("Positions GPS reçues")
+                .tag("resultat", "acceptee")
+                .register(meterRegistry);
+        this.compteurIgnorees = Counter.builder("deligo.suivi.positions")
+                .description("Positions GPS reçues")
+                .tag("resultat", "ignoree")
+                .register(meterRegistry);
+        this.compteurPersistes = Counter.builder("deligo.suivi.points.persistes")
+                .description("Points GPS écrits dans position_livreur")
+                .register(meterRegistry);
+        this.compteurPerdus = Counter.builder("deligo.suivi.points.perdus")
+                .description("Points GPS non historisés (file pleine ou échec d'écriture)")
+                .register(meterRegistry);
+        Gauge.builder("deligo.suivi.file", file, Collection::size)
+                .description("Points GPS en attente d'écriture")
+                .register(meterRegistry);
+    }
+
+    public IngestionPositionsDTO ingerer(String livreurId, List<PositionPingDTO> positions, Authentication auth) {
+        verifierProprietaire(livreurId, auth);
+        TraceLivreur trace = trace(livreurId);
+        if (!trace.actif()) {
+            throw new IllegalStateException("Le livreur est inactif");
+        }
+
+        long maintenant = System.currentTimeMillis();
+        long[] horodatages = new long[positions.size()];
+        Integer[] ordre = new Integer[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            LocalDateTime horodatage = positions.get(i).getHorodatage();
+            // Horloge de l'appareil en avance : ramenée à l'heure de réception
+            horodatages[i] = horodatage != null ? Math.min(millis(horodatage), maintenant + AVANCE_MAX_MS) : maintenant;
+            ordre[i] = i;
+        }
+        Arrays.sort(ordre, Comparator.comparingLong(i -> horodatages[i]));
+
+        int acceptees = 0;
+        for (int i : ordre) {
+            PositionPingDTO ping = positions.get(i);
+            TraceLivreur.Ajout ajout = trace.ajouter(ping.getLatitude(), ping.getLongitude(), horodatages[i],
+                    intervallePersistanceMs, distanceSignificativeM / 1000);
+            if (ajout == TraceLivreur.Ajout.IGNORE) {
+                continue;
+            }
+            acceptees++;
+            if (ajout == TraceLivreur.Ajout.A_PERSISTER
+                    && !file.offer(new PointPersiste(livreurId, ping.getLatitude(), ping.getLongitude(), horodatages[i]))) {
+                compteurPerdus.increment();
+            }
+        }
+
+        if (acceptees > 0) {
+            TraceLivreur.Point dernier = trace.dernier();
+            indexSpatialService.placerLivreur(livreurId, trace.nom(), trace.prenom(), dernier.latitude, dernier.longitude);
+        }
+        compteurAcceptees.increment(acceptees);
+        compteurIgnorees.increment(positions.size() - acceptees);
+
+        return IngestionPositionsDTO.builder()
+                .recues(positions.size())
+                .acceptees(acceptees)
+                .ignorees(positions.size() - acceptees)
+                .build();
+    }
+
+    public List<PositionLivreurDTO> getPositionsCourantes() {
+        List<PositionLivreurDTO> resultat = new ArrayList<>(traces.size());
+        traces.forEach((livreurId, trace) -> {
+            TraceLivreur.Point dernier = trace.dernier();
+            if (trace.actif() && dernier != null) {
+                resultat.add(toDTO(livreurId, dernier));
+            }
+        });
+        return resultat;
+    }
+
+    public List<PositionLivreurDTO> getTrace(String livreurId) {
+        TraceLivreur trace = traces.get(livreurId);
+        if (trace == null) {
+            if (!livreurRepository.existsById(livreurId)) {
+                throw new ResourceNotFoundException("Livreur non trouvé avec id: " + livreurId);
+            }
+            return List.of();
+        }
+        return Arrays.stream(trace.points()).map(p -> toDTO(livreurId, p)).collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${suivi.flush-ms:2000}")
+    @PreDestroy
+    public synchronized void vider() {
+        List<PointPersiste> lot = new ArrayList<>(TAILLE_LOT);
+        while (file.drainTo(lot, TAILLE_LOT) > 0) {
+            // Points d'un livreur supprimé entre-temps : la clé étrangère rejetterait tout le lot
+            lot.removeIf(p -> !traces.containsKey(p.livreurId));
+            try {
+                ecrire(lot);
+                compteurPersistes.increment(lot.size());
+            } catch (RuntimeException e) {
+                compteurPerdus.increment(lot.size());
+                log.error("Échec de l'écriture de {} positions GPS", lot.size(), e);
+            }
+            lot.clear();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        if (event.isSupprime()) {
+            traces.remove(event.getLivreurId());
+            return;
+        }
+        TraceLivreur trace = traces.get(event.getLivreurId());
+        if (trace != null) {
+            trace.mettreAJour(event.getNom(), event.getPrenom(), event.isActif());
+        }
+    }
+
+    private void ecrire(List<PointPersiste> lot) {
+        List<Object[]> positions = new ArrayList<>(lot.size());
+        Map<String, PointPersiste> derniers = new HashMap<>();
+        for (PointPersiste point : lot) {
+            positions.add(new Object[]{point.livreurId, point.latitude, point.longitude, timestamp(point.horodatage)});
+            derniers.merge(point.livreurId, point, (a, b) -> b.horodatage > a.horodatage ? b : a);
+        }
+        jdbcTemplate.batchUpdate(SQL_POSITION, positions);
+
+        List<Object[]> livreurs = new ArrayList<>(derniers.size());
+        for (PointPersiste point : derniers.values()) {
+            Timestamp horodatage = timestamp(point.horodatage);
+            livreurs.add(new Object[]{point.latitude, point.longitude, horodatage, point.livreurId, horodatage});
+        }
+        jdbcTemplate.batchUpdate(SQL_LIVREUR, livreurs);
+    }
+
+    private TraceLivreur trace(String livreurId) {
+        TraceLivreur trace = traces.get(livreurId);
+        if (trace != null) {
+            return trace;
+        }
+        Livreur livreur = livreurRepository.findById(livreurId)
+                .orElseThrow(() -> new ResourceNotFoundException("Livreur non trouvé avec id: " + livreurId));
+        TraceLivreur nouvelle = new TraceLivreur(tailleTrace, livreur.getNom(), livreur.getPrenom(),
+                !Boolean.FALSE.equals(livreur.getActif()));
+        TraceLivreur existante = traces.putIfAbsent(livreurId, nouvelle);
+        return existante != null ? existante : nouvelle;
+    }
+
+    private void verifierProprietaire(String livreurId, Authentication auth) {
+        boolean manager = indexAutorisations.possede(auth, "ROLE_MANAGER");
+        if (manager) {
+            return;
+        }
+        if (!livreurId.equals(resolveurUtilisateur.resoudre(auth).getLivreurId())) {
+            throw new AccessDeniedException("Vous ne pouvez envoyer que vos propres positions");
+        }
+    }
+
+    private static PositionLivreurDTO toDTO(String livreurId, TraceLivreur.Point point) {
+        return PositionLivreurDTO.builder()
+                .livreurId(livreurId)
+                .latitude(point.latitude)
+                .longitude(point.longitude)
+                .horodatage(LocalDateTime.ofInstant(Instant.ofEpochMilli(point.horodatage), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Timestamp timestamp(long millis) {
+        return new Timestamp(millis);
+    }
+
+    private static final class PointPersiste {
+        private final String livreurId;
+        private final double latitude;
+        private final double longitude;
+        private final long horodatage;
+
+        PointPersiste(String livreurId, double latitude, double longitude, long horodatage) {
+            this.livreurId = livreurId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.horodatage = horodatage;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ArretTourneeDTO;
+import com.shamkhi.deligo.domain.livraison.dto.TourneeDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.geo.Haversine;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Ordre de passage optimisé des colis ouverts d'un livreur.
+ * Un colis CREE est un arrêt de collecte chez l'expéditeur, les autres sont des livraisons.
+ * La dernière tournée calculée sans point de départ imposé est conservée tant que l'empreinte de ses
+ * arrêts ne change pas : identifiant, statut (collecte ou livraison), coordonnées, priorité et date limite
+ * de chaque colis. Elle est recalculée pour tous les livreurs chaque matin et oubliée quand le livreur
+ * est désactivé ou supprimé.
+ */
+@Service
+@Slf4j
+public class TourneeService {
+
+    private final ColisRepository colisRepository;
+    private final LivreurRepository livreurRepository;
+    private final ResolveurUtilisateur resolveurUtilisateur;
+    private final IndexAutorisations indexAutorisations;
+
+    // Tournée et empreinte remplacées ensemble : une lecture ne voit jamais l'une sans l'autre
+    private final Map<String, TourneeMemorisee> tournees = new ConcurrentHashMap<>();
+
+    @Value("${tournee.budget-ms:200}")
+    private long budgetMs;
+
+    @Value("${tournee.parallelisme:4}")
+    private int parallelisme;
+
+    private ExecutorService executor;
+
+    public TourneeService(ColisRepository colisRepository, LivreurRepository livreurRepository,
+                          ResolveurUtilisateur resolveurUtilisateur, IndexAutorisations indexAutorisations) {
+        this.colisRepository = colisRepository;
+        this.livreurRepository = livreurRepository;
+        this.resolveurUtilisateur = resolveurUtilisateur;
+        this.indexAutorisations = indexAutorisations;
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger compteur = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelisme, runnable -> {
+            Thread thread = new Thread(runnable, "tournee-worker-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public TourneeDTO getTourneeForUser(String livreurId, Double latitude, Double longitude, Authentication auth) {
+        boolean manager = indexAutorisations.possede(auth, "ROLE_MANAGER");
+        if (!manager) {
+            if (!livreurId.equals(resolveurUtilisateur.resoudre(auth).getLivreurId())) {
+                throw new AccessDeniedException("Vous ne pouvez consulter que votre propre tournée");
+            }
+        }
+        return getTournee(livreurId, latitude, longitude);
+    }
+
+    public TourneeDTO getTournee(String livreurId, Double latitude, Double longitude) {
+        log.info("Calcul de la tournée du livreur: {}", livreurId);
+        if (!livreurRepository.existsById(livreurId)) {
+            throw new ResourceNotFoundException("Livreur non trouvé avec l'id: " + livreurId);
+        }
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("La latitude et la longitude doivent être fournies ensemble");
+        }
+        return calculer(livreurId, latitude, longitude, false);
+    }
+
+    @Scheduled(cron = "${tournee.cron:0 0 6 * * *}")
+    public void optimiserToutes() {
+        long debut = System.currentTimeMillis();
+        List<Livreur> livreurs = livreurRepository.findByActif(true);
+
+        List<CompletableFuture<Void>> taches = livreurs.stream()
+                .map(livreur -> CompletableFuture.runAsync(() -> calculer(livreur.getId(), null, null, true), executor)
+                        .exceptionally(e -> {
+                            log.error("Échec du calcul de la tournée du livreur {}", livreur.getId(), e);
+                            return null;
+                        }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(taches.toArray(new CompletableFuture[0])).join();
+
+        log.info("Tournées de {} livreurs optimisées en {} ms", livreurs.size(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener
+    public void onLivreurChange(LivreurChangeEvent event) {
+        if (event.isSupprime() || !event.isActif()) {
+            tournees.remove(event.getLivreurId());
+        }
+    }
+
+    TourneeDTO calculer(String livreurId, Double latitude, Double longitude, boolean forcer) {
+        long debut = System.currentTimeMillis();
+        List<Arret> arrets = new ArrayList<>();
+        List<String> sansCoordonnees = new ArrayList<>();
+        Set<List<Object>> empreinte = new HashSet<>();
+
+        for (Object[] ligne : colisRepository.findOpenStopsByLivreur(livreurId, StatutColis.terminaux())) {
+            Arret arret = Arret.of(ligne);
+            empreinte.add(arret.empreinte());
+            if (arret.latitude == null || arret.longitude == null) {
+                sansCoordonnees.add(arret.colisId);
+            } else {
+                arrets.add(arret);
+            }
+        }
+
+        boolean departImpose = latitude != null;
+        TourneeMemorisee memorisee = tournees.get(livreurId);
+        if (!departImpose && !forcer && memorisee != null && empreinte.equals(memorisee.empreinte)) {
+            return memorisee.tournee;
+        }
+
+        // Ordre actuel (création) : sert de référence pour mesurer le gain
+        arrets.sort(Comparator.comparing(a -> a.dateCreation, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        // Nœud 0 : position imposée, sinon l'arrêt le plus urgent
+        int decalage = departImpose ? 1 : 0;
+        int rangUrgent = 0;
+        if (!departImpose && !arrets.isEmpty()) {
+            Arret urgent = Collections.min(arrets, Comparator
+                    .comparingInt((Arret a) -> -(a.priorite != null ? a.priorite.ordinal() : 0))
+                    .thenComparing(a -> a.dateLimite, Comparator.nullsLast(Comparator.naturalOrder())));
+            rangUrgent = arrets.indexOf(urgent);
+            arrets.remove(rangUrgent);
+            arrets.add(0, urgent);
+        }
+
+        int n = arrets.size() + decalage;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        if (departImpose) {
+            latitudes[0] = latitude;
+            longitudes[0] = longitude;
+        }
+        for (int i = 0; i < arrets.size(); i++) {
+            latitudes[i + decalage] = arrets.get(i).latitude;
+            longitudes[i + decalage] = arrets.get(i).longitude;
+        }
+        double[][] distances = Haversine.matrice(latitudes, longitudes);
+
+        // Ordre de création : l'arrêt urgent, déplacé en nœud 0, y reprend son rang d'origine
+        int[] initial = new int[n];
+        for (int i = 0; i < n; i++) {
+            initial[i] = departImpose || i > rangUrgent ? i : i < rangUrgent ? i + 1 : 0;
+        }
+        int[] ordre = OptimiseurTournee.optimiser(distances, TimeUnit.MILLISECONDS.toNanos(budgetMs));
+
+        List<ArretTourneeDTO> resultat = new ArrayList<>(arrets.size());
+        for (int k = decalage; k < n; k++) {
+            Arret arret = arrets.get(ordre[k] - decalage);
+            double depuisPrecedent = k > 0 ? distances[ordre[k - 1]][ordre[k]] : 0;
+            resultat.add(arret.toDTO(resultat.size() + 1, km(depuisPrecedent)));
+        }
+
+        TourneeDTO tournee = TourneeDTO.builder()
+                .livreurId(livreurId)
+                .dateCalcul(LocalDateTime.now())
+                .distanceTotaleKm(km(OptimiseurTournee.longueur(distances, ordre)))
+                .distanceInitialeKm(km(OptimiseurTournee.longueur(distances, initial)))
+                .dureeCalculMs(System.currentTimeMillis() - debut)
+                .arrets(resultat)
+                .colisSansCoordonnees(sansCoordonnees)
+                .build();
+
+        if (!departImpose) {
+            tournees.put(livreurId, new TourneeMemorisee(empreinte, tournee));
+        }
+        return tournee;
+    }
+
+    private static BigDecimal km(double distance) {
+        return BigDecimal.valueOf(distance).setScale(3, RoundingMode.HALF_UP);
+    }
+
+    private static final class TourneeMemorisee {
+        private final Set<List<Object>> empreinte;
+        private final TourneeDTO tournee;
+
+        TourneeMemorisee(Set<List<Object>> empreinte, TourneeDTO tournee) {
+            this.empreinte = Collections.unmodifiableSet(empreinte);
+            this.tournee = tournee;
+        }
+    }
+
+    private static final class Arret {
+        private String colisId;
+        private StatutColis statut;
+        private PrioriteColis priorite;
+        private LocalDateTime dateLimite;
+        private LocalDateTime dateCreation;
+        private TypeArret type;
+        private String nom;
+        private String adresse;
+        private Double latitude;
+        private Double longitude;
+
+        static Arret of(Object[] ligne) {
+            Arret arret = new Arret();
+            arret.colisId = (String) ligne[0];
+            arret.statut = (StatutColis) ligne[1];
+            arret.priorite = (PrioriteColis) ligne[2];
+            arret.dateLimite = (LocalDateTime) ligne[3];
+            arret.dateCreation = (LocalDateTime) ligne[4];
+            if (arret.statut == StatutColis.CREE) {
+                arret.type = TypeArret.COLLECTE;
+                arret.nom = "Expéditeur";
+                arret.adresse = (String) ligne[8];
+                arret.latitude = (Double) ligne[9];
+                arret.longitude = (Double) ligne[10];
+            } else {
+                arret.type = TypeArret.LIVRAISON;
+                arret.nom = ligne[5] + " " + ligne[6];
+                arret.adresse = (String) ligne[7];
+                arret.latitude = (Double) ligne[11];
+                arret.longitude = (Double) ligne[12];
+            }
+            return arret;
+        }
+
+        // Tout ce qui change la position ou le rang de l'arrêt dans la tournée
+        List<Object> empreinte() {
+            return Arrays.asList(colisId, statut, latitude, longitude, priorite, dateLimite);
+        }
+
+        ArretTourneeDTO toDTO(int ordre, BigDecimal distanceDepuisPrecedent) {
+            return ArretTourneeDTO.builder()
+                    .ordre(ordre)
+                    .colisId(colisId)
+                    .type(type)
+                    .statut(statut)
+                    .priorite(priorite)
+                    .dateLimiteLivraison(dateLimite)
+                    .nom(nom)
+                    .adresse(adresse)
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .distanceDepuisPrecedentKm(distanceDepuisPrecedent)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.livraison.geo.Haversine;
+
+/**
+ * Trace GPS récente d'un livreur : tampon circulaire de tableaux primitifs (latitude, longitude,
+ * horodatage en ms) de capacité fixe, sans allocation par point. Le dernier point est publié dans
+ * un champ volatile pour une lecture sans verrou ; les écritures, qui viennent d'un seul appareil,
+ * sont synchronisées sur la trace.
+ */
+class TraceLivreur {
+
+    enum Ajout { IGNORE, AJOUTE, A_PERSISTER }
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] horodatages;
+    private int tete;
+    private int taille;
+
+    // Dernier point retenu pour l'historique en base
+    private long horodatagePersiste = Long.MIN_VALUE;
+    private double latitudePersistee;
+    private double longitudePersistee;
+
+    private volatile Point dernier;
+    private volatile String nom;
+    private volatile String prenom;
+    private volatile boolean actif;
+
+    TraceLivreur(int capacite, String nom, String prenom, boolean actif) {
+        this.latitudes = new double[capacite];
+        this.longitudes = new double[capacite];
+        this.horodatages = new long[capacite];
+        this.nom = nom;
+        this.prenom = prenom;
+        this.actif = actif;
+    }
+
+    /**
+     * Ajoute un point à la trace. Un point antérieur au dernier reçu est ignoré ; un point est à persister
+     * si l'intervalle depuis le dernier point historisé est écoulé ou si le livreur s'est déplacé
+     * d'au moins la distance significative.
+     */
+    synchronized Ajout ajouter(double latitude, double longitude, long horodatage,
+                               long intervallePersistanceMs, double distanceSignificativeKm) {
+        Point precedent = dernier;
+        if (precedent != null && horodatage <= precedent.horodatage) {
+            return Ajout.IGNORE;
+        }
+        latitudes[tete] = latitude;
+        longitudes[tete] = longitude;
+        horodatages[tete] = horodatage;
+        tete = (tete + 1) % horodatages.length;
+        taille = Math.min(taille + 1, horodatages.length);
+        dernier = new Point(latitude, longitude, horodatage);
+
+        if (horodatagePersiste == Long.MIN_VALUE
+                || horodatage - horodatagePersiste >= intervallePersistanceMs
+                || Haversine.distanceKm(latitudePersistee, longitudePersistee, latitude, longitude) >= distanceSignificativeKm) {
+            horodatagePersiste = horodatage;
+            latitudePersistee = latitude;
+            longitudePersistee = longitude;
+            return Ajout.A_PERSISTER;
+        }
+        return Ajout.AJOUTE;
+    }
+
+    /**
+     * Points de la trace, du plus ancien au plus récent.
+     */
+    synchronized Point[] points() {
+        Point[] points = new Point[taille];
+        int debut = (tete - taille + horodatages.length) % horodatages.length;
+        for (int i = 0; i < taille; i++) {
+            int j = (debut + i) % horodatages.length;
+            points[i] = new Point(latitudes[j], longitudes[j], horodatages[j]);
+        }
+        return points;
+    }
+
+    Point dernier() {
+        return dernier;
+    }
+
+    String nom() {
+        return nom;
+    }
+
+    String prenom() {
+        return prenom;
+    }
+
+    boolean actif() {
+        return actif;
+    }
+
+    void mettreAJour(String nom, String prenom, boolean actif) {
+        this.nom = nom;
+        this.prenom = prenom;
+        this.actif = actif;
+    }
+
+    static final class Point {
+        final double latitude;
+        final double longitude;
+        final long horodatage;
+
+        Point(double latitude, double longitude, long horodatage) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.horodatage = horodatage;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeResponse;
+import com.shamkhi.deligo.domain.livraison.model.ZoneCharge;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneChargeRepository;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Charge des zones (colis ouverts par priorité et statut) lue depuis zone_charge_mv.
+ * Sous PostgreSQL la vue matérialisée est rafraîchie avec CONCURRENTLY pour ne pas bloquer
+ * les lectures ; sur les autres bases (H2) la table équivalente est recalculée dans une transaction.
+ */
+@Service
+@Slf4j
+public class ZoneChargeService {
+
+    static final String REQUETE_CHARGE =
+            "SELECT z.id || ':' || c.priorite || ':' || c.statut, z.id, z.nom, c.priorite, c.statut, " +
+            "COUNT(*), COALESCE(SUM(c.poids), 0), " +
+            "COUNT(CASE WHEN c.date_limite_livraison < CURRENT_TIMESTAMP THEN 1 END), " +
+            "MIN(c.date_limite_livraison) " +
+            "FROM colis c JOIN zone z ON z.id = c.zone_id " +
+            "WHERE c.statut NOT IN ('LIVRE', 'RETOURNE', 'ANNULE') " +
+            "GROUP BY z.id, z.nom, c.priorite, c.statut";
+
+    private final ZoneChargeRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer timerRafraichissement;
+    private final Counter compteurEchecs;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    private volatile Boolean postgres;
+    private volatile LocalDateTime dernierRafraichissement;
+
+    public ZoneChargeService(ZoneChargeRepository repository, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timerRafraichissement = Timer.builder("deligo.zone.charge.rafraichissement")
+                .description("Durée du rafraîchissement de zone_charge_mv")
+                .register(meterRegistry);
+        this.compteurEchecs = Counter.builder("deligo.zone.charge.echecs")
+                .description("Rafraîchissements de zone_charge_mv en échec")
+                .register(meterRegistry);
+        Gauge.builder("deligo.zone.charge.anciennete", this, ZoneChargeService::getAncienneteSecondes)
+                .description("Secondes écoulées depuis le dernier rafraîchissement réussi")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${zone-charge.intervalle-ms:60000}",
+            initialDelayString = "${zone-charge.delai-initial-ms:10000}")
+    public void rafraichirPlanifie() {
+        try {
+            rafraichir();
+        } catch (ServiceUnavailableException e) {
+            log.debug("Rafraîchissement planifié ignoré: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Échec du rafraîchissement planifié de la charge des zones", e);
+        }
+    }
+
+    public LocalDateTime rafraichir() {
+        if (!enCours.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Un rafraîchissement de la charge des zones est déjà en cours");
+        }
+        try {
+            long debut = System.nanoTime();
+            if (isPostgres()) {
+                jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY zone_charge_mv");
+            } else {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("DELETE FROM zone_charge_mv");
+                    jdbcTemplate.update("INSERT INTO zone_charge_mv (id, zone_id, zone_nom, priorite, statut, " +
+                            "nombre_colis, poids_total, nombre_en_retard, date_limite_proche) " + REQUETE_CHARGE);
+                });
+            }
+            long duree = System.nanoTime() - debut;
+            timerRafraichissement.record(Duration.ofNanos(duree));
+            dernierRafraichissement = LocalDateTime.now();
+            log.debug("Charge des zones rafraîchie en {} ms", Duration.ofNanos(duree).toMillis());
+            return dernierRafraichissement;
+        } catch (RuntimeException e) {
+            compteurEchecs.increment();
+            throw e;
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    public ZoneChargeResponse getCharge(String zoneId) {
+        log.info("Récupération de la charge des zones (zone: {})", zoneId);
+        List<ZoneCharge> lignes = zoneId != null
+                ? repository.findByZoneIdOrderByPrioriteAscStatutAsc(zoneId)
+                : repository.findAllByOrderByZoneNomAscPrioriteAscStatutAsc();
+
+        return ZoneChargeResponse.builder()
+                .dateRafraichissement(dernierRafraichissement)
+                .charges(lignes.stream().map(this::toDTO).collect(Collectors.toList()))
+                .build();
+    }
+
+    double getAncienneteSecondes() {
+        LocalDateTime dernier = dernierRafraichissement;
+        return dernier == null ? Double.NaN : Duration.between(dernier, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String produit = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(produit);
+        }
+        return postgres;
+    }
+
+    private ZoneChargeDTO toDTO(ZoneCharge charge) {
+        return ZoneChargeDTO.builder()
+                .zoneId(charge.getZoneId())
+                .zoneNom(charge.getZoneNom())
+                .priorite(charge.getPriorite())
+                .statut(charge.getStatut())
+                .nombreColis(charge.getNombreColis() != null ? charge.getNombreColis() : 0)
+                .poidsTotal(charge.getPoidsTotal())
+                .nombreEnRetard(charge.getNombreEnRetard() != null ? charge.getNombreEnRetard() : 0)
+                .dateLimiteProche(charge.getDateLimiteProche())
+                .build();
+    }
+}
@@ -2,11 +2,13 @@ package com.shamkhi.deligo.domain.livraison.service;
 
 import com.shamkhi.deligo.application.mapper.ZoneMapper;
 import com.shamkhi.deligo.domain.livraison.dto.ZoneDTO;
+import com.shamkhi.deligo.domain.livraison.event.ZoneChangeEvent;
 import com.shamkhi.deligo.domain.livraison.model.Zone;
 import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,7 @@ public class ZoneService {
 
     private final ZoneRepository repository;
     private final ZoneMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<ZoneDTO> getAllZones(Pageable pageable) {
         return repository.findAll(pageable).map(mapper::toDTO);
@@ -37,6 +40,7 @@ public class ZoneService {
     public ZoneDTO createZone(ZoneDTO dto) {
         Zone zone = mapper.toEntity(dto);
         zone = repository.save(zone);
+        eventPublisher.publishEvent(new ZoneChangeEvent(zone.getId(), false));
         return mapper.toDTO(zone);
     }
 
@@ -45,6 +49,7 @@ public class ZoneService {
         Zone zone = findZoneById(id);
         mapper.updateEntity(dto, zone);
         zone = repository.save(zone);
+        eventPublisher.publishEvent(new ZoneChangeEvent(zone.getId(), false));
         return mapper.toDTO(zone);
     }
 
@@ -52,6 +57,7 @@ public class ZoneService {
     public void deleteZone(String id) {
         Zone zone = findZoneById(id);
         repository.delete(zone);
+        eventPublisher.publishEvent(new ZoneChangeEvent(id, true));
     }
 
     private Zone findZoneById(String id) {
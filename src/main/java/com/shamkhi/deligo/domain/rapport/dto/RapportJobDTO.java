@@ -0,0 +1,31 @@
+package com.shamkhi.deligo.domain.rapport.dto;
+
+import com.shamkhi.deligo.domain.rapport.model.StatutRapport;
+import com.shamkhi.deligo.domain.rapport.model.TypeRapport;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportJobDTO {
+    private String id;
+    private TypeRapport type;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+    private String clientExpediteurId;
+    private String livreurId;
+    private StatutRapport statut;
+    private int progression;
+    private LocalDateTime dateSoumission;
+    private LocalDateTime dateDemarrage;
+    private LocalDateTime dateTerminaison;
+    private String message;
+    private Long tailleResultat;
+}
@@ -0,0 +1,28 @@
+package com.shamkhi.deligo.domain.rapport.dto;
+
+import com.shamkhi.deligo.domain.rapport.model.TypeRapport;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportRequest {
+
+    @NotNull(message = "Le type de rapport est obligatoire")
+    private TypeRapport type;
+
+    @NotNull(message = "La date de début est obligatoire")
+    private LocalDate dateDebut;
+
+    @NotNull(message = "La date de fin est obligatoire")
+    private LocalDate dateFin;
+
+    // Filtres optionnels
+    private String clientExpediteurId;
+    private String livreurId;
+}
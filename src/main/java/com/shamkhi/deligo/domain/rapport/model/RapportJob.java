@@ -0,0 +1,87 @@
+package com.shamkhi.deligo.domain.rapport.model;
+
+import com.shamkhi.deligo.domain.rapport.dto.RapportRequest;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+
+/**
+ * Job de génération de rapport conservé en mémoire.
+ * Le résultat est écrit sur disque, seul l'état d'avancement reste ici.
+ */
+@Getter
+public class RapportJob {
+
+    private final String id;
+    private final String cle;
+    private final RapportRequest request;
+    private final LocalDateTime dateSoumission = LocalDateTime.now();
+
+    private volatile StatutRapport statut = StatutRapport.EN_ATTENTE;
+    private volatile int progression;
+    private volatile LocalDateTime dateDemarrage;
+    private volatile LocalDateTime dateTerminaison;
+    private volatile String message;
+    private volatile Path fichier;
+    private volatile Future<?> future;
+
+    public RapportJob(String id, String cle, RapportRequest request) {
+        this.id = id;
+        this.cle = cle;
+        this.request = request;
+    }
+
+    public synchronized boolean demarrer() {
+        if (statut != StatutRapport.EN_ATTENTE) {
+            return false;
+        }
+        statut = StatutRapport.EN_COURS;
+        dateDemarrage = LocalDateTime.now();
+        return true;
+    }
+
+    public void avancer(int progression) {
+        this.progression = Math.max(0, Math.min(100, progression));
+    }
+
+    public synchronized void terminer(Path fichier) {
+        if (statut == StatutRapport.EN_COURS) {
+            this.fichier = fichier;
+            this.progression = 100;
+            terminerAvec(StatutRapport.TERMINE, null);
+        }
+    }
+
+    public synchronized void echouer(String message) {
+        if (!statut.isTerminal()) {
+            terminerAvec(StatutRapport.ECHOUE, message);
+        }
+    }
+
+    public synchronized boolean annuler() {
+        if (statut.isTerminal()) {
+            return false;
+        }
+        terminerAvec(StatutRapport.ANNULE, "Annulé à la demande de l'utilisateur");
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    public boolean isAnnule() {
+        return statut == StatutRapport.ANNULE;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    private void terminerAvec(StatutRapport statut, String message) {
+        this.statut = statut;
+        this.message = message;
+        this.dateTerminaison = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,23 @@
+package com.shamkhi.deligo.domain.rapport.model;
+
+public enum StatutRapport {
+    EN_ATTENTE("En attente"),
+    EN_COURS("En cours"),
+    TERMINE("Terminé"),
+    ECHOUE("Échoué"),
+    ANNULE("Annulé");
+
+    private final String libelle;
+
+    StatutRapport(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public boolean isTerminal() {
+        return this == TERMINE || this == ECHOUE || this == ANNULE;
+    }
+}
@@ -0,0 +1,16 @@
+package com.shamkhi.deligo.domain.rapport.model;
+
+public enum TypeRapport {
+    VOLUME_MENSUEL_CLIENT("Volume mensuel par client"),
+    PERFORMANCE_LIVREUR("Performance par livreur");
+
+    private final String libelle;
+
+    TypeRapport(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+}
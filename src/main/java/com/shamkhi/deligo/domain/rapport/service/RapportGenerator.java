@@ -0,0 +1,156 @@
+package com.shamkhi.deligo.domain.rapport.service;
+
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.rapport.dto.RapportRequest;
+import com.shamkhi.deligo.domain.rapport.model.RapportJob;
+import com.shamkhi.deligo.domain.rapport.model.TypeRapport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écrit le résultat d'un rapport en CSV compressé (gzip), mois par mois.
+ * Chaque mois correspond à une requête d'agrégation courte : la connexion est rendue au pool
+ * entre deux mois, ce qui permet aussi de suivre la progression et de s'arrêter sur annulation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RapportGenerator {
+
+    private static final char SEPARATEUR = ';';
+
+    private final ColisRepository colisRepository;
+
+    public void generer(RapportJob job, Path fichier) throws IOException {
+        RapportRequest request = job.getRequest();
+        List<YearMonth> mois = moisCouverts(request.getDateDebut(), request.getDateFin());
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(fichier)), StandardCharsets.UTF_8))) {
+
+            writer.write(entete(request));
+            writer.newLine();
+
+            for (int i = 0; i < mois.size(); i++) {
+                if (job.isAnnule() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Rapport annulé: " + job.getId());
+                }
+
+                YearMonth courant = mois.get(i);
+                LocalDate debut = max(courant.atDay(1), request.getDateDebut());
+                LocalDate fin = min(courant.atEndOfMonth(), request.getDateFin()).plusDays(1);
+
+                for (Object[] ligne : chargerMois(request, debut, fin)) {
+                    writer.write(formater(courant, request, ligne));
+                    writer.newLine();
+                }
+
+                job.avancer((i + 1) * 100 / mois.size());
+            }
+        }
+    }
+
+    private List<Object[]> chargerMois(RapportRequest request, LocalDate debut, LocalDate fin) {
+        switch (request.getType()) {
+            case VOLUME_MENSUEL_CLIENT:
+                return colisRepository.countAndSumWeightByClientBetween(
+                        debut.atStartOfDay(), fin.atStartOfDay(), request.getClientExpediteurId(), StatutColis.LIVRE);
+            case PERFORMANCE_LIVREUR:
+                return colisRepository.deliveryPerformanceByLivreurBetween(
+                        debut.atStartOfDay(), fin.atStartOfDay(), request.getLivreurId(), StatutColis.LIVRE);
+            default:
+                throw new IllegalArgumentException("Type de rapport non supporté: " + request.getType());
+        }
+    }
+
+    private String entete(RapportRequest request) {
+        switch (request.getType()) {
+            case VOLUME_MENSUEL_CLIENT:
+                return "mois;client_id;client_nom;nombre_colis;poids_total;nombre_livres";
+            case PERFORMANCE_LIVREUR:
+                return "mois;livreur_id;livreur_nom;nombre_livres;nombre_a_temps;taux_ponctualite;poids_livre";
+            default:
+                throw new IllegalArgumentException("Type de rapport non supporté: " + request.getType());
+        }
+    }
+
+    private String formater(YearMonth mois, RapportRequest request, Object[] ligne) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(mois).append(SEPARATEUR)
+                .append(texte(ligne[0])).append(SEPARATEUR)
+                .append(texte(nom(ligne[1], ligne[2]))).append(SEPARATEUR);
+
+        if (request.getType() == TypeRapport.VOLUME_MENSUEL_CLIENT) {
+            sb.append(texte(ligne[3])).append(SEPARATEUR)
+                    .append(poids(ligne[4])).append(SEPARATEUR)
+                    .append(texte(ligne[5]));
+        } else {
+            long livres = ((Number) ligne[3]).longValue();
+            long aTemps = ((Number) ligne[4]).longValue();
+            sb.append(livres).append(SEPARATEUR)
+                    .append(aTemps).append(SEPARATEUR)
+                    .append(livres == 0 ? "0.00" : BigDecimal.valueOf(aTemps * 100L)
+                            .divide(BigDecimal.valueOf(livres), 2, RoundingMode.HALF_UP))
+                    .append(SEPARATEUR)
+                    .append(poids(ligne[5]));
+        }
+        return sb.toString();
+    }
+
+    private String nom(Object nom, Object prenom) {
+        if (nom == null || prenom == null) {
+            return nom != null ? nom.toString() : prenom != null ? prenom.toString() : null;
+        }
+        return nom + " " + prenom;
+    }
+
+    // Champ vide pour null ; guillemets (doublés à l'intérieur) si le texte contient un séparateur, un guillemet ou un saut de ligne
+    private String texte(Object valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String texte = valeur.toString();
+        if (texte.indexOf(SEPARATEUR) < 0 && texte.indexOf('"') < 0
+                && texte.indexOf('\n') < 0 && texte.indexOf('\r') < 0) {
+            return texte;
+        }
+        return '"' + texte.replace("\"", "\"\"") + '"';
+    }
+
+    private String poids(Object valeur) {
+        return valeur == null ? "0" : ((BigDecimal) valeur).toPlainString();
+    }
+
+    private List<YearMonth> moisCouverts(LocalDate debut, LocalDate fin) {
+        List<YearMonth> mois = new ArrayList<>();
+        for (YearMonth m = YearMonth.from(debut); !m.isAfter(YearMonth.from(fin)); m = m.plusMonths(1)) {
+            mois.add(m);
+        }
+        return mois;
+    }
+
+    private LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,256 @@
+package com.shamkhi.deligo.domain.rapport.service;
+
+import com.shamkhi.deligo.domain.rapport.dto.RapportJobDTO;
+import com.shamkhi.deligo.domain.rapport.dto.RapportRequest;
+import com.shamkhi.deligo.domain.rapport.model.RapportJob;
+import com.shamkhi.deligo.domain.rapport.model.StatutRapport;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution asynchrone des rapports lourds.
+ * Les jobs tournent sur un pool borné, distinct des threads Tomcat : la taille du pool fixe
+ * le nombre maximal de connexions Hikari que les rapports peuvent occuper simultanément.
+ */
+@Service
+@Slf4j
+public class RapportJobService {
+
+    private final RapportGenerator generator;
+    private final Map<String, RapportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> jobsParCle = new ConcurrentHashMap<>();
+
+    @Value("${rapport.max-connexions:2}")
+    private int maxConnexions;
+
+    @Value("${rapport.file-capacite:20}")
+    private int fileCapacite;
+
+    @Value("${rapport.repertoire:${java.io.tmpdir}/deligo-rapports}")
+    private String repertoire;
+
+    @Value("${rapport.retention-heures:24}")
+    private long retentionHeures;
+
+    private ThreadPoolExecutor executor;
+    private Path dossier;
+
+    public RapportJobService(RapportGenerator generator) {
+        this.generator = generator;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        dossier = Files.createDirectories(Paths.get(repertoire));
+        AtomicInteger compteur = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                maxConnexions, maxConnexions,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fileCapacite),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rapport-worker-" + compteur.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Pool de rapports initialisé: {} workers, file de {}, répertoire {}", maxConnexions, fileCapacite, dossier);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public RapportJobDTO soumettre(RapportRequest request) {
+        if (request.getDateFin().isBefore(request.getDateDebut())) {
+            throw new IllegalArgumentException("La date de fin doit être postérieure à la date de début");
+        }
+
+        String cle = cle(request);
+        // Déduplication : une demande identique encore valide renvoie le job existant
+        synchronized (jobsParCle) {
+            RapportJob existant = jobParCle(cle);
+            if (existant != null && isReutilisable(existant)) {
+                log.info("Rapport identique déjà soumis, réutilisation du job {}", existant.getId());
+                return toDTO(existant);
+            }
+
+            RapportJob job = new RapportJob(UUID.randomUUID().toString(), cle, request);
+            try {
+                job.setFuture(executor.submit(() -> executer(job)));
+            } catch (RejectedExecutionException e) {
+                throw new ServiceUnavailableException("Trop de rapports en attente, veuillez réessayer plus tard");
+            }
+            jobs.put(job.getId(), job);
+            jobsParCle.put(cle, job.getId());
+            log.info("Rapport {} soumis: {}", job.getId(), request.getType());
+            return toDTO(job);
+        }
+    }
+
+    public RapportJobDTO getJob(String id) {
+        return toDTO(findJob(id));
+    }
+
+    public RapportJobDTO annuler(String id) {
+        RapportJob job = findJob(id);
+        if (!job.annuler()) {
+            throw new IllegalStateException("Le rapport est déjà " + job.getStatut().getLibelle().toLowerCase());
+        }
+        // Un job encore en file libère sa place tout de suite au lieu d'attendre un worker
+        if (job.getFuture() instanceof Runnable) {
+            executor.remove((Runnable) job.getFuture());
+        }
+        log.info("Rapport {} annulé", id);
+        return toDTO(job);
+    }
+
+    public Resource getResultat(String id) {
+        RapportJob job = findJob(id);
+        if (job.getStatut() != StatutRapport.TERMINE) {
+            throw new IllegalStateException("Le rapport n'est pas disponible (statut: " + job.getStatut().getLibelle() + ")");
+        }
+        if (job.getFichier() == null || !Files.exists(job.getFichier())) {
+            throw new ResourceNotFoundException("Le résultat du rapport a expiré: " + id);
+        }
+        return new FileSystemResource(job.getFichier());
+    }
+
+    @Scheduled(fixedDelayString = "${rapport.purge-ms:3600000}")
+    public void purger() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retentionHeures);
+        jobs.values().removeIf(job -> {
+            boolean expire = job.getStatut().isTerminal()
+                    && job.getDateTerminaison() != null
+                    && job.getDateTerminaison().isBefore(limite);
+            if (expire) {
+                jobsParCle.remove(job.getCle(), job.getId());
+                supprimer(job.getFichier());
+            }
+            return expire;
+        });
+    }
+
+    private void executer(RapportJob job) {
+        if (!job.demarrer()) {
+            return;
+        }
+        Path temporaire = dossier.resolve(job.getId() + ".csv.gz.part");
+        Path fichier = dossier.resolve(job.getId() + ".csv.gz");
+        try {
+            generator.generer(job, temporaire);
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE);
+            job.terminer(fichier);
+            log.info("Rapport {} terminé ({} octets)", job.getId(), Files.size(fichier));
+        } catch (Exception e) {
+            if (job.isAnnule() || e instanceof CancellationException) {
+                log.info("Rapport {} interrompu", job.getId());
+            } else {
+                log.error("Échec du rapport {}: {}", job.getId(), e.getMessage());
+                job.echouer(e.getMessage());
+            }
+        } finally {
+            supprimer(temporaire);
+            if (job.isAnnule()) {
+                supprimer(fichier);
+            }
+        }
+    }
+
+    private boolean isReutilisable(RapportJob job) {
+        switch (job.getStatut()) {
+            case EN_ATTENTE:
+            case EN_COURS:
+                return true;
+            case TERMINE:
+                return job.getFichier() != null && Files.exists(job.getFichier());
+            default:
+                return false;
+        }
+    }
+
+    private RapportJob jobParCle(String cle) {
+        String id = jobsParCle.get(cle);
+        return id == null ? null : jobs.get(id);
+    }
+
+    private RapportJob findJob(String id) {
+        RapportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Rapport non trouvé avec l'id: " + id);
+        }
+        return job;
+    }
+
+    private String cle(RapportRequest request) {
+        return String.join("|",
+                request.getType().name(),
+                request.getDateDebut().toString(),
+                request.getDateFin().toString(),
+                Objects.toString(request.getClientExpediteurId(), ""),
+                Objects.toString(request.getLivreurId(), ""));
+    }
+
+    private void supprimer(Path fichier) {
+        if (fichier == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer {}: {}", fichier, e.getMessage());
+        }
+    }
+
+    private RapportJobDTO toDTO(RapportJob job) {
+        RapportRequest request = job.getRequest();
+        Long taille = null;
+        if (job.getFichier() != null) {
+            try {
+                taille = Files.size(job.getFichier());
+            } catch (IOException ignored) {
+                // fichier purgé entre-temps
+            }
+        }
+        return RapportJobDTO.builder()
+                .id(job.getId())
+                .type(request.getType())
+                .dateDebut(request.getDateDebut())
+                .dateFin(request.getDateFin())
+                .clientExpediteurId(request.getClientExpediteurId())
+                .livreurId(request.getLivreurId())
+                .statut(job.getStatut())
+                .progression(job.getProgression())
+                .dateSoumission(job.getDateSoumission())
+                .dateDemarrage(job.getDateDemarrage())
+                .dateTerminaison(job.getDateTerminaison())
+                .message(job.getMessage())
+                .tailleResultat(taille)
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package com.shamkhi.deligo.domain.security.event;
+
+/**
+ * Publié par PermissionService après toute création, modification ou suppression d'un rôle ou d'une
+ * permission, et après chaque (dés)association permission/rôle.
+ */
+public class AutorisationsChangeEvent {
+}
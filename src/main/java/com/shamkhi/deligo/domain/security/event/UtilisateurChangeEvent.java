@@ -0,0 +1,32 @@
+package com.shamkhi.deligo.domain.security.event;
+
+import lombok.Value;
+
+/**
+ * Publié à chaque modification d'un compte utilisateur qui touche son authentification (création,
+ * identifiants, rôles, mot de passe, (dés)activation, suppression). {@code username} est le nom sous
+ * lequel le compte était connu avant la modification. Sans {@code userId}, l'événement concerne tous
+ * les comptes (modification des rôles ou des permissions).
+ */
+@Value
+public class UtilisateurChangeEvent {
+    String userId;
+    String username;
+    boolean supprime;
+
+    public static UtilisateurChangeEvent modification(String userId, String username) {
+        return new UtilisateurChangeEvent(userId, username, false);
+    }
+
+    public static UtilisateurChangeEvent suppression(String userId, String username) {
+        return new UtilisateurChangeEvent(userId, username, true);
+    }
+
+    public static UtilisateurChangeEvent tous() {
+        return new UtilisateurChangeEvent(null, null, false);
+    }
+
+    public boolean concerneTous() {
+        return userId == null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.shamkhi.deligo.domain.security.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token émis (identifié par la claim {@code jti}). Tous les jetons issus d'un même login
+ * partagent une famille : chaque rafraîchissement marque le jeton présenté comme utilisé et en émet
+ * un nouveau dans la famille. Présenter à nouveau un jeton déjà utilisé révoque toute la famille.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "famille", nullable = false, length = 36)
+    private String famille;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+
+    @Builder.Default
+    @Column(name = "utilise", nullable = false)
+    private Boolean utilise = false;
+
+    @Builder.Default
+    @Column(name = "revoque", nullable = false)
+    private Boolean revoque = false;
+}
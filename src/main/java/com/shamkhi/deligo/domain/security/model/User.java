@@ -67,6 +67,17 @@ public class User {
     @Column(name = "provider_id", length = 100)
     private String providerId;
 
+    // Incrémentée à chaque changement qui doit invalider les jetons déjà émis (rôles, mot de passe)
+    @Column(name = "version_jetons", nullable = false)
+    @Builder.Default
+    private Integer versionJetons = 0;
+
+    // Portée par les refresh tokens : seuls les changements propres au compte l'incrémentent, pas la
+    // modification des permissions d'un rôle (le renouvellement relit de toute façon rôles et permissions)
+    @Column(name = "version_identifiants", nullable = false)
+    @Builder.Default
+    private Integer versionIdentifiants = 0;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "user_roles",
@@ -100,10 +111,22 @@ public class User {
         if (provider == null) {
             provider = AuthProvider.LOCAL;
         }
+        if (versionJetons == null) {
+            versionJetons = 0;
+        }
+        if (versionIdentifiants == null) {
+            versionIdentifiants = 0;
+        }
     }
 
     @PreUpdate
     protected void onUpdate() {
         dateModification = LocalDateTime.now();
     }
+
+    // Mot de passe, rôles ou désactivation : jetons d'accès et refresh tokens
+    public void revoquerJetons() {
+        versionJetons = (versionJetons != null ? versionJetons : 0) + 1;
+        versionIdentifiants = (versionIdentifiants != null ? versionIdentifiants : 0) + 1;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.shamkhi.deligo.domain.security.oauth2;
 
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
 import com.shamkhi.deligo.domain.security.model.AuthProvider;
 import com.shamkhi.deligo.domain.security.model.Role;
 import com.shamkhi.deligo.domain.security.model.User;
@@ -7,6 +8,7 @@ import com.shamkhi.deligo.domain.security.repository.RoleRepository;
 import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -27,6 +29,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -100,7 +103,10 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                 .orElseThrow(() -> new RuntimeException("Rôle CLIENT non trouvé"));
         user.getRoles().add(clientRole);
 
-        return userRepository.save(user);
+        user = userRepository.save(user);
+        // Le nom peut être celui d'un compte supprimé, gardé comme pierre tombale par RevocationJetonService
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
+        return user;
     }
 
     private User updateExistingUser(User existingUser, OAuth2UserInfo oAuth2UserInfo) {
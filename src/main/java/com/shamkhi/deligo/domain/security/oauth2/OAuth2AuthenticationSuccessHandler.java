@@ -2,32 +2,30 @@ package com.shamkhi.deligo.domain.security.oauth2;
 
 import com.shamkhi.deligo.domain.security.model.User;
 import com.shamkhi.deligo.domain.security.repository.UserRepository;
-import com.shamkhi.deligo.domain.security.service.JwtService;
+import com.shamkhi.deligo.domain.security.service.RefreshTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
 
-    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
     private final UserRepository userRepository;
+    private final UserDetailsService userDetailsService;
 
     @Value("${app.oauth2.redirect-uri:http://localhost:4200/oauth2/redirect}")
     private String redirectUri;
@@ -57,35 +55,18 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-        // Créer un UserDetails pour générer le JWT
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword() != null ? user.getPassword() : "")
-                .authorities(getAuthorities(user))
-                .build();
+        // Principal compilé (rôles et permissions de l'instantané des autorisations) pour générer le JWT
+        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
 
-        // Générer les tokens JWT
-        String accessToken = jwtService.generateToken(userDetails);
-        String refreshToken = jwtService.generateRefreshToken(userDetails);
+        // Générer les tokens JWT (nouvelle famille de refresh tokens)
+        RefreshTokenService.Jetons jetons = refreshTokenService.emettre(userDetails);
 
         log.info("OAuth2 authentication réussie pour l'utilisateur: {}", user.getUsername());
 
         // Construire l'URL de redirection avec les tokens
         return UriComponentsBuilder.fromUriString(redirectUri)
-                .queryParam("access_token", accessToken)
-                .queryParam("refresh_token", refreshToken)
+                .queryParam("access_token", jetons.getAccessToken())
+                .queryParam("refresh_token", jetons.getRefreshToken())
                 .build().toUriString();
     }
-
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return user.getRoles().stream()
-                .flatMap(role -> {
-                    var authorities = role.getPermissions().stream()
-                            .map(permission -> new SimpleGrantedAuthority(permission.getName()))
-                            .collect(Collectors.toSet());
-                    authorities.add(new SimpleGrantedAuthority(role.getName()));
-                    return authorities.stream();
-                })
-                .collect(Collectors.toSet());
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.shamkhi.deligo.domain.security.repository;
+
+import com.shamkhi.deligo.domain.security.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Consommation atomique : 0 ligne modifiée si le jeton a déjà servi, est révoqué ou expiré
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.utilise = true " +
+           "WHERE r.id = :id AND r.utilise = false AND r.revoque = false AND r.dateExpiration > :maintenant")
+    int marquerUtilise(@Param("id") String id, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoque = true WHERE r.famille = :famille")
+    int revoquerFamille(@Param("famille") String famille);
+
+    @Query("SELECT DISTINCT r.famille FROM RefreshToken r WHERE r.revoque = true AND r.dateExpiration > :maintenant")
+    List<String> findFamillesRevoquees(@Param("maintenant") LocalDateTime maintenant);
+
+    // Suppression par lots pour ne pas verrouiller la table sur une longue transaction
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+                   "(SELECT id FROM refresh_tokens WHERE date_expiration < :limite LIMIT :taille)",
+           nativeQuery = true)
+    int supprimerExpires(@Param("limite") LocalDateTime limite, @Param("taille") int taille);
+}
@@ -3,6 +3,7 @@ package com.shamkhi.deligo.domain.security.repository;
 import com.shamkhi.deligo.domain.security.model.AuthProvider;
 import com.shamkhi.deligo.domain.security.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,4 +30,20 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
     List<User> findByRoleName(@Param("roleName") String roleName);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    // Révocation des jetons (voir RevocationJetonService) des comptes dont les claims rôles/permissions changent
+
+    @Modifying
+    @Query("UPDATE User u SET u.versionJetons = u.versionJetons + 1 " +
+            "WHERE u.id IN (SELECT u2.id FROM User u2 JOIN u2.roles r WHERE r.id = :roleId)")
+    int revoquerJetonsParRole(@Param("roleId") String roleId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.versionJetons = u.versionJetons + 1 " +
+            "WHERE u.id IN (SELECT u2.id FROM User u2 JOIN u2.roles r JOIN r.permissions p WHERE p.id = :permissionId)")
+    int revoquerJetonsParPermission(@Param("permissionId") String permissionId);
+}
@@ -0,0 +1,188 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Cache des jetons d'accès déjà vérifiés : une application mobile renvoie le même jeton pendant toute
+ * sa durée de vie, seule la première requête paie la vérification HMAC et le parsing JSON. L'entrée est
+ * indexée par le SHA-256 du jeton (le jeton lui-même n'est pas conservé) et expire avec lui. La taille
+ * est bornée par une estimation de la mémoire occupée ({@code cache-jetons.taille-max-octets}).
+ * <p>
+ * Le cache ne mémorise que la vérification cryptographique : la révocation (version des jetons, compte
+ * désactivé, famille de refresh tokens révoquée) est contrôlée à chaque appel par RevocationJetonService
+ * et RefreshTokenService, que le jeton vienne du cache ou non.
+ */
+@Service
+@Slf4j
+public class CacheJetonService {
+
+    // Estimations (JVM 64 bits, oops compressés) : en-têtes, champs et tableaux
+    private static final int OCTETS_ENTREE = 160;
+    private static final int OCTETS_CHAINE = 48;
+    private static final int OCTETS_AUTHORITY = 16 + OCTETS_CHAINE;
+
+    private final JwtService jwtService;
+    private final RevocationJetonService revocationJetonService;
+    private final RefreshTokenService refreshTokenService;
+    private final Cache<Cle, JetonVerifie> cache;
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(CacheJetonService::nouveauDigest);
+
+    public CacheJetonService(JwtService jwtService, RevocationJetonService revocationJetonService,
+                             RefreshTokenService refreshTokenService, MeterRegistry meterRegistry,
+                             @Value("${cache-jetons.taille-max-octets:67108864}") long tailleMaxOctets,
+                             @Value("${cache-jetons.ttl-max-s:86400}") long ttlMaxSecondes) {
+        this.jwtService = jwtService;
+        this.revocationJetonService = revocationJetonService;
+        this.refreshTokenService = refreshTokenService;
+        long ttlMaxNanos = Duration.ofSeconds(ttlMaxSecondes).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(tailleMaxOctets)
+                .weigher((Cle cle, JetonVerifie jeton) -> estimerOctets(jeton))
+                .expireAfter(new Expiry<Cle, JetonVerifie>() {
+                    @Override
+                    public long expireAfterCreate(Cle cle, JetonVerifie jeton, long maintenant) {
+                        return dureeDeVieNanos(jeton, ttlMaxNanos);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Cle cle, JetonVerifie jeton, long maintenant, long restant) {
+                        return dureeDeVieNanos(jeton, ttlMaxNanos);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Cle cle, JetonVerifie jeton, long maintenant, long restant) {
+                        return restant;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "deligo.jetons");
+        Gauge.builder("deligo.jetons.cache.octets", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Mémoire estimée des jetons vérifiés en cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("deligo.jetons.cache.taux-succes", cache, c -> c.stats().hitRate())
+                .description("Part des jetons d'accès servis sans vérification de signature")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims d'un jeton d'accès valide et non révoqué, depuis le cache ou après vérification.
+     *
+     * @throws JwtException si le jeton est invalide, expiré, révoqué ou n'est pas un jeton d'accès
+     */
+    public JetonVerifie verifierAcces(String token) {
+        Cle cle = cle(token);
+        JetonVerifie jeton = cache.getIfPresent(cle);
+        if (jeton == null || jeton.isExpire(Instant.now())) {
+            // Les jetons invalides lèvent une exception et ne sont jamais mis en cache
+            jeton = jwtService.validateAccessToken(token);
+            cache.put(cle, jeton);
+        }
+        if (jeton.getUsername() == null
+                || !revocationJetonService.estValide(jeton.getUsername(), jeton.getVersion())) {
+            throw new JwtException("Jeton révoqué ou compte désactivé");
+        }
+        if (jeton.getFamille() != null && refreshTokenService.isFamilleRevoquee(jeton.getFamille())) {
+            throw new JwtException("Session révoquée");
+        }
+        return jeton;
+    }
+
+    // Les entrées d'un compte modifié sont retirées sans attendre leur expiration
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUtilisateurChange(UtilisateurChangeEvent event) {
+        if (event.concerneTous()) {
+            cache.invalidateAll();
+            return;
+        }
+        String username = event.getUsername();
+        cache.asMap().values().removeIf(jeton -> username.equals(jeton.getUsername()));
+    }
+
+    long tailleEstimeeOctets() {
+        cache.cleanUp();
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private Cle cle(String token) {
+        MessageDigest digest = sha256.get();
+        digest.reset();
+        return new Cle(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static long dureeDeVieNanos(JetonVerifie jeton, long ttlMaxNanos) {
+        if (jeton.getExpiration() == null) {
+            return ttlMaxNanos;
+        }
+        long restant = Duration.between(Instant.now(), jeton.getExpiration()).toNanos();
+        return Math.max(0, Math.min(restant, ttlMaxNanos));
+    }
+
+    static int estimerOctets(JetonVerifie jeton) {
+        int octets = OCTETS_ENTREE + OCTETS_CHAINE
+                + (jeton.getUsername() != null ? jeton.getUsername().length() : 0)
+                + octetsChaine(jeton.getFamille())
+                + octetsChaine(jeton.getUserId())
+                + octetsChaine(jeton.getLivreurId())
+                + octetsChaine(jeton.getClientId());
+        for (GrantedAuthority authority : jeton.getAuthorities()) {
+            octets += OCTETS_AUTHORITY + authority.getAuthority().length();
+        }
+        return octets;
+    }
+
+    private static int octetsChaine(String valeur) {
+        return valeur != null ? OCTETS_CHAINE + valeur.length() : 0;
+    }
+
+    private static MessageDigest nouveauDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static final class Cle {
+        private final byte[] empreinte;
+        private final int hash;
+
+        private Cle(byte[] empreinte) {
+            this.empreinte = empreinte;
+            // Les octets d'un SHA-256 sont uniformément répartis : les quatre premiers suffisent
+            this.hash = (empreinte[0] << 24) | ((empreinte[1] & 0xff) << 16)
+                    | ((empreinte[2] & 0xff) << 8) | (empreinte[3] & 0xff);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cle && Arrays.equals(empreinte, ((Cle) o).empreinte);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom concurrent sur des chaînes : {@link #peutContenir(String)} ne renvoie jamais faux
+ * pour une valeur ajoutée, et renvoie vrai à tort avec une probabilité proche de {@code tauxFauxPositifs}
+ * tant que le nombre de valeurs reste sous {@code capacite}. Les bits sont posés par CAS, sans verrou ;
+ * une valeur ne peut pas être retirée (reconstruire le filtre).
+ */
+final class FiltreBloom {
+
+    private final AtomicLongArray bits;
+    private final int nombreBits;
+    private final int nombreHachages;
+
+    FiltreBloom(int capacite, double tauxFauxPositifs) {
+        int n = Math.max(1, capacite);
+        long m = (long) Math.ceil(-n * Math.log(tauxFauxPositifs) / (Math.log(2) * Math.log(2)));
+        this.nombreBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.nombreHachages = Math.max(1, (int) Math.round((double) nombreBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((nombreBits + 63) / 64);
+    }
+
+    void ajouter(String valeur) {
+        long hachage = hacher(valeur);
+        int h1 = (int) hachage;
+        int h2 = (int) (hachage >>> 32);
+        for (int i = 0; i < nombreHachages; i++) {
+            int bit = indice(h1 + i * h2);
+            int mot = bit >>> 6;
+            long masque = 1L << bit;
+            long courant;
+            do {
+                courant = bits.get(mot);
+                if ((courant & masque) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(mot, courant, courant | masque));
+        }
+    }
+
+    boolean peutContenir(String valeur) {
+        long hachage = hacher(valeur);
+        int h1 = (int) hachage;
+        int h2 = (int) (hachage >>> 32);
+        for (int i = 0; i < nombreHachages; i++) {
+            int bit = indice(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indice(int combine) {
+        return (combine & Integer.MAX_VALUE) % nombreBits;
+    }
+
+    // FNV-1a 64 bits (sur les caractères, sans allocation) suivi du finaliseur de MurmurHash3 : les deux moitiés servent au double hachage
+    private static long hacher(String valeur) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valeur.length(); i++) {
+            h ^= valeur.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e10d3a353L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,116 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import lombok.Value;
+
+import java.util.*;
+
+/**
+ * Instantané immuable du graphe rôles → permissions, chargé en deux requêtes par PermissionService et
+ * remplacé d'un bloc après chaque modification. {@code version} augmente à chaque rechargement.
+ */
+public final class GrapheAutorisations {
+
+    private final long version;
+    private final List<RoleNoeud> roles;
+    private final List<PermissionNoeud> permissions;
+    private final Map<String, RoleNoeud> rolesParId;
+    private final Map<String, RoleNoeud> rolesParNom;
+    private final Map<String, PermissionNoeud> permissionsParId;
+    private final Map<String, PermissionNoeud> permissionsParNom;
+
+    GrapheAutorisations(long version, List<RoleNoeud> roles, List<PermissionNoeud> permissions) {
+        this.version = version;
+        this.roles = List.copyOf(roles);
+        this.permissions = List.copyOf(permissions);
+        Map<String, RoleNoeud> parId = new HashMap<>();
+        Map<String, RoleNoeud> parNom = new HashMap<>();
+        for (RoleNoeud role : roles) {
+            parId.put(role.getId(), role);
+            parNom.put(role.getName(), role);
+        }
+        this.rolesParId = Map.copyOf(parId);
+        this.rolesParNom = Map.copyOf(parNom);
+        Map<String, PermissionNoeud> permissionParId = new HashMap<>();
+        Map<String, PermissionNoeud> permissionParNom = new HashMap<>();
+        for (PermissionNoeud permission : permissions) {
+            permissionParId.put(permission.getId(), permission);
+            permissionParNom.put(permission.getName(), permission);
+        }
+        this.permissionsParId = Map.copyOf(permissionParId);
+        this.permissionsParNom = Map.copyOf(permissionParNom);
+    }
+
+    static GrapheAutorisations vide() {
+        return new GrapheAutorisations(0, List.of(), List.of());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<RoleNoeud> getRoles() {
+        return roles;
+    }
+
+    public List<PermissionNoeud> getPermissions() {
+        return permissions;
+    }
+
+    public Optional<RoleNoeud> roleParId(String id) {
+        return Optional.ofNullable(rolesParId.get(id));
+    }
+
+    public Optional<RoleNoeud> roleParNom(String name) {
+        return Optional.ofNullable(rolesParNom.get(name));
+    }
+
+    public Optional<PermissionNoeud> permissionParId(String id) {
+        return Optional.ofNullable(permissionsParId.get(id));
+    }
+
+    public Optional<PermissionNoeud> permissionParNom(String name) {
+        return Optional.ofNullable(permissionsParNom.get(name));
+    }
+
+    /**
+     * Noms des rôles donnés suivis des noms de leurs permissions, sans doublon. Un rôle absent de
+     * l'instantané (créé depuis le dernier chargement) est conservé sans permission.
+     */
+    public List<String> autorisations(Collection<String> nomsRoles) {
+        Set<String> noms = new LinkedHashSet<>(nomsRoles);
+        for (String nomRole : nomsRoles) {
+            RoleNoeud role = rolesParNom.get(nomRole);
+            if (role != null) {
+                for (PermissionNoeud permission : role.getPermissions()) {
+                    noms.add(permission.getName());
+                }
+            }
+        }
+        return new ArrayList<>(noms);
+    }
+
+    // Tous les noms de rôles et de permissions
+    public List<String> noms() {
+        List<String> noms = new ArrayList<>(roles.size() + permissions.size());
+        roles.forEach(role -> noms.add(role.getName()));
+        permissions.forEach(permission -> noms.add(permission.getName()));
+        return noms;
+    }
+
+    @Value
+    public static class RoleNoeud {
+        String id;
+        String name;
+        String description;
+        List<PermissionNoeud> permissions;
+    }
+
+    @Value
+    public static class PermissionNoeud {
+        String id;
+        String name;
+        String description;
+        String resource;
+        String action;
+    }
+}
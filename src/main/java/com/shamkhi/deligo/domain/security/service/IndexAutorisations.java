@@ -0,0 +1,111 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Modèle d'autorisations compilé : chaque rôle et chaque permission reçoit un indice, et un principal
+ * porte l'ensemble de ses autorisations sous forme de bitset ({@link UtilisateurAutorise}). Un contrôle
+ * d'accès est alors un test de bit au lieu d'un parcours des GrantedAuthority avec comparaison de chaînes.
+ * <p>
+ * Les indices sont attribués une fois pour toutes : un nom déjà indexé garde son indice quand l'index est
+ * reconstruit (nouvel instantané du graphe des autorisations), si bien que les bitsets déjà compilés
+ * restent valides. Un nom inconnu de l'index au moment de la compilation est contrôlé par comparaison
+ * de chaînes.
+ */
+@Service
+@Slf4j
+public class IndexAutorisations {
+
+    private volatile Index index = new Index(Map.of(), new GrantedAuthority[0]);
+
+    // Appelé par PermissionService avec les noms de chaque nouvel instantané du graphe des autorisations
+    public synchronized void reconstruire(Collection<String> nomsAutorisations) {
+        List<String> noms = new ArrayList<>(nomsAutorisations);
+        Collections.sort(noms);
+        Index courant = index;
+        Map<String, Integer> indices = new HashMap<>(courant.indices);
+        List<GrantedAuthority> authorities = new ArrayList<>(Arrays.asList(courant.authorities));
+        for (String nom : noms) {
+            if (!indices.containsKey(nom)) {
+                indices.put(nom, authorities.size());
+                authorities.add(new SimpleGrantedAuthority(nom));
+            }
+        }
+        index = new Index(Map.copyOf(indices), authorities.toArray(new GrantedAuthority[0]));
+        log.debug("Index des autorisations: {} rôles et permissions", authorities.size());
+    }
+
+    /**
+     * Principal dont les autorisations sont les rôles et permissions nommés. Les GrantedAuthority des noms
+     * indexés sont partagées entre tous les principaux.
+     */
+    public UtilisateurAutorise compiler(String username, String password, boolean actif, Collection<String> noms) {
+        Index courant = index;
+        long[] bits = new long[(courant.authorities.length + 63) >>> 6];
+        List<GrantedAuthority> authorities = new ArrayList<>(noms.size());
+        for (String nom : noms) {
+            Integer indice = courant.indices.get(nom);
+            if (indice == null) {
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority(nom);
+                if (!authorities.contains(authority)) {
+                    authorities.add(authority);
+                }
+            } else if ((bits[indice >>> 6] & (1L << indice)) == 0) {
+                bits[indice >>> 6] |= 1L << indice;
+                authorities.add(courant.authorities[indice]);
+            }
+        }
+        return new UtilisateurAutorise(username, password, actif, Collections.unmodifiableList(authorities),
+                bits, courant.authorities.length);
+    }
+
+    // Principal reconstruit à partir des claims d'un JWT d'accès
+    public UtilisateurAutorise compiler(String username, Collection<? extends GrantedAuthority> authorities) {
+        List<String> noms = new ArrayList<>(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            noms.add(authority.getAuthority());
+        }
+        return compiler(username, "", true, noms);
+    }
+
+    /**
+     * Vrai si l'utilisateur authentifié possède le rôle ou la permission {@code nom} (nom complet de
+     * l'authority, ex. {@code ROLE_MANAGER}).
+     */
+    public boolean possede(Authentication auth, String nom) {
+        if (auth == null) {
+            return false;
+        }
+        Object principal = auth.getPrincipal();
+        if (principal instanceof UtilisateurAutorise) {
+            UtilisateurAutorise utilisateur = (UtilisateurAutorise) principal;
+            Integer indice = index.indices.get(nom);
+            if (indice != null && indice < utilisateur.getTailleIndex()) {
+                return utilisateur.possede(indice);
+            }
+        }
+        // Principal non compilé (OAuth2, tests) ou nom indexé après la compilation
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            if (nom.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Index {
+        private final Map<String, Integer> indices;
+        private final GrantedAuthority[] authorities;
+
+        private Index(Map<String, Integer> indices, GrantedAuthority[] authorities) {
+            this.indices = indices;
+            this.authorities = authorities;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Claims d'un JWT dont la signature et l'expiration ont été vérifiées, extraites une seule fois par
+ * JwtService : le reste de la requête les lit sans re-parser le jeton (attribut de requête
+ * {@link #ATTRIBUT_REQUETE}).
+ */
+@Value
+public class JetonVerifie {
+
+    public static final String ATTRIBUT_REQUETE = JetonVerifie.class.getName();
+
+    String username;
+    String type;
+    String id;
+    String famille;
+    String userId;
+    String livreurId;
+    String clientId;
+    int version;
+    Instant emission;
+    Instant expiration;
+    List<GrantedAuthority> authorities;
+
+    static JetonVerifie of(Claims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        ajouter(claims.get(JwtService.CLAIM_ROLES, String.class), authorities);
+        ajouter(claims.get(JwtService.CLAIM_PERMISSIONS, String.class), authorities);
+        Object version = claims.get(JwtService.CLAIM_VERSION);
+        return new JetonVerifie(
+                claims.getSubject(),
+                claims.get(JwtService.CLAIM_TYPE, String.class),
+                claims.getId(),
+                claims.get(JwtService.CLAIM_FAMILLE, String.class),
+                claims.get(JwtService.CLAIM_UTILISATEUR, String.class),
+                claims.get(JwtService.CLAIM_LIVREUR, String.class),
+                claims.get(JwtService.CLAIM_CLIENT, String.class),
+                // 0 pour les jetons émis avant l'introduction de la claim "ver"
+                version instanceof Number ? ((Number) version).intValue() : 0,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                Collections.unmodifiableList(authorities));
+    }
+
+    public boolean isAcces() {
+        return JwtService.TYPE_ACCES.equals(type);
+    }
+
+    public boolean isRefresh() {
+        return JwtService.TYPE_REFRESH.equals(type);
+    }
+
+    public boolean isExpire(Instant maintenant) {
+        return expiration != null && !expiration.isAfter(maintenant);
+    }
+
+    private static void ajouter(String valeurs, List<GrantedAuthority> authorities) {
+        if (valeurs == null || valeurs.isEmpty()) {
+            return;
+        }
+        for (String valeur : valeurs.split(",")) {
+            if (!valeur.isBlank()) {
+                authorities.add(new SimpleGrantedAuthority(valeur.trim()));
+            }
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.shamkhi.deligo.domain.security.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -17,10 +21,29 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Émission et vérification des JWT. La clé HMAC et le JwtParser (immuable, partagé entre threads)
+ * sont construits une fois au démarrage ; un jeton est parsé et vérifié une seule fois par
+ * {@link #verifier(String)}, qui renvoie ses claims sous forme de {@link JetonVerifie}.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class JwtService {
 
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_PERMISSIONS = "permissions";
+    public static final String CLAIM_VERSION = "ver";
+    public static final String CLAIM_TYPE = "type";
+    public static final String CLAIM_FAMILLE = "fam";
+    public static final String CLAIM_UTILISATEUR = "uid";
+    public static final String CLAIM_LIVREUR = "liv";
+    public static final String CLAIM_CLIENT = "cli";
+    public static final String TYPE_ACCES = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final RevocationJetonService revocationJetonService;
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -30,6 +53,56 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
+    private SecretKey signKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parser()
+                .verifyWith(signKey)
+                .build();
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du jeton et renvoie ses claims.
+     *
+     * @throws JwtException si le jeton est invalide ou expiré
+     */
+    public JetonVerifie verifier(String token) {
+        return JetonVerifie.of(extractAllClaims(token));
+    }
+
+    /**
+     * Comme {@link #verifier(String)}, pour un jeton d'accès uniquement.
+     *
+     * @throws JwtException si le jeton est invalide, expiré ou n'est pas un jeton d'accès
+     */
+    public JetonVerifie validateAccessToken(String token) {
+        JetonVerifie jeton = verifier(token);
+        if (!jeton.isAcces()) {
+            throw new JwtException("Le jeton n'est pas un jeton d'accès");
+        }
+        return jeton;
+    }
+
+    /**
+     * Comme {@link #verifier(String)}, pour un refresh token non révoqué uniquement.
+     *
+     * @throws JwtException si le jeton est invalide, expiré, révoqué ou n'est pas un refresh token
+     */
+    public JetonVerifie validateRefreshTokenClaims(String token) {
+        JetonVerifie jeton = verifier(token);
+        if (!jeton.isRefresh()) {
+            throw new JwtException("Le jeton n'est pas un refresh token");
+        }
+        // Version des identifiants, pas celle des jetons d'accès : voir RevocationJetonService
+        if (!revocationJetonService.identifiantsValides(jeton.getUsername(), jeton.getVersion())) {
+            throw new JwtException("Refresh token révoqué");
+        }
+        return jeton;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -43,28 +116,23 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    // Le parser rejette déjà les jetons expirés (ExpiredJwtException)
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return verifier(token).getUsername().equals(userDetails.getUsername());
+        } catch (JwtException e) {
+            return false;
+        }
     }
 
     public Boolean validateRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            String tokenType = claims.get("type", String.class);
-            return "refresh".equals(tokenType) && !isTokenExpired(token);
+            validateRefreshTokenClaims(token);
+            return true;
         } catch (Exception e) {
             log.error("Erreur de validation du refresh token: {}", e.getMessage());
             return false;
@@ -72,6 +140,14 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * Jeton d'accès rattaché à une famille de refresh tokens : il est refusé dès que la famille
+     * est révoquée (voir RefreshTokenService).
+     */
+    public String generateToken(UserDetails userDetails, String famille) {
         Map<String, Object> claims = new HashMap<>();
 
         // Ajouter les rôles et permissions dans le token
@@ -85,32 +161,56 @@ public class JwtService {
                 .filter(auth -> !auth.startsWith("ROLE_"))
                 .collect(Collectors.joining(","));
 
-        claims.put("roles", roles);
-        claims.put("permissions", permissions);
-        claims.put("type", "access");
+        claims.put(CLAIM_ROLES, roles);
+        claims.put(CLAIM_PERMISSIONS, permissions);
+        claims.put(CLAIM_VERSION, revocationJetonService.versionCourante(userDetails.getUsername()));
+        claims.put(CLAIM_TYPE, TYPE_ACCES);
+        if (famille != null) {
+            claims.put(CLAIM_FAMILLE, famille);
+        }
+        // Identité du compte : le principal reconstruit à partir des claims suffit aux contrôles de périmètre
+        if (userDetails instanceof UtilisateurAutorise && ((UtilisateurAutorise) userDetails).isIdentifie()) {
+            UtilisateurAutorise utilisateur = (UtilisateurAutorise) userDetails;
+            claims.put(CLAIM_UTILISATEUR, utilisateur.getUserId());
+            if (utilisateur.getLivreurId() != null) {
+                claims.put(CLAIM_LIVREUR, utilisateur.getLivreurId());
+            }
+            if (utilisateur.getClientId() != null) {
+                claims.put(CLAIM_CLIENT, utilisateur.getClientId());
+            }
+        }
 
-        return createToken(claims, userDetails.getUsername(), expiration);
+        return createToken(claims, userDetails.getUsername(), null, expiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
+        return generateRefreshToken(userDetails, null, null);
+    }
+
+    // id (claim jti) et famille identifient le jeton dans la table refresh_tokens
+    public String generateRefreshToken(UserDetails userDetails, String id, String famille) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
+        claims.put(CLAIM_VERSION, revocationJetonService.versionIdentifiantsCourante(userDetails.getUsername()));
+        claims.put(CLAIM_TYPE, TYPE_REFRESH);
+        if (famille != null) {
+            claims.put(CLAIM_FAMILLE, famille);
+        }
 
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+        return createToken(claims, userDetails.getUsername(), id, refreshExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject, Long expirationTime) {
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, String id, Long expirationTime) {
         return Jwts.builder()
                 .claims(claims)
+                .id(id)
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
     }
-
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-}
\ No newline at end of file
+}
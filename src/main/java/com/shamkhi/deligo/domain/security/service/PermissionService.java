@@ -3,54 +3,127 @@ package com.shamkhi.deligo.domain.security.service;
 import com.shamkhi.deligo.application.mapper.SecurityMapper;
 import com.shamkhi.deligo.domain.security.dto.PermissionDTO;
 import com.shamkhi.deligo.domain.security.dto.RoleDTO;
+import com.shamkhi.deligo.domain.security.event.AutorisationsChangeEvent;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
 import com.shamkhi.deligo.domain.security.model.Permission;
 import com.shamkhi.deligo.domain.security.model.Role;
 import com.shamkhi.deligo.domain.security.repository.PermissionRepository;
 import com.shamkhi.deligo.domain.security.repository.RoleRepository;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Gestion des rôles et des permissions. Les lectures (administration et autorisation) sont servies par
+ * un instantané immuable du graphe rôles → permissions ({@link GrapheAutorisations}) : chargé en deux
+ * requêtes, sans le N+1 de {@code Role.permissions}, et remplacé atomiquement après la validation de
+ * chaque modification (AutorisationsChangeEvent).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional(readOnly = true)
 public class PermissionService {
 
+    private static final String SQL_PERMISSIONS = "SELECT id, name, description, resource, action FROM permissions";
+    private static final String SQL_ROLES = "SELECT r.id, r.name, r.description, rp.permission_id FROM roles r "
+            + "LEFT JOIN role_permissions rp ON rp.role_id = r.id";
+
     private final PermissionRepository permissionRepository;
     private final RoleRepository roleRepository;
     private final SecurityMapper securityMapper;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final IndexAutorisations indexAutorisations;
+
+    private volatile GrapheAutorisations graphe = GrapheAutorisations.vide();
+
+    // ========== Role-Permission Graph ==========
+
+    public GrapheAutorisations getGraphe() {
+        return graphe;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void chargerGraphe() {
+        Map<String, GrapheAutorisations.PermissionNoeud> permissions = new LinkedHashMap<>();
+        jdbcTemplate.query(SQL_PERMISSIONS, rs -> {
+            permissions.put(rs.getString(1), new GrapheAutorisations.PermissionNoeud(rs.getString(1),
+                    rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+        });
+
+        Map<String, String[]> roles = new LinkedHashMap<>();
+        Map<String, List<GrapheAutorisations.PermissionNoeud>> permissionsParRole = new HashMap<>();
+        jdbcTemplate.query(SQL_ROLES, rs -> {
+            String roleId = rs.getString(1);
+            roles.putIfAbsent(roleId, new String[]{rs.getString(2), rs.getString(3)});
+            List<GrapheAutorisations.PermissionNoeud> liste =
+                    permissionsParRole.computeIfAbsent(roleId, id -> new ArrayList<>());
+            GrapheAutorisations.PermissionNoeud permission = permissions.get(rs.getString(4));
+            if (permission != null) {
+                liste.add(permission);
+            }
+        });
+
+        List<GrapheAutorisations.RoleNoeud> noeuds = new ArrayList<>(roles.size());
+        roles.forEach((id, role) -> {
+            List<GrapheAutorisations.PermissionNoeud> liste = permissionsParRole.get(id);
+            liste.sort(Comparator.comparing(GrapheAutorisations.PermissionNoeud::getName));
+            noeuds.add(new GrapheAutorisations.RoleNoeud(id, role[0], role[1], List.copyOf(liste)));
+        });
+        noeuds.sort(Comparator.comparing(GrapheAutorisations.RoleNoeud::getName));
+        List<GrapheAutorisations.PermissionNoeud> toutes = new ArrayList<>(permissions.values());
+        toutes.sort(Comparator.comparing(GrapheAutorisations.PermissionNoeud::getName));
+
+        GrapheAutorisations nouveau = new GrapheAutorisations(graphe.getVersion() + 1, noeuds, toutes);
+        indexAutorisations.reconstruire(nouveau.noms());
+        graphe = nouveau;
+        log.info("Graphe des autorisations v{} chargé: {} rôles, {} permissions",
+                nouveau.getVersion(), noeuds.size(), toutes.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAutorisationsChange(AutorisationsChangeEvent event) {
+        chargerGraphe();
+    }
 
     // ========== Permission Management ==========
 
     public List<PermissionDTO> getAllPermissions() {
-        return permissionRepository.findAll().stream()
-                .map(securityMapper::toPermissionDTO)
+        return graphe.getPermissions().stream()
+                .map(PermissionService::toPermissionDTO)
                 .collect(Collectors.toList());
     }
 
     public PermissionDTO getPermissionById(String id) {
-        Permission permission = permissionRepository.findById(id)
+        return graphe.permissionParId(id)
+                .map(PermissionService::toPermissionDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée"));
-        return securityMapper.toPermissionDTO(permission);
     }
 
     public PermissionDTO getPermissionByName(String name) {
-        Permission permission = permissionRepository.findByName(name)
+        return graphe.permissionParNom(name)
+                .map(PermissionService::toPermissionDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée: " + name));
-        return securityMapper.toPermissionDTO(permission);
     }
 
     public List<PermissionDTO> getPermissionsByResource(String resource) {
-        return permissionRepository.findByResource(resource).stream()
-                .map(securityMapper::toPermissionDTO)
+        return graphe.getPermissions().stream()
+                .filter(permission -> Objects.equals(resource, permission.getResource()))
+                .map(PermissionService::toPermissionDTO)
                 .collect(Collectors.toList());
     }
 
@@ -65,6 +138,7 @@ public class PermissionService {
         Permission permission = securityMapper.toPermissionEntity(dto);
         permission = permissionRepository.save(permission);
         log.info("Permission créée: {}", permission.getName());
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
 
         return securityMapper.toPermissionDTO(permission);
     }
@@ -81,8 +155,13 @@ public class PermissionService {
             throw new DuplicateResourceException("Cette permission existe déjà");
         }
 
+        boolean renommee = !permission.getName().equals(dto.getName());
         securityMapper.updatePermissionEntity(dto, permission);
         permission = permissionRepository.save(permission);
+        if (renommee) {
+            revoquerJetonsParPermission(id);
+        }
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
         return securityMapper.toPermissionDTO(permission);
     }
 
@@ -91,27 +170,29 @@ public class PermissionService {
         log.info("Suppression de la permission: {}", id);
         Permission permission = permissionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée"));
+        revoquerJetonsParPermission(id);
         permissionRepository.delete(permission);
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
     }
 
     // ========== Role Management ==========
 
     public List<RoleDTO> getAllRoles() {
-        return roleRepository.findAll().stream()
-                .map(securityMapper::toRoleDTO)
+        return graphe.getRoles().stream()
+                .map(PermissionService::toRoleDTO)
                 .collect(Collectors.toList());
     }
 
     public RoleDTO getRoleById(String id) {
-        Role role = roleRepository.findById(id)
+        return graphe.roleParId(id)
+                .map(PermissionService::toRoleDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé"));
-        return securityMapper.toRoleDTO(role);
     }
 
     public RoleDTO getRoleByName(String name) {
-        Role role = roleRepository.findByName(name)
+        return graphe.roleParNom(name)
+                .map(PermissionService::toRoleDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé: " + name));
-        return securityMapper.toRoleDTO(role);
     }
 
     @Transactional
@@ -125,6 +206,7 @@ public class PermissionService {
         Role role = securityMapper.toRoleEntity(dto);
         role = roleRepository.save(role);
         log.info("Rôle créé: {}", role.getName());
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
 
         return securityMapper.toRoleDTO(role);
     }
@@ -141,8 +223,13 @@ public class PermissionService {
             throw new DuplicateResourceException("Ce rôle existe déjà");
         }
 
+        boolean renomme = !role.getName().equals(dto.getName());
         securityMapper.updateRoleEntity(dto, role);
         role = roleRepository.save(role);
+        if (renomme) {
+            revoquerJetonsParRole(id);
+        }
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
         return securityMapper.toRoleDTO(role);
     }
 
@@ -151,7 +238,9 @@ public class PermissionService {
         log.info("Suppression du rôle: {}", id);
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé"));
+        revoquerJetonsParRole(id);
         roleRepository.delete(role);
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
     }
 
     // ========== Role-Permission Assignment ==========
@@ -166,8 +255,11 @@ public class PermissionService {
         Permission permission = permissionRepository.findById(permissionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée"));
 
-        role.getPermissions().add(permission);
+        if (role.getPermissions().add(permission)) {
+            revoquerJetonsParRole(roleId);
+        }
         role = roleRepository.save(role);
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
 
         return securityMapper.toRoleDTO(role);
     }
@@ -182,19 +274,56 @@ public class PermissionService {
         Permission permission = permissionRepository.findById(permissionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée"));
 
-        role.getPermissions().remove(permission);
+        if (role.getPermissions().remove(permission)) {
+            revoquerJetonsParRole(roleId);
+        }
         role = roleRepository.save(role);
+        eventPublisher.publishEvent(new AutorisationsChangeEvent());
 
         return securityMapper.toRoleDTO(role);
     }
 
     public Set<PermissionDTO> getPermissionsForRole(String roleId) {
-        Role role = roleRepository.findById(roleId)
+        GrapheAutorisations.RoleNoeud role = graphe.roleParId(roleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé"));
 
         return role.getPermissions().stream()
-                .map(securityMapper::toPermissionDTO)
+                .map(PermissionService::toPermissionDTO)
                 .collect(Collectors.toSet());
     }
 
-}
\ No newline at end of file
+    // Les jetons émis portent les noms des rôles et des permissions : ceux des comptes concernés sont révoqués
+    private void revoquerJetonsParRole(String roleId) {
+        int comptes = userRepository.revoquerJetonsParRole(roleId);
+        log.info("Jetons révoqués pour {} comptes (rôle {})", comptes, roleId);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.tous());
+    }
+
+    private void revoquerJetonsParPermission(String permissionId) {
+        int comptes = userRepository.revoquerJetonsParPermission(permissionId);
+        log.info("Jetons révoqués pour {} comptes (permission {})", comptes, permissionId);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.tous());
+    }
+
+    // DTO neufs à chaque lecture : les noeuds de l'instantané restent partagés et immuables
+    private static PermissionDTO toPermissionDTO(GrapheAutorisations.PermissionNoeud permission) {
+        return PermissionDTO.builder()
+                .id(permission.getId())
+                .name(permission.getName())
+                .description(permission.getDescription())
+                .resource(permission.getResource())
+                .action(permission.getAction())
+                .build();
+    }
+
+    private static RoleDTO toRoleDTO(GrapheAutorisations.RoleNoeud role) {
+        return RoleDTO.builder()
+                .id(role.getId())
+                .name(role.getName())
+                .description(role.getDescription())
+                .permissions(role.getPermissions().stream()
+                        .map(GrapheAutorisations.PermissionNoeud::getName)
+                        .collect(Collectors.toSet()))
+                .build();
+    }
+}
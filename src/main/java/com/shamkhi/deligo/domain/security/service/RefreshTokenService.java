@@ -0,0 +1,202 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.security.model.RefreshToken;
+import com.shamkhi.deligo.domain.security.repository.RefreshTokenRepository;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh tokens persistés par famille, avec rotation : chaque rafraîchissement consomme le jeton présenté
+ * (une seule fois, par un UPDATE conditionnel) et en émet un nouveau dans la même famille. Un jeton déjà
+ * consommé présenté à nouveau signale un vol : toute la famille est révoquée, y compris les jetons d'accès
+ * qui en sont issus (claim {@code fam}).
+ * <p>
+ * Les familles révoquées sont gardées en mémoire derrière un filtre de Bloom : pour l'immense majorité des
+ * jetons, {@link #isFamilleRevoquee(String)} répond « non » après quelques lectures de bits, sans toucher
+ * l'ensemble ni la base. Les jetons expirés sont supprimés par lots et le filtre est alors reconstruit.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final double TAUX_FAUX_POSITIFS = 0.001;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transactionIsolee;
+    private final Counter compteurReutilisations;
+    private final int capaciteFiltre;
+    private final int tailleLot;
+    private final Object verrou = new Object();
+
+    private volatile Revocations revocations;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtService jwtService,
+                               UserDetailsService userDetailsService, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${refresh-tokens.filtre-capacite:100000}") int capaciteFiltre,
+                               @Value("${refresh-tokens.taille-lot:1000}") int tailleLot) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // La révocation d'une famille doit survivre au rollback de la requête qui l'a détectée
+        this.transactionIsolee = new TransactionTemplate(transactionManager);
+        this.transactionIsolee.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.capaciteFiltre = capaciteFiltre;
+        this.tailleLot = tailleLot;
+        this.revocations = new Revocations(new FiltreBloom(capaciteFiltre, TAUX_FAUX_POSITIFS),
+                ConcurrentHashMap.newKeySet());
+        this.compteurReutilisations = Counter.builder("deligo.refresh.reutilisations")
+                .description("Refresh tokens présentés une seconde fois (famille révoquée)")
+                .register(meterRegistry);
+        Gauge.builder("deligo.refresh.familles-revoquees", this, s -> s.revocations.familles.size())
+                .description("Familles de refresh tokens révoquées et non expirées")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        List<String> familles;
+        // Lecture sous verrou : une révocation concurrente est soit lue en base, soit ajoutée au nouveau filtre
+        synchronized (verrou) {
+            familles = refreshTokenRepository.findFamillesRevoquees(LocalDateTime.now());
+            FiltreBloom filtre = new FiltreBloom(Math.max(capaciteFiltre, 2 * familles.size()), TAUX_FAUX_POSITIFS);
+            Set<String> ensemble = ConcurrentHashMap.newKeySet(familles.size());
+            for (String famille : familles) {
+                filtre.ajouter(famille);
+                ensemble.add(famille);
+            }
+            revocations = new Revocations(filtre, ensemble);
+        }
+        log.info("{} familles de refresh tokens révoquées chargées", familles.size());
+    }
+
+    /**
+     * Démarre une nouvelle famille (login) et renvoie le jeton d'accès et le refresh token.
+     */
+    public Jetons emettre(UserDetails userDetails) {
+        return emettre(userDetails, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consomme le refresh token et émet une nouvelle paire dans la même famille.
+     *
+     * @throws JwtException si le jeton est invalide, expiré, révoqué ou déjà utilisé
+     */
+    public Jetons renouveler(String refreshToken) {
+        JetonVerifie jeton = jwtService.validateRefreshTokenClaims(refreshToken);
+        if (jeton.getId() == null || jeton.getFamille() == null) {
+            // Jeton émis avant l'introduction des familles : sans jti, il ne peut être ni consommé ni détecté
+            // à sa réutilisation. Il est refusé, l'utilisateur se reconnecte une fois.
+            throw new JwtException("Refresh token sans famille, veuillez vous reconnecter");
+        }
+        if (isFamilleRevoquee(jeton.getFamille())) {
+            throw new JwtException("Refresh token révoqué");
+        }
+        Integer consommes = transactionTemplate.execute(status ->
+                refreshTokenRepository.marquerUtilise(jeton.getId(), LocalDateTime.now()));
+        if (consommes == null || consommes == 0) {
+            signalerReutilisation(jeton);
+        }
+        return emettre(userDetailsService.loadUserByUsername(jeton.getUsername()), jeton.getFamille());
+    }
+
+    public boolean isFamilleRevoquee(String famille) {
+        Revocations courantes = revocations;
+        return courantes.filtre.peutContenir(famille) && courantes.familles.contains(famille);
+    }
+
+    public void revoquerFamille(String famille) {
+        transactionIsolee.executeWithoutResult(status -> refreshTokenRepository.revoquerFamille(famille));
+        synchronized (verrou) {
+            revocations.filtre.ajouter(famille);
+            revocations.familles.add(famille);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${refresh-tokens.purge-ms:3600000}")
+    public void purger() {
+        LocalDateTime limite = LocalDateTime.now();
+        int total = 0;
+        int supprimes;
+        do {
+            supprimes = transactionTemplate.execute(status ->
+                    refreshTokenRepository.supprimerExpires(limite, tailleLot));
+            total += supprimes;
+        } while (supprimes == tailleLot);
+        if (total > 0) {
+            log.info("{} refresh tokens expirés supprimés", total);
+        }
+        // Le filtre ne sait pas retirer une valeur : il est reconstruit sans les familles expirées
+        charger();
+    }
+
+    private Jetons emettre(UserDetails userDetails, String famille) {
+        String id = UUID.randomUUID().toString();
+        LocalDateTime maintenant = LocalDateTime.now();
+        String refreshToken = jwtService.generateRefreshToken(userDetails, id, famille);
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.save(RefreshToken.builder()
+                .id(id)
+                .famille(famille)
+                .username(userDetails.getUsername())
+                .dateCreation(maintenant)
+                .dateExpiration(maintenant.plusNanos(jwtService.getRefreshExpiration() * 1_000_000L))
+                .build()));
+        return new Jetons(jwtService.generateToken(userDetails, famille), refreshToken);
+    }
+
+    private void signalerReutilisation(JetonVerifie jeton) {
+        RefreshToken existant = refreshTokenRepository.findById(jeton.getId()).orElse(null);
+        if (existant == null) {
+            throw new JwtException("Refresh token inconnu");
+        }
+        if (existant.getUtilise() && !existant.getRevoque()) {
+            compteurReutilisations.increment();
+            log.warn("Réutilisation d'un refresh token détectée pour l'utilisateur {}: famille {} révoquée",
+                    jeton.getUsername(), jeton.getFamille());
+            revoquerFamille(jeton.getFamille());
+        }
+        throw new JwtException("Refresh token déjà utilisé ou révoqué");
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Jetons {
+        private final String accessToken;
+        private final String refreshToken;
+    }
+
+    private static final class Revocations {
+        private final FiltreBloom filtre;
+        private final Set<String> familles;
+
+        private Revocations(FiltreBloom filtre, Set<String> familles) {
+            this.filtre = filtre;
+            this.familles = familles;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+/**
+ * Principal de la requête pour les contrôles de périmètre des services (colis d'un livreur ou d'un client).
+ * Le principal posé par JwtAuthenticationFilter porte déjà l'identité du compte (claims du jeton ou
+ * UserDetailsService) : il est renvoyé tel quel, sans requête. Seuls les principaux sans identité (jeton
+ * émis avant les claims d'identité, authentification construite à la main) passent par la base.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResolveurUtilisateur {
+
+    private final UserRepository userRepository;
+    private final IndexAutorisations indexAutorisations;
+
+    public UtilisateurAutorise resoudre(Authentication auth) {
+        Object principal = auth.getPrincipal();
+        if (principal instanceof UtilisateurAutorise && ((UtilisateurAutorise) principal).isIdentifie()) {
+            return (UtilisateurAutorise) principal;
+        }
+        log.debug("Principal sans identité pour l'utilisateur {}: chargement depuis la base", auth.getName());
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+        UtilisateurAutorise utilisateur = principal instanceof UtilisateurAutorise
+                ? (UtilisateurAutorise) principal
+                : indexAutorisations.compiler(auth.getName(), auth.getAuthorities());
+        return utilisateur.avecIdentite(user.getId(),
+                user.getLivreur() != null ? user.getLivreur().getId() : null,
+                user.getClientExpediteur() != null ? user.getClientExpediteur().getId() : null);
+    }
+}
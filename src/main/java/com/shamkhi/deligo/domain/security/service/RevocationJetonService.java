@@ -0,0 +1,189 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table en mémoire username → (version des jetons, compte actif) consultée à chaque requête authentifiée
+ * par les claims du JWT. Un jeton n'est accepté que si sa claim {@code ver} est la version courante du
+ * compte et si le compte est actif : incrémenter {@code users.version_jetons} révoque tous les jetons
+ * émis auparavant.
+ * <p>
+ * Les refresh tokens portent à la place {@code users.version_identifiants}. Seuls les changements propres
+ * au compte l'incrémentent : mot de passe, rôles, désactivation. Modifier les permissions d'un rôle révoque
+ * donc les jetons d'accès de ses membres, sans les déconnecter.
+ * <p>
+ * La table est chargée au démarrage en une requête, puis mise à jour après chaque UtilisateurChangeEvent.
+ * Un nom absent (compte créé depuis) est relu une fois en base.
+ * <p>
+ * Les noms sans compte sont gardés eux aussi, pour qu'un jeton d'un compte supprimé ou renommé ne coûte
+ * pas une requête à chaque appel : une pierre tombale pour l'ancien nom à la suppression ou au renommage,
+ * une entrée absente de courte durée quand la lecture en base ne trouve rien (le compte peut être créé
+ * ensuite sans passer par un service qui publie l'événement).
+ */
+@Service
+@Slf4j
+public class RevocationJetonService {
+
+    private static final String SQL_TOUS = "SELECT username, version_jetons, version_identifiants, actif FROM users";
+    private static final String SQL_PAR_USERNAME = SQL_TOUS + " WHERE username = ?";
+    private static final String SQL_PAR_ID = SQL_TOUS + " WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Ticker horloge;
+    private final long dureeAbsence;
+    private final Map<String, Etat> parUsername = new ConcurrentHashMap<>();
+
+    private volatile boolean charge;
+
+    @Autowired
+    public RevocationJetonService(JdbcTemplate jdbcTemplate,
+                                  @Value("${revocation-jetons.absence-ms:30000}") long dureeAbsenceMs) {
+        this(jdbcTemplate, Ticker.systemTicker(), dureeAbsenceMs);
+    }
+
+    RevocationJetonService(JdbcTemplate jdbcTemplate, Ticker horloge, long dureeAbsenceMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.horloge = horloge;
+        this.dureeAbsence = TimeUnit.MILLISECONDS.toNanos(dureeAbsenceMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void charger() {
+        Map<String, Etat> etats = new ConcurrentHashMap<>();
+        jdbcTemplate.query(SQL_TOUS, rs -> {
+            etats.put(rs.getString(1), new Etat(rs.getInt(2), rs.getInt(3), rs.getBoolean(4)));
+        });
+        parUsername.keySet().retainAll(etats.keySet());
+        parUsername.putAll(etats);
+        charge = true;
+        log.info("Versions des jetons chargées pour {} utilisateurs", etats.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUtilisateurChange(UtilisateurChangeEvent event) {
+        if (event.concerneTous()) {
+            charger();
+            return;
+        }
+        String nouveauNom = null;
+        if (!event.isSupprime()) {
+            List<String> lus = jdbcTemplate.query(SQL_PAR_ID, (rs, i) -> {
+                parUsername.put(rs.getString(1), new Etat(rs.getInt(2), rs.getInt(3), rs.getBoolean(4)));
+                return rs.getString(1);
+            }, event.getUserId());
+            nouveauNom = lus.isEmpty() ? null : lus.get(0);
+        }
+        // Ancien nom d'un compte supprimé ou renommé : plus aucun jeton à ce nom n'est valide
+        if (event.getUsername() != null && !event.getUsername().equals(nouveauNom)) {
+            parUsername.put(event.getUsername(), Etat.SUPPRIME);
+        }
+    }
+
+    /**
+     * Version à inscrire dans les jetons émis pour ce compte.
+     */
+    public int versionCourante(String username) {
+        Etat etat = etat(username);
+        return etat != null ? etat.version : 0;
+    }
+
+    /**
+     * Vrai si un jeton portant cette version peut encore authentifier le compte.
+     */
+    public boolean estValide(String username, int version) {
+        Etat etat = etat(username);
+        return etat != null && etat.actif && etat.version == version;
+    }
+
+    /**
+     * Version à inscrire dans les refresh tokens émis pour ce compte.
+     */
+    public int versionIdentifiantsCourante(String username) {
+        Etat etat = etat(username);
+        return etat != null ? etat.versionIdentifiants : 0;
+    }
+
+    /**
+     * Vrai si un refresh token portant cette version peut encore être renouvelé.
+     */
+    public boolean identifiantsValides(String username, int versionIdentifiants) {
+        Etat etat = etat(username);
+        return etat != null && etat.actif && etat.versionIdentifiants == versionIdentifiants;
+    }
+
+    private Etat etat(String username) {
+        if (!charge) {
+            charger();
+        }
+        Etat etat = parUsername.get(username);
+        if (etat == null || etat.estExpire(horloge.read())) {
+            etat = lire(username, etat);
+        }
+        return etat.absent ? null : etat;
+    }
+
+    private Etat lire(String username, Etat perime) {
+        List<Etat> lus = jdbcTemplate.query(SQL_PAR_USERNAME,
+                (rs, i) -> new Etat(rs.getInt(2), rs.getInt(3), rs.getBoolean(4)), username);
+        Etat lu = lus.isEmpty() ? Etat.absent(horloge.read() + dureeAbsence) : lus.get(0);
+        // Une mise à jour publiée entre-temps par onUtilisateurChange l'emporte sur cette lecture
+        if (perime == null) {
+            Etat existant = parUsername.putIfAbsent(username, lu);
+            return existant != null ? existant : lu;
+        }
+        if (parUsername.replace(username, perime, lu)) {
+            return lu;
+        }
+        Etat existant = parUsername.get(username);
+        return existant != null ? existant : lu;
+    }
+
+    private static final class Etat {
+        // Pierre tombale : nom d'un compte supprimé ou renommé, jusqu'au prochain événement qui le réattribue
+        private static final Etat SUPPRIME = new Etat(0, 0, false, true, false, 0);
+
+        private final int version;
+        private final int versionIdentifiants;
+        private final boolean actif;
+        private final boolean absent;
+        private final boolean temporaire;
+        private final long expiration;
+
+        private Etat(int version, int versionIdentifiants, boolean actif) {
+            this(version, versionIdentifiants, actif, false, false, 0);
+        }
+
+        private Etat(int version, int versionIdentifiants, boolean actif, boolean absent, boolean temporaire,
+                     long expiration) {
+            this.version = version;
+            this.versionIdentifiants = versionIdentifiants;
+            this.actif = actif;
+            this.absent = absent;
+            this.temporaire = temporaire;
+            this.expiration = expiration;
+        }
+
+        private static Etat absent(long expiration) {
+            return new Etat(0, 0, false, true, true, expiration);
+        }
+
+        // Différence plutôt que comparaison : le ticker peut être négatif
+        private boolean estExpire(long maintenant) {
+            return temporaire && maintenant - expiration >= 0;
+        }
+    }
+}
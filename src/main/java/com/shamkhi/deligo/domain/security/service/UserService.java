@@ -6,19 +6,21 @@ import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
 import com.shamkhi.deligo.domain.livraison.model.Livreur;
 import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
 import com.shamkhi.deligo.domain.security.dto.*;
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
 import com.shamkhi.deligo.domain.security.model.Role;
 import com.shamkhi.deligo.domain.security.model.User;
 import com.shamkhi.deligo.domain.security.repository.RoleRepository;
 import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,10 +41,11 @@ public class UserService {
     private final ClientExpediteurRepository clientExpediteurRepository;
     private final LivreurRepository livreurRepository;
     private final PasswordEncoder passwordEncoder;
-    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final PermissionService permissionService;
     private final AuthenticationManager authenticationManager;
     private final SecurityMapper securityMapper;
-    private final UserDetailsService userDetailsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public LoginResponse login(LoginRequest request) {
@@ -55,9 +58,8 @@ public class UserService {
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-        // Générer les tokens JWT
-        String accessToken = jwtService.generateToken(userDetails);
-        String refreshToken = jwtService.generateRefreshToken(userDetails);
+        // Générer les tokens JWT (nouvelle famille de refresh tokens)
+        RefreshTokenService.Jetons jetons = refreshTokenService.emettre(userDetails);
 
         // Récupérer les informations complètes de l'utilisateur
         User user = userRepository.findByUsername(request.getUsername())
@@ -68,16 +70,14 @@ public class UserService {
                 .map(Role::getName)
                 .collect(Collectors.toSet());
 
-        Set<String> permissions = user.getRoles().stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(permission -> permission.getName())
-                .collect(Collectors.toSet());
+        Set<String> permissions = new HashSet<>(permissionService.getGraphe().autorisations(roles));
+        permissions.removeAll(roles);
 
         log.info("Connexion réussie pour l'utilisateur: {}", request.getUsername());
 
         return LoginResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessToken(jetons.getAccessToken())
+                .refreshToken(jetons.getRefreshToken())
                 .type("Bearer")
                 .id(user.getId())
                 .username(user.getUsername())
@@ -93,26 +93,21 @@ public class UserService {
     public TokenRefreshResponse refreshToken(String refreshToken) {
         log.info("Tentative de rafraîchissement du token");
 
-        // Valider le refresh token
-        if (!jwtService.validateRefreshToken(refreshToken)) {
+        // Consommer le refresh token et en émettre un nouveau dans la même famille ; l'utilisateur
+        // est relu via le cache de UserDetailsService pour reprendre ses rôles courants
+        RefreshTokenService.Jetons jetons;
+        try {
+            jetons = refreshTokenService.renouveler(refreshToken);
+        } catch (JwtException e) {
+            log.error("Erreur de validation du refresh token: {}", e.getMessage());
             throw new IllegalArgumentException("Refresh token invalide ou expiré");
         }
 
-        // Extraire le username du refresh token
-        String username = jwtService.extractUsername(refreshToken);
-
-        // Charger les détails de l'utilisateur
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-        // Générer de nouveaux tokens
-        String newAccessToken = jwtService.generateToken(userDetails);
-        String newRefreshToken = jwtService.generateRefreshToken(userDetails);
-
-        log.info("Token rafraîchi avec succès pour l'utilisateur: {}", username);
+        log.info("Token rafraîchi avec succès");
 
         return TokenRefreshResponse.builder()
-                .accessToken(newAccessToken)
-                .refreshToken(newRefreshToken)
+                .accessToken(jetons.getAccessToken())
+                .refreshToken(jetons.getRefreshToken())
                 .type("Bearer")
                 .build();
     }
@@ -166,6 +161,7 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
         log.info("Utilisateur créé avec succès: {}", user.getUsername());
 
         return securityMapper.toUserDTO(user);
@@ -221,14 +217,17 @@ public class UserService {
             throw new DuplicateResourceException("Cet email existe déjà");
         }
 
+        String ancienUsername = user.getUsername();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setNom(request.getNom());
         user.setPrenom(request.getPrenom());
         user.setTelephone(request.getTelephone());
 
+        boolean revoquer = false;
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
+            revoquer = true;
         }
 
         if (request.getRoles() != null && !request.getRoles().isEmpty()) {
@@ -236,10 +235,17 @@ public class UserService {
                     .map(roleName -> roleRepository.findByName(roleName)
                             .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé: " + roleName)))
                     .collect(Collectors.toSet());
+            revoquer |= !roles.equals(user.getRoles());
             user.setRoles(roles);
         }
 
+        // Changement de mot de passe ou de rôles : les jetons déjà émis sont révoqués
+        if (revoquer) {
+            user.revoquerJetons();
+        }
+
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), ancienUsername));
         return securityMapper.toUserDTO(user);
     }
 
@@ -258,6 +264,7 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.suppression(user.getId(), user.getUsername()));
     }
 
     @Transactional
@@ -266,6 +273,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
         user.setActif(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
     }
 
     @Transactional
@@ -273,6 +281,9 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
         user.setActif(false);
+        // Une réactivation ultérieure ne doit pas rendre valides les jetons émis avant la désactivation
+        user.revoquerJetons();
         userRepository.save(user);
+        eventPublisher.publishEvent(UtilisateurChangeEvent.modification(user.getId(), user.getUsername()));
     }
 }
\ No newline at end of file
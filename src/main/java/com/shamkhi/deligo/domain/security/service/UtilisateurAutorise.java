@@ -0,0 +1,139 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal authentifié portant ses rôles et permissions sous deux formes : la liste des GrantedAuthority
+ * (attendue par Spring Security) et un bitset compilé par {@link IndexAutorisations}, sur lequel les
+ * contrôles d'accès se font par test de bit. Les bits ne valent que pour les indices inférieurs à
+ * {@code tailleIndex} (taille de l'index au moment de la compilation).
+ * <p>
+ * Il porte aussi l'identité du compte (id utilisateur, livreur et client associés), lue une fois au
+ * chargement ou dans les claims du jeton : les contrôles de périmètre (« mes colis ») n'interrogent pas la
+ * base. Un principal compilé sans identité (jeton émis avant ces claims) est complété par
+ * {@link ResolveurUtilisateur}.
+ */
+public class UtilisateurAutorise implements UserDetails, CredentialsContainer {
+
+    private final String username;
+    private String password;
+    private final boolean actif;
+    private final List<GrantedAuthority> authorities;
+    private final long[] autorisations;
+    private final int tailleIndex;
+    private final String userId;
+    private final String livreurId;
+    private final String clientId;
+
+    UtilisateurAutorise(String username, String password, boolean actif, List<GrantedAuthority> authorities,
+                        long[] autorisations, int tailleIndex) {
+        this(username, password, actif, authorities, autorisations, tailleIndex, null, null, null);
+    }
+
+    private UtilisateurAutorise(String username, String password, boolean actif, List<GrantedAuthority> authorities,
+                                long[] autorisations, int tailleIndex, String userId, String livreurId,
+                                String clientId) {
+        this.username = username;
+        this.password = password;
+        this.actif = actif;
+        this.authorities = authorities;
+        this.autorisations = autorisations;
+        this.tailleIndex = tailleIndex;
+        this.userId = userId;
+        this.livreurId = livreurId;
+        this.clientId = clientId;
+    }
+
+    // Copie avec un autre mot de passe ; le bitset et les authorities (immuables) sont partagés
+    public UtilisateurAutorise avecMotDePasse(String nouveauMotDePasse) {
+        return new UtilisateurAutorise(username, nouveauMotDePasse, actif, authorities, autorisations, tailleIndex,
+                userId, livreurId, clientId);
+    }
+
+    // livreurId et clientId sont null quand le compte n'est associé à aucun livreur ou client
+    public UtilisateurAutorise avecIdentite(String userId, String livreurId, String clientId) {
+        return new UtilisateurAutorise(username, password, actif, authorities, autorisations, tailleIndex,
+                userId, livreurId, clientId);
+    }
+
+    public UtilisateurAutorise copie() {
+        return avecMotDePasse(password);
+    }
+
+    boolean possede(int indice) {
+        int mot = indice >>> 6;
+        return mot < autorisations.length && (autorisations[mot] & (1L << indice)) != 0;
+    }
+
+    int getTailleIndex() {
+        return tailleIndex;
+    }
+
+    // Faux pour un principal compilé à partir d'un jeton émis avant les claims d'identité
+    public boolean isIdentifie() {
+        return userId != null;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getLivreurId() {
+        return livreurId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return actif;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return actif;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UtilisateurAutorise && username.equals(((UtilisateurAutorise) o).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [Username=" + username + ", Enabled=" + actif
+                + ", Granted Authorities=" + authorities + "]";
+    }
+}
@@ -0,0 +1,145 @@
+package com.shamkhi.deligo.application.security;
+
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests de l'EncodeurMotDePasseBorne")
+class EncodeurMotDePasseBorneTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EncodeurMotDePasseBorne encodeur;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encodeur != null) {
+            encodeur.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait hacher et vérifier via le pool dédié")
+    void shouldEncodeAndMatch() {
+        encodeur = new EncodeurMotDePasseBorne(new BCryptPasswordEncoder(4), 2, 10, 5000, meterRegistry);
+
+        String hache = encodeur.encode("secret");
+
+        assertThat(encodeur.matches("secret", hache)).isTrue();
+        assertThat(encodeur.matches("autre", hache)).isFalse();
+        assertThat(meterRegistry.get("deligo.bcrypt.duree").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait signaler un haché de force inférieure à la force courante")
+    void shouldUpgradeWeakerHash() {
+        String hacheFaible = new BCryptPasswordEncoder(4).encode("secret");
+        encodeur = new EncodeurMotDePasseBorne(new BCryptPasswordEncoder(5), 1, 10, 5000, meterRegistry);
+
+        assertThat(encodeur.upgradeEncoding(hacheFaible)).isTrue();
+        assertThat(encodeur.upgradeEncoding(encodeur.encode("secret"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait borner la concurrence et rejeter le surplus lors d'une rafale de 500 connexions")
+    void shouldBoundBurstOfLogins() throws Exception {
+        EncodeurComptant delegue = new EncodeurComptant(new BCryptPasswordEncoder(4));
+        encodeur = new EncodeurMotDePasseBorne(delegue, 2, 20, 5000, meterRegistry);
+        String hache = new BCryptPasswordEncoder(4).encode("secret");
+
+        ExecutorService clients = Executors.newFixedThreadPool(50);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Boolean>> resultats = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            resultats.add(clients.submit(() -> {
+                depart.await();
+                return encodeur.matches("secret", hache);
+            }));
+        }
+        depart.countDown();
+
+        int acceptes = 0;
+        int rejetes = 0;
+        for (Future<Boolean> resultat : resultats) {
+            try {
+                assertThat(resultat.get(30, TimeUnit.SECONDS)).isTrue();
+                acceptes++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(ServiceUnavailableException.class);
+                rejetes++;
+            }
+        }
+        clients.shutdown();
+
+        assertThat(delegue.maximum.get()).isLessThanOrEqualTo(2);
+        assertThat(acceptes + rejetes).isEqualTo(500);
+        assertThat(acceptes).isPositive();
+        assertThat(rejetes).isPositive();
+        assertThat(meterRegistry.get("deligo.bcrypt.rejets").counter().count()).isEqualTo(rejetes);
+        assertThat(meterRegistry.get("deligo.bcrypt.duree").timer().count()).isEqualTo(acceptes);
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter une demande dont l'attente dépasse le délai maximal")
+    void shouldRejectAfterMaxWait() throws Exception {
+        CountDownLatch libere = new CountDownLatch(1);
+        PasswordEncoder bloquant = new EncodeurComptant(new BCryptPasswordEncoder(4)) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    libere.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        encodeur = new EncodeurMotDePasseBorne(bloquant, 1, 10, 100, meterRegistry);
+
+        long debut = System.nanoTime();
+        assertThatThrownBy(() -> encodeur.matches("secret", "hache"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut)).isLessThan(2000);
+        libere.countDown();
+        assertThat(meterRegistry.get("deligo.bcrypt.rejets").counter().count()).isEqualTo(1);
+    }
+
+    // Mesure le nombre maximal de hachages exécutés simultanément
+    private static class EncodeurComptant implements PasswordEncoder {
+        private final PasswordEncoder delegue;
+        private final AtomicInteger enCours = new AtomicInteger();
+        private final AtomicInteger maximum = new AtomicInteger();
+
+        EncodeurComptant(PasswordEncoder delegue) {
+            this.delegue = delegue;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegue.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            maximum.accumulateAndGet(enCours.incrementAndGet(), Math::max);
+            try {
+                return delegue.matches(rawPassword, encodedPassword);
+            } finally {
+                enCours.decrementAndGet();
+            }
+        }
+    }
+}
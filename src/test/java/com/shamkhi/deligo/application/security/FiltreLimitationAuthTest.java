@@ -0,0 +1,151 @@
+package com.shamkhi.deligo.application.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du FiltreLimitationAuth")
+class FiltreLimitationAuthTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicLong horloge = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+    private FiltreLimitationAuth filtre;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 logins par IP et 2 par utilisateur par minute, 2 refresh par IP par minute
+        filtre = new FiltreLimitationAuth(objectMapper, meterRegistry, horloge::get,
+                new FiltreLimitationAuth.Limite("login-ip", 3, 60, meterRegistry),
+                new FiltreLimitationAuth.Limite("login-utilisateur", 2, 60, meterRegistry),
+                new FiltreLimitationAuth.Limite("refresh-ip", 2, 60, meterRegistry),
+                1000);
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter en 429 avec Retry-After au-delà de la limite par IP, puis recharger")
+    void shouldRejectBurstFromSameIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1", "user" + i).getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejet = login("10.0.0.1", "user9");
+
+        assertThat(rejet.getStatus()).isEqualTo(429);
+        assertThat(rejet.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("20");
+        JsonNode corps = objectMapper.readTree(rejet.getContentAsString(StandardCharsets.UTF_8));
+        assertThat(corps.get("status").asInt()).isEqualTo(429);
+        assertThat(login("10.0.0.2", "user9").getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("deligo.limitation.rejets").tag("limite", "login-ip").counter().count())
+                .isEqualTo(1);
+
+        horloge.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertThat(login("10.0.0.1", "user9").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Devrait limiter un même utilisateur depuis plusieurs IP et rejouer le corps au contrôleur")
+    void shouldLimitUsernameAcrossIps() throws Exception {
+        MockFilterChain chaine = new MockFilterChain();
+        filtre.doFilter(requete("/auth/login", "10.0.0.1", corpsLogin("Livreur1")), new MockHttpServletResponse(),
+                chaine);
+        HttpServletRequest transmise = (HttpServletRequest) chaine.getRequest();
+        assertThat(new String(transmise.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo(corpsLogin("Livreur1"));
+
+        assertThat(login("10.0.0.2", "livreur1").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.3", " LIVREUR1 ").getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("deligo.limitation.rejets").tag("limite", "login-utilisateur").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter en 413 un corps de login rembourré au-delà de la taille maximale")
+    void shouldRejectPaddedLoginBody() throws Exception {
+        String rembourre = "{\"username\":\"livreur1\",\"password\":\"secret\"" + " ".repeat(5000) + "}";
+        MockFilterChain chaine = new MockFilterChain();
+        MockHttpServletResponse reponse = new MockHttpServletResponse();
+
+        filtre.doFilter(requete("/auth/login", "10.0.0.1", rembourre), reponse, chaine);
+
+        assertThat(reponse.getStatus()).isEqualTo(413);
+        assertThat(chaine.getRequest()).isNull();
+
+        // Corps transmis par morceaux (sans Content-Length) : refusé à la lecture
+        HttpServletRequest morceaux = new HttpServletRequestWrapper(requete("/auth/login", "10.0.0.2", rembourre)) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        MockHttpServletResponse rejet = new MockHttpServletResponse();
+        filtre.doFilter(morceaux, rejet, new MockFilterChain());
+        assertThat(rejet.getStatus()).isEqualTo(413);
+
+        assertThat(login("10.0.0.3", "livreur1").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.4", "livreur1").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.5", "livreur1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Devrait limiter le refresh par IP et ignorer les autres endpoints")
+    void shouldLimitRefreshOnly() throws Exception {
+        assertThat(appeler(requete("/auth/refresh", "10.0.0.1", "{}")).getStatus()).isEqualTo(200);
+        assertThat(appeler(requete("/auth/refresh", "10.0.0.1", "{}")).getStatus()).isEqualTo(200);
+        assertThat(appeler(requete("/auth/refresh", "10.0.0.1", "{}")).getStatus()).isEqualTo(429);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(appeler(requete("/auth/register", "10.0.0.1", "{}")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait oublier les seaux inactifs depuis une période")
+    void shouldEvictIdleBuckets() throws Exception {
+        login("10.0.0.1", "livreur1");
+        assertThat(filtre.nombreSeaux()).isEqualTo(2);
+
+        horloge.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertThat(filtre.nombreSeaux()).isZero();
+    }
+
+    private MockHttpServletResponse login(String ip, String username) throws Exception {
+        return appeler(requete("/auth/login", ip, corpsLogin(username)));
+    }
+
+    private MockHttpServletResponse appeler(MockHttpServletRequest requete) throws Exception {
+        MockHttpServletResponse reponse = new MockHttpServletResponse();
+        filtre.doFilter(requete, reponse, new MockFilterChain());
+        return reponse;
+    }
+
+    private static MockHttpServletRequest requete(String chemin, String ip, String corps) {
+        MockHttpServletRequest requete = new MockHttpServletRequest("POST", "/api/v1" + chemin);
+        requete.setContextPath("/api/v1");
+        requete.setServletPath(chemin);
+        requete.setRemoteAddr(ip);
+        requete.setContentType("application/json");
+        requete.setContent(corps.getBytes(StandardCharsets.UTF_8));
+        return requete;
+    }
+
+    private static String corpsLogin(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"secret\"}";
+    }
+}
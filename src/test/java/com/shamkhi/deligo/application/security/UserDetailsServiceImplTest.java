@@ -0,0 +1,178 @@
+package com.shamkhi.deligo.application.security;
+
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import com.shamkhi.deligo.domain.security.model.Permission;
+import com.shamkhi.deligo.domain.security.model.Role;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.GrapheAutorisations;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.PermissionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du UserDetailsServiceImpl")
+class UserDetailsServiceImplTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private PermissionService permissionService;
+    @Mock private GrapheAutorisations graphe;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsServiceImpl service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new UserDetailsServiceImpl(userRepository, new IndexAutorisations(), permissionService,
+                transactionManager, meterRegistry, 100, 300);
+        lenient().when(permissionService.getGraphe()).thenReturn(graphe);
+        lenient().when(graphe.autorisations(List.of("ROLE_LIVREUR"))).thenReturn(List.of("ROLE_LIVREUR", "COLIS_READ"));
+
+        Permission permission = new Permission();
+        permission.setName("COLIS_READ");
+        Role role = new Role();
+        role.setName("ROLE_LIVREUR");
+        role.setPermissions(new HashSet<>(Set.of(permission)));
+        user = User.builder()
+                .id("u1")
+                .username("livreur1")
+                .email("livreur1@deligo.ma")
+                .password("hash")
+                .actif(true)
+                .roles(new HashSet<>(Set.of(role)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Devrait servir le second chargement depuis le cache")
+    void shouldServeFromCache() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+
+        UserDetails premier = service.loadUserByUsername("livreur1");
+        UserDetails second = service.loadUserByUsername("livreur1");
+
+        assertThat(second.getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_LIVREUR", "COLIS_READ");
+        assertThat(premier).isNotSameAs(second);
+        verify(userRepository, times(1)).findByUsername("livreur1");
+        assertThat(meterRegistry.get("deligo.utilisateurs.cache.taux-succes").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Devrait conserver le mot de passe en cache après effacement des identifiants")
+    void shouldKeepPasswordAfterCredentialsErased() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+
+        UserDetails premier = service.loadUserByUsername("livreur1");
+        ((CredentialsContainer) premier).eraseCredentials();
+
+        assertThat(service.loadUserByUsername("livreur1").getPassword()).isEqualTo("hash");
+    }
+
+    @Test
+    @DisplayName("Devrait invalider les entrées du compte modifié, y compris celle de son email")
+    void shouldInvalidateModifiedAccount() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("livreur1@deligo.ma")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("livreur1@deligo.ma")).thenReturn(Optional.of(user));
+        service.loadUserByUsername("livreur1");
+        service.loadUserByUsername("livreur1@deligo.ma");
+
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification("u1", "livreur1"));
+        service.loadUserByUsername("livreur1");
+        service.loadUserByUsername("livreur1@deligo.ma");
+
+        verify(userRepository, times(2)).findByUsername("livreur1");
+        verify(userRepository, times(2)).findByEmail("livreur1@deligo.ma");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas garder en cache un chargement commencé avant une invalidation")
+    void shouldDiscardLoadStartedBeforeInvalidation() {
+        // Lecture des données d'avant le commit, invalidation notifiée avant la fin du chargement
+        when(userRepository.findByUsername("livreur1@deligo.ma")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("livreur1@deligo.ma"))
+                .thenAnswer(invocation -> {
+                    service.onUtilisateurChange(UtilisateurChangeEvent.modification("u1", "livreur1"));
+                    return Optional.of(user);
+                })
+                .thenReturn(Optional.of(user));
+        service.loadUserByUsername("livreur1@deligo.ma");
+
+        service.loadUserByUsername("livreur1@deligo.ma");
+        service.loadUserByUsername("livreur1@deligo.ma");
+
+        verify(userRepository, times(2)).findByEmail("livreur1@deligo.ma");
+    }
+
+    @Test
+    @DisplayName("Devrait vider le cache quand les rôles ou permissions changent")
+    void shouldInvalidateAllOnRoleChange() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+        service.loadUserByUsername("livreur1");
+
+        service.onUtilisateurChange(UtilisateurChangeEvent.tous());
+        service.loadUserByUsername("livreur1");
+
+        verify(userRepository, times(2)).findByUsername("livreur1");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas mettre en cache un compte désactivé")
+    void shouldNotCacheDeactivatedAccount() {
+        user.setActif(false);
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+
+        assertThatThrownBy(() -> service.loadUserByUsername("livreur1"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> service.loadUserByUsername("livreur1"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        verify(userRepository, times(2)).findByUsername("livreur1");
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer le mot de passe re-haché et invalider le cache")
+    void shouldStoreRehashedPasswordAndEvict() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+        UserDetails charge = service.loadUserByUsername("livreur1");
+
+        UserDetails rehache = service.updatePassword(charge, "nouveau-hash");
+
+        assertThat(rehache.getPassword()).isEqualTo("nouveau-hash");
+        verify(userRepository).updatePassword("livreur1", "nouveau-hash");
+        service.loadUserByUsername("livreur1");
+        verify(userRepository, times(2)).findByUsername("livreur1");
+    }
+
+    @Test
+    @DisplayName("Devrait recharger un compte compilé avec un instantané des autorisations remplacé")
+    void shouldReloadAfterGraphSwap() {
+        when(userRepository.findByUsername("livreur1")).thenReturn(Optional.of(user));
+        service.loadUserByUsername("livreur1");
+
+        when(graphe.getVersion()).thenReturn(2L);
+        service.loadUserByUsername("livreur1");
+        service.loadUserByUsername("livreur1");
+
+        verify(userRepository, times(2)).findByUsername("livreur1");
+    }
+}
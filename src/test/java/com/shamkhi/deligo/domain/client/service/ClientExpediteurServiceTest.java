@@ -4,12 +4,14 @@ import com.shamkhi.deligo.application.mapper.ClientExpediteurMapper;
 import com.shamkhi.deligo.domain.client.dto.ClientExpediteurDTO;
 import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
 import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import com.shamkhi.deligo.infrastructure.exception.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -23,6 +25,8 @@ class ClientExpediteurServiceTest {
 
     @Mock private ClientExpediteurRepository repository;
     @Mock private ClientExpediteurMapper mapper;
+    @Mock private UserRepository userRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
     @InjectMocks private ClientExpediteurService service;
 
     private ClientExpediteur client;
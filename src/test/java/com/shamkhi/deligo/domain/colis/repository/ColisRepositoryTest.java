@@ -173,6 +173,25 @@ class ColisRepositoryTest {
         assertThat(stats.size()).isGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    @DisplayName("Devrait agréger le volume par client sur une période")
+    void shouldAggregateVolumeByClientBetween() {
+        createAndSaveColis("C1", StatutColis.CREE);
+        createAndSaveColis("C2", StatutColis.LIVRE);
+
+        List<Object[]> result = colisRepository.countAndSumWeightByClientBetween(
+                LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(1),
+                null,
+                StatutColis.LIVRE
+        );
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)[0]).isEqualTo(client.getId());
+        assertThat(((Number) result.get(0)[3]).longValue()).isEqualTo(2);
+        assertThat(((Number) result.get(0)[5]).longValue()).isEqualTo(1);
+    }
+
     private Colis createColis(String description, StatutColis statut) {
         Colis colis = new Colis();
         colis.setDescription(description);
@@ -15,7 +15,9 @@ import com.shamkhi.deligo.domain.colis.repository.ColisProduitRepository;
 import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
 import com.shamkhi.deligo.domain.colis.repository.HistoriqueLivraisonRepository;
 import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
 import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import com.shamkhi.deligo.domain.livraison.service.ResolutionZoneService;
 import com.shamkhi.deligo.domain.colis.dto.*;
 import com.shamkhi.deligo.domain.colis.model.*;
 import com.shamkhi.deligo.domain.colis.repository.*;
@@ -24,12 +26,20 @@ import com.shamkhi.deligo.domain.client.model.Destinataire;
 import com.shamkhi.deligo.domain.client.repository.*;
 import com.shamkhi.deligo.domain.livraison.repository.*;
 import com.shamkhi.deligo.domain.produit.repository.ProduitRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.domain.security.service.UtilisateurAutorise;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -51,6 +61,10 @@ class ColisServiceTest {
     @Mock private ZoneRepository zoneRepository;
     @Mock private ProduitRepository produitRepository;
     @Mock private ColisMapper colisMapper;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private ResolutionZoneService resolutionZoneService;
+    @Mock private ResolveurUtilisateur resolveurUtilisateur;
+    @Spy private IndexAutorisations indexAutorisations = new IndexAutorisations();
 
     @InjectMocks
     private ColisService colisService;
@@ -117,6 +131,26 @@ class ColisServiceTest {
             verify(historiqueRepository).save(any(HistoriqueLivraison.class));
         }
 
+        @Test
+        @DisplayName("Devrait déduire la zone quand elle n'est pas fournie")
+        void shouldResolveZoneWhenMissing() {
+            Zone zone = new Zone();
+            zone.setId("zone-1");
+            destinataire.setAdresse("12 avenue Fal Ould Oumeir, 10080 Rabat");
+            when(clientRepository.findById("client-1")).thenReturn(Optional.of(client));
+            when(destinataireRepository.findById("dest-1")).thenReturn(Optional.of(destinataire));
+            when(resolutionZoneService.resoudre(destinataire.getAdresse(), "Rabat")).thenReturn(Optional.of("zone-1"));
+            when(zoneRepository.getReferenceById("zone-1")).thenReturn(zone);
+            when(colisMapper.toEntity(createRequest)).thenReturn(colis);
+            when(colisRepository.save(any(Colis.class))).thenReturn(colis);
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+
+            colisService.createColis(createRequest);
+
+            assertThat(colis.getZone()).isSameAs(zone);
+            verify(zoneRepository, never()).findById(any());
+        }
+
         @Test
         @DisplayName("Devrait lever une exception si client non trouvé")
         void shouldThrowWhenClientNotFound() {
@@ -179,6 +213,113 @@ class ColisServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests des accès par utilisateur")
+    class AccesUtilisateurTests {
+        private final Authentication manager = auth("ROLE_MANAGER");
+        private final Authentication livreur = auth("ROLE_LIVREUR");
+        private final Authentication clientAuth = auth("ROLE_CLIENT");
+        // Hors du spy : les principaux sont construits pendant les stubs
+        private final IndexAutorisations compilateur = new IndexAutorisations();
+
+        @BeforeEach
+        void setUp() {
+            colisDTO.setLivreurId("liv-1");
+            colisDTO.setClientExpediteurId("client-1");
+        }
+
+        @Test
+        @DisplayName("Devrait donner au manager l'accès à tout colis")
+        void shouldLetManagerReadAnyColis() {
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+
+            assertThat(colisService.getColisByIdForUser("colis-1", manager)).isSameAs(colisDTO);
+            verifyNoInteractions(resolveurUtilisateur);
+        }
+
+        @Test
+        @DisplayName("Devrait limiter un livreur aux colis qui lui sont affectés")
+        void shouldRestrictLivreurToAssignedColis() {
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+            when(resolveurUtilisateur.resoudre(livreur)).thenReturn(utilisateur("liv-1", null), utilisateur("liv-2", null));
+
+            assertThat(colisService.getColisByIdForUser("colis-1", livreur)).isSameAs(colisDTO);
+            assertThatThrownBy(() -> colisService.getColisByIdForUser("colis-1", livreur))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait limiter un client à ses propres colis")
+        void shouldRestrictClientToOwnColis() {
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+            when(resolveurUtilisateur.resoudre(clientAuth)).thenReturn(utilisateur(null, "client-1"), utilisateur(null, "client-2"));
+
+            assertThat(colisService.getColisByIdForUser("colis-1", clientAuth)).isSameAs(colisDTO);
+            assertThatThrownBy(() -> colisService.getColisByIdForUser("colis-1", clientAuth))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser un utilisateur rattaché à aucun livreur ni client")
+        void shouldDenyUnlinkedUser() {
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+            when(resolveurUtilisateur.resoudre(any())).thenReturn(utilisateur(null, null));
+
+            assertThatThrownBy(() -> colisService.getColisByIdForUser("colis-1", livreur))
+                    .isInstanceOf(AccessDeniedException.class);
+            assertThatThrownBy(() -> colisService.getColisByIdForUser("colis-1", auth("ROLE_AUTRE")))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait lister les colis du périmètre de l'utilisateur")
+        void shouldListColisInUserScope() {
+            Pageable pageable = PageRequest.of(0, 10);
+            when(colisRepository.findByLivreurId("liv-1", pageable)).thenReturn(new PageImpl<>(List.of(colis)));
+            when(colisRepository.findByClientExpediteurId("client-1", pageable)).thenReturn(new PageImpl<>(List.of(colis)));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+            when(resolveurUtilisateur.resoudre(livreur)).thenReturn(utilisateur("liv-1", null), utilisateur(null, null));
+            when(resolveurUtilisateur.resoudre(clientAuth)).thenReturn(utilisateur(null, "client-1"));
+
+            assertThat(colisService.getAllColisForUser(livreur, pageable).getContent()).containsExactly(colisDTO);
+            assertThat(colisService.getAllColisForUser(clientAuth, pageable).getContent()).containsExactly(colisDTO);
+            // Livreur sans fiche livreur : aucun colis, sans requête
+            assertThat(colisService.getAllColisForUser(livreur, pageable)).isEmpty();
+            verify(colisRepository, times(1)).findByLivreurId(anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Devrait calculer les statistiques du périmètre de l'utilisateur")
+        void shouldComputeStatisticsInUserScope() {
+            when(colisRepository.count()).thenReturn(10L);
+            when(colisRepository.countByLivreurId("liv-1")).thenReturn(4L);
+            when(colisRepository.countByClientExpediteurId("client-1")).thenReturn(3L);
+            when(resolveurUtilisateur.resoudre(livreur)).thenReturn(utilisateur("liv-1", null));
+            when(resolveurUtilisateur.resoudre(clientAuth)).thenReturn(utilisateur(null, "client-1"));
+            Authentication sansLien = new UsernamePasswordAuthenticationToken("sans-lien", null,
+                    List.of(new SimpleGrantedAuthority("ROLE_CLIENT")));
+            when(resolveurUtilisateur.resoudre(sansLien)).thenReturn(utilisateur(null, null));
+
+            assertThat(colisService.getStatisticsForUser(manager).getTotal()).isEqualTo(10);
+            assertThat(colisService.getStatisticsForUser(livreur).getTotal()).isEqualTo(4);
+            assertThat(colisService.getStatisticsForUser(clientAuth).getTotal()).isEqualTo(3);
+            assertThat(colisService.getStatisticsForUser(sansLien).getTotal()).isZero();
+        }
+
+        private Authentication auth(String role) {
+            return new UsernamePasswordAuthenticationToken("utilisateur", null, List.of(new SimpleGrantedAuthority(role)));
+        }
+
+        private UtilisateurAutorise utilisateur(String livreurId, String clientId) {
+            return compilateur.compiler("utilisateur", List.<SimpleGrantedAuthority>of())
+                    .avecIdentite("u1", livreurId, clientId);
+        }
+    }
+
     @Nested
     @DisplayName("Tests de mise à jour")
     class UpdateTests {
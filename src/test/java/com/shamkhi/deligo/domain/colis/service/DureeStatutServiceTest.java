@@ -0,0 +1,113 @@
+package com.shamkhi.deligo.domain.colis.service;
+
+import com.shamkhi.deligo.domain.colis.dto.DureeStatutDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.HistoriqueLivraisonRepository;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du DureeStatutService")
+class DureeStatutServiceTest {
+
+    @Mock private HistoriqueLivraisonRepository historiqueRepository;
+    @Mock private ZoneRepository zoneRepository;
+
+    @InjectMocks
+    private DureeStatutService service;
+
+    private final LocalDateTime t0 = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        Zone zone = new Zone();
+        zone.setId("zone-1");
+        zone.setNom("Casablanca Centre");
+        lenient().when(zoneRepository.findAllById(anyCollection())).thenReturn(List.of(zone));
+
+        when(historiqueRepository.streamAllOrderByColis()).thenReturn(Stream.of(
+                new Object[]{"colis-1", "zone-1", StatutColis.CREE, t0},
+                new Object[]{"colis-1", "zone-1", StatutColis.EN_STOCK, t0.plusMinutes(30)},
+                new Object[]{"colis-1", "zone-1", StatutColis.EN_TRANSIT, t0.plusMinutes(150)},
+                new Object[]{"colis-1", "zone-1", StatutColis.LIVRE, t0.plusMinutes(200)},
+                new Object[]{"colis-2", "zone-1", StatutColis.CREE, t0},
+                new Object[]{"colis-2", "zone-1", StatutColis.EN_STOCK, t0.plusMinutes(10)},
+                // Même statut répété : ignoré
+                new Object[]{"colis-2", "zone-1", StatutColis.EN_STOCK, t0.plusMinutes(20)}
+        ));
+
+        service.reconstruire();
+    }
+
+    @Test
+    @DisplayName("Devrait calculer les durées à partir de l'historique")
+    void shouldComputeDwellTimesFromHistory() {
+        DureeStatutDTO enStock = service.getDurees(StatutColis.EN_STOCK, "zone-1").get(0);
+
+        assertThat(enStock.getNombrePassages()).isEqualTo(1);
+        assertThat(enStock.getDureeMoyenneMinutes()).isEqualByComparingTo("120.00");
+        assertThat(enStock.getEnCours()).isEqualTo(1);
+        assertThat(enStock.getZoneNom()).isEqualTo("Casablanca Centre");
+
+        DureeStatutDTO cree = service.getDurees(StatutColis.CREE, null).get(0);
+        assertThat(cree.getNombrePassages()).isEqualTo(2);
+        assertThat(cree.getDureeMoyenneMinutes()).isEqualByComparingTo("20.00");
+        assertThat(cree.getDureeMaxMinutes()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas suivre les statuts finaux")
+    void shouldNotTrackFinalStatuses() {
+        assertThat(service.getDurees(StatutColis.LIVRE, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait mettre à jour les agrégats à chaque changement de statut")
+    void shouldUpdateIncrementally() {
+        ColisEtat avant = ColisEtat.builder().statut(StatutColis.EN_STOCK).zoneId("zone-1").build();
+        ColisEtat apres = ColisEtat.builder().statut(StatutColis.EN_TRANSIT).zoneId("zone-1").build();
+
+        service.onColisChange(ColisChangeEvent.modification("colis-2", avant, apres));
+
+        DureeStatutDTO enStock = service.getDurees(StatutColis.EN_STOCK, "zone-1").get(0);
+        assertThat(enStock.getNombrePassages()).isEqualTo(2);
+        assertThat(enStock.getEnCours()).isZero();
+        assertThat(service.getDurees(StatutColis.EN_TRANSIT, "zone-1").get(0).getEnCours()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas perdre un changement reçu pendant la reconstruction")
+    void shouldReplayChangeReceivedDuringRebuild() {
+        ColisEtat avant = ColisEtat.builder().statut(StatutColis.EN_STOCK).zoneId("zone-1").build();
+        ColisEtat apres = ColisEtat.builder().statut(StatutColis.EN_TRANSIT).zoneId("zone-1").build();
+        // Changement commité après l'ouverture du flux, donc absent de l'historique lu
+        when(historiqueRepository.streamAllOrderByColis()).thenAnswer(invocation -> {
+            service.onColisChange(ColisChangeEvent.modification("colis-2", avant, apres));
+            return Stream.of(
+                    new Object[]{"colis-2", "zone-1", StatutColis.CREE, t0},
+                    new Object[]{"colis-2", "zone-1", StatutColis.EN_STOCK, t0.plusMinutes(10)});
+        });
+
+        service.reconstruire();
+
+        DureeStatutDTO enStock = service.getDurees(StatutColis.EN_STOCK, "zone-1").get(0);
+        assertThat(enStock.getNombrePassages()).isEqualTo(1);
+        assertThat(enStock.getEnCours()).isZero();
+        assertThat(service.getDurees(StatutColis.EN_TRANSIT, "zone-1").get(0).getEnCours()).isEqualTo(1);
+    }
+}
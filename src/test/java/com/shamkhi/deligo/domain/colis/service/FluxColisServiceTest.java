@@ -0,0 +1,264 @@
+package com.shamkhi.deligo.domain.colis.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.colis.dto.ColisNotificationDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.infrastructure.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du FluxColisService")
+class FluxColisServiceTest {
+
+    @Mock private ColisService colisService;
+    @Mock private UserRepository userRepository;
+
+    private final IndexAutorisations indexAutorisations = new IndexAutorisations();
+    private FluxColisService service;
+    private final BlockingQueue<ColisNotificationDTO> recues = new LinkedBlockingQueue<>();
+    private volatile CountDownLatch blocage;
+    private volatile CountDownLatch envoiEnCours;
+    private volatile boolean termine;
+
+    private final Authentication manager = auth("admin", "ROLE_MANAGER");
+    private final Authentication client = auth("client", "ROLE_CLIENT");
+    private final Authentication livreur = auth("livreur", "ROLE_LIVREUR");
+
+    @BeforeEach
+    void setUp() {
+        service = new FluxColisService(colisService, new ResolveurUtilisateur(userRepository, indexAutorisations), indexAutorisations, new SimpleMeterRegistry(), 2) {
+            @Override
+            SseEmitter creerEmitter(long timeout) {
+                return new EmetteurCapture();
+            }
+        };
+        ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(service, "tailleTampon", 32);
+        ReflectionTestUtils.setField(service, "maxAbonnements", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Nested
+    @DisplayName("Diffusion")
+    class DiffusionTests {
+
+        @Test
+        @DisplayName("Devrait notifier un client des changements de ses colis uniquement")
+        void shouldNotifyClientOfOwnColis() throws InterruptedException {
+            utilisateur("client", null, "client-1");
+            service.abonnerClient("client-1", client);
+
+            service.onColisChange(ColisChangeEvent.modification("autre",
+                    etat(StatutColis.CREE, null, "client-2"), etat(StatutColis.COLLECTE, null, "client-2")));
+            service.onColisChange(ColisChangeEvent.modification("colis-1",
+                    etat(StatutColis.CREE, null, "client-1"), etat(StatutColis.COLLECTE, "liv-1", "client-1")));
+
+            ColisNotificationDTO notification = recues.poll(5, TimeUnit.SECONDS);
+            assertThat(notification).isNotNull();
+            assertThat(notification.getColisId()).isEqualTo("colis-1");
+            assertThat(notification.getType()).isEqualTo("MODIFICATION");
+            assertThat(notification.getAncienStatut()).isEqualTo(StatutColis.CREE);
+            assertThat(notification.getNouveauStatut()).isEqualTo(StatutColis.COLLECTE);
+            assertThat(recues.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        }
+
+        @Test
+        @DisplayName("Devrait prévenir un livreur qu'un colis lui est retiré")
+        void shouldNotifyLivreurOfReassignment() throws InterruptedException {
+            utilisateur("livreur", "liv-1", null);
+            service.abonnerLivreur("liv-1", livreur);
+
+            service.onColisChange(ColisChangeEvent.modification("colis-1",
+                    etat(StatutColis.EN_TRANSIT, "liv-1", "client-1"), etat(StatutColis.EN_TRANSIT, "liv-2", "client-1")));
+
+            ColisNotificationDTO notification = recues.poll(5, TimeUnit.SECONDS);
+            assertThat(notification).isNotNull();
+            assertThat(notification.getLivreurId()).isEqualTo("liv-2");
+        }
+
+        @Test
+        @DisplayName("Devrait conserver l'ordre des notifications d'un abonné")
+        void shouldKeepOrderPerSubscriber() throws InterruptedException {
+            service.abonnerColis("colis-1", manager);
+
+            StatutColis[] statuts = {StatutColis.COLLECTE, StatutColis.EN_STOCK, StatutColis.EN_TRANSIT, StatutColis.LIVRE};
+            StatutColis precedent = StatutColis.CREE;
+            for (StatutColis statut : statuts) {
+                service.onColisChange(ColisChangeEvent.modification("colis-1",
+                        etat(precedent, "liv-1", "client-1"), etat(statut, "liv-1", "client-1")));
+                precedent = statut;
+            }
+
+            for (StatutColis statut : statuts) {
+                assertThat(recues.poll(5, TimeUnit.SECONDS).getNouveauStatut()).isEqualTo(statut);
+            }
+        }
+
+        @Test
+        @DisplayName("Devrait déconnecter un abonné trop lent sans bloquer la diffusion")
+        void shouldDropSlowConsumer() throws InterruptedException {
+            ReflectionTestUtils.setField(service, "tailleTampon", 2);
+            blocage = new CountDownLatch(1);
+            envoiEnCours = new CountDownLatch(1);
+            service.abonnerColis("colis-1", manager);
+
+            publierStatut();
+            assertThat(envoiEnCours.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                publierStatut();
+            }
+
+            assertThat(service.getNombreAbonnes()).isZero();
+            assertThat(termine).isTrue();
+            blocage.countDown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Contrôle d'accès")
+    class AccesTests {
+
+        @Test
+        @DisplayName("Devrait appliquer les règles de consultation du colis")
+        void shouldApplyColisAccessRules() {
+            when(colisService.getColisByIdForUser("colis-1", client))
+                    .thenThrow(new AccessDeniedException("Vous n'avez pas accès à ce colis"));
+
+            assertThatThrownBy(() -> service.abonnerColis("colis-1", client))
+                    .isInstanceOf(AccessDeniedException.class);
+            assertThat(service.getNombreAbonnes()).isZero();
+        }
+
+        @Test
+        @DisplayName("Devrait refuser le flux d'un autre client ou livreur")
+        void shouldRejectOtherOwners() {
+            utilisateur("client", null, "client-1");
+            utilisateur("livreur", "liv-1", null);
+
+            assertThatThrownBy(() -> service.abonnerClient("client-2", client))
+                    .isInstanceOf(AccessDeniedException.class);
+            assertThatThrownBy(() -> service.abonnerLivreur("liv-2", livreur))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait appliquer la priorité des rôles de la consultation")
+        void shouldApplyRolePrecedence() throws InterruptedException {
+            // Livreur également rattaché à un client : seul le rôle livreur compte, comme en consultation
+            utilisateur("livreur", "liv-1", "client-1");
+
+            assertThatThrownBy(() -> service.abonnerClient("client-1", livreur))
+                    .isInstanceOf(AccessDeniedException.class);
+
+            service.abonnerColis("colis-1", livreur);
+            service.onColisChange(ColisChangeEvent.modification("colis-1",
+                    etat(StatutColis.EN_TRANSIT, "liv-1", "client-1"), etat(StatutColis.EN_TRANSIT, "liv-2", "client-1")));
+            service.onColisChange(ColisChangeEvent.modification("colis-1",
+                    etat(StatutColis.EN_TRANSIT, "liv-2", "client-1"), etat(StatutColis.LIVRE, "liv-2", "client-1")));
+
+            assertThat(recues.poll(5, TimeUnit.SECONDS).getLivreurId()).isEqualTo("liv-2");
+            assertThat(recues.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        }
+
+        @Test
+        @DisplayName("Devrait limiter le nombre d'abonnements")
+        void shouldLimitSubscriptions() {
+            ReflectionTestUtils.setField(service, "maxAbonnements", 1);
+            service.abonnerLivreur("liv-1", manager);
+
+            assertThatThrownBy(() -> service.abonnerLivreur("liv-2", manager))
+                    .isInstanceOf(ServiceUnavailableException.class);
+            assertThat(service.getNombreAbonnes()).isEqualTo(1);
+        }
+    }
+
+    private void publierStatut() {
+        service.onColisChange(ColisChangeEvent.modification("colis-1",
+                etat(StatutColis.COLLECTE, "liv-1", "client-1"), etat(StatutColis.EN_STOCK, "liv-1", "client-1")));
+    }
+
+    private void utilisateur(String username, String livreurId, String clientId) {
+        User user = new User();
+        user.setUsername(username);
+        if (livreurId != null) {
+            Livreur l = new Livreur();
+            l.setId(livreurId);
+            user.setLivreur(l);
+        }
+        if (clientId != null) {
+            ClientExpediteur c = new ClientExpediteur();
+            c.setId(clientId);
+            user.setClientExpediteur(c);
+        }
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+    }
+
+    private static ColisEtat etat(StatutColis statut, String livreurId, String clientId) {
+        return ColisEtat.builder().statut(statut).livreurId(livreurId).clientId(clientId).build();
+    }
+
+    private static Authentication auth(String username, String role) {
+        return new UsernamePasswordAuthenticationToken(username, null, List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    private class EmetteurCapture extends SseEmitter {
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (envoiEnCours != null) {
+                envoiEnCours.countDown();
+            }
+            if (blocage != null) {
+                try {
+                    blocage.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(ColisNotificationDTO.class::isInstance)
+                    .map(ColisNotificationDTO.class::cast)
+                    .forEach(recues::add);
+        }
+
+        @Override
+        public synchronized void complete() {
+            termine = true;
+        }
+    }
+}
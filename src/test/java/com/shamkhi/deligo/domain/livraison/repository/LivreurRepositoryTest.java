@@ -2,6 +2,8 @@ package com.shamkhi.deligo.domain.livraison.repository;
 
 import com.shamkhi.deligo.domain.livraison.model.Livreur;
 import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -19,6 +21,7 @@ class LivreurRepositoryTest {
 
     @Autowired private LivreurRepository repository;
     @Autowired private ZoneRepository zoneRepository;
+    @Autowired private UserRepository userRepository;
 
     private Zone zone;
 
@@ -146,6 +149,46 @@ class LivreurRepositoryTest {
         assertThat(result.getContent()).hasSize(1);
     }
 
+    @Test
+    @DisplayName("Devrait charger livreur, zone et compte utilisateur en une seule lecture")
+    void shouldLoadVueWithZoneAndUser() {
+        Livreur livreur = createLivreur("Alami", "Ahmed", "0612345678");
+        livreur.setZoneAssignee(zone);
+        livreur = repository.save(livreur);
+        User user = userRepository.save(User.builder()
+                .username("ahmed.alami")
+                .email("ahmed@deligo.ma")
+                .nom("Alami")
+                .prenom("Ahmed")
+                .livreur(livreur)
+                .build());
+        createAndSaveLivreur("Bennani", "Karim", "0698765432", false);
+
+        LivreurVue vue = repository.findVueById(livreur.getId()).orElseThrow();
+
+        assertThat(vue.getZoneAssigneeNom()).isEqualTo("Zone Centre");
+        assertThat(vue.getUserId()).isEqualTo(user.getId());
+        assertThat(vue.getUsername()).isEqualTo("ahmed.alami");
+        assertThat(vue.getEmail()).isEqualTo("ahmed@deligo.ma");
+        assertThat(repository.findVuesByActif(true)).extracting(LivreurVue::getNom).containsExactly("Alami");
+    }
+
+    @Test
+    @DisplayName("Devrait paginer et trier les vues, livreurs sans compte compris")
+    void shouldPageVuesWithoutUser() {
+        createAndSaveLivreur("Idrissi", "Omar", "0687654321", true);
+        createAndSaveLivreur("Alami", "Ahmed", "0612345678", true);
+        createAndSaveLivreur("Bennani", "Karim", "0698765432", true);
+
+        Page<LivreurVue> page = repository.findAllVues(PageRequest.of(0, 2, Sort.by("nom")));
+        Page<LivreurVue> recherche = repository.searchVuesByKeyword("karim", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(LivreurVue::getNom).containsExactly("Alami", "Bennani");
+        assertThat(page.getContent().get(0).getUserId()).isNull();
+        assertThat(recherche.getContent()).extracting(LivreurVue::getNom).containsExactly("Bennani");
+    }
+
     private Livreur createLivreur(String nom, String prenom, String telephone) {
         Livreur livreur = new Livreur();
         livreur.setNom(nom);
@@ -0,0 +1,213 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.client.model.Destinataire;
+import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.client.repository.DestinataireRepository;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.model.Colis;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.colis.repository.HistoriqueLivraisonRepository;
+import com.shamkhi.deligo.domain.livraison.dto.AffectationResultDTO;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeVehicule;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests de l'AffectationService")
+class AffectationServiceTest {
+
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private LivreurRepository livreurRepository;
+    @Autowired private ZoneRepository zoneRepository;
+    @Autowired private HistoriqueLivraisonRepository historiqueRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManager entityManager;
+
+    private ApplicationEventPublisher eventPublisher;
+    private ChargeLivreurService chargeLivreurService;
+    private AffectationService service;
+    private ClientExpediteur client;
+    private Destinataire destinataire;
+    private Zone centre;
+    private Zone nord;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        chargeLivreurService = new ChargeLivreurService(colisRepository);
+        service = new AffectationService(colisRepository, livreurRepository, jdbcTemplate, transactionManager,
+                eventPublisher, chargeLivreurService);
+        ReflectionTestUtils.setField(service, "capaciteMax", 25);
+        ReflectionTestUtils.setField(service, "typeVehiculeDefaut", TypeVehicule.MOTO);
+        ReflectionTestUtils.setField(service, "budgetMs", 200L);
+
+        centre = saveZone("Centre", "20000");
+        nord = saveZone("Nord", "20100");
+
+        client = new ClientExpediteur();
+        client.setNom("Test");
+        client.setPrenom("User");
+        client.setEmail("test@test.com");
+        client.setTelephone("0612345678");
+        client.setAdresse("Address");
+        client = clientRepository.save(client);
+
+        destinataire = new Destinataire();
+        destinataire.setNom("Dest");
+        destinataire.setPrenom("User");
+        destinataire.setTelephone("0698765432");
+        destinataire.setAdresse("Address");
+        destinataire = destinataireRepository.save(destinataire);
+    }
+
+    @Test
+    @DisplayName("Devrait équilibrer les colis entre les livreurs de la zone")
+    void shouldBalanceWithinZone() {
+        Livreur charge = saveLivreur("Alami", "0600000001", centre);
+        Livreur libre = saveLivreur("Bennani", "0600000002", centre);
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.EN_TRANSIT, charge);
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.EN_TRANSIT, charge);
+        for (int i = 0; i < 4; i++) {
+            saveColis(centre, PrioriteColis.NORMALE, StatutColis.EN_STOCK, null);
+        }
+        // Colis terminé : jamais candidat
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.ANNULE, null);
+        chargeLivreurService.reconstruire();
+
+        AffectationResultDTO resultat = service.affecter();
+        entityManager.clear();
+
+        assertThat(resultat.getNombreCandidats()).isEqualTo(4);
+        assertThat(resultat.getNombreAffectes()).isEqualTo(4);
+        assertThat(resultat.getRepartition()).containsEntry(libre.getId(), 3).containsEntry(charge.getId(), 1);
+        assertThat(colisRepository.countByLivreurId(libre.getId())).isEqualTo(3);
+        assertThat(historiqueRepository.count()).isEqualTo(4);
+        verify(eventPublisher, times(4)).publishEvent(any(ColisChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("Devrait respecter la zone et se rabattre sur les livreurs sans zone")
+    void shouldRespectZoneAndFallBackToUnzonedLivreurs() {
+        Livreur livreurCentre = saveLivreur("Alami", "0600000001", centre);
+        Livreur flottant = saveLivreur("Chraibi", "0600000003", null);
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.CREE, null);
+        saveColis(nord, PrioriteColis.NORMALE, StatutColis.CREE, null);
+
+        AffectationResultDTO resultat = service.affecter();
+
+        assertThat(resultat.getRepartition()).containsEntry(livreurCentre.getId(), 1).containsEntry(flottant.getId(), 1);
+    }
+
+    @Test
+    @DisplayName("Devrait servir les colis prioritaires en premier quand la capacité est limitée")
+    void shouldServeUrgentFirstWithinCapacity() {
+        ReflectionTestUtils.setField(service, "capaciteMax", 1);
+        Livreur livreur = saveLivreur("Alami", "0600000001", centre);
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.CREE, null);
+        Colis urgent = saveColis(centre, PrioriteColis.TRES_URGENT, StatutColis.CREE, null);
+
+        AffectationResultDTO resultat = service.affecter();
+        entityManager.clear();
+
+        assertThat(resultat.getNombreAffectes()).isEqualTo(1);
+        assertThat(resultat.getNombreNonAffectes()).isEqualTo(1);
+        assertThat(colisRepository.findById(urgent.getId()).orElseThrow().getLivreur().getId()).isEqualTo(livreur.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait respecter le poids maximal de chaque type de véhicule")
+    void shouldRespectVehicleWeightCapacity() {
+        Livreur velo = saveLivreur("Alami", "0600000001", centre);
+        velo.setTypeVehicule(TypeVehicule.VELO);
+        livreurRepository.save(velo);
+        Livreur voiture = saveLivreur("Bennani", "0600000002", centre);
+        voiture.setTypeVehicule(TypeVehicule.VOITURE);
+        livreurRepository.save(voiture);
+        for (int i = 0; i < 10; i++) {
+            saveColis(centre, PrioriteColis.NORMALE, StatutColis.CREE, null).setPoids(BigDecimal.valueOf(8));
+        }
+        // Trop lourd même pour la voiture : reste non affecté
+        saveColis(centre, PrioriteColis.URGENT, StatutColis.CREE, null).setPoids(BigDecimal.valueOf(300));
+        entityManager.flush();
+
+        AffectationResultDTO resultat = service.affecter();
+
+        assertThat(resultat.getNombreAffectes()).isEqualTo(10);
+        assertThat(resultat.getNombreNonAffectes()).isEqualTo(1);
+        // 3 colis de 8 kg au plus pour un vélo cargo limité à 25 kg
+        assertThat(resultat.getRepartition().getOrDefault(velo.getId(), 0)).isLessThanOrEqualTo(3);
+        assertThat(resultat.getRepartition().get(voiture.getId())).isGreaterThanOrEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Devrait tenir compte du poids déjà transporté par le livreur")
+    void shouldAccountForCurrentLoad() {
+        Livreur livreur = saveLivreur("Alami", "0600000001", centre);
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.EN_TRANSIT, livreur).setPoids(BigDecimal.valueOf(28));
+        saveColis(centre, PrioriteColis.NORMALE, StatutColis.CREE, null).setPoids(BigDecimal.valueOf(5));
+        entityManager.flush();
+        chargeLivreurService.reconstruire();
+
+        AffectationResultDTO resultat = service.affecter();
+
+        // Moto par défaut : 28 kg + 5 kg dépasseraient les 30 kg
+        assertThat(resultat.getNombreAffectes()).isZero();
+    }
+
+    private Zone saveZone(String nom, String codePostal) {
+        Zone zone = new Zone();
+        zone.setNom(nom);
+        zone.setCodePostal(codePostal);
+        zone.setVille("Casablanca");
+        return zoneRepository.save(zone);
+    }
+
+    private Livreur saveLivreur(String nom, String telephone, Zone zone) {
+        Livreur livreur = new Livreur();
+        livreur.setNom(nom);
+        livreur.setPrenom("Test");
+        livreur.setTelephone(telephone);
+        livreur.setZoneAssignee(zone);
+        return livreurRepository.save(livreur);
+    }
+
+    private Colis saveColis(Zone zone, PrioriteColis priorite, StatutColis statut, Livreur livreur) {
+        Colis colis = new Colis();
+        colis.setDescription("Colis");
+        colis.setPoids(BigDecimal.valueOf(2.5));
+        colis.setStatut(statut);
+        colis.setPriorite(priorite);
+        colis.setVilleDestination("Casablanca");
+        colis.setClientExpediteur(client);
+        colis.setDestinataire(destinataire);
+        colis.setZone(zone);
+        colis.setLivreur(livreur);
+        colis.setDateLimiteLivraison(LocalDateTime.now().plusDays(2));
+        return colisRepository.saveAndFlush(colis);
+    }
+}
@@ -0,0 +1,187 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.client.model.Destinataire;
+import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.client.repository.DestinataireRepository;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.Colis;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ChargeLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du ChargeLivreurService")
+class ChargeLivreurServiceTest {
+
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private LivreurRepository livreurRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+
+    private ChargeLivreurService service;
+    private ClientExpediteur client;
+    private Destinataire destinataire;
+    private Livreur alami;
+    private Livreur bennani;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChargeLivreurService(colisRepository);
+
+        client = new ClientExpediteur();
+        client.setNom("Test");
+        client.setPrenom("User");
+        client.setEmail("test@test.com");
+        client.setTelephone("0612345678");
+        client.setAdresse("Address");
+        client = clientRepository.save(client);
+
+        destinataire = new Destinataire();
+        destinataire.setNom("Dest");
+        destinataire.setPrenom("User");
+        destinataire.setTelephone("0698765432");
+        destinataire.setAdresse("Address");
+        destinataire = destinataireRepository.save(destinataire);
+
+        alami = saveLivreur("Alami", "0600000001");
+        bennani = saveLivreur("Bennani", "0600000002");
+    }
+
+    @Test
+    @DisplayName("Devrait reconstruire la charge des colis ouverts depuis la base")
+    void shouldRebuildFromDatabase() {
+        saveColis(alami, StatutColis.EN_TRANSIT, PrioriteColis.NORMALE, "2.5");
+        saveColis(alami, StatutColis.COLLECTE, PrioriteColis.TRES_URGENT, "1.25");
+        saveColis(alami, StatutColis.LIVRE, PrioriteColis.URGENT, "10");
+        saveColis(bennani, StatutColis.CREE, PrioriteColis.URGENT, "4");
+        saveColis(null, StatutColis.CREE, PrioriteColis.NORMALE, "3");
+
+        service.reconstruire();
+
+        ChargeLivreurDTO charge = service.getCharge(alami.getId());
+        assertThat(charge.getNombreColisOuverts()).isEqualTo(2);
+        assertThat(charge.getPoidsTotal()).isEqualByComparingTo("3.75");
+        assertThat(charge.getNombreUrgents()).isEqualTo(1);
+        assertThat(service.getCharges()).extracting(ChargeLivreurDTO::getLivreurId)
+                .containsExactly(alami.getId(), bennani.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait suivre les affectations, réaffectations et livraisons")
+    void shouldFollowColisEvents() {
+        service.reconstruire();
+        ColisEtat chezAlami = etat(alami.getId(), StatutColis.EN_TRANSIT, PrioriteColis.URGENT);
+        ColisEtat chezBennani = etat(bennani.getId(), StatutColis.EN_TRANSIT, PrioriteColis.URGENT);
+
+        service.onColisChange(ColisChangeEvent.modification("c1", etat(null, StatutColis.CREE, PrioriteColis.URGENT), chezAlami));
+        service.onColisChange(ColisChangeEvent.creation("c2", chezAlami));
+        assertThat(service.nombreColisOuverts(alami.getId())).isEqualTo(2);
+        assertThat(service.getCharge(alami.getId()).getNombreUrgents()).isEqualTo(2);
+
+        service.onColisChange(ColisChangeEvent.modification("c1", chezAlami, chezBennani));
+        service.onColisChange(ColisChangeEvent.modification("c2", chezAlami, etat(alami.getId(), StatutColis.LIVRE, PrioriteColis.URGENT)));
+
+        assertThat(service.getCharge(alami.getId()).getNombreColisOuverts()).isZero();
+        assertThat(service.getCharge(alami.getId()).getPoidsTotal()).isEqualByComparingTo("0");
+        assertThat(service.getCharge(bennani.getId()).getPoidsTotal()).isEqualByComparingTo("2");
+        assertThat(service.getCharges()).extracting(ChargeLivreurDTO::getLivreurId).containsExactly(bennani.getId());
+    }
+
+    @Test
+    @DisplayName("Devrait oublier un livreur supprimé")
+    void shouldForgetDeletedLivreur() {
+        saveColis(bennani, StatutColis.CREE, PrioriteColis.NORMALE, "4");
+        service.reconstruire();
+
+        service.onLivreurChange(LivreurChangeEvent.suppression(bennani.getId()));
+
+        assertThat(service.nombreColisOuverts(bennani.getId())).isZero();
+        assertThat(service.getCharges()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas perdre un changement commité pendant la reconstruction")
+    void shouldReplayChangeCommittedDuringRebuild() throws Exception {
+        // Agrégation simulée : elle lit la « base » puis attend qu'un commit concurrent soit notifié
+        ColisRepository requete = mock(ColisRepository.class);
+        ChargeLivreurService reconstruit = new ChargeLivreurService(requete);
+        AtomicLong ouvertsEnBase = new AtomicLong(1);
+        CountDownLatch agregationLue = new CountDownLatch(1);
+        CountDownLatch commitNotifie = new CountDownLatch(1);
+        when(requete.sumOpenWorkloadByLivreur(any(), any())).thenAnswer(invocation -> {
+            long ouverts = ouvertsEnBase.get();
+            agregationLue.countDown();
+            commitNotifie.await(5, TimeUnit.SECONDS);
+            return List.<Object[]>of(new Object[]{alami.getId(), ouverts, BigDecimal.valueOf(2 * ouverts),
+                    0L, BigDecimal.ZERO});
+        });
+        ColisChangeEvent creation = ColisChangeEvent.creation("c2",
+                etat(alami.getId(), StatutColis.CREE, PrioriteColis.NORMALE));
+
+        ExecutorService transaction = Executors.newSingleThreadExecutor();
+        Future<?> commit = transaction.submit(() -> {
+            agregationLue.await();
+            ouvertsEnBase.incrementAndGet();
+            reconstruit.onColisChange(creation);
+            commitNotifie.countDown();
+            return null;
+        });
+
+        reconstruit.reconstruire();
+        commit.get(5, TimeUnit.SECONDS);
+        transaction.shutdown();
+
+        assertThat(reconstruit.nombreColisOuverts(alami.getId())).isEqualTo(ouvertsEnBase.get()).isEqualTo(2);
+        assertThat(reconstruit.getCharge(alami.getId()).getPoidsTotal()).isEqualByComparingTo("4");
+    }
+
+    private ColisEtat etat(String livreurId, StatutColis statut, PrioriteColis priorite) {
+        return ColisEtat.builder()
+                .livreurId(livreurId)
+                .statut(statut)
+                .priorite(priorite)
+                .poids(BigDecimal.valueOf(2))
+                .build();
+    }
+
+    private Livreur saveLivreur(String nom, String telephone) {
+        Livreur livreur = new Livreur();
+        livreur.setNom(nom);
+        livreur.setPrenom("Test");
+        livreur.setTelephone(telephone);
+        return livreurRepository.save(livreur);
+    }
+
+    private void saveColis(Livreur livreur, StatutColis statut, PrioriteColis priorite, String poids) {
+        Colis colis = new Colis();
+        colis.setDescription("Colis");
+        colis.setPoids(new BigDecimal(poids));
+        colis.setStatut(statut);
+        colis.setPriorite(priorite);
+        colis.setVilleDestination("Casablanca");
+        colis.setClientExpediteur(client);
+        colis.setDestinataire(destinataire);
+        colis.setLivreur(livreur);
+        colisRepository.saveAndFlush(colis);
+    }
+}
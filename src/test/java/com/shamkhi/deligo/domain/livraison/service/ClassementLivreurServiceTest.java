@@ -0,0 +1,152 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ClassementLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.model.CritereClassement;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ClassementLivreurService")
+class ClassementLivreurServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private LivreurRepository livreurRepository;
+
+    private ClassementLivreurService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ClassementLivreurService(colisRepository, livreurRepository);
+        ReflectionTestUtils.setField(service, "fenetreJours", 30);
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<Object[]> livraisons = new ArrayList<>();
+        livraisons.add(new Object[]{"liv-1", maintenant.minusDays(1), maintenant, new BigDecimal("2.5")});
+        livraisons.add(new Object[]{"liv-1", maintenant.minusDays(2), maintenant.minusDays(3), new BigDecimal("1.0")});
+        livraisons.add(new Object[]{"liv-2", maintenant.minusDays(1), null, new BigDecimal("10.0")});
+        // Hors fenêtre : ignorée
+        livraisons.add(new Object[]{"liv-2", maintenant.minusDays(40), null, new BigDecimal("5.0")});
+        when(colisRepository.findDeliveriesSince(any(), eq(StatutColis.LIVRE))).thenReturn(livraisons);
+
+        lenient().when(livreurRepository.findAllById(anyCollection())).thenReturn(List.of(
+                livreur("liv-1", "Alami"), livreur("liv-2", "Bennani")));
+
+        service.reconstruire();
+    }
+
+    @Test
+    @DisplayName("Devrait classer par nombre de livraisons")
+    void shouldRankByDeliveries() {
+        List<ClassementLivreurDTO> classement = service.getClassement(CritereClassement.LIVRAISONS, 10);
+
+        assertThat(classement).extracting(ClassementLivreurDTO::getLivreurId).containsExactly("liv-1", "liv-2");
+        assertThat(classement.get(0).getRang()).isEqualTo(1);
+        assertThat(classement.get(0).getNombreLivraisons()).isEqualTo(2);
+        assertThat(classement.get(0).getNombreATemps()).isEqualTo(1);
+        assertThat(classement.get(0).getNom()).isEqualTo("Alami");
+    }
+
+    @Test
+    @DisplayName("Devrait classer par ponctualité et poids")
+    void shouldRankByPunctualityAndWeight() {
+        assertThat(service.getClassement(CritereClassement.PONCTUALITE, 10))
+                .extracting(ClassementLivreurDTO::getLivreurId).containsExactly("liv-2", "liv-1");
+
+        List<ClassementLivreurDTO> parPoids = service.getClassement(CritereClassement.POIDS, 1);
+        assertThat(parPoids).hasSize(1);
+        assertThat(parPoids.get(0).getLivreurId()).isEqualTo("liv-2");
+        assertThat(parPoids.get(0).getPoidsLivre()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    @DisplayName("Devrait mettre à jour les compteurs sur changement de statut")
+    void shouldUpdateCountersOnStatusChange() {
+        ColisEtat avant = ColisEtat.builder().statut(StatutColis.EN_TRANSIT).livreurId("liv-2")
+                .poids(new BigDecimal("1.0")).build();
+        ColisEtat apres = ColisEtat.builder().statut(StatutColis.LIVRE).livreurId("liv-2")
+                .poids(new BigDecimal("1.0")).dateLivraison(LocalDateTime.now()).build();
+
+        service.onColisChange(ColisChangeEvent.modification("colis-1", avant, apres));
+        service.onColisChange(ColisChangeEvent.modification("colis-2", avant, apres));
+
+        assertThat(service.getClassement(CritereClassement.LIVRAISONS, 1).get(0).getLivreurId()).isEqualTo("liv-2");
+
+        // Retour arrière : la livraison est décomptée
+        service.onColisChange(ColisChangeEvent.modification("colis-1", apres, avant));
+        service.onColisChange(ColisChangeEvent.modification("colis-2", apres, avant));
+
+        assertThat(service.getClassement(CritereClassement.LIVRAISONS, 1).get(0).getLivreurId()).isEqualTo("liv-1");
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer une livraison quand un colis déjà livré est réaffecté ou repesé")
+    void shouldMoveDeliveryOnReassignment() {
+        LocalDateTime livraison = LocalDateTime.now().minusHours(1);
+        ColisEtat chezBennani = ColisEtat.builder().statut(StatutColis.LIVRE).livreurId("liv-2")
+                .poids(new BigDecimal("10.0")).dateLivraison(livraison).build();
+        ColisEtat chezAlami = ColisEtat.builder().statut(StatutColis.LIVRE).livreurId("liv-1")
+                .poids(new BigDecimal("30.0")).dateLivraison(livraison).build();
+
+        service.onColisChange(ColisChangeEvent.modification("colis-1",
+                ColisEtat.builder().statut(StatutColis.EN_TRANSIT).livreurId("liv-2").build(), chezBennani));
+        service.onColisChange(ColisChangeEvent.modification("colis-1", chezBennani, chezAlami));
+
+        List<ClassementLivreurDTO> parPoids = service.getClassement(CritereClassement.POIDS, 10);
+        assertThat(parPoids).extracting(ClassementLivreurDTO::getLivreurId).containsExactly("liv-1", "liv-2");
+        assertThat(parPoids.get(0).getNombreLivraisons()).isEqualTo(3);
+        assertThat(parPoids.get(0).getPoidsLivre()).isEqualByComparingTo("33.50");
+        assertThat(parPoids.get(1).getNombreLivraisons()).isEqualTo(1);
+        assertThat(parPoids.get(1).getPoidsLivre()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas perdre une livraison reçue pendant la reconstruction")
+    void shouldReplayDeliveryReceivedDuringRebuild() {
+        ColisEtat livre = ColisEtat.builder().statut(StatutColis.LIVRE).livreurId("liv-2")
+                .poids(new BigDecimal("1.0")).dateLivraison(LocalDateTime.now()).build();
+        List<Object[]> livraisons = new ArrayList<>();
+        livraisons.add(new Object[]{"liv-1", LocalDateTime.now().minusDays(1), null, new BigDecimal("2.5")});
+        // Livraison commitée après la lecture, notifiée avant la fin de la reconstruction
+        when(colisRepository.findDeliveriesSince(any(), eq(StatutColis.LIVRE))).thenAnswer(invocation -> {
+            service.onColisChange(ColisChangeEvent.modification("colis-1",
+                    ColisEtat.builder().statut(StatutColis.EN_TRANSIT).livreurId("liv-2").build(), livre));
+            return livraisons;
+        });
+
+        service.reconstruire();
+
+        assertThat(service.getClassement(CritereClassement.LIVRAISONS, 10))
+                .extracting(ClassementLivreurDTO::getLivreurId).containsExactlyInAnyOrder("liv-1", "liv-2");
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter une limite invalide")
+    void shouldRejectInvalidLimit() {
+        assertThatThrownBy(() -> service.getClassement(CritereClassement.LIVRAISONS, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Livreur livreur(String id, String nom) {
+        Livreur livreur = new Livreur();
+        livreur.setId(id);
+        livreur.setNom(nom);
+        return livreur;
+    }
+}
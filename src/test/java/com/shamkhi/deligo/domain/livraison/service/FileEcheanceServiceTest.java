@@ -0,0 +1,150 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ProchainColisDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du FileEcheanceService")
+class FileEcheanceServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private UserRepository userRepository;
+
+    private final IndexAutorisations indexAutorisations = new IndexAutorisations();
+    private FileEcheanceService service;
+    private LocalDateTime demain;
+
+    @BeforeEach
+    void setUp() {
+        service = new FileEcheanceService(colisRepository, new ResolveurUtilisateur(userRepository, indexAutorisations), indexAutorisations);
+        ReflectionTestUtils.setField(service, "avanceUrgentH", 4L);
+        ReflectionTestUtils.setField(service, "avanceTresUrgentH", 12L);
+        demain = LocalDateTime.now().plusDays(1).withNano(0);
+
+        when(colisRepository.findOpenDeadlines(anyCollection())).thenReturn(List.of(
+                new Object[]{"normal-tot", "liv-1", "zone-1", PrioriteColis.NORMALE, demain},
+                new Object[]{"urgent-tard", "liv-1", "zone-1", PrioriteColis.URGENT, demain.plusHours(2)},
+                new Object[]{"tres-urgent-tard", "liv-1", "zone-1", PrioriteColis.TRES_URGENT, demain.plusHours(10)},
+                new Object[]{"sans-date", "liv-1", "zone-1", PrioriteColis.TRES_URGENT, null},
+                new Object[]{"a-affecter", null, "zone-1", PrioriteColis.NORMALE, demain}));
+        service.reconstruire();
+    }
+
+    @Test
+    @DisplayName("Devrait ordonner par échéance avancée selon la priorité")
+    void shouldOrderByWeightedDeadline() {
+        List<ProchainColisDTO> prochains = service.getProchainsLivreur("liv-1", 10);
+
+        // très urgent : demain + 10 h - 12 h ; urgent : demain + 2 h - 4 h ; normal : demain
+        assertThat(prochains).extracting(ProchainColisDTO::getColisId)
+                .containsExactly("tres-urgent-tard", "urgent-tard", "normal-tot", "sans-date");
+        assertThat(prochains.get(0).getEcheanceEffective()).isEqualTo(demain.minusHours(2));
+        assertThat(prochains.get(3).getEcheanceEffective()).isNull();
+        assertThat(service.getProchainsLivreur("liv-1", 2)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Devrait faire passer un colis de la file de zone à celle du livreur à l'affectation")
+    void shouldMoveFromZoneToLivreurOnAssignment() {
+        assertThat(service.getProchainsZone("zone-1", 10)).extracting(ProchainColisDTO::getColisId)
+                .containsExactly("a-affecter");
+
+        service.onColisChange(ColisChangeEvent.modification("a-affecter",
+                etat(StatutColis.CREE, null), etat(StatutColis.CREE, "liv-2")));
+
+        assertThat(service.getProchainsZone("zone-1", 10)).isEmpty();
+        assertThat(service.getProchainsLivreur("liv-2", 10)).extracting(ProchainColisDTO::getColisId)
+                .containsExactly("a-affecter");
+    }
+
+    @Test
+    @DisplayName("Devrait retirer un colis livré et rendre à la zone les colis d'un livreur supprimé")
+    void shouldRemoveDeliveredAndReleaseDeletedLivreur() {
+        service.onColisChange(ColisChangeEvent.modification("normal-tot",
+                etat(StatutColis.EN_TRANSIT, "liv-1"), etat(StatutColis.LIVRE, "liv-1")));
+        assertThat(service.getProchainsLivreur("liv-1", 10)).extracting(ProchainColisDTO::getColisId)
+                .doesNotContain("normal-tot");
+
+        service.onLivreurChange(LivreurChangeEvent.suppression("liv-1"));
+
+        assertThat(service.getProchainsLivreur("liv-1", 10)).isEmpty();
+        assertThat(service.getProchainsZone("zone-1", 10)).extracting(ProchainColisDTO::getColisId)
+                .containsExactly("tres-urgent-tard", "urgent-tard", "a-affecter", "sans-date");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas écraser un changement reçu pendant la reconstruction")
+    void shouldKeepChangesReceivedDuringRebuild() {
+        // Lignes lues avant l'affectation et la livraison, appliquées après elles
+        when(colisRepository.findOpenDeadlines(anyCollection())).thenAnswer(invocation -> {
+            service.onColisChange(ColisChangeEvent.modification("a-affecter",
+                    etat(StatutColis.CREE, null), etat(StatutColis.CREE, "liv-2")));
+            service.onColisChange(ColisChangeEvent.modification("normal-tot",
+                    etat(StatutColis.EN_TRANSIT, "liv-1"), etat(StatutColis.LIVRE, "liv-1")));
+            return List.of(
+                    new Object[]{"normal-tot", "liv-1", "zone-1", PrioriteColis.NORMALE, demain},
+                    new Object[]{"a-affecter", null, "zone-1", PrioriteColis.NORMALE, demain});
+        });
+
+        service.reconstruire();
+
+        assertThat(service.getProchainsLivreur("liv-1", 10)).isEmpty();
+        assertThat(service.getProchainsZone("zone-1", 10)).isEmpty();
+        assertThat(service.getProchainsLivreur("liv-2", 10)).extracting(ProchainColisDTO::getColisId)
+                .containsExactly("a-affecter");
+    }
+
+    @Test
+    @DisplayName("Devrait refuser à un livreur la file d'un autre livreur")
+    void shouldDenyOtherLivreur() {
+        Livreur livreur = new Livreur();
+        livreur.setId("liv-2");
+        User user = new User();
+        user.setUsername("livreur2");
+        user.setLivreur(livreur);
+        when(userRepository.findByUsername("livreur2")).thenReturn(Optional.of(user));
+        Authentication auth = new UsernamePasswordAuthenticationToken(
+                "livreur2", null, List.of(new SimpleGrantedAuthority("ROLE_LIVREUR")));
+
+        assertThatThrownBy(() -> service.getProchainsForUser("liv-1", 10, auth))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(service.getProchainsForUser("liv-2", 10, auth)).isEmpty();
+    }
+
+    private ColisEtat etat(StatutColis statut, String livreurId) {
+        return ColisEtat.builder()
+                .statut(statut)
+                .priorite(PrioriteColis.NORMALE)
+                .livreurId(livreurId)
+                .zoneId("zone-1")
+                .dateLimiteLivraison(demain)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.dto.ColisPositionDTO;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.CoordonneesDTO;
+import com.shamkhi.deligo.domain.livraison.dto.LivreurProximiteDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PolygoneRequest;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.geo.GrilleSpatiale;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'IndexSpatialService")
+class IndexSpatialServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private LivreurRepository livreurRepository;
+
+    private IndexSpatialService service;
+
+    // Carré d'environ 2 km autour du centre de Casablanca
+    private final PolygoneRequest carre = new PolygoneRequest(List.of(
+            new CoordonneesDTO(33.58, -7.62),
+            new CoordonneesDTO(33.58, -7.60),
+            new CoordonneesDTO(33.60, -7.60),
+            new CoordonneesDTO(33.60, -7.62)));
+
+    @BeforeEach
+    void setUp() {
+        service = new IndexSpatialService(colisRepository, livreurRepository);
+        ReflectionTestUtils.setField(service, "tailleCellule", 0.01);
+        ReflectionTestUtils.setField(service, "rayonMaxKm", 50.0);
+    }
+
+    @Nested
+    @DisplayName("Index construit")
+    class IndexTests {
+
+        @BeforeEach
+        void construire() {
+            when(colisRepository.findOpenPositions(anyCollection())).thenReturn(List.of(
+                    new Object[]{"colis-dedans", 33.59, -7.61},
+                    new Object[]{"colis-dehors", 33.65, -7.61}));
+            when(livreurRepository.findActivePositions()).thenReturn(List.of(
+                    new Object[]{"liv-proche", "Alami", "Ahmed", 33.591, -7.611},
+                    new Object[]{"liv-moyen", "Bennani", "Sara", 33.60, -7.62},
+                    new Object[]{"liv-loin", "Chraibi", "Omar", 33.70, -7.50}));
+            service.reconstruire();
+        }
+
+        @Test
+        @DisplayName("Devrait trouver les livreurs dans le rayon, du plus proche au plus éloigné")
+        void shouldFindLivreursWithinRadius() {
+            List<LivreurProximiteDTO> proches = service.getLivreursProches(33.59, -7.61, 3);
+
+            assertThat(proches).extracting(LivreurProximiteDTO::getLivreurId).containsExactly("liv-proche", "liv-moyen");
+            assertThat(proches.get(0).getNom()).isEqualTo("Alami");
+            assertThat(proches.get(0).getDistanceKm()).isLessThan(0.2);
+        }
+
+        @Test
+        @DisplayName("Devrait trouver les colis dans le polygone")
+        void shouldFindColisInPolygon() {
+            assertThat(service.getColisDansPolygone(carre))
+                    .extracting(ColisPositionDTO::getColisId).containsExactly("colis-dedans");
+        }
+
+        @Test
+        @DisplayName("Devrait suivre les changements de colis et de livreurs")
+        void shouldFollowEvents() {
+            ColisEtat ouvert = ColisEtat.builder().statut(StatutColis.EN_TRANSIT).latitude(33.585).longitude(-7.605).build();
+            ColisEtat livre = ColisEtat.builder().statut(StatutColis.LIVRE).latitude(33.59).longitude(-7.61).build();
+            service.onColisChange(ColisChangeEvent.creation("colis-nouveau", ouvert));
+            service.onColisChange(ColisChangeEvent.modification("colis-dedans", ouvert, livre));
+
+            assertThat(service.getColisDansPolygone(carre))
+                    .extracting(ColisPositionDTO::getColisId).containsExactly("colis-nouveau");
+
+            service.onLivreurChange(new LivreurChangeEvent("liv-loin", "Chraibi", "Omar", true, 33.592, -7.612, false));
+            service.onLivreurChange(new LivreurChangeEvent("liv-proche", "Alami", "Ahmed", false, 33.591, -7.611, false));
+
+            assertThat(service.getLivreursProches(33.59, -7.61, 1))
+                    .extracting(LivreurProximiteDTO::getLivreurId).containsExactly("liv-loin");
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas écraser une mise à jour reçue pendant la reconstruction")
+        void shouldKeepUpdatesReceivedDuringRebuild() {
+            ColisEtat ouvert = ColisEtat.builder().statut(StatutColis.EN_TRANSIT).latitude(33.59).longitude(-7.61).build();
+            ColisEtat livre = ColisEtat.builder().statut(StatutColis.LIVRE).latitude(33.59).longitude(-7.61).build();
+            // Lignes lues avant la livraison et la nouvelle position GPS, appliquées après elles
+            when(colisRepository.findOpenPositions(anyCollection())).thenAnswer(invocation -> {
+                service.onColisChange(ColisChangeEvent.modification("colis-dedans", ouvert, livre));
+                service.placerLivreur("liv-loin", "Chraibi", "Omar", 33.592, -7.612);
+                return List.of(new Object[]{"colis-dedans", 33.59, -7.61}, new Object[]{"colis-dehors", 33.65, -7.61});
+            });
+
+            service.reconstruire();
+
+            assertThat(service.getColisDansPolygone(carre)).isEmpty();
+            assertThat(service.getLivreursProches(33.59, -7.61, 1))
+                    .extracting(LivreurProximiteDTO::getLivreurId).containsExactlyInAnyOrder("liv-proche", "liv-loin");
+        }
+
+        @Test
+        @DisplayName("Devrait rejeter un rayon invalide")
+        void shouldRejectInvalidRadius() {
+            assertThatThrownBy(() -> service.getLivreursProches(33.59, -7.61, 500))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Repli SQL")
+    class ReplisTests {
+
+        @Test
+        @DisplayName("Devrait interroger la base tant que l'index n'est pas construit")
+        void shouldFallBackToBoundingBoxQuery() {
+            when(livreurRepository.findActivePositionsInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                    .thenReturn(List.<Object[]>of(
+                            new Object[]{"liv-1", "Alami", "Ahmed", 33.591, -7.611},
+                            // Dans le rectangle mais hors du cercle
+                            new Object[]{"liv-coin", "Bennani", "Sara", 33.616, -7.641}));
+            when(colisRepository.findOpenPositionsInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyCollection()))
+                    .thenReturn(List.<Object[]>of(new Object[]{"colis-1", 33.59, -7.61}));
+
+            assertThat(service.getLivreursProches(33.59, -7.61, 3))
+                    .extracting(LivreurProximiteDTO::getLivreurId).containsExactly("liv-1");
+            assertThat(service.getColisDansPolygone(carre)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait déplacer un point d'une cellule à l'autre")
+    void shouldMovePointBetweenCells() {
+        GrilleSpatiale grille = new GrilleSpatiale(0.01);
+        grille.placer("a", 33.59, -7.61);
+        grille.placer("a", 34.02, -6.84);
+
+        assertThat(grille.dansRayon(33.59, -7.61, 1)).isEmpty();
+        assertThat(grille.dansRayon(34.02, -6.84, 1)).extracting(GrilleSpatiale.Resultat::getId).containsExactly("a");
+        assertThat(grille.taille()).isEqualTo(1);
+
+        grille.retirer("a");
+        assertThat(grille.taille()).isZero();
+    }
+}
@@ -5,7 +5,12 @@ import com.shamkhi.deligo.domain.livraison.dto.LivreurDTO;
 import com.shamkhi.deligo.domain.livraison.model.Livreur;
 import com.shamkhi.deligo.domain.livraison.model.Zone;
 import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurVue;
 import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import com.shamkhi.deligo.domain.security.model.Role;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.RoleRepository;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
 import com.shamkhi.deligo.infrastructure.exception.DuplicateResourceException;
 import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
 import com.shamkhi.deligo.infrastructure.exception.*;
@@ -13,7 +18,9 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.*;
 
@@ -27,12 +34,17 @@ class LivreurServiceTest {
 
     @Mock private LivreurRepository repository;
     @Mock private ZoneRepository zoneRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private RoleRepository roleRepository;
+    @Mock private PasswordEncoder passwordEncoder;
     @Mock private LivreurMapper mapper;
+    @Mock private ApplicationEventPublisher eventPublisher;
     @InjectMocks private LivreurService service;
 
     private Livreur livreur;
     private LivreurDTO livreurDTO;
     private Zone zone;
+    private User user;
 
     @BeforeEach
     void setUp() {
@@ -52,6 +64,16 @@ class LivreurServiceTest {
         livreurDTO.setNom("Alami");
         livreurDTO.setTelephone("0612345678");
         livreurDTO.setActif(true);
+        livreurDTO.setUsername("ahmed.alami");
+        livreurDTO.setEmail("ahmed@deligo.ma");
+        livreurDTO.setPassword("secret123");
+
+        user = User.builder()
+                .id("user-1")
+                .username("ahmed.alami")
+                .email("ahmed@deligo.ma")
+                .roles(new HashSet<>())
+                .build();
     }
 
     @Nested
@@ -61,44 +83,47 @@ class LivreurServiceTest {
         @DisplayName("Devrait récupérer tous les livreurs")
         void shouldGetAll() {
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Livreur> page = new PageImpl<>(Arrays.asList(livreur));
-            when(repository.findAll(pageable)).thenReturn(page);
-            when(mapper.toDTO(any())).thenReturn(livreurDTO);
+            LivreurVue vue = mock(LivreurVue.class);
+            when(repository.findAllVues(pageable)).thenReturn(new PageImpl<>(List.of(vue)));
+            when(mapper.vueToDTO(vue)).thenReturn(livreurDTO);
 
             Page<LivreurDTO> result = service.getAllLivreurs(pageable);
 
             assertThat(result).isNotEmpty();
             assertThat(result.getContent()).hasSize(1);
+            verifyNoInteractions(userRepository);
         }
 
         @Test
         @DisplayName("Devrait récupérer les livreurs actifs")
         void shouldGetActifs() {
-            when(repository.findByActif(true)).thenReturn(Arrays.asList(livreur));
-            when(mapper.toDTOList(any())).thenReturn(Arrays.asList(livreurDTO));
+            when(repository.findVuesByActif(true)).thenReturn(List.of(mock(LivreurVue.class)));
+            when(mapper.vuesToDTOList(any())).thenReturn(Arrays.asList(livreurDTO));
 
             List<LivreurDTO> result = service.getActiveLivreurs();
 
             assertThat(result).hasSize(1);
-            verify(repository).findByActif(true);
+            verify(repository).findVuesByActif(true);
         }
 
         @Test
         @DisplayName("Devrait récupérer un livreur par ID")
         void shouldGetById() {
-            when(repository.findById("1")).thenReturn(Optional.of(livreur));
-            when(mapper.toDTO(livreur)).thenReturn(livreurDTO);
+            LivreurVue vue = mock(LivreurVue.class);
+            when(repository.findVueById("1")).thenReturn(Optional.of(vue));
+            when(mapper.vueToDTO(vue)).thenReturn(livreurDTO);
 
             LivreurDTO result = service.getLivreurById("1");
 
             assertThat(result).isNotNull();
             assertThat(result.getId()).isEqualTo("1");
+            verifyNoInteractions(userRepository);
         }
 
         @Test
         @DisplayName("Devrait lever exception si non trouvé")
         void shouldThrowWhenNotFound() {
-            when(repository.findById("invalid")).thenReturn(Optional.empty());
+            when(repository.findVueById("invalid")).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> service.getLivreurById("invalid"))
                     .isInstanceOf(ResourceNotFoundException.class);
@@ -114,11 +139,14 @@ class LivreurServiceTest {
             when(repository.existsByTelephone(anyString())).thenReturn(false);
             when(mapper.toEntity(livreurDTO)).thenReturn(livreur);
             when(repository.save(any())).thenReturn(livreur);
+            when(roleRepository.findByName("ROLE_LIVREUR")).thenReturn(Optional.of(new Role()));
+            when(userRepository.save(any())).thenReturn(user);
             when(mapper.toDTO(any())).thenReturn(livreurDTO);
 
             LivreurDTO result = service.createLivreur(livreurDTO);
 
             assertThat(result).isNotNull();
+            assertThat(result.getUserId()).isEqualTo("user-1");
             verify(repository).save(any());
         }
 
@@ -131,6 +159,8 @@ class LivreurServiceTest {
             when(mapper.toEntity(livreurDTO)).thenReturn(livreur);
             when(zoneRepository.findById("zone-1")).thenReturn(Optional.of(zone));
             when(repository.save(any())).thenReturn(livreur);
+            when(roleRepository.findByName("ROLE_LIVREUR")).thenReturn(Optional.of(new Role()));
+            when(userRepository.save(any())).thenReturn(user);
             when(mapper.toDTO(any())).thenReturn(livreurDTO);
 
             LivreurDTO result = service.createLivreur(livreurDTO);
@@ -172,10 +202,14 @@ class LivreurServiceTest {
             when(repository.save(any())).thenReturn(livreur);
             when(mapper.toDTO(any())).thenReturn(livreurDTO);
 
+            when(userRepository.findByLivreurId("1")).thenReturn(Optional.of(user));
+
             LivreurDTO result = service.updateLivreur("1", livreurDTO);
 
             assertThat(result).isNotNull();
+            assertThat(result.getUserId()).isEqualTo("user-1");
             verify(mapper).updateEntity(livreurDTO, livreur);
+            verify(userRepository, times(1)).findByLivreurId("1");
         }
 
         @Test
@@ -224,13 +258,14 @@ class LivreurServiceTest {
         @DisplayName("Devrait rechercher par mot-clé")
         void shouldSearch() {
             Pageable pageable = PageRequest.of(0, 10);
-            Page<Livreur> page = new PageImpl<>(Arrays.asList(livreur));
-            when(repository.searchByKeyword("Alami", pageable)).thenReturn(page);
-            when(mapper.toDTO(any())).thenReturn(livreurDTO);
+            when(repository.searchVuesByKeyword("Alami", pageable))
+                    .thenReturn(new PageImpl<>(List.of(mock(LivreurVue.class))));
+            when(mapper.vueToDTO(any())).thenReturn(livreurDTO);
 
             Page<LivreurDTO> result = service.searchLivreurs("Alami", pageable);
 
             assertThat(result).isNotEmpty();
+            verifyNoInteractions(userRepository);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.event.ColisEtat;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisProduitRepository;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ArretTourneeDTO;
+import com.shamkhi.deligo.domain.livraison.dto.GenerationManifestesDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ManifesteDTO;
+import com.shamkhi.deligo.domain.livraison.dto.TourneeDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Tests du ManifesteService")
+class ManifesteServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private ColisProduitRepository colisProduitRepository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private TourneeService tourneeService;
+
+    @TempDir Path dossier;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final IndexAutorisations indexAutorisations = new IndexAutorisations();
+    private ManifesteService service;
+    private Livreur livreur;
+    private final List<Object[]> lignes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new ManifesteService(colisRepository, colisProduitRepository, livreurRepository,
+                new ResolveurUtilisateur(userRepository, indexAutorisations), indexAutorisations, tourneeService, objectMapper);
+        ReflectionTestUtils.setField(service, "repertoire", dossier.toString());
+        ReflectionTestUtils.setField(service, "parallelisme", 2);
+        service.init();
+
+        livreur = new Livreur();
+        livreur.setId("liv-1");
+        livreur.setNom("Alami");
+        livreur.setPrenom("Ahmed");
+        when(livreurRepository.findById("liv-1")).thenReturn(Optional.of(livreur));
+        when(livreurRepository.findByActif(true)).thenReturn(List.of(livreur));
+
+        lignes.add(ligne("colis-a", StatutColis.EN_TRANSIT));
+        lignes.add(ligne("colis-b", StatutColis.CREE));
+        when(colisRepository.findManifestByLivreur(eq("liv-1"), anyCollection())).thenAnswer(i -> new ArrayList<>(lignes));
+        when(colisProduitRepository.findLignesByColisIds(anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[]{"colis-a", "prod-1", "Casque", 2, BigDecimal.valueOf(199)}));
+        when(tourneeService.getTournee("liv-1", null, null)).thenReturn(TourneeDTO.builder()
+                .livreurId("liv-1")
+                .distanceTotaleKm(BigDecimal.valueOf(4.2))
+                .arrets(List.of(arret("colis-b", 1), arret("colis-a", 2)))
+                .colisSansCoordonnees(List.of())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Devrait écrire un manifeste compressé dans l'ordre de la tournée")
+    void shouldWriteCompressedManifestInTourOrder() throws Exception {
+        FichierManifeste fichier = service.getManifeste("liv-1");
+
+        ManifesteDTO manifeste = lire(fichier.getFichier());
+        assertThat(fichier.getTaille()).isEqualTo(Files.size(fichier.getFichier()));
+        assertThat(fichier.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(manifeste.getNombreColis()).isEqualTo(2);
+        assertThat(manifeste.getColis()).extracting(c -> c.getColisId()).containsExactly("colis-b", "colis-a");
+        // Collecte chez l'expéditeur, livraison chez le destinataire
+        assertThat(manifeste.getColis().get(0).getType()).isEqualTo(TypeArret.COLLECTE);
+        assertThat(manifeste.getColis().get(0).getAdresse()).isEqualTo("Adresse expéditeur");
+        assertThat(manifeste.getColis().get(1).getAdresse()).isEqualTo("Adresse destinataire");
+        assertThat(manifeste.getColis().get(1).getProduits()).singleElement()
+                .satisfies(p -> assertThat(p.getQuantite()).isEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("Devrait garder le même ETag tant que les colis ne changent pas")
+    void shouldKeepEtagWhenUnchanged() {
+        FichierManifeste premier = service.getManifeste("liv-1");
+        assertThat(service.getManifeste("liv-1")).isSameAs(premier);
+
+        FichierManifeste regenere = service.generer("liv-1");
+
+        assertThat(regenere.getEtag()).isEqualTo(premier.getEtag());
+        verify(colisRepository, times(2)).findManifestByLivreur(eq("liv-1"), anyCollection());
+    }
+
+    @Test
+    @DisplayName("Devrait régénérer seulement le manifeste du livreur dont les colis changent")
+    void shouldRegenerateOnlyAffectedManifest() throws Exception {
+        FichierManifeste premier = service.getManifeste("liv-1");
+
+        // Un colis d'un autre livreur ne touche pas ce manifeste
+        service.onColisChange(ColisChangeEvent.creation("colis-x", etat("liv-2")));
+        assertThat(service.getManifeste("liv-1")).isSameAs(premier);
+
+        lignes.add(ligne("colis-c", StatutColis.EN_STOCK));
+        service.onColisChange(ColisChangeEvent.modification("colis-c", etat(null), etat("liv-1")));
+        FichierManifeste nouveau = service.getManifeste("liv-1");
+
+        assertThat(nouveau.getEtag()).isNotEqualTo(premier.getEtag());
+        assertThat(lire(nouveau.getFichier()).getColis()).extracting(c -> c.getColisId())
+                .containsExactly("colis-b", "colis-a", "colis-c");
+        // Le fichier précédent reste disponible pour un téléchargement en cours
+        assertThat(premier.getFichier()).exists();
+    }
+
+    @Test
+    @DisplayName("Devrait générer tous les manifestes et supprimer celui d'un livreur supprimé")
+    void shouldGenerateAllAndForgetDeletedLivreur() {
+        GenerationManifestesDTO resultat = service.genererTous();
+        FichierManifeste manifeste = service.getManifeste("liv-1");
+
+        assertThat(resultat.getNombreGeneres()).isEqualTo(1);
+        assertThat(resultat.getNombreEchecs()).isZero();
+
+        service.onLivreurChange(LivreurChangeEvent.suppression("liv-1"));
+
+        assertThat(manifeste.getFichier()).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas republier le manifeste d'un livreur désactivé")
+    void shouldNotRepublishDeactivatedLivreur() {
+        FichierManifeste manifeste = service.getManifeste("liv-1");
+        livreur.setActif(false);
+
+        assertThatThrownBy(() -> service.generer("liv-1")).isInstanceOf(IllegalStateException.class);
+        assertThat(manifeste.getFichier()).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Devrait omettre la partie manquante du nom du contact")
+    void shouldSkipMissingContactName() throws Exception {
+        lignes.get(0)[7] = null;
+
+        ManifesteDTO manifeste = lire(service.getManifeste("liv-1").getFichier());
+
+        assertThat(manifeste.getColis()).filteredOn(c -> c.getColisId().equals("colis-a"))
+                .singleElement().satisfies(c -> assertThat(c.getNom()).isEqualTo("Martin"));
+    }
+
+    @Test
+    @DisplayName("Devrait refuser à un livreur le manifeste d'un autre livreur")
+    void shouldDenyOtherLivreur() {
+        Livreur autre = new Livreur();
+        autre.setId("liv-2");
+        User user = new User();
+        user.setUsername("livreur2");
+        user.setLivreur(autre);
+        when(userRepository.findByUsername("livreur2")).thenReturn(Optional.of(user));
+        Authentication auth = new UsernamePasswordAuthenticationToken(
+                "livreur2", null, List.of(new SimpleGrantedAuthority("ROLE_LIVREUR")));
+
+        assertThatThrownBy(() -> service.getManifesteForUser("liv-1", auth))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    private ManifesteDTO lire(Path fichier) throws Exception {
+        try (InputStream entree = new GZIPInputStream(Files.newInputStream(fichier))) {
+            return objectMapper.readValue(entree, ManifesteDTO.class);
+        }
+    }
+
+    private static Object[] ligne(String colisId, StatutColis statut) {
+        return new Object[]{colisId, "Colis " + colisId, BigDecimal.valueOf(1.5), statut, PrioriteColis.NORMALE,
+                LocalDateTime.of(2030, 1, 1, 12, 0),
+                "Martin", "Marie", "0698765432", "Adresse destinataire", 33.59, -7.61,
+                "Dupont", "Jean", "0612345678", "Adresse expéditeur", 33.57, -7.59};
+    }
+
+    private static ArretTourneeDTO arret(String colisId, int ordre) {
+        return ArretTourneeDTO.builder().colisId(colisId).ordre(ordre).build();
+    }
+
+    private static ColisEtat etat(String livreurId) {
+        return ColisEtat.builder().statut(StatutColis.EN_STOCK).livreurId(livreurId).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.livraison.model.TypeVehicule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du PlanificateurChargement")
+class PlanificateurChargementTest {
+
+    private static final long BUDGET = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    @DisplayName("Devrait placer les gros colis d'abord pour tout faire tenir")
+    void shouldPlaceLargestFirst() {
+        // 2 véhicules de 10 kg : 6+4 et 5+5 ne tiennent qu'en plaçant 6 avant les 5
+        PlanificateurChargement.Vehicule[] vehicules = {vehicule(10_000, 100_000, 10), vehicule(10_000, 100_000, 10)};
+        long[] poids = {5_000, 4_000, 5_000, 6_000};
+
+        int[] affectation = PlanificateurChargement.planifier(poids, new long[4], new int[4], vehicules, BUDGET);
+
+        assertThat(affectation).doesNotContain(-1);
+        assertCapacites(affectation, poids, new long[4], new long[]{10_000, 10_000}, new long[]{100_000, 100_000});
+    }
+
+    @Test
+    @DisplayName("Devrait respecter le volume et servir la priorité la plus haute")
+    void shouldRespectVolumeAndPriority() {
+        PlanificateurChargement.Vehicule[] vehicules = {vehicule(30_000, 90_000, 10)};
+        long[] poids = {1_000, 1_000};
+        long[] volumes = {60_000, 50_000};
+        int[] rangs = {0, 2};
+
+        int[] affectation = PlanificateurChargement.planifier(poids, volumes, rangs, vehicules, BUDGET);
+
+        assertThat(affectation).containsExactly(-1, 0);
+    }
+
+    @Test
+    @DisplayName("Devrait répartir des milliers de colis sans dépasser les capacités et en équilibrant")
+    void shouldScaleToThousandsOfParcels() {
+        Random random = new Random(42);
+        TypeVehicule[] types = TypeVehicule.values();
+        PlanificateurChargement.Vehicule[] vehicules = new PlanificateurChargement.Vehicule[40];
+        long[] capaciteGrammes = new long[vehicules.length];
+        long[] capaciteMillilitres = new long[vehicules.length];
+        for (int k = 0; k < vehicules.length; k++) {
+            TypeVehicule type = types[k % types.length];
+            capaciteGrammes[k] = type.getPoidsMaxGrammes();
+            capaciteMillilitres[k] = type.getVolumeMaxMillilitres();
+            vehicules[k] = vehicule(capaciteGrammes[k], capaciteMillilitres[k], 500);
+        }
+        int n = 5_000;
+        long[] poids = new long[n];
+        long[] volumes = new long[n];
+        int[] rangs = new int[n];
+        for (int i = 0; i < n; i++) {
+            poids[i] = 200 + random.nextInt(4_000);
+            volumes[i] = random.nextInt(5) == 0 ? 0 : 500 + random.nextInt(8_000);
+            rangs[i] = random.nextInt(4);
+        }
+
+        long debut = System.nanoTime();
+        int[] affectation = PlanificateurChargement.planifier(poids, volumes, rangs, vehicules, BUDGET);
+        long dureeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut);
+
+        assertThat(dureeMs).isLessThan(2_000);
+        assertCapacites(affectation, poids, volumes, capaciteGrammes, capaciteMillilitres);
+        // La capacité totale est insuffisante : chaque véhicule doit être bien rempli
+        assertThat(Arrays.stream(affectation).filter(k -> k >= 0).count()).isGreaterThan(n / 3);
+    }
+
+    private static PlanificateurChargement.Vehicule vehicule(long grammes, long millilitres, long colis) {
+        return new PlanificateurChargement.Vehicule(grammes, millilitres, colis, 0, 0, 0);
+    }
+
+    private static void assertCapacites(int[] affectation, long[] poids, long[] volumes,
+                                        long[] capaciteGrammes, long[] capaciteMillilitres) {
+        long[] grammes = new long[capaciteGrammes.length];
+        long[] millilitres = new long[capaciteGrammes.length];
+        for (int i = 0; i < affectation.length; i++) {
+            if (affectation[i] >= 0) {
+                grammes[affectation[i]] += poids[i];
+                millilitres[affectation[i]] += volumes[i];
+            }
+        }
+        for (int k = 0; k < capaciteGrammes.length; k++) {
+            assertThat(grammes[k]).isLessThanOrEqualTo(capaciteGrammes[k]);
+            assertThat(millilitres[k]).isLessThanOrEqualTo(capaciteMillilitres[k]);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.client.model.Destinataire;
+import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.client.repository.DestinataireRepository;
+import com.shamkhi.deligo.domain.colis.event.ColisChangeEvent;
+import com.shamkhi.deligo.domain.colis.model.Colis;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.CompletionZonesDTO;
+import com.shamkhi.deligo.domain.livraison.event.ZoneChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du ResolutionZoneService")
+class ResolutionZoneServiceTest {
+
+    @Autowired private ZoneRepository zoneRepository;
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private EntityManager entityManager;
+
+    private ApplicationEventPublisher eventPublisher;
+    private ResolutionZoneService service;
+    private Zone anfa;
+    private Zone agdal;
+    private Zone fes;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        service = new ResolutionZoneService(zoneRepository, colisRepository, jdbcTemplate, transactionManager,
+                eventPublisher);
+        ReflectionTestUtils.setField(service, "tailleLot", 2);
+
+        anfa = saveZone("Anfa", "20000", "Casablanca");
+        saveZone("Maarif", "20100", "Casablanca");
+        agdal = saveZone("Agdal", "10080", "Rabat");
+        fes = saveZone("Fès Médina", "30000", "Fès");
+        service.reconstruire();
+    }
+
+    @Nested
+    @DisplayName("Résolution")
+    class ResolutionTests {
+
+        @Test
+        @DisplayName("Devrait résoudre la zone par le code postal de l'adresse")
+        void shouldResolveByPostalCode() {
+            assertThat(service.resoudre("12 boulevard d'Anfa, 20000 Casablanca", "Casablanca")).contains(anfa.getId());
+        }
+
+        @Test
+        @DisplayName("Devrait résoudre la zone par la ville normalisée")
+        void shouldResolveByNormalizedCity() {
+            assertThat(service.resoudre("Derb Sidi Ahmed", "  FES ")).contains(fes.getId());
+            assertThat(service.resoudre(null, "rabat")).contains(agdal.getId());
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas choisir de zone pour une ville ambiguë")
+        void shouldNotResolveAmbiguousCity() {
+            assertThat(service.resoudre("Rue 12", "Casablanca")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Devrait reconstruire l'index après une écriture de zone")
+        void shouldRefreshOnZoneChange() {
+            Zone tanger = saveZone("Tanger Centre", "90000", "Tanger");
+            assertThat(service.resoudre(null, "Tanger")).isEmpty();
+
+            service.onZoneChange(new ZoneChangeEvent(tanger.getId(), false));
+
+            assertThat(service.resoudre(null, "Tanger")).contains(tanger.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait compléter par lots les zones des colis qui n'en ont pas")
+    void shouldBackfillZonesInBatches() {
+        ClientExpediteur client = saveClient();
+        Colis rabat = saveColis(client, "Avenue de France, 10080 Rabat", "Rabat", null);
+        Colis fesColis = saveColis(client, "Derb Sidi Ahmed", "Fès", null);
+        Colis inconnu = saveColis(client, "Rue 12", "Casablanca", null);
+        saveColis(client, "Rue 14", "Casablanca", anfa);
+
+        CompletionZonesDTO resultat = service.completerZones();
+        entityManager.clear();
+
+        assertThat(resultat.getNombreTraites()).isEqualTo(3);
+        assertThat(resultat.getNombreResolus()).isEqualTo(2);
+        assertThat(colisRepository.findById(rabat.getId()).orElseThrow().getZone().getId()).isEqualTo(agdal.getId());
+        assertThat(colisRepository.findById(fesColis.getId()).orElseThrow().getZone().getId()).isEqualTo(fes.getId());
+        assertThat(colisRepository.findById(inconnu.getId()).orElseThrow().getZone()).isNull();
+
+        ArgumentCaptor<ColisChangeEvent> captor = ArgumentCaptor.forClass(ColisChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertThat(captor.getAllValues()).allSatisfy(event -> {
+            assertThat(event.getAvant().getZoneId()).isNull();
+            assertThat(event.getApres().getZoneId()).isNotNull();
+            assertThat(event.getApres().getStatut()).isEqualTo(StatutColis.CREE);
+        });
+    }
+
+    private Zone saveZone(String nom, String codePostal, String ville) {
+        Zone zone = new Zone();
+        zone.setNom(nom);
+        zone.setCodePostal(codePostal);
+        zone.setVille(ville);
+        return zoneRepository.save(zone);
+    }
+
+    private ClientExpediteur saveClient() {
+        ClientExpediteur client = new ClientExpediteur();
+        client.setNom("Test");
+        client.setPrenom("User");
+        client.setEmail("test@test.com");
+        client.setTelephone("0612345678");
+        client.setAdresse("Address");
+        return clientRepository.save(client);
+    }
+
+    private Colis saveColis(ClientExpediteur client, String adresse, String ville, Zone zone) {
+        Destinataire destinataire = new Destinataire();
+        destinataire.setNom("Dest");
+        destinataire.setPrenom("User");
+        destinataire.setTelephone("0698765432");
+        destinataire.setAdresse(adresse);
+        destinataire = destinataireRepository.save(destinataire);
+
+        Colis colis = new Colis();
+        colis.setDescription("Colis");
+        colis.setPoids(BigDecimal.valueOf(2.5));
+        colis.setStatut(StatutColis.CREE);
+        colis.setPriorite(PrioriteColis.NORMALE);
+        colis.setVilleDestination(ville);
+        colis.setClientExpediteur(client);
+        colis.setDestinataire(destinataire);
+        colis.setZone(zone);
+        return colisRepository.saveAndFlush(colis);
+    }
+}
@@ -0,0 +1,203 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.livraison.dto.IngestionPositionsDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionLivreurDTO;
+import com.shamkhi.deligo.domain.livraison.dto.PositionPingDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du SuiviPositionService")
+class SuiviPositionServiceTest {
+
+    @Autowired private LivreurRepository livreurRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    private IndexSpatialService indexSpatialService;
+    private final IndexAutorisations indexAutorisations = new IndexAutorisations();
+    private SuiviPositionService service;
+    private Livreur livreur;
+    private LocalDateTime debut;
+
+    private final Authentication manager = new UsernamePasswordAuthenticationToken(
+            "admin", null, List.of(new SimpleGrantedAuthority("ROLE_MANAGER")));
+
+    @BeforeEach
+    void setUp() {
+        indexSpatialService = mock(IndexSpatialService.class);
+        service = new SuiviPositionService(livreurRepository,
+                new ResolveurUtilisateur(userRepository, indexAutorisations), indexAutorisations, jdbcTemplate,
+                indexSpatialService, new SimpleMeterRegistry(), 1000);
+        ReflectionTestUtils.setField(service, "tailleTrace", 720);
+        ReflectionTestUtils.setField(service, "intervallePersistanceMs", 60_000L);
+        ReflectionTestUtils.setField(service, "distanceSignificativeM", 150.0);
+
+        livreur = saveLivreur("Alami", "0600000001", true);
+        debut = LocalDateTime.now().minusMinutes(10).withNano(0);
+    }
+
+    @Nested
+    @DisplayName("Ingestion et sous-échantillonnage")
+    class IngestionTests {
+
+        @Test
+        @DisplayName("Devrait garder toutes les positions en mémoire mais n'historiser qu'un point par minute")
+        void shouldDownsamplePersistedPoints() {
+            // 13 positions toutes les 5 s, déplacements de ~10 m
+            List<PositionPingDTO> pings = new ArrayList<>();
+            for (int i = 0; i <= 12; i++) {
+                pings.add(ping(33.59 + i * 0.0001, -7.61, debut.plusSeconds(i * 5L)));
+            }
+
+            IngestionPositionsDTO resultat = service.ingerer(livreur.getId(), pings, manager);
+            service.vider();
+            entityManager.clear();
+
+            assertThat(resultat.getAcceptees()).isEqualTo(13);
+            assertThat(service.getTrace(livreur.getId())).hasSize(13);
+            assertThat(countPositions()).isEqualTo(2);
+            Livreur relu = livreurRepository.findById(livreur.getId()).orElseThrow();
+            assertThat(relu.getLatitude()).isEqualTo(33.5912, within(1e-9));
+            assertThat(relu.getDatePosition()).isEqualTo(debut.plusSeconds(60));
+            verify(indexSpatialService).placerLivreur(livreur.getId(), "Alami", "Test", 33.5912, -7.61);
+        }
+
+        @Test
+        @DisplayName("Devrait historiser immédiatement un déplacement significatif")
+        void shouldPersistSignificantMove() {
+            service.ingerer(livreur.getId(), List.of(
+                    ping(33.59, -7.61, debut),
+                    ping(33.592, -7.61, debut.plusSeconds(5))), manager);
+            service.vider();
+
+            assertThat(countPositions()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Devrait remettre les positions en ordre et ignorer les doublons et retardataires")
+        void shouldOrderAndIgnoreStalePings() {
+            service.ingerer(livreur.getId(), List.of(
+                    ping(33.5902, -7.61, debut.plusSeconds(10)),
+                    ping(33.5900, -7.61, debut),
+                    ping(33.5901, -7.61, debut.plusSeconds(5))), manager);
+
+            IngestionPositionsDTO resultat = service.ingerer(livreur.getId(), List.of(
+                    ping(33.5901, -7.61, debut.plusSeconds(5)),
+                    ping(33.5903, -7.61, debut.plusSeconds(15))), manager);
+
+            assertThat(resultat.getAcceptees()).isEqualTo(1);
+            assertThat(resultat.getIgnorees()).isEqualTo(1);
+            assertThat(service.getTrace(livreur.getId())).extracting(PositionLivreurDTO::getLatitude)
+                    .containsExactly(33.5900, 33.5901, 33.5902, 33.5903);
+            assertThat(service.getPositionsCourantes()).singleElement()
+                    .extracting(PositionLivreurDTO::getHorodatage).isEqualTo(debut.plusSeconds(15));
+        }
+
+        @Test
+        @DisplayName("Devrait ne conserver que les derniers points dans le tampon circulaire")
+        void shouldKeepOnlyLatestPointsInRingBuffer() {
+            ReflectionTestUtils.setField(service, "tailleTrace", 3);
+            List<PositionPingDTO> pings = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                pings.add(ping(33.59 + i * 0.0001, -7.61, debut.plusSeconds(i * 5L)));
+            }
+
+            service.ingerer(livreur.getId(), pings, manager);
+
+            assertThat(service.getTrace(livreur.getId())).extracting(PositionLivreurDTO::getHorodatage)
+                    .containsExactly(debut.plusSeconds(10), debut.plusSeconds(15), debut.plusSeconds(20));
+        }
+    }
+
+    @Nested
+    @DisplayName("Contrôles")
+    class ControleTests {
+
+        @Test
+        @DisplayName("Devrait refuser les positions d'un autre livreur")
+        void shouldRejectOtherLivreurPositions() {
+            Livreur autre = saveLivreur("Bennani", "0600000002", true);
+            userRepository.save(User.builder()
+                    .username("ahmed")
+                    .email("ahmed@deligo.ma")
+                    .nom("Alami")
+                    .prenom("Ahmed")
+                    .livreur(livreur)
+                    .build());
+            Authentication ahmed = new UsernamePasswordAuthenticationToken(
+                    "ahmed", null, List.of(new SimpleGrantedAuthority("ROLE_LIVREUR")));
+
+            assertThat(service.ingerer(livreur.getId(), List.of(ping(33.59, -7.61, debut)), ahmed).getAcceptees())
+                    .isEqualTo(1);
+            assertThatThrownBy(() -> service.ingerer(autre.getId(), List.of(ping(33.59, -7.61, debut)), ahmed))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser les positions d'un livreur désactivé")
+        void shouldRejectInactiveLivreur() {
+            service.ingerer(livreur.getId(), List.of(ping(33.59, -7.61, debut)), manager);
+            service.onLivreurChange(new LivreurChangeEvent(livreur.getId(), "Alami", "Test", false, null, null, false));
+
+            assertThatThrownBy(() -> service.ingerer(livreur.getId(), List.of(ping(33.59, -7.61, debut.plusSeconds(5))), manager))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(service.getPositionsCourantes()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Devrait abandonner les points en attente d'un livreur supprimé")
+        void shouldDropPendingPointsOfDeletedLivreur() {
+            service.ingerer(livreur.getId(), List.of(ping(33.59, -7.61, debut)), manager);
+            service.onLivreurChange(LivreurChangeEvent.suppression(livreur.getId()));
+
+            service.vider();
+
+            assertThat(countPositions()).isZero();
+        }
+    }
+
+    private long countPositions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM position_livreur", Long.class);
+    }
+
+    private PositionPingDTO ping(double latitude, double longitude, LocalDateTime horodatage) {
+        return new PositionPingDTO(latitude, longitude, horodatage);
+    }
+
+    private Livreur saveLivreur(String nom, String telephone, boolean actif) {
+        Livreur l = new Livreur();
+        l.setNom(nom);
+        l.setPrenom("Test");
+        l.setTelephone(telephone);
+        l.setActif(actif);
+        return livreurRepository.saveAndFlush(l);
+    }
+}
@@ -0,0 +1,258 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ArretTourneeDTO;
+import com.shamkhi.deligo.domain.livraison.dto.TourneeDTO;
+import com.shamkhi.deligo.domain.livraison.event.LivreurChangeEvent;
+import com.shamkhi.deligo.domain.livraison.geo.Haversine;
+import com.shamkhi.deligo.domain.livraison.model.Livreur;
+import com.shamkhi.deligo.domain.livraison.model.TypeArret;
+import com.shamkhi.deligo.domain.livraison.repository.LivreurRepository;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.domain.security.service.IndexAutorisations;
+import com.shamkhi.deligo.domain.security.service.ResolveurUtilisateur;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du TourneeService")
+class TourneeServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private UserRepository userRepository;
+
+    private final IndexAutorisations indexAutorisations = new IndexAutorisations();
+    private TourneeService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TourneeService(colisRepository, livreurRepository, new ResolveurUtilisateur(userRepository, indexAutorisations), indexAutorisations);
+        ReflectionTestUtils.setField(service, "budgetMs", 200L);
+        ReflectionTestUtils.setField(service, "parallelisme", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Nested
+    @DisplayName("Optimiseur")
+    class OptimiseurTests {
+
+        @Test
+        @DisplayName("Devrait remettre dans l'ordre des points alignés")
+        void shouldOrderAlignedPoints() {
+            double[] latitudes = {33.50, 33.58, 33.52, 33.56, 33.54, 33.51};
+            double[] longitudes = new double[latitudes.length];
+            Arrays.fill(longitudes, -7.60);
+            double[][] distances = Haversine.matrice(latitudes, longitudes);
+
+            int[] ordre = OptimiseurTournee.optimiser(distances, 50_000_000L);
+
+            assertThat(ordre).containsExactly(0, 5, 2, 4, 3, 1);
+        }
+
+        @Test
+        @DisplayName("Ne devrait jamais allonger le chemin du plus proche voisin")
+        void shouldNotBeWorseThanCreationOrderOnRandomInstances() {
+            Random random = new Random(42);
+            for (int essai = 0; essai < 20; essai++) {
+                int n = 40;
+                double[] latitudes = new double[n];
+                double[] longitudes = new double[n];
+                for (int i = 0; i < n; i++) {
+                    latitudes[i] = 33.5 + random.nextDouble() * 0.1;
+                    longitudes[i] = -7.7 + random.nextDouble() * 0.1;
+                }
+                double[][] distances = Haversine.matrice(latitudes, longitudes);
+                int[] identite = new int[n];
+                for (int i = 0; i < n; i++) {
+                    identite[i] = i;
+                }
+
+                int[] ordre = OptimiseurTournee.optimiser(distances, 50_000_000L);
+
+                assertThat(ordre[0]).isZero();
+                assertThat(Arrays.stream(ordre).sorted().toArray()).isEqualTo(identite);
+                assertThat(OptimiseurTournee.longueur(distances, ordre))
+                        .isLessThanOrEqualTo(OptimiseurTournee.longueur(distances, identite));
+            }
+        }
+
+        @Test
+        @DisplayName("Devrait calculer la distance haversine")
+        void shouldComputeHaversineDistance() {
+            // Casablanca -> Rabat : environ 87 km à vol d'oiseau
+            assertThat(Haversine.distanceKm(33.5731, -7.5898, 34.0209, -6.8416)).isBetween(85.0, 89.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tournée d'un livreur")
+    class TourneeTests {
+
+        @Test
+        @DisplayName("Devrait ordonner les arrêts et isoler les colis sans coordonnées")
+        void shouldOrderStops() {
+            when(livreurRepository.existsById("liv-1")).thenReturn(true);
+            when(colisRepository.findOpenStopsByLivreur(eq("liv-1"), anyCollection())).thenReturn(List.of(
+                    ligne("c-1", StatutColis.EN_TRANSIT, 33.58, -7.60),
+                    ligne("c-2", StatutColis.CREE, 33.52, -7.60),
+                    ligne("c-3", StatutColis.EN_TRANSIT, 33.54, -7.60),
+                    ligne("c-4", StatutColis.EN_TRANSIT, null, null)));
+
+            TourneeDTO tournee = service.getTournee("liv-1", 33.50, -7.60);
+
+            assertThat(tournee.getArrets()).extracting(ArretTourneeDTO::getColisId).containsExactly("c-2", "c-3", "c-1");
+            assertThat(tournee.getArrets().get(0).getType()).isEqualTo(TypeArret.COLLECTE);
+            assertThat(tournee.getColisSansCoordonnees()).containsExactly("c-4");
+            assertThat(tournee.getDistanceTotaleKm()).isLessThanOrEqualTo(tournee.getDistanceInitialeKm());
+        }
+
+        @Test
+        @DisplayName("Devrait réutiliser la tournée tant que les colis ne changent pas")
+        void shouldReuseCachedTour() {
+            when(livreurRepository.existsById("liv-1")).thenReturn(true);
+            when(colisRepository.findOpenStopsByLivreur(eq("liv-1"), anyCollection())).thenReturn(List.of(
+                    ligne("c-1", StatutColis.EN_TRANSIT, 33.58, -7.60),
+                    ligne("c-2", StatutColis.EN_TRANSIT, 33.52, -7.60)));
+
+            TourneeDTO premiere = service.getTournee("liv-1", null, null);
+            TourneeDTO seconde = service.getTournee("liv-1", null, null);
+
+            assertThat(seconde).isSameAs(premiere);
+        }
+
+        @Test
+        @DisplayName("Devrait recalculer la tournée quand un colis change de statut sans changer l'ensemble des colis")
+        void shouldRecomputeTourOnStatusChange() {
+            when(livreurRepository.existsById("liv-1")).thenReturn(true);
+            when(colisRepository.findOpenStopsByLivreur(eq("liv-1"), anyCollection()))
+                    .thenReturn(List.of(ligne("c-1", StatutColis.CREE, 33.60, -7.60, 33.50, -7.60),
+                            ligne("c-2", StatutColis.EN_TRANSIT, 33.55, -7.60, 33.55, -7.60)))
+                    .thenReturn(List.of(ligne("c-1", StatutColis.COLLECTE, 33.60, -7.60, 33.50, -7.60),
+                            ligne("c-2", StatutColis.EN_TRANSIT, 33.55, -7.60, 33.55, -7.60)));
+
+            TourneeDTO avant = service.getTournee("liv-1", null, null);
+            TourneeDTO apres = service.getTournee("liv-1", null, null);
+
+            assertThat(apres).isNotSameAs(avant);
+            ArretTourneeDTO collecte = avant.getArrets().stream().filter(a -> a.getColisId().equals("c-1")).findFirst().orElseThrow();
+            ArretTourneeDTO livraison = apres.getArrets().stream().filter(a -> a.getColisId().equals("c-1")).findFirst().orElseThrow();
+            assertThat(collecte.getType()).isEqualTo(TypeArret.COLLECTE);
+            assertThat(collecte.getLatitude()).isEqualTo(33.60);
+            assertThat(livraison.getType()).isEqualTo(TypeArret.LIVRAISON);
+            assertThat(livraison.getLatitude()).isEqualTo(33.50);
+        }
+
+        @Test
+        @DisplayName("Devrait mesurer la distance initiale dans l'ordre de création")
+        void shouldMeasureInitialDistanceInCreationOrder() {
+            LocalDateTime creation = LocalDateTime.now().minusHours(3);
+            Object[] premier = ligne("c-1", StatutColis.EN_TRANSIT, 33.50, -7.60);
+            Object[] urgent = ligne("c-2", StatutColis.EN_TRANSIT, 33.60, -7.60);
+            Object[] dernier = ligne("c-3", StatutColis.EN_TRANSIT, 33.52, -7.60);
+            premier[4] = creation;
+            urgent[4] = creation.plusHours(1);
+            urgent[2] = PrioriteColis.TRES_URGENT;
+            dernier[4] = creation.plusHours(2);
+            when(livreurRepository.existsById("liv-1")).thenReturn(true);
+            when(colisRepository.findOpenStopsByLivreur(eq("liv-1"), anyCollection()))
+                    .thenReturn(List.of(premier, urgent, dernier));
+
+            TourneeDTO tournee = service.getTournee("liv-1", null, null);
+
+            // c-1 -> c-2 -> c-3, même si c-2, le plus urgent, ouvre la tournée optimisée
+            double attendue = Haversine.distanceKm(33.50, -7.60, 33.60, -7.60) + Haversine.distanceKm(33.60, -7.60, 33.52, -7.60);
+            assertThat(tournee.getArrets().get(0).getColisId()).isEqualTo("c-2");
+            assertThat(tournee.getDistanceInitialeKm().doubleValue()).isCloseTo(attendue, within(0.001));
+        }
+
+        @Test
+        @DisplayName("Devrait oublier la tournée d'un livreur désactivé")
+        void shouldForgetTourOfDeactivatedLivreur() {
+            when(livreurRepository.existsById("liv-1")).thenReturn(true);
+            when(colisRepository.findOpenStopsByLivreur(eq("liv-1"), anyCollection()))
+                    .thenReturn(Collections.singletonList(ligne("c-1", StatutColis.EN_TRANSIT, 33.58, -7.60)));
+
+            TourneeDTO premiere = service.getTournee("liv-1", null, null);
+            service.onLivreurChange(new LivreurChangeEvent("liv-1", "Alami", "Ahmed", false, null, null, false));
+
+            assertThat(service.getTournee("liv-1", null, null)).isNotSameAs(premiere);
+        }
+
+        @Test
+        @DisplayName("Devrait optimiser les tournées de tous les livreurs actifs")
+        void shouldOptimizeAllActiveLivreurs() {
+            Livreur l1 = new Livreur();
+            l1.setId("liv-1");
+            Livreur l2 = new Livreur();
+            l2.setId("liv-2");
+            when(livreurRepository.findByActif(true)).thenReturn(List.of(l1, l2));
+            when(colisRepository.findOpenStopsByLivreur(anyString(), anyCollection()))
+                    .thenReturn(Collections.singletonList(ligne("c-1", StatutColis.EN_TRANSIT, 33.58, -7.60)));
+
+            service.optimiserToutes();
+
+            verify(colisRepository).findOpenStopsByLivreur(eq("liv-1"), anyCollection());
+            verify(colisRepository).findOpenStopsByLivreur(eq("liv-2"), anyCollection());
+        }
+
+        @Test
+        @DisplayName("Devrait refuser la tournée d'un autre livreur")
+        void shouldDenyOtherLivreur() {
+            Livreur autre = new Livreur();
+            autre.setId("liv-2");
+            User user = new User();
+            user.setLivreur(autre);
+            when(userRepository.findByUsername("livreur")).thenReturn(Optional.of(user));
+            Authentication auth = new UsernamePasswordAuthenticationToken("livreur", null,
+                    List.of(new SimpleGrantedAuthority("ROLE_LIVREUR")));
+
+            assertThatThrownBy(() -> service.getTourneeForUser("liv-1", null, null, auth))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait lever une exception si le livreur n'existe pas")
+        void shouldThrowWhenLivreurNotFound() {
+            when(livreurRepository.existsById("inconnu")).thenReturn(false);
+
+            assertThatThrownBy(() -> service.getTournee("inconnu", null, null))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    private Object[] ligne(String colisId, StatutColis statut, Double latitude, Double longitude) {
+        return ligne(colisId, statut, latitude, longitude, latitude, longitude);
+    }
+
+    // Coordonnées de l'expéditeur (arrêt de collecte) puis du destinataire (arrêt de livraison)
+    private Object[] ligne(String colisId, StatutColis statut, Double latitudeExpediteur, Double longitudeExpediteur,
+                           Double latitudeDestinataire, Double longitudeDestinataire) {
+        return new Object[]{colisId, statut, PrioriteColis.NORMALE, null, LocalDateTime.now(),
+                "Martin", "Marie", "Adresse", "Adresse expéditeur", latitudeExpediteur, longitudeExpediteur,
+                latitudeDestinataire, longitudeDestinataire};
+    }
+}
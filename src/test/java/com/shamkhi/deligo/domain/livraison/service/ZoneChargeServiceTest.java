@@ -0,0 +1,127 @@
+package com.shamkhi.deligo.domain.livraison.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.client.model.Destinataire;
+import com.shamkhi.deligo.domain.client.repository.ClientExpediteurRepository;
+import com.shamkhi.deligo.domain.client.repository.DestinataireRepository;
+import com.shamkhi.deligo.domain.colis.model.Colis;
+import com.shamkhi.deligo.domain.colis.model.PrioriteColis;
+import com.shamkhi.deligo.domain.colis.model.StatutColis;
+import com.shamkhi.deligo.domain.colis.repository.ColisRepository;
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeDTO;
+import com.shamkhi.deligo.domain.livraison.dto.ZoneChargeResponse;
+import com.shamkhi.deligo.domain.livraison.model.Zone;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneChargeRepository;
+import com.shamkhi.deligo.domain.livraison.repository.ZoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du ZoneChargeService")
+class ZoneChargeServiceTest {
+
+    @Autowired private ZoneChargeRepository zoneChargeRepository;
+    @Autowired private ZoneRepository zoneRepository;
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private ZoneChargeService service;
+    private SimpleMeterRegistry meterRegistry;
+    private Zone zone;
+    private ClientExpediteur client;
+    private Destinataire destinataire;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ZoneChargeService(zoneChargeRepository, jdbcTemplate, transactionManager, meterRegistry);
+
+        zone = new Zone();
+        zone.setNom("Casablanca Centre");
+        zone.setCodePostal("20000");
+        zone.setVille("Casablanca");
+        zone = zoneRepository.save(zone);
+
+        client = new ClientExpediteur();
+        client.setNom("Test");
+        client.setPrenom("User");
+        client.setEmail("test@test.com");
+        client.setTelephone("0612345678");
+        client.setAdresse("Address");
+        client = clientRepository.save(client);
+
+        destinataire = new Destinataire();
+        destinataire.setNom("Dest");
+        destinataire.setPrenom("User");
+        destinataire.setTelephone("0698765432");
+        destinataire.setAdresse("Address");
+        destinataire = destinataireRepository.save(destinataire);
+    }
+
+    @Test
+    @DisplayName("Devrait agréger les colis ouverts par zone, priorité et statut")
+    void shouldAggregateOpenColis() {
+        saveColis(StatutColis.EN_STOCK, PrioriteColis.URGENT, LocalDateTime.now().minusHours(1));
+        saveColis(StatutColis.EN_STOCK, PrioriteColis.URGENT, LocalDateTime.now().plusDays(1));
+        saveColis(StatutColis.EN_TRANSIT, PrioriteColis.NORMALE, null);
+        saveColis(StatutColis.LIVRE, PrioriteColis.URGENT, null);
+
+        assertThat(service.getCharge(null).getCharges()).isEmpty();
+
+        service.rafraichir();
+        ZoneChargeResponse response = service.getCharge(zone.getId());
+
+        assertThat(response.getDateRafraichissement()).isNotNull();
+        assertThat(response.getCharges()).hasSize(2);
+
+        ZoneChargeDTO urgent = response.getCharges().stream()
+                .filter(c -> c.getPriorite() == PrioriteColis.URGENT).findFirst().orElseThrow();
+        assertThat(urgent.getStatut()).isEqualTo(StatutColis.EN_STOCK);
+        assertThat(urgent.getNombreColis()).isEqualTo(2);
+        assertThat(urgent.getNombreEnRetard()).isEqualTo(1);
+        assertThat(urgent.getPoidsTotal()).isEqualByComparingTo("5.00");
+        assertThat(urgent.getZoneNom()).isEqualTo("Casablanca Centre");
+    }
+
+    @Test
+    @DisplayName("Devrait remplacer le contenu à chaque rafraîchissement et publier les métriques")
+    void shouldReplaceContentAndRecordMetrics() {
+        assertThat(service.getAncienneteSecondes()).isNaN();
+
+        saveColis(StatutColis.CREE, PrioriteColis.NORMALE, null);
+        service.rafraichir();
+        service.rafraichir();
+
+        assertThat(service.getCharge(null).getCharges()).hasSize(1);
+        assertThat(meterRegistry.get("deligo.zone.charge.rafraichissement").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("deligo.zone.charge.anciennete").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    private void saveColis(StatutColis statut, PrioriteColis priorite, LocalDateTime dateLimite) {
+        Colis colis = new Colis();
+        colis.setDescription("Colis");
+        colis.setPoids(BigDecimal.valueOf(2.5));
+        colis.setStatut(statut);
+        colis.setPriorite(priorite);
+        colis.setVilleDestination("Casablanca");
+        colis.setClientExpediteur(client);
+        colis.setDestinataire(destinataire);
+        colis.setZone(zone);
+        colis.setDateLimiteLivraison(dateLimite);
+        colisRepository.saveAndFlush(colis);
+    }
+}
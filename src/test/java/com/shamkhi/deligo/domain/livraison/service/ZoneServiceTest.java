@@ -8,6 +8,7 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 
 import java.util.*;
@@ -22,6 +23,7 @@ class ZoneServiceTest {
 
     @Mock private ZoneRepository repository;
     @Mock private ZoneMapper mapper;
+    @Mock private ApplicationEventPublisher eventPublisher;
     @InjectMocks private ZoneService service;
 
     private Zone zone;
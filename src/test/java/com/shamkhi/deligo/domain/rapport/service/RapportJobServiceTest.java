@@ -0,0 +1,158 @@
+package com.shamkhi.deligo.domain.rapport.service;
+
+import com.shamkhi.deligo.domain.rapport.dto.RapportJobDTO;
+import com.shamkhi.deligo.domain.rapport.dto.RapportRequest;
+import com.shamkhi.deligo.domain.rapport.model.StatutRapport;
+import com.shamkhi.deligo.domain.rapport.model.TypeRapport;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du RapportJobService")
+class RapportJobServiceTest {
+
+    @Mock private RapportGenerator generator;
+
+    @TempDir Path dossier;
+
+    private RapportJobService service;
+    private RapportRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new RapportJobService(generator);
+        ReflectionTestUtils.setField(service, "maxConnexions", 1);
+        ReflectionTestUtils.setField(service, "fileCapacite", 5);
+        ReflectionTestUtils.setField(service, "repertoire", dossier.toString());
+        ReflectionTestUtils.setField(service, "retentionHeures", 24L);
+        service.init();
+
+        request = new RapportRequest(TypeRapport.VOLUME_MENSUEL_CLIENT,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31), null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Devrait générer le rapport et exposer le résultat")
+    void shouldGenerateReport() throws Exception {
+        doAnswer(invocation -> {
+            Files.writeString(invocation.getArgument(1), "contenu");
+            return null;
+        }).when(generator).generer(any(), any());
+
+        RapportJobDTO job = service.soumettre(request);
+        RapportJobDTO termine = attendreStatut(job.getId(), StatutRapport.TERMINE);
+
+        assertThat(termine.getProgression()).isEqualTo(100);
+        assertThat(service.getResultat(job.getId()).exists()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait réutiliser le job d'une demande identique")
+    void shouldDeduplicateIdenticalRequests() throws Exception {
+        CountDownLatch bloque = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            bloque.await(5, TimeUnit.SECONDS);
+            Files.writeString(invocation.getArgument(1), "contenu");
+            return null;
+        }).when(generator).generer(any(), any());
+
+        RapportJobDTO premier = service.soumettre(request);
+        RapportJobDTO second = service.soumettre(new RapportRequest(TypeRapport.VOLUME_MENSUEL_CLIENT,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31), null, null));
+
+        assertThat(second.getId()).isEqualTo(premier.getId());
+        bloque.countDown();
+        attendreStatut(premier.getId(), StatutRapport.TERMINE);
+    }
+
+    @Test
+    @DisplayName("Devrait annuler un job en cours")
+    void shouldCancelRunningJob() throws Exception {
+        CountDownLatch demarre = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            demarre.countDown();
+            Thread.sleep(5_000);
+            return null;
+        }).when(generator).generer(any(), any());
+
+        RapportJobDTO job = service.soumettre(request);
+        assertThat(demarre.await(5, TimeUnit.SECONDS)).isTrue();
+
+        RapportJobDTO annule = service.annuler(job.getId());
+
+        assertThat(annule.getStatut()).isEqualTo(StatutRapport.ANNULE);
+        assertThatThrownBy(() -> service.getResultat(job.getId()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait retirer de la file un job annulé avant son démarrage")
+    void shouldRemoveQueuedJobOnCancel() throws Exception {
+        CountDownLatch demarre = new CountDownLatch(1);
+        CountDownLatch bloque = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            demarre.countDown();
+            bloque.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(generator).generer(any(), any());
+
+        service.soumettre(request);
+        assertThat(demarre.await(5, TimeUnit.SECONDS)).isTrue();
+        RapportJobDTO enAttente = service.soumettre(new RapportRequest(TypeRapport.PERFORMANCE_LIVREUR,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31), null, null));
+
+        service.annuler(enAttente.getId());
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+        assertThat(executor.getQueue()).isEmpty();
+        bloque.countDown();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une période invalide")
+    void shouldRejectInvalidPeriod() {
+        request.setDateFin(LocalDate.of(2024, 12, 31));
+
+        assertThatThrownBy(() -> service.soumettre(request))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait lever exception si job inexistant")
+    void shouldThrowWhenNotFound() {
+        assertThatThrownBy(() -> service.getJob("inconnu"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private RapportJobDTO attendreStatut(String id, StatutRapport statut) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        RapportJobDTO job = service.getJob(id);
+        while (job.getStatut() != statut && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            job = service.getJob(id);
+        }
+        assertThat(job.getStatut()).isEqualTo(statut);
+        return job;
+    }
+}
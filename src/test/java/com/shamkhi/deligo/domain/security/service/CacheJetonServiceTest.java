@@ -0,0 +1,105 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Tests du CacheJetonService")
+class CacheJetonServiceTest {
+
+    @Mock private RevocationJetonService revocationJetonService;
+    @Mock private RefreshTokenService refreshTokenService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+    private CacheJetonService service;
+    private String jeton;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = spy(JwtServiceTest.creer(revocationJetonService, 60_000L));
+        service = new CacheJetonService(jwtService, revocationJetonService, refreshTokenService, meterRegistry, 1_000_000, 3600);
+        when(revocationJetonService.estValide(eq("livreur1"), anyInt())).thenReturn(true);
+        jeton = jwtService.generateToken(User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR", "COLIS_READ")
+                .build());
+    }
+
+    @Test
+    @DisplayName("Devrait vérifier la signature une seule fois pour un même jeton")
+    void shouldVerifySignatureOnce() {
+        JetonVerifie premier = service.verifierAcces(jeton);
+        JetonVerifie second = service.verifierAcces(jeton);
+
+        assertThat(second).isSameAs(premier);
+        verify(jwtService, times(1)).validateAccessToken(jeton);
+        assertThat(meterRegistry.get("deligo.jetons.cache.taux-succes").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un jeton en cache après révocation ou désactivation du compte")
+    void shouldRejectCachedTokenAfterRevocation() {
+        service.verifierAcces(jeton);
+        when(revocationJetonService.estValide(eq("livreur1"), anyInt())).thenReturn(false);
+
+        assertThatThrownBy(() -> service.verifierAcces(jeton)).isInstanceOf(JwtException.class);
+        verify(jwtService, times(1)).validateAccessToken(jeton);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas mettre en cache un jeton invalide")
+    void shouldNotCacheInvalidToken() {
+        String refresh = jwtService.generateRefreshToken(User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR")
+                .build());
+
+        assertThatThrownBy(() -> service.verifierAcces(refresh)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> service.verifierAcces(refresh)).isInstanceOf(JwtException.class);
+        verify(jwtService, times(2)).validateAccessToken(refresh);
+        assertThat(service.tailleEstimeeOctets()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait comptabiliser la mémoire et retirer les jetons d'un compte modifié")
+    void shouldAccountMemoryAndEvictModifiedAccount() {
+        JetonVerifie verifie = service.verifierAcces(jeton);
+        assertThat(service.tailleEstimeeOctets()).isEqualTo(CacheJetonService.estimerOctets(verifie));
+
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification("u1", "livreur1"));
+
+        assertThat(service.tailleEstimeeOctets()).isZero();
+        service.verifierAcces(jeton);
+        verify(jwtService, times(2)).validateAccessToken(jeton);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un jeton d'accès dont la famille de refresh tokens est révoquée")
+    void shouldRejectTokenOfRevokedFamily() {
+        String jetonFamille = jwtService.generateToken(User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR")
+                .build(), "famille-1");
+        assertThat(service.verifierAcces(jetonFamille).getFamille()).isEqualTo("famille-1");
+
+        when(refreshTokenService.isFamilleRevoquee("famille-1")).thenReturn(true);
+
+        assertThatThrownBy(() -> service.verifierAcces(jetonFamille)).isInstanceOf(JwtException.class);
+        assertThat(service.verifierAcces(jeton)).isNotNull();
+    }
+}
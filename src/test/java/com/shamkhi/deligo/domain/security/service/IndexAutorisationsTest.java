@@ -0,0 +1,79 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import org.junit.jupiter.api.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests de l'IndexAutorisations")
+class IndexAutorisationsTest {
+
+    private IndexAutorisations index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IndexAutorisations();
+        index.reconstruire(List.of("ROLE_MANAGER", "ROLE_LIVREUR", "COLIS_READ", "COLIS_UPDATE_STATUS"));
+    }
+
+    @Test
+    @DisplayName("Devrait contrôler les rôles et permissions d'un principal compilé")
+    void shouldCheckCompiledPrincipal() {
+        UtilisateurAutorise livreur = index.compiler("livreur1", "hash", true,
+                List.of("ROLE_LIVREUR", "COLIS_READ", "COLIS_READ"));
+        Authentication auth = authentifier(livreur);
+
+        assertThat(index.possede(auth, "ROLE_LIVREUR")).isTrue();
+        assertThat(index.possede(auth, "COLIS_READ")).isTrue();
+        assertThat(index.possede(auth, "ROLE_MANAGER")).isFalse();
+        assertThat(index.possede(auth, "INCONNUE")).isFalse();
+        assertThat(livreur.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_LIVREUR", "COLIS_READ");
+    }
+
+    @Test
+    @DisplayName("Devrait partager les GrantedAuthority entre principaux")
+    void shouldShareAuthorities() {
+        UtilisateurAutorise premier = index.compiler("livreur1", "", true, List.of("ROLE_LIVREUR"));
+        UtilisateurAutorise second = index.compiler("livreur2", "", true, List.of("ROLE_LIVREUR"));
+
+        assertThat(new ArrayList<>(premier.getAuthorities()).get(0))
+                .isSameAs(new ArrayList<>(second.getAuthorities()).get(0));
+    }
+
+    @Test
+    @DisplayName("Devrait garder les bitsets valides après reconstruction de l'index")
+    void shouldKeepBitsetsValidAfterRebuild() {
+        UtilisateurAutorise client = index.compiler("client1", "", true, List.of("ROLE_CLIENT", "COLIS_READ"));
+        Authentication auth = authentifier(client);
+
+        index.reconstruire(List.of("ROLE_CLIENT", "ROLE_LIVREUR", "COLIS_READ", "AAA_NOUVELLE"));
+
+        // ROLE_CLIENT, inconnu à la compilation, est contrôlé sur les authorities
+        assertThat(index.possede(auth, "ROLE_CLIENT")).isTrue();
+        assertThat(index.possede(auth, "COLIS_READ")).isTrue();
+        assertThat(index.possede(auth, "AAA_NOUVELLE")).isFalse();
+        assertThat(index.possede(auth, "ROLE_LIVREUR")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait contrôler un principal non compilé par ses authorities")
+    void shouldFallBackForPlainPrincipal() {
+        Authentication auth = new UsernamePasswordAuthenticationToken("oauth", null,
+                AuthorityUtils.createAuthorityList("ROLE_MANAGER"));
+
+        assertThat(index.possede(auth, "ROLE_MANAGER")).isTrue();
+        assertThat(index.possede(auth, "ROLE_LIVREUR")).isFalse();
+        assertThat(index.possede(null, "ROLE_MANAGER")).isFalse();
+    }
+
+    private static Authentication authentifier(UtilisateurAutorise utilisateur) {
+        return new UsernamePasswordAuthenticationToken(utilisateur, null, utilisateur.getAuthorities());
+    }
+}
@@ -0,0 +1,100 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+
+/**
+ * Coût de la vérification d'un jeton d'accès par requête, avant et après le parsing unique :
+ * {@code avant} reproduit l'ancien chemin du filtre (clé reconstruite et jeton parsé à chaque
+ * extractUsername/extractExpiration, soit trois vérifications HMAC), {@code apres} appelle
+ * JwtService.validateAccessToken, {@code cache} passe par CacheJetonService (jeton déjà vérifié).
+ * <p>
+ * Lancement (JMH relance un JVM avec le classpath courant, d'où l'appel direct à java) :
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.shamkhi.deligo.domain.security.service.JwtServiceBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private CacheJetonService cacheJetonService;
+    private String jeton;
+
+    @Setup
+    public void setUp() {
+        // Table des versions sans base : un mock Mockito enregistrerait chaque appel et fausserait la mesure
+        RevocationJetonService revocationJetonService = new RevocationJetonService(null, 30_000) {
+            @Override
+            public int versionCourante(String username) {
+                return 0;
+            }
+
+            @Override
+            public boolean estValide(String username, int version) {
+                return version == 0;
+            }
+        };
+        jwtService = JwtServiceTest.creer(revocationJetonService, 86_400_000L);
+        // Filtre des familles révoquées vide, consulté en mémoire uniquement
+        RefreshTokenService refreshTokenService = new RefreshTokenService(null, jwtService, null, null,
+                new SimpleMeterRegistry(), 100_000, 1000);
+        cacheJetonService = new CacheJetonService(jwtService, revocationJetonService, refreshTokenService,
+                new SimpleMeterRegistry(), 1_000_000, 86_400);
+        jeton = jwtService.generateToken(User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR", "COLIS_READ", "COLIS_UPDATE_STATUS")
+                .build(), UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public boolean avant() {
+        String username = ancienneExtraction(jeton, Claims::getSubject);
+        return username != null
+                && username.equals(ancienneExtraction(jeton, Claims::getSubject))
+                && !ancienneExtraction(jeton, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public JetonVerifie apres() {
+        return jwtService.validateAccessToken(jeton);
+    }
+
+    @Benchmark
+    public JetonVerifie cache() {
+        return cacheJetonService.verifierAcces(jeton);
+    }
+
+    private static <T> T ancienneExtraction(String token, Function<Claims, T> resolver) {
+        SecretKey cle = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtServiceTest.SECRET));
+        return resolver.apply(Jwts.parser().verifyWith(cle).build().parseSignedClaims(token).getPayload());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du JwtService")
+class JwtServiceTest {
+
+    static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Mock private RevocationJetonService revocationJetonService;
+
+    private JwtService service;
+    private UserDetails livreur;
+
+    @BeforeEach
+    void setUp() {
+        service = creer(revocationJetonService, 60_000L);
+        livreur = User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR", "COLIS_READ")
+                .build();
+        lenient().when(revocationJetonService.versionCourante("livreur1")).thenReturn(3);
+    }
+
+    static JwtService creer(RevocationJetonService revocationJetonService, long expiration) {
+        JwtService service = new JwtService(revocationJetonService);
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "expiration", expiration);
+        ReflectionTestUtils.setField(service, "refreshExpiration", expiration);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("Devrait extraire en une fois les claims d'un jeton d'accès")
+    void shouldVerifyAccessTokenOnce() {
+        JetonVerifie jeton = service.validateAccessToken(service.generateToken(livreur));
+
+        assertThat(jeton.getUsername()).isEqualTo("livreur1");
+        assertThat(jeton.getVersion()).isEqualTo(3);
+        assertThat(jeton.getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_LIVREUR", "COLIS_READ");
+        assertThat(jeton.getExpiration()).isAfter(jeton.getEmission());
+    }
+
+    @Test
+    @DisplayName("Devrait porter l'identité du compte dans les claims du jeton d'accès")
+    void shouldCarryAccountIdentity() {
+        UtilisateurAutorise utilisateur = new IndexAutorisations()
+                .compiler("livreur1", "", true, List.of("ROLE_LIVREUR"))
+                .avecIdentite("u1", "l1", null);
+
+        JetonVerifie jeton = service.validateAccessToken(service.generateToken(utilisateur));
+        JetonVerifie anonyme = service.validateAccessToken(service.generateToken(livreur));
+
+        assertThat(jeton.getUserId()).isEqualTo("u1");
+        assertThat(jeton.getLivreurId()).isEqualTo("l1");
+        assertThat(jeton.getClientId()).isNull();
+        assertThat(anonyme.getUserId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un refresh token comme jeton d'accès, et inversement")
+    void shouldNotMixTokenTypes() {
+        when(revocationJetonService.versionIdentifiantsCourante("livreur1")).thenReturn(1);
+        String refresh = service.generateRefreshToken(livreur);
+        String acces = service.generateToken(livreur);
+        when(revocationJetonService.identifiantsValides("livreur1", 1)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.validateAccessToken(refresh)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> service.validateRefreshTokenClaims(acces)).isInstanceOf(JwtException.class);
+        assertThat(service.validateRefreshTokenClaims(refresh).getUsername()).isEqualTo("livreur1");
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un refresh token révoqué")
+    void shouldRejectRevokedRefreshToken() {
+        when(revocationJetonService.versionIdentifiantsCourante("livreur1")).thenReturn(1);
+        String refresh = service.generateRefreshToken(livreur);
+        when(revocationJetonService.identifiantsValides("livreur1", 1)).thenReturn(false);
+
+        assertThat(service.validateRefreshToken(refresh)).isFalse();
+        verify(revocationJetonService, never()).estValide(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un jeton expiré ou dont la signature est altérée")
+    void shouldRejectExpiredOrForeignTokens() {
+        String expire = creer(revocationJetonService, -1_000L).generateToken(livreur);
+        // Claims d'un autre compte avec la signature du jeton de livreur1
+        String[] parties = service.generateToken(livreur).split("\\.");
+        String autre = service.generateToken(User.withUsername("manager").password("")
+                .authorities("ROLE_MANAGER").build()).split("\\.")[1];
+        String altere = parties[0] + "." + autre + "." + parties[2];
+
+        assertThatThrownBy(() -> service.verifier(expire)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> service.verifier(altere)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,115 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.application.mapper.SecurityMapperImpl;
+import com.shamkhi.deligo.domain.security.dto.PermissionDTO;
+import com.shamkhi.deligo.domain.security.dto.RoleDTO;
+import com.shamkhi.deligo.domain.security.event.AutorisationsChangeEvent;
+import com.shamkhi.deligo.domain.security.model.Permission;
+import com.shamkhi.deligo.domain.security.model.Role;
+import com.shamkhi.deligo.domain.security.repository.PermissionRepository;
+import com.shamkhi.deligo.domain.security.repository.RoleRepository;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du PermissionService")
+class PermissionServiceTest {
+
+    @Autowired private PermissionRepository permissionRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    private final List<Object> evenements = new ArrayList<>();
+    private IndexAutorisations indexAutorisations;
+    private PermissionService service;
+    private Permission lecture;
+    private Permission statut;
+    private Role livreur;
+
+    @BeforeEach
+    void setUp() {
+        lecture = savePermission("COLIS_READ", "COLIS");
+        statut = savePermission("COLIS_UPDATE_STATUS", "COLIS");
+        livreur = new Role();
+        livreur.setName("ROLE_LIVREUR");
+        livreur.setPermissions(new HashSet<>(Set.of(lecture, statut)));
+        livreur = roleRepository.save(livreur);
+        Role client = new Role();
+        client.setName("ROLE_CLIENT");
+        client.setPermissions(new HashSet<>());
+        roleRepository.save(client);
+        entityManager.flush();
+
+        indexAutorisations = new IndexAutorisations();
+        service = new PermissionService(permissionRepository, roleRepository, new SecurityMapperImpl(),
+                userRepository, evenements::add, jdbcTemplate, indexAutorisations);
+        service.chargerGraphe();
+    }
+
+    @Test
+    @DisplayName("Devrait servir les rôles et permissions depuis l'instantané")
+    void shouldServeReadsFromSnapshot() {
+        List<RoleDTO> roles = service.getAllRoles();
+
+        assertThat(roles).extracting(RoleDTO::getName).containsExactly("ROLE_CLIENT", "ROLE_LIVREUR");
+        assertThat(service.getRoleByName("ROLE_LIVREUR").getPermissions())
+                .containsExactlyInAnyOrder("COLIS_READ", "COLIS_UPDATE_STATUS");
+        assertThat(service.getRoleByName("ROLE_CLIENT").getPermissions()).isEmpty();
+        assertThat(service.getPermissionsForRole(livreur.getId())).extracting(PermissionDTO::getName)
+                .containsExactlyInAnyOrder("COLIS_READ", "COLIS_UPDATE_STATUS");
+        assertThat(service.getPermissionsByResource("COLIS")).hasSize(2);
+        assertThat(service.getGraphe().autorisations(List.of("ROLE_LIVREUR")))
+                .containsExactly("ROLE_LIVREUR", "COLIS_READ", "COLIS_UPDATE_STATUS");
+    }
+
+    @Test
+    @DisplayName("Devrait remplacer l'instantané après une modification validée")
+    void shouldSwapSnapshotAfterMutation() {
+        GrapheAutorisations avant = service.getGraphe();
+
+        service.removePermissionFromRole(livreur.getId(), statut.getId());
+        entityManager.flush();
+
+        // L'instantané courant reste celui d'avant jusqu'à la validation de la transaction
+        assertThat(service.getGraphe()).isSameAs(avant);
+        assertThat(evenements).hasAtLeastOneElementOfType(AutorisationsChangeEvent.class);
+
+        service.onAutorisationsChange(new AutorisationsChangeEvent());
+
+        assertThat(service.getGraphe().getVersion()).isEqualTo(avant.getVersion() + 1);
+        assertThat(service.getRoleByName("ROLE_LIVREUR").getPermissions()).containsExactly("COLIS_READ");
+        assertThat(avant.roleParNom("ROLE_LIVREUR").orElseThrow().getPermissions()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Devrait signaler les rôles et permissions inconnus")
+    void shouldThrowForUnknownEntries() {
+        assertThatThrownBy(() -> service.getRoleById("inconnu"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.getPermissionByName("INCONNUE"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private Permission savePermission(String name, String resource) {
+        Permission permission = new Permission();
+        permission.setName(name);
+        permission.setResource(resource);
+        return permissionRepository.save(permission);
+    }
+}
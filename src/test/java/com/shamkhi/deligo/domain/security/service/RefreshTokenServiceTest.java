@@ -0,0 +1,148 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.security.model.RefreshToken;
+import com.shamkhi.deligo.domain.security.repository.RefreshTokenRepository;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Chaque opération du service valide sa propre transaction, comme en production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests du RefreshTokenService")
+class RefreshTokenServiceTest {
+
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        RevocationJetonService revocationJetonService = mock(RevocationJetonService.class);
+        when(revocationJetonService.identifiantsValides(anyString(), anyInt())).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = JwtServiceTest.creer(revocationJetonService, 60_000L);
+        service = creerService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    private RefreshTokenService creerService() {
+        UserDetailsService userDetailsService = username -> User.withUsername(username)
+                .password("")
+                .authorities("ROLE_LIVREUR")
+                .build();
+        return new RefreshTokenService(refreshTokenRepository, jwtService, userDetailsService, transactionManager,
+                meterRegistry, 1000, 2);
+    }
+
+    @Test
+    @DisplayName("Devrait consommer le refresh token et en émettre un nouveau dans la même famille")
+    void shouldRotateWithinFamily() {
+        RefreshTokenService.Jetons login = service.emettre(livreur());
+        JetonVerifie initial = jwtService.verifier(login.getRefreshToken());
+
+        RefreshTokenService.Jetons renouveles = service.renouveler(login.getRefreshToken());
+
+        JetonVerifie suivant = jwtService.verifier(renouveles.getRefreshToken());
+        assertThat(suivant.getFamille()).isEqualTo(initial.getFamille());
+        assertThat(suivant.getId()).isNotEqualTo(initial.getId());
+        assertThat(jwtService.verifier(renouveles.getAccessToken()).getFamille()).isEqualTo(initial.getFamille());
+        assertThat(refreshTokenRepository.findById(initial.getId())).get()
+                .extracting(RefreshToken::getUtilise).isEqualTo(true);
+    }
+
+    @Test
+    @DisplayName("Devrait révoquer toute la famille quand un refresh token est réutilisé")
+    void shouldRevokeFamilyOnReuse() {
+        RefreshTokenService.Jetons login = service.emettre(livreur());
+        RefreshTokenService.Jetons renouveles = service.renouveler(login.getRefreshToken());
+        String famille = jwtService.verifier(login.getRefreshToken()).getFamille();
+
+        assertThatThrownBy(() -> service.renouveler(login.getRefreshToken())).isInstanceOf(JwtException.class);
+
+        assertThat(service.isFamilleRevoquee(famille)).isTrue();
+        assertThatThrownBy(() -> service.renouveler(renouveles.getRefreshToken())).isInstanceOf(JwtException.class);
+        assertThat(refreshTokenRepository.findAll()).allMatch(RefreshToken::getRevoque);
+        assertThat(meterRegistry.get("deligo.refresh.reutilisations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un refresh token émis sans jti ni famille, sans ouvrir de famille")
+    void shouldRejectTokenWithoutFamily() {
+        String ancien = jwtService.generateRefreshToken(livreur());
+
+        assertThatThrownBy(() -> service.renouveler(ancien)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> service.renouveler(ancien)).isInstanceOf(JwtException.class);
+
+        assertThat(refreshTokenRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait recharger les familles révoquées au démarrage")
+    void shouldReloadRevokedFamilies() {
+        RefreshTokenService.Jetons login = service.emettre(livreur());
+        String famille = jwtService.verifier(login.getRefreshToken()).getFamille();
+        service.revoquerFamille(famille);
+
+        RefreshTokenService redemarre = creerService();
+        assertThat(redemarre.isFamilleRevoquee(famille)).isFalse();
+        redemarre.charger();
+
+        assertThat(redemarre.isFamilleRevoquee(famille)).isTrue();
+        assertThat(redemarre.isFamilleRevoquee(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer par lots les refresh tokens expirés et oublier leurs familles")
+    void shouldPurgeExpiredTokensInBatches() {
+        LocalDateTime hier = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 5; i++) {
+            refreshTokenRepository.save(RefreshToken.builder()
+                    .id(UUID.randomUUID().toString())
+                    .famille("famille-expiree")
+                    .username("livreur1")
+                    .dateCreation(hier.minusDays(7))
+                    .dateExpiration(hier)
+                    .revoque(true)
+                    .build());
+        }
+        service.revoquerFamille("famille-expiree");
+        service.emettre(livreur());
+
+        service.purger();
+
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+        assertThat(service.isFamilleRevoquee("famille-expiree")).isFalse();
+    }
+
+    private static UserDetails livreur() {
+        return User.withUsername("livreur1")
+                .password("")
+                .authorities("ROLE_LIVREUR")
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.client.model.ClientExpediteur;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import com.shamkhi.deligo.infrastructure.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ResolveurUtilisateur")
+class ResolveurUtilisateurTest {
+
+    @Mock private UserRepository userRepository;
+
+    private IndexAutorisations index;
+    private ResolveurUtilisateur resolveur;
+
+    @BeforeEach
+    void setUp() {
+        index = new IndexAutorisations();
+        index.reconstruire(List.of("ROLE_CLIENT", "ROLE_LIVREUR"));
+        resolveur = new ResolveurUtilisateur(userRepository, index);
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer le principal identifié sans requête en base")
+    void shouldReturnIdentifiedPrincipal() {
+        UtilisateurAutorise livreur = index.compiler("livreur1", "", true, List.of("ROLE_LIVREUR"))
+                .avecIdentite("u1", "l1", null);
+
+        UtilisateurAutorise resolu = resolveur.resoudre(authentifier(livreur));
+
+        assertThat(resolu).isSameAs(livreur);
+        assertThat(resolu.getLivreurId()).isEqualTo("l1");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait compléter depuis la base un principal sans identité")
+    void shouldLoadIdentityOfLegacyPrincipal() {
+        ClientExpediteur client = new ClientExpediteur();
+        client.setId("c1");
+        when(userRepository.findByUsername("client1")).thenReturn(Optional.of(User.builder()
+                .id("u2")
+                .username("client1")
+                .clientExpediteur(client)
+                .build()));
+        Authentication auth = authentifier(index.compiler("client1", "", true, List.of("ROLE_CLIENT")));
+
+        UtilisateurAutorise resolu = resolveur.resoudre(auth);
+
+        assertThat(resolu.getUserId()).isEqualTo("u2");
+        assertThat(resolu.getClientId()).isEqualTo("c1");
+        assertThat(resolu.getLivreurId()).isNull();
+        assertThat(index.possede(new UsernamePasswordAuthenticationToken(resolu, null, resolu.getAuthorities()),
+                "ROLE_CLIENT")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait signaler un utilisateur inconnu")
+    void shouldRejectUnknownUser() {
+        when(userRepository.findByUsername("fantome")).thenReturn(Optional.empty());
+        Authentication auth = new UsernamePasswordAuthenticationToken("fantome", null,
+                AuthorityUtils.createAuthorityList("ROLE_CLIENT"));
+
+        assertThatThrownBy(() -> resolveur.resoudre(auth)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static Authentication authentifier(UtilisateurAutorise utilisateur) {
+        return new UsernamePasswordAuthenticationToken(utilisateur, null, utilisateur.getAuthorities());
+    }
+}
@@ -0,0 +1,162 @@
+package com.shamkhi.deligo.domain.security.service;
+
+import com.shamkhi.deligo.domain.security.event.UtilisateurChangeEvent;
+import com.shamkhi.deligo.domain.security.model.Role;
+import com.shamkhi.deligo.domain.security.model.User;
+import com.shamkhi.deligo.domain.security.repository.RoleRepository;
+import com.shamkhi.deligo.domain.security.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("Tests du RevocationJetonService")
+class RevocationJetonServiceTest {
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private RoleRepository roleRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    private final AtomicLong horloge = new AtomicLong();
+
+    private RevocationJetonService service;
+    private User livreur;
+
+    @BeforeEach
+    void setUp() {
+        service = new RevocationJetonService(jdbcTemplate, horloge::get, 30_000);
+        livreur = saveUser("livreur1", true);
+        service.charger();
+    }
+
+    @Test
+    @DisplayName("Devrait accepter la version courante d'un compte actif")
+    void shouldAcceptCurrentVersion() {
+        assertThat(service.versionCourante("livreur1")).isZero();
+        assertThat(service.estValide("livreur1", 0)).isTrue();
+        assertThat(service.estValide("livreur1", 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un compte inconnu et lire en base un compte créé après le chargement")
+    void shouldReadAccountsCreatedAfterLoading() {
+        assertThat(service.estValide("inconnu", 0)).isFalse();
+
+        saveUser("nouveau", true);
+
+        assertThat(service.estValide("nouveau", 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait garder en mémoire un nom absent de la base pendant une courte durée")
+    void shouldCacheMissingUsernameBriefly() {
+        assertThat(service.estValide("tardif", 0)).isFalse();
+
+        // Compte créé sans événement : l'entrée absente tient jusqu'à son expiration
+        saveUser("tardif", true);
+        assertThat(service.estValide("tardif", 0)).isFalse();
+
+        horloge.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThat(service.estValide("tardif", 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait garder une pierre tombale pour un compte supprimé jusqu'à ce que son nom soit réattribué")
+    void shouldKeepTombstoneForDeletedAccount() {
+        userRepository.delete(livreur);
+        userRepository.flush();
+        service.onUtilisateurChange(UtilisateurChangeEvent.suppression(livreur.getId(), "livreur1"));
+
+        User recree = saveUser("livreur1", true);
+        horloge.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertThat(service.estValide("livreur1", 0)).isFalse();
+
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification(recree.getId(), "livreur1"));
+        assertThat(service.estValide("livreur1", 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait révoquer les jetons émis avant l'incrément de version")
+    void shouldRevokeOlderTokens() {
+        livreur.revoquerJetons();
+        userRepository.saveAndFlush(livreur);
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification(livreur.getId(), "livreur1"));
+
+        assertThat(service.estValide("livreur1", 0)).isFalse();
+        assertThat(service.estValide("livreur1", 1)).isTrue();
+        assertThat(service.versionCourante("livreur1")).isEqualTo(1);
+        assertThat(service.identifiantsValides("livreur1", 0)).isFalse();
+        assertThat(service.versionIdentifiantsCourante("livreur1")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un compte désactivé")
+    void shouldRejectDeactivatedAccount() {
+        livreur.setActif(false);
+        userRepository.saveAndFlush(livreur);
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification(livreur.getId(), "livreur1"));
+
+        assertThat(service.estValide("livreur1", 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait oublier l'ancien nom d'un compte renommé ou supprimé")
+    void shouldForgetRenamedAndDeletedAccounts() {
+        livreur.setUsername("livreur2");
+        userRepository.saveAndFlush(livreur);
+        service.onUtilisateurChange(UtilisateurChangeEvent.modification(livreur.getId(), "livreur1"));
+
+        assertThat(service.estValide("livreur1", 0)).isFalse();
+        assertThat(service.estValide("livreur2", 0)).isTrue();
+
+        userRepository.delete(livreur);
+        userRepository.flush();
+        service.onUtilisateurChange(UtilisateurChangeEvent.suppression(livreur.getId(), "livreur2"));
+
+        assertThat(service.estValide("livreur2", 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait révoquer les jetons d'accès des comptes d'un rôle modifié, pas leurs refresh tokens")
+    void shouldRevokeAccountsOfRole() {
+        Role role = new Role();
+        role.setName("ROLE_LIVREUR");
+        role = roleRepository.save(role);
+        livreur.setRoles(new HashSet<>(Set.of(role)));
+        userRepository.saveAndFlush(livreur);
+        User autre = saveUser("autre", true);
+
+        assertThat(userRepository.revoquerJetonsParRole(role.getId())).isEqualTo(1);
+        entityManager.clear();
+        service.onUtilisateurChange(UtilisateurChangeEvent.tous());
+
+        assertThat(service.estValide("livreur1", 0)).isFalse();
+        assertThat(service.estValide("livreur1", 1)).isTrue();
+        assertThat(service.estValide(autre.getUsername(), 0)).isTrue();
+        assertThat(service.identifiantsValides("livreur1", 0)).isTrue();
+    }
+
+    private User saveUser(String username, boolean actif) {
+        User user = User.builder()
+                .username(username)
+                .email(username + "@deligo.ma")
+                .password("secret")
+                .nom("Alami")
+                .prenom("Ahmed")
+                .actif(actif)
+                .build();
+        return userRepository.saveAndFlush(user);
+    }
+}